@@ -24,6 +24,7 @@
 
 package io.questdb;
 
+import io.questdb.cairo.QueryAdmissionMetrics;
 import io.questdb.cairo.TableWriterMetrics;
 import io.questdb.cutlass.http.processors.JsonQueryMetrics;
 import io.questdb.cutlass.pgwire.PGWireMetrics;
@@ -39,6 +40,7 @@ public class Metrics implements Scrapable {
     private final JsonQueryMetrics jsonQuery;
     private final MetricsRegistry metricsRegistry;
     private final PGWireMetrics pgWire;
+    private final QueryAdmissionMetrics queryAdmission;
     private final Runtime runtime = Runtime.getRuntime();
     private final VirtualGauge.StatProvider jvmFreeMemRef = runtime::freeMemory;
     private final VirtualGauge.StatProvider jvmTotalMemRef = runtime::totalMemory;
@@ -52,6 +54,7 @@ public class Metrics implements Scrapable {
         this.pgWire = new PGWireMetrics(metricsRegistry);
         this.healthCheck = new HealthMetricsImpl(metricsRegistry);
         this.tableWriter = new TableWriterMetrics(metricsRegistry);
+        this.queryAdmission = new QueryAdmissionMetrics(metricsRegistry);
         createMemoryGauges(metricsRegistry);
         this.metricsRegistry = metricsRegistry;
     }
@@ -80,6 +83,10 @@ public class Metrics implements Scrapable {
         return pgWire;
     }
 
+    public QueryAdmissionMetrics queryAdmission() {
+        return queryAdmission;
+    }
+
     @Override
     public void scrapeIntoPrometheus(CharSink sink) {
         metricsRegistry.scrapeIntoPrometheus(sink);
@@ -111,6 +111,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final PropHttpMinIODispatcherConfiguration httpMinIODispatcherConfiguration = new PropHttpMinIODispatcherConfiguration();
     private final PropHttpMinServerConfiguration httpMinServerConfiguration = new PropHttpMinServerConfiguration();
     private final boolean httpMinServerEnabled;
+    private final WorkerPoolConfiguration httpQueryWorkerPoolConfiguration = new PropHttpQueryWorkerPoolConfiguration();
     private final HttpServerConfiguration httpServerConfiguration = new PropHttpServerConfiguration();
     private final boolean httpServerEnabled;
     private final int httpSqlCacheBlockCount;
@@ -172,7 +173,15 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean pgEnabled;
     private final PGWireConfiguration pgWireConfiguration = new PropPGWireConfiguration();
     private final PropPGWireDispatcherConfiguration propPGWireDispatcherConfiguration = new PropPGWireDispatcherConfiguration();
+    private final int queryAdmissionMaxConcurrent;
+    private final int queryAdmissionMaxQueued;
+    private final long queryAdmissionMemoryLimit;
+    private final long queryAdmissionPrincipalMemoryLimit;
+    private final long queryAdmissionTimeout;
     private final int queryCacheEventQueueCapacity;
+    private final long queryMemoryLimit;
+    private final boolean querySpillEnabled;
+    private final String querySpillRoot;
     private final int readerPoolMaxSegments;
     private final double rerunExponentialWaitMultiplier;
     private final int rerunInitialWaitQueueSize;
@@ -205,6 +214,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlCharacterStoreSequencePoolCapacity;
     private final int sqlColumnCastModelPoolCapacity;
     private final int sqlColumnPoolCapacity;
+    private final boolean sqlColumnarProjectionEnabled;
     private final double sqlCompactMapLoadFactor;
     private final int sqlCopyBufferSize;
     private final int sqlCopyModelPoolCapacity;
@@ -247,6 +257,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean sqlParallelFilterEnabled;
     private final boolean sqlParallelFilterPreTouchEnabled;
     private final int sqlRenameTableModelPoolCapacity;
+    private final long sqlResultCacheCapacity;
+    private final boolean sqlResultCacheEnabled;
+    private final long sqlResultCachePageSize;
     private final int sqlSmallMapKeyCapacity;
     private final int sqlSortKeyMaxPages;
     private final long sqlSortKeyPageSize;
@@ -265,6 +278,8 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final boolean telemetryHideTables;
     private final int telemetryQueueCapacity;
     private final TextConfiguration textConfiguration = new PropTextConfiguration();
+    private final long ttlCheckInterval;
+    private final long ttlMaxDeferral;
     private final int vectorAggregateQueueCapacity;
     private final WorkerPoolConfiguration walApplyPoolConfiguration = new PropWalApplyPoolConfiguration();
     private final long walApplySleepTimeout;
@@ -289,6 +304,7 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final long writerFileOpenOpts;
     private final long writerMiscAppendPageSize;
     private final int writerTickRowsCountMod;
+    private int arrowBatchSize;
     private long cairoSqlCopyMaxIndexChunkSize;
     private int connectionPoolInitialCapacity;
     private int connectionStringPoolCapacity;
@@ -318,6 +334,12 @@ public class PropServerConfiguration implements ServerConfiguration {
     private int httpNetConnectionRcvBuf;
     private int httpNetConnectionSndBuf;
     private long httpNetConnectionTimeout;
+    private long httpQueryColumnarMaxRowCount;
+    private int httpQueryPageRowCount;
+    private int httpQueryQueueCapacity;
+    private int[] httpQueryWorkerAffinity;
+    private int httpQueryWorkerCount;
+    private boolean httpQueryWorkerHaltOnError;
     private boolean httpReadOnlySecurityContext;
     private boolean httpServerKeepAlive;
     private String httpVersion;
@@ -445,6 +467,8 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.maxFileNameLength = getInt(properties, env, PropertyKey.CAIRO_MAX_FILE_NAME_LENGTH, 127);
         this.walEnabledDefault = getBoolean(properties, env, PropertyKey.CAIRO_WAL_ENABLED_DEFAULT, false);
         this.walPurgeInterval = getLong(properties, env, PropertyKey.CAIRO_WAL_PURGE_INTERVAL, 30_000);
+        this.ttlCheckInterval = getLong(properties, env, PropertyKey.CAIRO_TTL_CHECK_INTERVAL, 60_000);
+        this.ttlMaxDeferral = getLong(properties, env, PropertyKey.CAIRO_TTL_MAX_DEFERRAL, 3_600_000);
         this.walTxnNotificationQueueCapacity = getQueueCapacity(properties, env, PropertyKey.CAIRO_WAL_TXN_NOTIFICATION_QUEUE_CAPACITY, 4096);
         this.walRecreateDistressedSequencerAttempts = getInt(properties, env, PropertyKey.CAIRO_WAL_RECREATE_DISTRESSED_SEQUENCER_ATTEMPTS, 3);
         this.isWalSupported = getBoolean(properties, env, PropertyKey.CAIRO_WAL_SUPPORTED, false);
@@ -554,6 +578,13 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.httpWorkerYieldThreshold = getLong(properties, env, PropertyKey.HTTP_WORKER_YIELD_THRESHOLD, 10);
                 this.httpWorkerSleepThreshold = getLong(properties, env, PropertyKey.HTTP_WORKER_SLEEP_THRESHOLD, 10_000);
                 this.httpWorkerSleepTimeout = getLong(properties, env, PropertyKey.HTTP_WORKER_SLEEP_TIMEOUT, 10);
+                this.httpQueryWorkerCount = getInt(properties, env, PropertyKey.HTTP_QUERY_WORKER_COUNT, 0);
+                cpuUsed += this.httpQueryWorkerCount;
+                this.httpQueryWorkerAffinity = getAffinity(properties, env, PropertyKey.HTTP_QUERY_WORKER_AFFINITY, httpQueryWorkerCount);
+                this.httpQueryWorkerHaltOnError = getBoolean(properties, env, PropertyKey.HTTP_QUERY_WORKER_HALT_ON_ERROR, false);
+                this.httpQueryQueueCapacity = getQueueCapacity(properties, env, PropertyKey.HTTP_QUERY_QUEUE_CAPACITY, 64);
+                this.httpQueryPageRowCount = getInt(properties, env, PropertyKey.HTTP_QUERY_PAGE_ROW_COUNT, 10_000);
+                this.httpQueryColumnarMaxRowCount = getLong(properties, env, PropertyKey.HTTP_QUERY_COLUMNAR_MAX_ROW_COUNT, 1_000_000);
                 this.sendBufferSize = getIntSize(properties, env, PropertyKey.HTTP_SEND_BUFFER_SIZE, 2 * Numbers.SIZE_1MB);
                 this.indexFileName = getString(properties, env, PropertyKey.HTTP_STATIC_INDEX_FILE_NAME, "index.html");
                 this.httpFrozenClock = getBoolean(properties, env, PropertyKey.HTTP_FROZEN_CLOCK, false);
@@ -619,6 +650,7 @@ public class PropServerConfiguration implements ServerConfiguration {
                 this.jsonQueryConnectionCheckFrequency = getInt(properties, env, PropertyKey.HTTP_JSON_QUERY_CONNECTION_CHECK_FREQUENCY, 1_000_000);
                 this.jsonQueryFloatScale = getInt(properties, env, PropertyKey.HTTP_JSON_QUERY_FLOAT_SCALE, 4);
                 this.jsonQueryDoubleScale = getInt(properties, env, PropertyKey.HTTP_JSON_QUERY_DOUBLE_SCALE, 12);
+                this.arrowBatchSize = getInt(properties, env, PropertyKey.HTTP_EXPORT_ARROW_BATCH_SIZE, 65536);
                 this.httpReadOnlySecurityContext = getBoolean(properties, env, PropertyKey.HTTP_SECURITY_READONLY, false);
                 this.maxHttpQueryResponseRowLimit = getLong(properties, env, PropertyKey.HTTP_SECURITY_MAX_RESPONSE_ROWS, Long.MAX_VALUE);
                 this.interruptOnClosedConnection = getBoolean(properties, env, PropertyKey.HTTP_SECURITY_INTERRUPT_ON_CLOSED_CONNECTION, true);
@@ -779,6 +811,7 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.cairoPageFrameReduceColumnListCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY, 16));
             this.sqlParallelFilterEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_ENABLED, true);
             this.sqlParallelFilterPreTouchEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED, true);
+            this.sqlColumnarProjectionEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_COLUMNAR_PROJECTION_ENABLED, true);
             this.cairoPageFrameReduceShardCount = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_SHARD_COUNT, 4);
             this.cairoPageFrameReduceTaskPoolCapacity = getInt(properties, env, PropertyKey.CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY, 4);
 
@@ -803,6 +836,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.sqlDistinctTimestampKeyCapacity = getInt(properties, env, PropertyKey.CAIRO_SQL_DISTINCT_TIMESTAMP_KEY_CAPACITY, 512);
             this.sqlDistinctTimestampLoadFactor = getDouble(properties, env, PropertyKey.CAIRO_SQL_DISTINCT_TIMESTAMP_LOAD_FACTOR, 0.5);
             this.sqlPageFrameMinRows = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_MIN_ROWS, 1_000);
+            this.sqlResultCacheEnabled = getBoolean(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_ENABLED, false);
+            this.sqlResultCacheCapacity = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_CAPACITY, 64 * 1024 * 1024);
+            this.sqlResultCachePageSize = getLongSize(properties, env, PropertyKey.CAIRO_SQL_RESULT_CACHE_PAGE_SIZE, 64 * 1024);
             this.sqlPageFrameMaxRows = getInt(properties, env, PropertyKey.CAIRO_SQL_PAGE_FRAME_MAX_ROWS, 1_000_000);
 
             this.sqlJitMode = getSqlJitMode(properties, env);
@@ -1031,6 +1067,15 @@ public class PropServerConfiguration implements ServerConfiguration {
 
             this.queryCacheEventQueueCapacity = Numbers.ceilPow2(getInt(properties, env, PropertyKey.CAIRO_QUERY_CACHE_EVENT_QUEUE_CAPACITY, 4));
 
+            this.queryAdmissionMaxConcurrent = getInt(properties, env, PropertyKey.CAIRO_QUERY_ADMISSION_MAX_CONCURRENT, 0);
+            this.queryAdmissionMaxQueued = getInt(properties, env, PropertyKey.CAIRO_QUERY_ADMISSION_MAX_QUEUED, 64);
+            this.queryAdmissionTimeout = getLong(properties, env, PropertyKey.CAIRO_QUERY_ADMISSION_TIMEOUT, 60_000);
+            this.queryAdmissionMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_QUERY_ADMISSION_MEMORY_LIMIT, 0);
+            this.queryAdmissionPrincipalMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_QUERY_ADMISSION_PRINCIPAL_MEMORY_LIMIT, 0);
+            this.queryMemoryLimit = getLongSize(properties, env, PropertyKey.CAIRO_QUERY_MEMORY_LIMIT, 0);
+            this.querySpillEnabled = getBoolean(properties, env, PropertyKey.CAIRO_QUERY_SPILL_ENABLED, true);
+            this.querySpillRoot = getString(properties, env, PropertyKey.CAIRO_QUERY_SPILL_ROOT, tmpRoot);
+
             this.buildInformation = buildInformation;
             this.binaryEncodingMaxLength = getInt(properties, env, PropertyKey.BINARYDATA_ENCODING_MAXLENGTH, 32768);
         }
@@ -1827,11 +1872,46 @@ public class PropServerConfiguration implements ServerConfiguration {
             return o3PartitionPurgeListCapacity;
         }
 
+        @Override
+        public int getQueryAdmissionMaxConcurrent() {
+            return queryAdmissionMaxConcurrent;
+        }
+
+        @Override
+        public int getQueryAdmissionMaxQueued() {
+            return queryAdmissionMaxQueued;
+        }
+
+        @Override
+        public long getQueryAdmissionMemoryLimit() {
+            return queryAdmissionMemoryLimit;
+        }
+
+        @Override
+        public long getQueryAdmissionPrincipalMemoryLimit() {
+            return queryAdmissionPrincipalMemoryLimit;
+        }
+
+        @Override
+        public long getQueryAdmissionTimeout() {
+            return queryAdmissionTimeout;
+        }
+
         @Override
         public int getQueryCacheEventQueueCapacity() {
             return queryCacheEventQueueCapacity;
         }
 
+        @Override
+        public long getQueryMemoryLimit() {
+            return queryMemoryLimit;
+        }
+
+        @Override
+        public CharSequence getQuerySpillRoot() {
+            return querySpillRoot;
+        }
+
         @Override
         public int getReaderPoolMaxSegments() {
             return readerPoolMaxSegments;
@@ -2102,6 +2182,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlPageFrameMinRows;
         }
 
+        @Override
+        public long getSqlResultCacheCapacity() {
+            return sqlResultCacheCapacity;
+        }
+
+        @Override
+        public long getSqlResultCachePageSize() {
+            return sqlResultCachePageSize;
+        }
+
         @Override
         public int getSqlSmallMapKeyCapacity() {
             return sqlSmallMapKeyCapacity;
@@ -2156,6 +2246,16 @@ public class PropServerConfiguration implements ServerConfiguration {
             return textConfiguration;
         }
 
+        @Override
+        public long getTtlCheckInterval() {
+            return ttlCheckInterval;
+        }
+
+        @Override
+        public long getTtlMaxDeferral() {
+            return ttlMaxDeferral;
+        }
+
         @Override
         public int getTxnScoreboardEntryCount() {
             return sqlTxnScoreboardEntryCount;
@@ -2246,11 +2346,21 @@ public class PropServerConfiguration implements ServerConfiguration {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isQuerySpillEnabled() {
+            return querySpillEnabled;
+        }
+
         @Override
         public boolean isSnapshotRecoveryEnabled() {
             return snapshotRecoveryEnabled;
         }
 
+        @Override
+        public boolean isSqlColumnarProjectionEnabled() {
+            return sqlColumnarProjectionEnabled;
+        }
+
         @Override
         public boolean isSqlJitDebugEnabled() {
             return sqlJitDebugEnabled;
@@ -2266,6 +2376,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return sqlParallelFilterPreTouchEnabled;
         }
 
+        @Override
+        public boolean isSqlResultCacheEnabled() {
+            return sqlResultCacheEnabled;
+        }
+
         public boolean isWalSupported() {
             return isWalSupported;
         }
@@ -2545,6 +2660,28 @@ public class PropServerConfiguration implements ServerConfiguration {
         }
     }
 
+    private class PropHttpQueryWorkerPoolConfiguration implements WorkerPoolConfiguration {
+        @Override
+        public String getPoolName() {
+            return "http-query";
+        }
+
+        @Override
+        public int[] getWorkerAffinity() {
+            return httpQueryWorkerAffinity;
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return httpQueryWorkerCount;
+        }
+
+        @Override
+        public boolean haltOnError() {
+            return httpQueryWorkerHaltOnError;
+        }
+    }
+
     private class PropHttpServerConfiguration implements HttpServerConfiguration {
 
         @Override
@@ -2577,6 +2714,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return httpSqlCacheRowCount;
         }
 
+        @Override
+        public WorkerPoolConfiguration getQueryWorkerPoolConfiguration() {
+            return httpQueryWorkerPoolConfiguration;
+        }
+
         @Override
         public long getSleepThreshold() {
             return httpWorkerSleepThreshold;
@@ -2630,11 +2772,21 @@ public class PropServerConfiguration implements ServerConfiguration {
 
     private class PropJsonQueryProcessorConfiguration implements JsonQueryProcessorConfiguration {
 
+        @Override
+        public int getArrowBatchSize() {
+            return arrowBatchSize;
+        }
+
         @Override
         public MillisecondClock getClock() {
             return httpFrozenClock ? StationaryMillisClock.INSTANCE : MillisecondClockImpl.INSTANCE;
         }
 
+        @Override
+        public long getColumnarMaxRowCount() {
+            return httpQueryColumnarMaxRowCount;
+        }
+
         @Override
         public int getConnectionCheckFrequency() {
             return jsonQueryConnectionCheckFrequency;
@@ -2664,6 +2816,16 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getMaxQueryResponseRowLimit() {
             return maxHttpQueryResponseRowLimit;
         }
+
+        @Override
+        public int getQueryPageRowCount() {
+            return httpQueryPageRowCount;
+        }
+
+        @Override
+        public int getQueryQueueCapacity() {
+            return httpQueryQueueCapacity;
+        }
     }
 
     private class PropLineTcpIOWorkerPoolConfiguration implements WorkerPoolConfiguration {
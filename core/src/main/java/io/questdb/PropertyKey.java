@@ -87,6 +87,7 @@ public enum PropertyKey {
     CAIRO_PAGE_FRAME_ROWID_LIST_CAPACITY("cairo.page.frame.rowid.list.capacity"),
     CAIRO_PAGE_FRAME_COLUMN_LIST_CAPACITY("cairo.page.frame.column.list.capacity"),
     CAIRO_SQL_PARALLEL_FILTER_ENABLED("cairo.sql.parallel.filter.enabled"),
+    CAIRO_SQL_COLUMNAR_PROJECTION_ENABLED("cairo.sql.columnar.projection.enabled"),
     CAIRO_SQL_PARALLEL_FILTER_PRETOUCH_ENABLED("cairo.sql.parallel.filter.pretouch.enabled"),
     CAIRO_PAGE_FRAME_SHARD_COUNT("cairo.page.frame.shard.count"),
     CAIRO_PAGE_FRAME_TASK_POOL_CAPACITY("cairo.page.frame.task.pool.capacity"),
@@ -114,6 +115,9 @@ public enum PropertyKey {
     CAIRO_SQL_DISTINCT_TIMESTAMP_KEY_CAPACITY("cairo.sql.distinct.timestamp.key.capacity"),
     CAIRO_SQL_DISTINCT_TIMESTAMP_LOAD_FACTOR("cairo.sql.distinct.timestamp.load.factor"),
     CAIRO_SQL_PAGE_FRAME_MIN_ROWS("cairo.sql.page.frame.min.rows"),
+    CAIRO_SQL_RESULT_CACHE_ENABLED("cairo.sql.result.cache.enabled"),
+    CAIRO_SQL_RESULT_CACHE_CAPACITY("cairo.sql.result.cache.capacity"),
+    CAIRO_SQL_RESULT_CACHE_PAGE_SIZE("cairo.sql.result.cache.page.size"),
     CAIRO_SQL_PAGE_FRAME_MAX_ROWS("cairo.sql.page.frame.max.rows"),
     CAIRO_SQL_JIT_IR_MEMORY_PAGE_SIZE("cairo.sql.jit.ir.memory.page.size"),
     CAIRO_SQL_JIT_IR_MEMORY_MAX_PAGES("cairo.sql.jit.ir.memory.max.pages"),
@@ -165,6 +169,14 @@ public enum PropertyKey {
     CAIRO_O3_PARTITION_PURGE_LIST_INITIAL_CAPACITY("cairo.o3.partition.purge.list.initial.capacity"),
     CAIRO_O3_ENABLED("cairo.o3.enabled"),
     CAIRO_QUERY_CACHE_EVENT_QUEUE_CAPACITY("cairo.query.cache.event.queue.capacity"),
+    CAIRO_QUERY_ADMISSION_MAX_CONCURRENT("cairo.query.admission.max.concurrent"),
+    CAIRO_QUERY_ADMISSION_MAX_QUEUED("cairo.query.admission.max.queued"),
+    CAIRO_QUERY_ADMISSION_TIMEOUT("cairo.query.admission.timeout"),
+    CAIRO_QUERY_ADMISSION_MEMORY_LIMIT("cairo.query.admission.memory.limit"),
+    CAIRO_QUERY_ADMISSION_PRINCIPAL_MEMORY_LIMIT("cairo.query.admission.principal.memory.limit"),
+    CAIRO_QUERY_MEMORY_LIMIT("cairo.query.memory.limit"),
+    CAIRO_QUERY_SPILL_ENABLED("cairo.query.spill.enabled"),
+    CAIRO_QUERY_SPILL_ROOT("cairo.query.spill.root"),
     CAIRO_IO_URING_ENABLED("cairo.iouring.enabled"),
     CAIRO_MAX_CRASH_FILES("cairo.max.crash.files"),
     CIRCUIT_BREAKER_THROTTLE("circuit.breaker.throttle"),
@@ -245,10 +257,17 @@ public enum PropertyKey {
     HTTP_JSON_QUERY_CONNECTION_CHECK_FREQUENCY("http.json.query.connection.check.frequency"),
     HTTP_JSON_QUERY_FLOAT_SCALE("http.json.query.float.scale"),
     HTTP_JSON_QUERY_DOUBLE_SCALE("http.json.query.double.scale"),
+    HTTP_EXPORT_ARROW_BATCH_SIZE("http.export.arrow.batch.size"),
     HTTP_TEXT_ADAPTER_SET_CONFIG("http.text.adapter.set.config"),
     HTTP_QUERY_CACHE_ENABLED("http.query.cache.enabled"),
     HTTP_QUERY_CACHE_BLOCK_COUNT("http.query.cache.block.count"),
     HTTP_QUERY_CACHE_ROW_COUNT("http.query.cache.row.count"),
+    HTTP_QUERY_WORKER_COUNT("http.query.worker.count"),
+    HTTP_QUERY_WORKER_AFFINITY("http.query.worker.affinity"),
+    HTTP_QUERY_WORKER_HALT_ON_ERROR("http.query.worker.haltOnError"),
+    HTTP_QUERY_QUEUE_CAPACITY("http.query.queue.capacity"),
+    HTTP_QUERY_PAGE_ROW_COUNT("http.query.page.row.count"),
+    HTTP_QUERY_COLUMNAR_MAX_ROW_COUNT("http.query.columnar.max.row.count"),
     LINE_UDP_BIND_TO("line.udp.bind.to"),
     LINE_UDP_HALT_ON_ERROR("line.udp.haltOnError"),
     LINE_UDP_JOIN("line.udp.join"),
@@ -370,6 +389,8 @@ public enum PropertyKey {
     CAIRO_SIMULATE_CRASH_ENABLED("cairo.enable.crash.simulation"),
     CAIRO_WAL_ENABLED_DEFAULT("cairo.wal.enabled.default"),
     CAIRO_WAL_PURGE_INTERVAL("cairo.wal.purge.interval"),
+    CAIRO_TTL_CHECK_INTERVAL("cairo.ttl.check.interval"),
+    CAIRO_TTL_MAX_DEFERRAL("cairo.ttl.max.deferral"),
     CAIRO_WAL_SEGMENT_ROLLOVER_ROW_COUNT("cairo.wal.segment.rollover.row.count"),
     WAL_APPLY_WORKER_COUNT("wal.apply.worker.count"),
     WAL_APPLY_WORKER_AFFINITY("wal.apply.worker.affinity"),
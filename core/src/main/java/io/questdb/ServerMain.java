@@ -28,6 +28,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
 import io.questdb.cairo.O3Utils;
+import io.questdb.cairo.PartitionTtlJob;
 import io.questdb.cairo.wal.CheckWalTransactionsJob;
 import io.questdb.cairo.wal.WalPurgeJob;
 import io.questdb.cairo.wal.WalUtils;
@@ -94,6 +95,9 @@ public class ServerMain implements Closeable {
             protected void configureSharedPool(WorkerPool sharedPool) {
                 try {
                     sharedPool.assign(engine.getEngineMaintenanceJob());
+                    final PartitionTtlJob partitionTtlJob = new PartitionTtlJob(engine, ffCache);
+                    sharedPool.assign(partitionTtlJob);
+                    sharedPool.freeOnExit(partitionTtlJob);
                     O3Utils.setupWorkerPool(
                             sharedPool,
                             engine,
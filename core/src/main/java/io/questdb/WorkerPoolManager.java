@@ -131,6 +131,7 @@ public abstract class WorkerPoolManager {
 
         HTTP_SERVER("http"),
         HTTP_MIN_SERVER("min-http"),
+        HTTP_QUERY("http-query"),
         PG_WIRE_SERVER("pg-wire"),
         LINE_TCP_IO("line-tcp-io"),
         LINE_TCP_WRITER("line-tcp-writer"),
@@ -221,8 +221,22 @@ public interface CairoConfiguration {
 
     int getPartitionPurgeListCapacity();
 
+    int getQueryAdmissionMaxConcurrent();
+
+    int getQueryAdmissionMaxQueued();
+
+    long getQueryAdmissionMemoryLimit();
+
+    long getQueryAdmissionPrincipalMemoryLimit();
+
+    long getQueryAdmissionTimeout();
+
     int getQueryCacheEventQueueCapacity();
 
+    long getQueryMemoryLimit();
+
+    CharSequence getQuerySpillRoot(); // same as root/../tmp
+
     default Rnd getRandom() {
         Rnd rnd = RANDOM.get();
         if (rnd == null) {
@@ -359,6 +373,10 @@ public interface CairoConfiguration {
 
     int getSqlPageFrameMinRows();
 
+    long getSqlResultCacheCapacity();
+
+    long getSqlResultCachePageSize();
+
     int getSqlSmallMapKeyCapacity();
 
     int getSqlSortKeyMaxPages();
@@ -381,6 +399,16 @@ public interface CairoConfiguration {
 
     TextConfiguration getTextConfiguration();
 
+    long getTtlCheckInterval();
+
+    /**
+     * Partitions of a table that is being written to are dropped once it goes quiet between two TTL checks,
+     * or once the drop has been deferred for this long.
+     *
+     * @return max deferral of a TTL drop in milliseconds
+     */
+    long getTtlMaxDeferral();
+
     int getTxnScoreboardEntryCount();
 
     int getVectorAggregateQueueCapacity();
@@ -417,6 +445,8 @@ public interface CairoConfiguration {
 
     boolean isParallelIndexingEnabled();
 
+    boolean isQuerySpillEnabled();
+
     /**
      * A flag to enable/disable snapshot recovery mechanism. Defaults to {@code true}.
      *
@@ -424,11 +454,21 @@ public interface CairoConfiguration {
      */
     boolean isSnapshotRecoveryEnabled();
 
+    /**
+     * A flag to enable/disable columnar evaluation of double arithmetic projections
+     * over page frames. Defaults to {@code true}.
+     *
+     * @return enable/disable columnar projection flag
+     */
+    boolean isSqlColumnarProjectionEnabled();
+
     boolean isSqlJitDebugEnabled();
 
     boolean isSqlParallelFilterEnabled();
 
     boolean isSqlParallelFilterPreTouchEnabled();
 
+    boolean isSqlResultCacheEnabled();
+
     boolean isWalSupported();
 }
@@ -64,7 +64,9 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
     private final MessageBusImpl messageBus;
     private final MetadataPool metadataPool;
     private final Metrics metrics;
+    private final QueryAdmissionController queryAdmissionController;
     private final ReaderPool readerPool;
+    private final ResultCache resultCache;
     private final ThreadSafeObjectPool<SqlCompiler> sqlCompilerPool;
     private final IDGenerator tableIdGenerator;
     private final TableSequencerAPI tableSequencerAPI;
@@ -92,6 +94,8 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         this.messageBus = new MessageBusImpl(configuration);
         this.writerPool = new WriterPool(configuration, messageBus, metrics);
         this.readerPool = new ReaderPool(configuration, messageBus);
+        this.resultCache = new ResultCache(configuration);
+        this.queryAdmissionController = new QueryAdmissionController(configuration, metrics.queryAdmission());
         this.metadataPool = new MetadataPool(configuration, tableSequencerAPI);
         this.walWriterPool = new WalWriterPool(configuration, tableSequencerAPI);
         this.engineMaintenanceJob = new EngineMaintenanceJob(configuration);
@@ -137,6 +141,7 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         boolean b3 = tableSequencerAPI.releaseAll();
         boolean b4 = metadataPool.releaseAll();
         boolean b5 = walWriterPool.releaseAll();
+        resultCache.clear();
         messageBus.reset();
         return b1 & b2 & b3 & b4 & b5;
     }
@@ -144,6 +149,7 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
     @Override
     public void close() {
         Misc.free(writerPool);
+        Misc.free(resultCache);
         Misc.free(readerPool);
         Misc.free(metadataPool);
         Misc.free(walWriterPool);
@@ -282,6 +288,10 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         return this.writerPool.getPoolListener();
     }
 
+    public QueryAdmissionController getQueryAdmissionController() {
+        return queryAdmissionController;
+    }
+
     public TableReader getReader(CairoSecurityContext securityContext, CharSequence tableName) {
         return getReader(securityContext, tableName, TableUtils.ANY_TABLE_ID, TableUtils.ANY_TABLE_VERSION);
     }
@@ -330,6 +340,10 @@ public class CairoEngine implements Closeable, WriterSource, WalWriterSource {
         }
     }
 
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
     public int getStatus(
             CairoSecurityContext securityContext,
             Path path,
@@ -33,4 +33,11 @@ public interface CairoSecurityContext {
             throw CairoException.nonCritical().put("Write permission denied").setCacheable(true);
         }
     }
+
+    /**
+     * @return name of the user this context was created for, null when the user is not known
+     */
+    default CharSequence getPrincipal() {
+        return null;
+    }
 }
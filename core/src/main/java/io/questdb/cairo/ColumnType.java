@@ -73,7 +73,7 @@ public final class ColumnType {
     public static final short LONG128 = 24; // Limited support, few tests only
     public static final short LONG256 = 13;
     public static final int NO_OVERLOAD = 10000;
-    public static final short NULL = 28;
+    public static final short NULL = 29;
     // Overload matrix algo depends on the fact that MAX == NULL
     public static final short MAX = NULL;
     public static final short TYPES_SIZE = MAX + 1;
@@ -89,6 +89,8 @@ public final class ColumnType {
     public static final short SYMBOL = 12;
     public static final short TIMESTAMP = 8;
     public static final short UNDEFINED = 0;
+    // stored as LONG128, rendered in the canonical 8-4-4-4-12 hex text form
+    public static final short UUID = 28;
     public static final short VAR_ARG = 21;
     // column type version as written to the metadata file
     public static final int VERSION = 426;
@@ -225,6 +227,10 @@ public final class ColumnType {
         return columnType == UNDEFINED;
     }
 
+    public static boolean isUuid(int columnType) {
+        return columnType == UUID;
+    }
+
     public static boolean isVariableLength(int columnType) {
         return columnType == STRING || columnType == BINARY;
     }
@@ -320,6 +326,7 @@ public final class ColumnType {
                 || (fromType == STRING && toTag == GEOLONG)
                 || (fromType == STRING && toTag == TIMESTAMP)
                 || (fromType == SYMBOL && toTag == TIMESTAMP)
+                || (fromType == STRING && toTag == UUID)
                 ;
     }
 
@@ -389,6 +396,7 @@ public final class ColumnType {
         typeNameMap.put(TIMESTAMP, "TIMESTAMP");
         typeNameMap.put(LONG256, "LONG256");
         typeNameMap.put(LONG128, "LONG128");
+        typeNameMap.put(UUID, "UUID");
         typeNameMap.put(CURSOR, "CURSOR");
         typeNameMap.put(RECORD, "RECORD");
         typeNameMap.put(VAR_ARG, "VARARG");
@@ -414,6 +422,7 @@ public final class ColumnType {
         nameTypeMap.put("cursor", CURSOR);
         nameTypeMap.put("long256", LONG256);
         nameTypeMap.put("long128", LONG128);
+        nameTypeMap.put("uuid", UUID);
         nameTypeMap.put("geohash", GEOHASH);
         nameTypeMap.put("text", STRING);
         nameTypeMap.put("smallint", SHORT);
@@ -464,6 +473,7 @@ public final class ColumnType {
         TYPE_SIZE_POW2[RECORD] = -1;
         TYPE_SIZE_POW2[NULL] = -1;
         TYPE_SIZE_POW2[LONG128] = 4;
+        TYPE_SIZE_POW2[UUID] = 4;
 
         TYPE_SIZE[UNDEFINED] = -1;
         TYPE_SIZE[BOOLEAN] = Byte.BYTES;
@@ -490,5 +500,6 @@ public final class ColumnType {
         TYPE_SIZE[RECORD] = -1;
         TYPE_SIZE[NULL] = 0;
         TYPE_SIZE[LONG128] = 2 * Long.BYTES;
+        TYPE_SIZE[UUID] = 2 * Long.BYTES;
     }
 }
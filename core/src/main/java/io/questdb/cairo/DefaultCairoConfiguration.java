@@ -46,6 +46,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
     private final long databaseIdHi;
     private final long databaseIdLo;
     private final CharSequence root;
+    private final CharSequence querySpillRoot;
     private final CharSequence snapshotRoot;
     private final DefaultTelemetryConfiguration telemetryConfiguration = new DefaultTelemetryConfiguration();
     private final TextConfiguration textConfiguration;
@@ -55,6 +56,7 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         this.confRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.CONFIG_DIRECTORY);
         this.textConfiguration = new DefaultTextConfiguration(Chars.toString(confRoot));
         this.snapshotRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.SNAPSHOT_DIRECTORY);
+        this.querySpillRoot = PropServerConfiguration.rootSubdir(root, PropServerConfiguration.TMP_DIRECTORY);
         Rnd rnd = new Rnd(NanosecondClockImpl.INSTANCE.getTicks(), MicrosecondClockImpl.INSTANCE.getTicks());
         this.databaseIdLo = rnd.nextLong();
         this.databaseIdHi = rnd.nextLong();
@@ -421,11 +423,46 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 64;
     }
 
+    @Override
+    public int getQueryAdmissionMaxConcurrent() {
+        return 0;
+    }
+
+    @Override
+    public int getQueryAdmissionMaxQueued() {
+        return 64;
+    }
+
+    @Override
+    public long getQueryAdmissionMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public long getQueryAdmissionPrincipalMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public long getQueryAdmissionTimeout() {
+        return 60_000;
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return 4;
     }
 
+    @Override
+    public long getQueryMemoryLimit() {
+        return 0;
+    }
+
+    @Override
+    public CharSequence getQuerySpillRoot() {
+        return querySpillRoot;
+    }
+
     @Override
     public int getReaderPoolMaxSegments() {
         return 5;
@@ -698,6 +735,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 1_000;
     }
 
+    @Override
+    public long getSqlResultCacheCapacity() {
+        return 64 * 1024 * 1024;
+    }
+
+    @Override
+    public long getSqlResultCachePageSize() {
+        return 64 * 1024;
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return 64;
@@ -753,6 +800,16 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return textConfiguration;
     }
 
+    @Override
+    public long getTtlCheckInterval() {
+        return 60_000;
+    }
+
+    @Override
+    public long getTtlMaxDeferral() {
+        return 3_600_000;
+    }
+
     @Override
     public int getTxnScoreboardEntryCount() {
         return 8192;
@@ -847,11 +904,21 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isQuerySpillEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isSnapshotRecoveryEnabled() {
         return true;
     }
 
+    @Override
+    public boolean isSqlColumnarProjectionEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isSqlJitDebugEnabled() {
         return false;
@@ -867,6 +934,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return true;
     }
 
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return false;
+    }
+
     @Override
     public boolean isWalSupported() {
         return false;
@@ -24,8 +24,10 @@
 
 package io.questdb.cairo;
 
+import io.questdb.std.Chars;
 import io.questdb.std.LowerCaseCharSequenceIntHashMap;
 import io.questdb.std.NumericException;
+import io.questdb.std.Numbers;
 import io.questdb.std.datetime.DateFormat;
 import io.questdb.std.datetime.DateLocale;
 import io.questdb.std.datetime.microtime.TimestampFormatCompiler;
@@ -44,28 +46,45 @@ public final class PartitionBy {
 
     public static final int DAY = 0;
     public static final int HOUR = 4;
+    public static final int MINUTE = 6;
     public static final int MONTH = 1;
     /**
      * Data is not partitioned at all,
      * all data is stored in a single directory
      */
     public static final int NONE = 3;
+    /**
+     * Weekly partitions start on Monday, partition directory is named after the Monday date
+     */
+    public static final int WEEK = 5;
     public static final int YEAR = 2;
     private static final PartitionAddMethod ADD_DD = Timestamps::addDays;
     private static final PartitionAddMethod ADD_HH = Timestamps::addHours;
+    private static final PartitionAddMethod ADD_MI = Timestamps::addMinutes;
     private static final PartitionAddMethod ADD_MM = Timestamps::addMonths;
+    private static final PartitionAddMethod ADD_WW = Timestamps::addWeeks;
     private static final PartitionAddMethod ADD_YYYY = Timestamps::addYear;
     private static final PartitionCeilMethod CEIL_DD = Timestamps::ceilDD;
     private static final PartitionCeilMethod CEIL_HH = Timestamps::ceilHH;
+    private static final PartitionCeilMethod CEIL_MI = Timestamps::ceilMI;
     private static final PartitionCeilMethod CEIL_MM = Timestamps::ceilMM;
+    private static final PartitionCeilMethod CEIL_WW = Timestamps::ceilDOW;
     private static final PartitionCeilMethod CEIL_YYYY = Timestamps::ceilYYYY;
     private static final PartitionFloorMethod FLOOR_DD = Timestamps::floorDD;
     private static final PartitionFloorMethod FLOOR_HH = Timestamps::floorHH;
+    private static final PartitionFloorMethod FLOOR_MI = Timestamps::floorMI;
     private static final PartitionFloorMethod FLOOR_MM = Timestamps::floorMM;
+    private static final PartitionFloorMethod FLOOR_WW = Timestamps::floorDOW;
     private static final PartitionFloorMethod FLOOR_YYYY = Timestamps::floorYYYY;
+    // partitionBy value keeps the unit in the low byte and the unit multiplier,
+    // e.g. 15 for "15 MINUTE", in the higher bits; multiplier of 1 is stored as 0
+    // to keep the values of the plain units intact
+    private static final int STRIDE_SHIFT = 8;
+    private static final int UNIT_MASK = (1 << STRIDE_SHIFT) - 1;
     private static final DateFormat fmtDay;
     private final static DateFormat fmtDefault;
     private final static DateFormat fmtHour;
+    private final static DateFormat fmtMinute;
     private static final DateFormat fmtMonth;
     private static final DateFormat fmtYear;
     private final static LowerCaseCharSequenceIntHashMap nameToIndexMap = new LowerCaseCharSequenceIntHashMap();
@@ -73,11 +92,36 @@ public final class PartitionBy {
     private PartitionBy() {
     }
 
+    /**
+     * Parses partition unit name, such as "DAY", or unit multiplier followed by the unit name,
+     * such as "15 MINUTE" or "6 HOUR".
+     *
+     * @param name partition by name, case-insensitive
+     * @return partitionBy value or -1 if name is not a valid partitioning strategy
+     */
     public static int fromString(CharSequence name) {
-        return nameToIndexMap.get(name);
+        final int partitionBy = nameToIndexMap.get(name);
+        if (partitionBy != -1) {
+            return partitionBy;
+        }
+        final int spaceIndex = Chars.indexOf(name, ' ');
+        if (spaceIndex < 1) {
+            return -1;
+        }
+        try {
+            final int stride = Numbers.parseInt(name, 0, spaceIndex);
+            return of(nameToIndexMap.get(name.subSequence(spaceIndex + 1, name.length())), stride);
+        } catch (NumericException e) {
+            return -1;
+        }
     }
 
     public static PartitionAddMethod getPartitionAddMethod(int partitionBy) {
+        final int stride = getStride(partitionBy);
+        if (stride > 1) {
+            final long width = getUnitWidth(partitionBy);
+            return (timestamp, increment) -> timestamp + increment * width;
+        }
         switch (partitionBy) {
             case DAY:
                 return ADD_DD;
@@ -87,14 +131,19 @@ public final class PartitionBy {
                 return ADD_YYYY;
             case HOUR:
                 return ADD_HH;
+            case WEEK:
+                return ADD_WW;
+            case MINUTE:
+                return ADD_MI;
             default:
                 return null;
         }
     }
 
     public static DateFormat getPartitionDirFormatMethod(int partitionBy) {
-        switch (partitionBy) {
+        switch (getUnit(partitionBy)) {
             case DAY:
+            case WEEK:
                 return fmtDay;
             case MONTH:
                 return fmtMonth;
@@ -102,6 +151,8 @@ public final class PartitionBy {
                 return fmtYear;
             case HOUR:
                 return fmtHour;
+            case MINUTE:
+                return fmtMinute;
             case NONE:
                 return fmtDefault;
             default:
@@ -110,6 +161,11 @@ public final class PartitionBy {
     }
 
     public static PartitionFloorMethod getPartitionFloorMethod(int partitionBy) {
+        final int stride = getStride(partitionBy);
+        if (stride > 1) {
+            final long width = getUnitWidth(partitionBy);
+            return timestamp -> floorStride(timestamp, width);
+        }
         switch (partitionBy) {
             case DAY:
                 return FLOOR_DD;
@@ -119,13 +175,17 @@ public final class PartitionBy {
                 return FLOOR_YYYY;
             case HOUR:
                 return FLOOR_HH;
+            case WEEK:
+                return FLOOR_WW;
+            case MINUTE:
+                return FLOOR_MI;
             default:
                 return null;
         }
     }
 
     public static long getPartitionTimeIntervalFloor(int partitionBy) {
-        switch (partitionBy) {
+        switch (getUnit(partitionBy)) {
             case DAY:
                 return Timestamps.DAY_MICROS;
             case MONTH:
@@ -133,23 +193,65 @@ public final class PartitionBy {
             case YEAR:
                 return Timestamps.DAY_MICROS * 365;
             case HOUR:
-                return Timestamps.HOUR_MICROS;
+            case MINUTE:
+            case WEEK:
+                return getUnitWidth(partitionBy);
             default:
                 throw new UnsupportedOperationException();
         }
     }
 
+    /**
+     * @param partitionBy partitionBy value
+     * @return unit multiplier, e.g. 15 for "15 MINUTE" and 1 for plain units
+     */
+    public static int getStride(int partitionBy) {
+        return partitionBy < 0 ? 1 : Math.max(1, partitionBy >>> STRIDE_SHIFT);
+    }
+
+    /**
+     * @param partitionBy partitionBy value
+     * @return partition unit, such as {@link #MINUTE} for "15 MINUTE"
+     */
+    public static int getUnit(int partitionBy) {
+        return partitionBy < 0 ? partitionBy : partitionBy & UNIT_MASK;
+    }
+
     public static boolean isPartitioned(int partitionBy) {
         return partitionBy != NONE;
     }
 
+    /**
+     * Combines partition unit and unit multiplier into partitionBy value. Multipliers are only
+     * supported for HOUR and MINUTE units and must divide the day or the hour respectively, so that
+     * partitions never straddle day and hour boundaries.
+     *
+     * @param unit   partition unit
+     * @param stride unit multiplier
+     * @return partitionBy value or -1 if the combination is not supported
+     */
+    public static int of(int unit, int stride) {
+        if (stride == 1) {
+            return unit;
+        }
+        switch (unit) {
+            case HOUR:
+                return stride > 1 && stride < 24 && 24 % stride == 0 ? (stride << STRIDE_SHIFT) | unit : -1;
+            case MINUTE:
+                return stride > 1 && stride < 60 && 60 % stride == 0 ? (stride << STRIDE_SHIFT) | unit : -1;
+            default:
+                return -1;
+        }
+    }
+
     public static long parsePartitionDirName(CharSequence partitionName, int partitionBy) {
         try {
             return getPartitionDirFormatMethod(partitionBy).parse(partitionName, null);
         } catch (NumericException e) {
             final CairoException ee = CairoException.critical(0);
-            switch (partitionBy) {
+            switch (getUnit(partitionBy)) {
                 case DAY:
+                case WEEK:
                     ee.put("'YYYY-MM-DD'");
                     break;
                 case MONTH:
@@ -161,6 +263,9 @@ public final class PartitionBy {
                 case HOUR:
                     ee.put("'YYYY-MM-DDTHH'");
                     break;
+                case MINUTE:
+                    ee.put("'YYYY-MM-DDTHHmm'");
+                    break;
             }
             ee.put(" expected");
             throw ee;
@@ -168,9 +273,9 @@ public final class PartitionBy {
     }
 
     public static long setSinkForPartition(CharSink path, int partitionBy, long timestamp, boolean calculatePartitionMax) {
-        int y, m, d;
+        int y, m, d, h;
         boolean leap;
-        switch (partitionBy) {
+        switch (getUnit(partitionBy)) {
             case DAY:
                 y = Timestamps.getYear(timestamp);
                 leap = Timestamps.isLeapYear(y);
@@ -211,11 +316,12 @@ public final class PartitionBy {
                 }
                 return 0;
             case HOUR:
+                timestamp = floorStride(timestamp, getUnitWidth(partitionBy));
                 y = Timestamps.getYear(timestamp);
                 leap = Timestamps.isLeapYear(y);
                 m = Timestamps.getMonthOfYear(timestamp, y, leap);
                 d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
-                int h = Timestamps.getHourOfDay(timestamp);
+                h = Timestamps.getHourOfDay(timestamp);
                 TimestampFormatUtils.appendYear000(path, y);
                 path.put('-');
                 TimestampFormatUtils.append0(path, m);
@@ -227,7 +333,44 @@ public final class PartitionBy {
                 if (calculatePartitionMax) {
                     return Timestamps.yearMicros(y, leap)
                             + Timestamps.monthOfYearMicros(m, leap)
-                            + (d - 1) * Timestamps.DAY_MICROS + (h + 1) * Timestamps.HOUR_MICROS - 1;
+                            + (d - 1) * Timestamps.DAY_MICROS + (h + getStride(partitionBy)) * Timestamps.HOUR_MICROS - 1;
+                }
+                return 0;
+            case WEEK:
+                timestamp = Timestamps.floorDOW(timestamp);
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                TimestampFormatUtils.appendYear000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+
+                if (calculatePartitionMax) {
+                    return timestamp + Timestamps.WEEK_MICROS - 1;
+                }
+                return 0;
+            case MINUTE:
+                final long width = getUnitWidth(partitionBy);
+                timestamp = floorStride(timestamp, width);
+                y = Timestamps.getYear(timestamp);
+                leap = Timestamps.isLeapYear(y);
+                m = Timestamps.getMonthOfYear(timestamp, y, leap);
+                d = Timestamps.getDayOfMonth(timestamp, y, m, leap);
+                h = Timestamps.getHourOfDay(timestamp);
+                TimestampFormatUtils.appendYear000(path, y);
+                path.put('-');
+                TimestampFormatUtils.append0(path, m);
+                path.put('-');
+                TimestampFormatUtils.append0(path, d);
+                path.put('T');
+                TimestampFormatUtils.append0(path, h);
+                TimestampFormatUtils.append0(path, Timestamps.getMinuteOfHour(timestamp));
+
+                if (calculatePartitionMax) {
+                    return timestamp + width - 1;
                 }
                 return 0;
             default:
@@ -237,6 +380,10 @@ public final class PartitionBy {
     }
 
     public static String toString(int partitionBy) {
+        final int stride = getStride(partitionBy);
+        if (stride > 1) {
+            return stride + " " + toString(getUnit(partitionBy));
+        }
         switch (partitionBy) {
             case DAY:
                 return "DAY";
@@ -246,6 +393,10 @@ public final class PartitionBy {
                 return "YEAR";
             case HOUR:
                 return "HOUR";
+            case WEEK:
+                return "WEEK";
+            case MINUTE:
+                return "MINUTE";
             case NONE:
                 return "NONE";
             default:
@@ -253,7 +404,29 @@ public final class PartitionBy {
         }
     }
 
+    private static long floorStride(long timestamp, long width) {
+        return timestamp - Math.floorMod(timestamp, width);
+    }
+
+    private static long getUnitWidth(int partitionBy) {
+        switch (getUnit(partitionBy)) {
+            case HOUR:
+                return getStride(partitionBy) * Timestamps.HOUR_MICROS;
+            case MINUTE:
+                return getStride(partitionBy) * Timestamps.MINUTE_MICROS;
+            case WEEK:
+                return Timestamps.WEEK_MICROS;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
     static PartitionCeilMethod getPartitionCeilMethod(int partitionBy) {
+        final int stride = getStride(partitionBy);
+        if (stride > 1) {
+            final long width = getUnitWidth(partitionBy);
+            return timestamp -> floorStride(timestamp, width) + width;
+        }
         switch (partitionBy) {
             case DAY:
                 return CEIL_DD;
@@ -263,6 +436,10 @@ public final class PartitionBy {
                 return CEIL_YYYY;
             case HOUR:
                 return CEIL_HH;
+            case WEEK:
+                return CEIL_WW;
+            case MINUTE:
+                return CEIL_MI;
             default:
                 return null;
         }
@@ -289,6 +466,8 @@ public final class PartitionBy {
         nameToIndexMap.put("month", MONTH);
         nameToIndexMap.put("year", YEAR);
         nameToIndexMap.put("hour", HOUR);
+        nameToIndexMap.put("week", WEEK);
+        nameToIndexMap.put("minute", MINUTE);
         nameToIndexMap.put("none", NONE);
     }
 
@@ -298,6 +477,7 @@ public final class PartitionBy {
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
         fmtHour = compiler.compile("yyyy-MM-ddTHH");
+        fmtMinute = compiler.compile("yyyy-MM-ddTHHmm");
         fmtDefault = new DateFormat() {
             @Override
             public void format(long datetime, DateLocale locale, CharSequence timeZoneName, CharSink sink) {
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.OperationFuture;
+import io.questdb.griffin.*;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.datetime.microtime.MicrosecondClock;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Enforces table TTL, see {@code ALTER TABLE x SET PARAM ttl = 30d}. On every check interval
+ * the job scans table directories and drops partitions that end before the table's max timestamp
+ * minus its TTL. The active partition is never dropped.
+ * <p>
+ * Partitions are dropped via regular ALTER TABLE statements, so for WAL tables the drop is
+ * sequenced as another transaction and for non-WAL tables it is skipped until the next check
+ * when the writer is busy, instead of waiting for the writer lock.
+ * <p>
+ * Scheduled checks drop partitions at times of low load only: when a table's transaction
+ * changed since the previous check, i.e. the table is being written to, the drop is deferred
+ * until a check finds the table quiet, or until it has been deferred for longer than
+ * {@link CairoConfiguration#getTtlMaxDeferral()}.
+ */
+public class PartitionTtlJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(PartitionTtlJob.class);
+    private final long checkInterval;
+    private final MicrosecondClock clock;
+    private final CairoConfiguration configuration;
+    private final ObjList<CharSequence> dropStatements = new ObjList<>();
+    private final FilesFacade ff;
+    private final long maxDeferral;
+    private final MillisecondClock millisecondClock;
+    private final Path path = new Path();
+    private final long spinLockTimeout;
+    private final StringSink sqlSink = new StringSink();
+    private final CharSequenceObjHashMap<TableActivity> tableActivity = new CharSequenceObjHashMap<>();
+    private final NativeLPSZ tableName = new NativeLPSZ();
+    private final FindVisitor findExpiredPartitionsFunc = this::findExpiredPartitions;
+    private final TxReader txReader;
+    private boolean idleOnly;
+    private long last = 0;
+    private TableReaderMetadata metadata;
+    private SqlCompiler sqlCompiler;
+    private SqlExecutionContextImpl sqlExecutionContext;
+
+    public PartitionTtlJob(CairoEngine engine, @Nullable FunctionFactoryCache functionFactoryCache) {
+        this.configuration = engine.getConfiguration();
+        this.ff = configuration.getFilesFacade();
+        this.clock = configuration.getMicrosecondClock();
+        this.millisecondClock = configuration.getMillisecondClock();
+        this.spinLockTimeout = configuration.getSpinLockTimeout();
+        this.checkInterval = configuration.getTtlCheckInterval() * 1000;
+        this.maxDeferral = configuration.getTtlMaxDeferral() * 1000;
+        this.txReader = new TxReader(ff);
+        this.metadata = new TableReaderMetadata(configuration);
+        this.sqlCompiler = new SqlCompiler(engine, functionFactoryCache, null);
+        this.sqlExecutionContext = new SqlExecutionContextImpl(engine, 1);
+        this.sqlExecutionContext.with(AllowAllCairoSecurityContext.INSTANCE, null, null);
+    }
+
+    @Override
+    public void close() {
+        txReader.close();
+        metadata = Misc.free(metadata);
+        sqlCompiler = Misc.free(sqlCompiler);
+        sqlExecutionContext = Misc.free(sqlExecutionContext);
+        path.close();
+    }
+
+    /**
+     * Scans all tables and drops expired partitions regardless of the check interval and table activity.
+     *
+     * @return number of tables that had partitions dropped
+     */
+    public int enforceTtl() {
+        return enforceTtl(false);
+    }
+
+    /**
+     * Scans all tables and drops expired partitions of the tables that were not written to since
+     * the previous scan, or whose drop has been deferred for longer than the max deferral.
+     * This is what the scheduled check runs.
+     *
+     * @return number of tables that had partitions dropped
+     */
+    public int enforceTtlOnIdleTables() {
+        return enforceTtl(true);
+    }
+
+    // returns true when the drop should wait for the table to go quiet
+    private boolean deferDrop(boolean written) {
+        final TableActivity activity = tableActivity.get(tableName);
+        final long now = clock.getTicks();
+        if (!idleOnly || !written) {
+            activity.deferredSince = Long.MIN_VALUE;
+            return false;
+        }
+        if (activity.deferredSince == Long.MIN_VALUE) {
+            activity.deferredSince = now;
+        }
+        if (now - activity.deferredSince >= maxDeferral) {
+            LOG.info().$("ttl drop deferred for too long, table is still being written to [table=").$(tableName).I$();
+            activity.deferredSince = Long.MIN_VALUE;
+            return false;
+        }
+        LOG.debug().$("table is being written to, deferring ttl enforcement [table=").$(tableName).I$();
+        return true;
+    }
+
+    private boolean dropExpiredPartitions(CharSequence sql) {
+        try {
+            try (OperationFuture future = sqlCompiler.compile(sql, sqlExecutionContext).execute(null)) {
+                future.await();
+            }
+            LOG.info().$("dropped partitions outside of ttl [sql=").$(sql).I$();
+            return true;
+        } catch (EntryUnavailableException e) {
+            // writer is busy, this is not the right time to take the lock, retry on the next check
+            LOG.info().$("table is busy, postponing ttl enforcement [sql=").$(sql)
+                    .$(", reason=").$(e.getFlyweightMessage())
+                    .I$();
+        } catch (SqlException | CairoException e) {
+            LOG.error().$("could not drop partitions outside of ttl [sql=").$(sql)
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+        }
+        return false;
+    }
+
+    private int enforceTtl(boolean idleOnly) {
+        this.idleOnly = idleOnly;
+        dropStatements.clear();
+        path.of(configuration.getRoot()).slash$();
+        ff.iterateDir(path, findExpiredPartitionsFunc);
+
+        int dropped = 0;
+        for (int i = 0, n = dropStatements.size(); i < n; i++) {
+            if (dropExpiredPartitions(dropStatements.getQuick(i))) {
+                dropped++;
+            }
+        }
+        dropStatements.clear();
+        return dropped;
+    }
+
+    private void findExpiredPartitions(long pUtf8NameZ, int type) {
+        if (type != Files.DT_DIR || Files.isDots(tableName.of(pUtf8NameZ))) {
+            return;
+        }
+
+        final int rootLen = path.length();
+        try {
+            path.chop$().concat(tableName).concat(TableUtils.META_FILE_NAME).$();
+            if (!ff.exists(path)) {
+                return;
+            }
+            metadata.load(path);
+            final long ttl = metadata.getTtl();
+            final int partitionBy = metadata.getPartitionBy();
+            if (ttl < 1 || !PartitionBy.isPartitioned(partitionBy) || metadata.getTimestampIndex() < 0) {
+                return;
+            }
+
+            path.trimTo(rootLen).chop$().concat(tableName).concat(TableUtils.TXN_FILE_NAME).$();
+            sqlSink.clear();
+            final boolean written;
+            try (TxReader txReader = this.txReader.ofRO(path, partitionBy)) {
+                TableUtils.safeReadTxn(txReader, millisecondClock, spinLockTimeout);
+                final long maxTimestamp = txReader.getMaxTimestamp();
+                written = updateActivity(txReader.getTxn());
+                if (maxTimestamp == Long.MIN_VALUE) {
+                    return;
+                }
+                final long horizon = maxTimestamp - ttl;
+                final PartitionBy.PartitionAddMethod partitionAddMethod = PartitionBy.getPartitionAddMethod(partitionBy);
+                assert partitionAddMethod != null;
+
+                for (int i = 0, n = txReader.getPartitionCount(); i < n; i++) {
+                    final long partitionTimestamp = txReader.getPartitionTimestamp(i);
+                    // partitions are ordered, stop at the first one that reaches into the retained window
+                    if (partitionAddMethod.calculate(partitionTimestamp, 1) > horizon) {
+                        break;
+                    }
+                    if (sqlSink.length() == 0) {
+                        sqlSink.put("alter table \"").put(tableName).put("\" drop partition list ");
+                    } else {
+                        sqlSink.put(',');
+                    }
+                    sqlSink.put('\'');
+                    PartitionBy.setSinkForPartition(sqlSink, partitionBy, partitionTimestamp, false);
+                    sqlSink.put('\'');
+                }
+            }
+
+            if (sqlSink.length() > 0 && !deferDrop(written)) {
+                dropStatements.add(sqlSink.toString());
+            }
+        } catch (CairoException e) {
+            LOG.info().$("could not check ttl [table=").$(tableName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+        } finally {
+            path.trimTo(rootLen).$();
+        }
+    }
+
+    // returns true when the table was written to since the previous check
+    private boolean updateActivity(long txn) {
+        final int index = tableActivity.keyIndex(tableName);
+        if (index > -1) {
+            final TableActivity activity = new TableActivity();
+            activity.txn = txn;
+            tableActivity.putAt(index, Chars.toString(tableName), activity);
+            // unknown history, assume the table is busy
+            return true;
+        }
+        final TableActivity activity = tableActivity.valueAtQuick(index);
+        final boolean written = activity.txn != txn;
+        activity.txn = txn;
+        return written;
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long t = clock.getTicks();
+        if (last + checkInterval < t) {
+            last = t;
+            return enforceTtlOnIdleTables() > 0;
+        }
+        return false;
+    }
+
+    private static class TableActivity {
+        // time the first deferred drop was detected, Long.MIN_VALUE when there is no deferred drop
+        private long deferredSince = Long.MIN_VALUE;
+        private long txn;
+    }
+}
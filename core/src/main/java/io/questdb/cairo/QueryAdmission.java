@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.SpillSpace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission of the queries a connection executes one after another. A query acquires the admission
+ * before it starts and releases it once its cursor is closed. While the admission is bound to the
+ * executing thread with {@link io.questdb.std.Unsafe#bindMemoryAccount(MemoryAccount)}, query memory
+ * allocated by the thread is charged to the admitted query.
+ * <p>
+ * Each admitted query has an account of its own, see {@link #getOwner()}. Structures that outlive the
+ * query, such as those of cached factories, credit their memory back to that account rather than to
+ * whichever query of the connection runs when they free it.
+ */
+public class QueryAdmission implements MemoryAccount, QuietCloseable {
+    static final int STATUS_ADMITTED = 2;
+    static final int STATUS_NONE = 0;
+    static final int STATUS_QUEUED = 1;
+    private final QueryAdmissionController controller;
+    private final long memoryLimit;
+    private final SpillSpace spillSpace;
+    QueryAdmissionController.Principal principal;
+    long queuedAt;
+    int status = STATUS_NONE;
+    private QueryMemory queryMemory = new QueryMemory();
+
+    public QueryAdmission(QueryAdmissionController controller) {
+        this.controller = controller;
+        this.memoryLimit = controller.getQueryMemoryLimit();
+        this.spillSpace = controller.getSpillSpace();
+    }
+
+    @Override
+    public void charge(long size, int memoryTag) {
+        if (status == STATUS_ADMITTED) {
+            queryMemory.charge(size, memoryTag);
+        }
+    }
+
+    @Override
+    public void close() {
+        release();
+    }
+
+    public long getMemoryUsed() {
+        return queryMemory.used.get();
+    }
+
+    @Override
+    public MemoryAccount getOwner() {
+        return status == STATUS_ADMITTED ? queryMemory : null;
+    }
+
+    @Override
+    public SpillSpace getSpillSpace(long size) {
+        return status == STATUS_ADMITTED ? queryMemory.getSpillSpace(size) : null;
+    }
+
+    public boolean isAdmitted() {
+        return status == STATUS_ADMITTED;
+    }
+
+    public void release() {
+        if (status != STATUS_NONE) {
+            if (principal != null) {
+                controller.release(this);
+            }
+            status = STATUS_NONE;
+            if (queryMemory.used.get() != 0) {
+                // structures of the released query still hold memory charged to its account,
+                // the next query starts with an account of its own
+                queryMemory = new QueryMemory();
+            }
+        }
+    }
+
+    /**
+     * @return true when the query is admitted and false when it is queued, in which case the caller
+     * is meant to try again later
+     * @throws CairoException when the query is rejected
+     */
+    public boolean tryAdmit(CairoSecurityContext securityContext) {
+        if (status == STATUS_ADMITTED) {
+            return true;
+        }
+        if (controller.isEnabled()) {
+            controller.tryAdmit(this, securityContext.getPrincipal());
+        } else {
+            status = STATUS_ADMITTED;
+        }
+        return status == STATUS_ADMITTED;
+    }
+
+    CharSequence getPrincipalName() {
+        return principal != null ? principal.name : null;
+    }
+
+    private class QueryMemory implements MemoryAccount {
+        private final AtomicLong used = new AtomicLong();
+
+        @Override
+        public void charge(long size, int memoryTag) {
+            // memory limit applies to the running query only, accounts of released queries are credited until
+            // their structures are freed
+            if (size > 0 && isRunning() && used.get() + size > memoryLimit) {
+                controller.onMemoryLimitExceeded(QueryAdmission.this, size, memoryTag);
+            }
+            used.addAndGet(size);
+        }
+
+        @Override
+        public SpillSpace getSpillSpace(long size) {
+            return isRunning() && used.get() + size > memoryLimit ? spillSpace : null;
+        }
+
+        @Override
+        public void transfer(long size, int memoryTag) {
+            used.addAndGet(size);
+        }
+
+        private boolean isRunning() {
+            return status == STATUS_ADMITTED && queryMemory == this;
+        }
+    }
+}
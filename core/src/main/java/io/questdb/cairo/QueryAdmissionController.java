@@ -0,0 +1,245 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.CharSequenceObjHashMap;
+import io.questdb.std.Chars;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.ObjList;
+import io.questdb.std.SpillSpace;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+
+/**
+ * Decides when a query may start executing. Queries are admitted per principal, the user name from
+ * {@link CairoSecurityContext#getPrincipal()}, while the principal runs fewer queries than the concurrency
+ * limit and while running queries hold less query memory than the global and per-principal budgets.
+ * Queries that cannot be admitted wait in the principal's queue until they are admitted, the queue
+ * timeout elapses or, when the queue is full, they are rejected straight away.
+ * <p>
+ * Query memory is native memory of {@link MemoryTag#isQueryMemory(int) query memory tags}
+ * charged to each running query's {@link QueryAdmission}. Once a query reaches the per-query limit, spillable
+ * structures, such as maps and record chains, move to spill files and any other allocation cancels the query.
+ */
+public class QueryAdmissionController {
+    private static final String ANONYMOUS = "";
+    private static final Log LOG = LogFactory.getLog(QueryAdmissionController.class);
+    private final MillisecondClock clock;
+    private final boolean enabled;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final long memoryLimit;
+    private final QueryAdmissionMetrics metrics;
+    private final long principalMemoryLimit;
+    private final CharSequenceObjHashMap<Principal> principals = new CharSequenceObjHashMap<>();
+    private final long queryMemoryLimit;
+    private final SpillSpace spillSpace;
+    private final long timeout;
+    private volatile long releaseCount;
+
+    public QueryAdmissionController(CairoConfiguration configuration, QueryAdmissionMetrics metrics) {
+        this.clock = configuration.getMillisecondClock();
+        this.maxConcurrent = configuration.getQueryAdmissionMaxConcurrent();
+        this.maxQueued = configuration.getQueryAdmissionMaxQueued();
+        this.memoryLimit = configuration.getQueryAdmissionMemoryLimit();
+        this.principalMemoryLimit = configuration.getQueryAdmissionPrincipalMemoryLimit();
+        this.timeout = configuration.getQueryAdmissionTimeout();
+        final long queryMemoryLimit = configuration.getQueryMemoryLimit();
+        this.queryMemoryLimit = queryMemoryLimit > 0 ? queryMemoryLimit : Long.MAX_VALUE;
+        this.metrics = metrics;
+        this.enabled = maxConcurrent > 0 || memoryLimit > 0 || principalMemoryLimit > 0;
+        this.spillSpace = configuration.isQuerySpillEnabled()
+                ? new SpillSpace(configuration.getFilesFacade(), configuration.getQuerySpillRoot(), configuration.getMkDirMode())
+                : null;
+    }
+
+    public synchronized int getQueuedCount(CharSequence principal) {
+        final Principal p = principals.get(principal != null ? principal : ANONYMOUS);
+        return p != null ? p.queued : 0;
+    }
+
+    /**
+     * Number of admissions released so far. Callers waiting for admission may watch it to
+     * learn that a running query ended and it is worth trying again.
+     */
+    public long getReleaseCount() {
+        return releaseCount;
+    }
+
+    public synchronized int getRunningCount(CharSequence principal) {
+        final Principal p = principals.get(principal != null ? principal : ANONYMOUS);
+        return p != null ? p.running.size() : 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private boolean canAdmit(Principal principal) {
+        if (maxConcurrent > 0 && principal.running.size() >= maxConcurrent) {
+            return false;
+        }
+        if (principalMemoryLimit > 0 && principal.getMemoryUsed() >= principalMemoryLimit) {
+            return false;
+        }
+        if (memoryLimit > 0) {
+            long memoryUsed = 0;
+            final ObjList<CharSequence> keys = principals.keys();
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                memoryUsed += principals.get(keys.getQuick(i)).getMemoryUsed();
+            }
+            return memoryUsed < memoryLimit;
+        }
+        return true;
+    }
+
+    private void dequeue(Principal principal) {
+        principal.queued--;
+        metrics.decQueued();
+        removeIfIdle(principal);
+    }
+
+    private void removeIfIdle(Principal principal) {
+        if (principal.queued == 0 && principal.running.size() == 0) {
+            principals.remove(principal.name);
+        }
+    }
+
+    long getQueryMemoryLimit() {
+        return queryMemoryLimit;
+    }
+
+    SpillSpace getSpillSpace() {
+        return spillSpace;
+    }
+
+    void onMemoryLimitExceeded(QueryAdmission admission, long size, int memoryTag) {
+        metrics.incrementMemoryLimitExceeded();
+        LOG.info().$("query memory limit exceeded [principal=").$(admission.getPrincipalName())
+                .$(", limit=").$(queryMemoryLimit)
+                .$(", used=").$(admission.getMemoryUsed())
+                .$(", requested=").$(size)
+                .$(", tag=").$(MemoryTag.nameOf(memoryTag))
+                .I$();
+        throw CairoException.nonCritical()
+                .put("query memory limit exceeded [limit=").put(queryMemoryLimit)
+                .put(", used=").put(admission.getMemoryUsed())
+                .put(", requested=").put(size)
+                .put(']')
+                .setInterruption(true);
+    }
+
+    synchronized void release(QueryAdmission admission) {
+        final Principal principal = admission.principal;
+        if (admission.status == QueryAdmission.STATUS_QUEUED) {
+            dequeue(principal);
+        } else {
+            principal.running.remove(admission);
+            metrics.decRunning();
+            removeIfIdle(principal);
+        }
+        admission.principal = null;
+        releaseCount++;
+    }
+
+    /**
+     * Sets admission status to either admitted or queued.
+     *
+     * @throws CairoException when the queue of the principal is full or the query has been
+     *                        waiting for longer than the admission timeout
+     */
+    synchronized void tryAdmit(QueryAdmission admission, CharSequence principalName) {
+        Principal principal = admission.principal;
+        if (principal == null) {
+            final CharSequence name = principalName != null ? principalName : ANONYMOUS;
+            final int index = principals.keyIndex(name);
+            if (index > -1) {
+                principal = new Principal(Chars.toString(name));
+                principals.putAt(index, principal.name, principal);
+            } else {
+                principal = principals.valueAtQuick(index);
+            }
+        }
+
+        if (canAdmit(principal)) {
+            if (admission.status == QueryAdmission.STATUS_QUEUED) {
+                principal.queued--;
+                metrics.decQueued();
+            }
+            admission.principal = principal;
+            admission.status = QueryAdmission.STATUS_ADMITTED;
+            principal.running.add(admission);
+            metrics.incRunning();
+            return;
+        }
+
+        if (admission.status != QueryAdmission.STATUS_QUEUED) {
+            if (principal.queued >= maxQueued) {
+                metrics.incrementRejected();
+                removeIfIdle(principal);
+                throw CairoException.nonCritical()
+                        .put("too many queries waiting for admission [principal=").put(principal.name)
+                        .put(", maxQueued=").put(maxQueued)
+                        .put(']');
+            }
+            admission.principal = principal;
+            admission.status = QueryAdmission.STATUS_QUEUED;
+            admission.queuedAt = clock.getTicks();
+            principal.queued++;
+            metrics.incQueued();
+            return;
+        }
+
+        if (clock.getTicks() - admission.queuedAt > timeout) {
+            dequeue(principal);
+            admission.principal = null;
+            admission.status = QueryAdmission.STATUS_NONE;
+            metrics.incrementRejected();
+            throw CairoException.nonCritical()
+                    .put("timed out waiting for query admission [principal=").put(principal.name)
+                    .put(", timeout=").put(timeout)
+                    .put("ms]");
+        }
+    }
+
+    static class Principal {
+        final String name;
+        private final ObjList<QueryAdmission> running = new ObjList<>();
+        private int queued;
+
+        private Principal(String name) {
+            this.name = name;
+        }
+
+        private long getMemoryUsed() {
+            long memoryUsed = 0;
+            for (int i = 0, n = running.size(); i < n; i++) {
+                memoryUsed += running.getQuick(i).getMemoryUsed();
+            }
+            return memoryUsed;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.metrics.Counter;
+import io.questdb.metrics.Gauge;
+import io.questdb.metrics.MetricsRegistry;
+
+public class QueryAdmissionMetrics {
+
+    private final Counter memoryLimitExceededCounter;
+    private final Gauge queuedGauge;
+    private final Counter rejectedCounter;
+    private final Gauge runningGauge;
+
+    public QueryAdmissionMetrics(MetricsRegistry metricsRegistry) {
+        this.runningGauge = metricsRegistry.newGauge("query_admission_running");
+        this.queuedGauge = metricsRegistry.newGauge("query_admission_queued");
+        this.rejectedCounter = metricsRegistry.newCounter("query_admission_rejected");
+        this.memoryLimitExceededCounter = metricsRegistry.newCounter("query_memory_limit_exceeded");
+    }
+
+    public long getMemoryLimitExceededCount() {
+        return memoryLimitExceededCounter.getValue();
+    }
+
+    public long getQueuedCount() {
+        return queuedGauge.getValue();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCounter.getValue();
+    }
+
+    public long getRunningCount() {
+        return runningGauge.getValue();
+    }
+
+    void decQueued() {
+        queuedGauge.dec();
+    }
+
+    void decRunning() {
+        runningGauge.dec();
+    }
+
+    void incQueued() {
+        queuedGauge.inc();
+    }
+
+    void incRunning() {
+        runningGauge.inc();
+    }
+
+    void incrementMemoryLimitExceeded() {
+        memoryLimitExceededCounter.inc();
+    }
+
+    void incrementRejected() {
+        rejectedCounter.inc();
+    }
+}
@@ -210,6 +210,7 @@ public class RecordSinkFactory {
                     asm.invokeInterface(rGetLong256, 1);
                     asm.invokeInterface(wPutLong256, 1);
                     break;
+                case ColumnType.UUID:
                 case ColumnType.LONG128:
                     asm.aload(2);
                     asm.aload(1);
@@ -0,0 +1,274 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+
+import java.io.Closeable;
+
+/**
+ * Engine-wide cache of materialized SELECT results.
+ * <p>
+ * Every result is stored along with the versions of the table partitions it was computed from,
+ * see {@link #addTableVersions(TableReader, LongList, LongList)}. Only partitions that overlap the
+ * queried time range are versioned, so that results over historical data remain valid while rows
+ * keep arriving into the live partition.
+ * <p>
+ * Results are checked out by {@link #poll(CharSequence, LongList)} and returned by {@link #release(Entry)},
+ * hence no result is read by two cursors at the same time. Total memory of the cached results is bounded
+ * by the configured capacity; least recently used results are evicted first. Result evicted while checked
+ * out is freed once it is released.
+ */
+public class ResultCache implements Closeable, Mutable {
+    private static final Log LOG = LogFactory.getLog(ResultCache.class);
+    private final long capacity;
+    private final CharSequenceObjHashMap<Entry> entries = new CharSequenceObjHashMap<>();
+    private long evictionCount;
+    // most recently used entry
+    private Entry head;
+    private long hitCount;
+    private long memoryUsed;
+    private long missCount;
+    // least recently used entry
+    private Entry tail;
+
+    public ResultCache(CairoConfiguration configuration) {
+        this.capacity = configuration.getSqlResultCacheCapacity();
+    }
+
+    /**
+     * Appends versions of the table and of its partitions that overlap given intervals to the sink.
+     *
+     * @param reader    table reader
+     * @param intervals sorted list of inclusive timestamp intervals, null for the whole table
+     * @param sink      list to append versions to
+     */
+    public static void addTableVersions(TableReader reader, @Nullable LongList intervals, LongList sink) {
+        final TxReader txFile = reader.getTxFile();
+        sink.add(reader.getMetadata().getTableId());
+        sink.add(txFile.getStructureVersion());
+        sink.add(txFile.getTruncateVersion());
+
+        if (!PartitionBy.isPartitioned(reader.getPartitionedBy())) {
+            // table data is a single partition, which changes with every commit
+            sink.add(txFile.getTxn());
+            return;
+        }
+
+        final int partitionCount = txFile.getPartitionCount();
+        for (int i = 0; i < partitionCount; i++) {
+            final long partitionLo = txFile.getPartitionTimestamp(i);
+            final boolean last = i == partitionCount - 1;
+            final long partitionHi = last ? Long.MAX_VALUE : txFile.getPartitionTimestamp(i + 1) - 1;
+            if (intervals == null || overlaps(intervals, partitionLo, partitionHi)) {
+                sink.add(partitionLo);
+                sink.add(last ? txFile.getTransientRowCount() : txFile.getPartitionSize(i));
+                sink.add(txFile.getPartitionNameTxn(i));
+                sink.add(txFile.getPartitionColumnVersion(i));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        while (tail != null) {
+            evict(tail);
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    @TestOnly
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @TestOnly
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    @TestOnly
+    public synchronized long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    @TestOnly
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Checks out result computed for the given key over the given table versions.
+     *
+     * @param key      query text and bind variable values
+     * @param versions table versions as of now
+     * @return checked out entry or null when there is no valid result for the key or the
+     * result is being read by another cursor
+     */
+    public synchronized Entry poll(CharSequence key, LongList versions) {
+        final Entry entry = entries.get(key);
+        if (entry == null || entry.busy) {
+            missCount++;
+            return null;
+        }
+
+        if (!entry.versions.equals(versions)) {
+            // data in the queried time range changed since the result was cached
+            LOG.info().$("stale result [key=").$(key).I$();
+            evict(entry);
+            missCount++;
+            return null;
+        }
+
+        unlink(entry);
+        linkFirst(entry);
+        entry.busy = true;
+        entry.chain.toTop();
+        hitCount++;
+        return entry;
+    }
+
+    /**
+     * Adds result to the cache. On success the cache takes ownership of the chain and
+     * the returned entry is checked out by the caller.
+     *
+     * @param key      query text and bind variable values
+     * @param versions table versions the result was computed from
+     * @param chain    materialized result
+     * @param rowCount number of rows in the result
+     * @return checked out entry or null when the result does not fit into the cache
+     */
+    public synchronized Entry put(CharSequence key, LongList versions, RecordChain chain, long rowCount) {
+        final long size = chain.getMemorySize();
+        if (size > capacity) {
+            return null;
+        }
+
+        final Entry existing = entries.get(key);
+        if (existing != null) {
+            evict(existing);
+        }
+
+        while (memoryUsed + size > capacity && tail != null) {
+            evict(tail);
+        }
+
+        final Entry entry = new Entry(Chars.toString(key), versions, chain, rowCount, size);
+        entry.busy = true;
+        entries.put(entry.key, entry);
+        linkFirst(entry);
+        memoryUsed += size;
+        return entry;
+    }
+
+    public synchronized void release(Entry entry) {
+        entry.busy = false;
+        if (entry.evicted) {
+            Misc.free(entry.chain);
+        }
+    }
+
+    private static boolean overlaps(LongList intervals, long lo, long hi) {
+        for (int i = 0, n = intervals.size(); i < n; i += 2) {
+            if (intervals.getQuick(i) <= hi && intervals.getQuick(i + 1) >= lo) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evict(Entry entry) {
+        unlink(entry);
+        entries.remove(entry.key);
+        memoryUsed -= entry.size;
+        evictionCount++;
+        entry.evicted = true;
+        if (!entry.busy) {
+            Misc.free(entry.chain);
+        }
+    }
+
+    private void linkFirst(Entry entry) {
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            head = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        } else {
+            tail = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    public static class Entry {
+        private final RecordChain chain;
+        private final String key;
+        private final long rowCount;
+        private final long size;
+        private final LongList versions;
+        private boolean busy;
+        private boolean evicted;
+        private Entry next;
+        private Entry prev;
+
+        private Entry(String key, LongList versions, RecordChain chain, long rowCount, long size) {
+            this.key = key;
+            this.versions = new LongList(versions);
+            this.chain = chain;
+            this.rowCount = rowCount;
+            this.size = size;
+        }
+
+        public RecordChain getChain() {
+            return chain;
+        }
+
+        public long getRowCount() {
+            return rowCount;
+        }
+    }
+}
@@ -46,6 +46,7 @@ public class TableReaderMetadata extends AbstractRecordMetadata implements Table
     private long structureVersion;
     private int tableId;
     private MemoryMR transitionMeta;
+    private long ttl;
     private boolean walEnabled;
 
     public TableReaderMetadata(CairoConfiguration configuration, String tableName) {
@@ -83,6 +84,7 @@ public class TableReaderMetadata extends AbstractRecordMetadata implements Table
         this.maxUncommittedRows = metaMem.getInt(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
         this.o3MaxLag = metaMem.getLong(TableUtils.META_OFFSET_O3_MAX_LAG);
         this.walEnabled = metaMem.getBool(TableUtils.META_OFFSET_WAL_ENABLED);
+        this.ttl = metaMem.getLong(TableUtils.META_OFFSET_TTL);
         long offset = TableUtils.getColumnNameOffset(columnCount);
 
         int shiftLeft = 0, existingIndex = 0;
@@ -165,6 +167,7 @@ public class TableReaderMetadata extends AbstractRecordMetadata implements Table
         tableId = metadata.tableId;
         maxUncommittedRows = metadata.maxUncommittedRows;
         o3MaxLag = metadata.o3MaxLag;
+        ttl = metadata.ttl;
         structureVersion = metadata.structureVersion;
         walEnabled = metadata.walEnabled;
         path.of(metadata.path);
@@ -250,6 +253,11 @@ public class TableReaderMetadata extends AbstractRecordMetadata implements Table
         return tableName;
     }
 
+    @Override
+    public long getTtl() {
+        return ttl;
+    }
+
     public boolean isWalEnabled() {
         return walEnabled;
     }
@@ -295,6 +303,7 @@ public class TableReaderMetadata extends AbstractRecordMetadata implements Table
             this.o3MaxLag = metaMem.getLong(TableUtils.META_OFFSET_O3_MAX_LAG);
             this.structureVersion = metaMem.getLong(TableUtils.META_OFFSET_STRUCTURE_VERSION);
             this.walEnabled = metaMem.getBool(TableUtils.META_OFFSET_WAL_ENABLED);
+            this.ttl = metaMem.getLong(TableUtils.META_OFFSET_TTL);
             this.columnMetadata.clear();
             long offset = TableUtils.getColumnNameOffset(columnCount);
             this.timestampIndex = -1;
@@ -163,6 +163,26 @@ public class TableReaderRecord implements Record, Sinkable {
         return reader.getColumn(absoluteColumnIndex).getLong(offset);
     }
 
+    @Override
+    public long getLong128Hi(int col) {
+        final long offset = getAdjustedRecordIndex(col) * 16;
+        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
+                offset,
+                TableReader.getPrimaryColumnIndex(columnBase, col)
+        );
+        return reader.getColumn(absoluteColumnIndex).getLong(offset + Long.BYTES); // Store Lo then Hi
+    }
+
+    @Override
+    public long getLong128Lo(int col) {
+        final long offset = getAdjustedRecordIndex(col) * 16;
+        final int absoluteColumnIndex = ifOffsetNegThen0ElseValue(
+                offset,
+                TableReader.getPrimaryColumnIndex(columnBase, col)
+        );
+        return reader.getColumn(absoluteColumnIndex).getLong(offset); // Store Lo then Hi
+    }
+
     @Override
     public void getLong256(int col, CharSink sink) {
         final int index = TableReader.getPrimaryColumnIndex(columnBase, col);
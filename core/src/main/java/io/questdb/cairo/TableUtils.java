@@ -72,6 +72,7 @@ public final class TableUtils {
     public static final long META_OFFSET_STRUCTURE_VERSION = 32; // LONG
     public static final long META_OFFSET_TABLE_ID = 16;
     public static final long META_OFFSET_TIMESTAMP_INDEX = 8;
+    public static final long META_OFFSET_TTL = 48; // LONG
     public static final long META_OFFSET_VERSION = 12;
     public static final long META_OFFSET_WAL_ENABLED = 40; // INT
     public static final int NULL_LEN = -1;
@@ -1004,6 +1005,7 @@ public final class TableUtils {
                 // Long256 is null when all 4 longs are NaNs
                 Vect.setMemoryLong(addr, Numbers.LONG_NaN, count * 4);
                 break;
+            case ColumnType.UUID:
             case ColumnType.LONG128:
                 // Long128 is null when all 2 longs are NaNs
                 //noinspection ConstantConditions
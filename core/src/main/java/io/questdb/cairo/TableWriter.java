@@ -1727,6 +1727,28 @@ public class TableWriter implements TableWriterAPI, MetadataChangeSPI, Closeable
         }
     }
 
+    @Override
+    public void setMetaTtl(long ttlUs) {
+        try {
+            commit();
+            long metaSize = copyMetadataAndUpdateVersion();
+            openMetaSwapFileByIndex(ff, ddlMem, path, rootLen, this.metaSwapIndex);
+            try {
+                ddlMem.jumpTo(META_OFFSET_TTL);
+                ddlMem.putLong(ttlUs);
+                ddlMem.jumpTo(metaSize);
+            } finally {
+                ddlMem.close();
+            }
+
+            finishMetaSwapUpdate();
+            metadata.setTtl(ttlUs);
+            clearTodoLog();
+        } finally {
+            ddlMem.close();
+        }
+    }
+
     public void setSeqTxn(long seqTxn) {
         txWriter.setSeqTxn(seqTxn);
     }
@@ -1881,6 +1903,7 @@ public class TableWriter implements TableWriterAPI, MetadataChangeSPI, Closeable
             case ColumnType.TIMESTAMP:
                 nullers.add(() -> mem1.putLong(Numbers.LONG_NaN));
                 break;
+            case ColumnType.UUID:
             case ColumnType.LONG128:
                 nullers.add(() -> mem1.putLong128LittleEndian(Numbers.LONG_NaN, Numbers.LONG_NaN));
                 break;
@@ -2730,6 +2753,8 @@ public class TableWriter implements TableWriterAPI, MetadataChangeSPI, Closeable
         ddlMem.putLong(metaMem.getLong(META_OFFSET_O3_MAX_LAG));
         ddlMem.putLong(txWriter.getStructureVersion() + 1);
         ddlMem.putBool(metaMem.getBool(META_OFFSET_WAL_ENABLED));
+        ddlMem.jumpTo(META_OFFSET_TTL);
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_TTL));
         metadata.setStructureVersion(txWriter.getStructureVersion() + 1);
     }
 
@@ -6261,6 +6286,8 @@ public class TableWriter implements TableWriterAPI, MetadataChangeSPI, Closeable
         default void putTimestamp(int columnIndex, long value) {
             putLong(columnIndex, value);
         }
+
+        void putUuid(int columnIndex, CharSequence uuid);
     }
 
     private class RowImpl implements Row {
@@ -6354,6 +6381,11 @@ public class TableWriter implements TableWriterAPI, MetadataChangeSPI, Closeable
             setRowValueNotNull(columnIndex);
         }
 
+        @Override
+        public void putUuid(int columnIndex, CharSequence uuid) {
+            WriterRowUtils.putUuid(columnIndex, uuid, this);
+        }
+
         @Override
         public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
             getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
@@ -36,6 +36,7 @@ class TableWriterMetadata extends AbstractRecordMetadata implements TableRecordM
     private long structureVersion;
     private int symbolMapCount;
     private int tableId;
+    private long ttl;
     private int version;
     private boolean walEnabled;
 
@@ -82,6 +83,11 @@ class TableWriterMetadata extends AbstractRecordMetadata implements TableRecordM
         return version;
     }
 
+    @Override
+    public long getTtl() {
+        return ttl;
+    }
+
     @Override
     public boolean isWalEnabled() {
         return walEnabled;
@@ -99,6 +105,7 @@ class TableWriterMetadata extends AbstractRecordMetadata implements TableRecordM
         this.columnMetadata.clear();
         this.structureVersion = metaMem.getLong(TableUtils.META_OFFSET_STRUCTURE_VERSION);
         this.walEnabled = metaMem.getBool(TableUtils.META_OFFSET_WAL_ENABLED);
+        this.ttl = metaMem.getLong(TableUtils.META_OFFSET_TTL);
 
         long offset = TableUtils.getColumnNameOffset(columnCount);
         this.symbolMapCount = 0;
@@ -136,6 +143,10 @@ class TableWriterMetadata extends AbstractRecordMetadata implements TableRecordM
         this.o3MaxLag = o3MaxLagUs;
     }
 
+    public void setTtl(long ttlUs) {
+        this.ttl = ttlUs;
+    }
+
     public void setStructureVersion(long value) {
         this.structureVersion = value;
     }
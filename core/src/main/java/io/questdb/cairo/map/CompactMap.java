@@ -143,8 +143,8 @@ public class CompactMap implements Map, Reopenable {
 
     @TestOnly
     CompactMap(int pageSize, @Transient ColumnTypes keyTypes, @Transient ColumnTypes valueTypes, long keyCapacity, double loadFactor, HashFunctionFactory hashFunctionFactory, int maxResizes, int maxPages) {
-        this.entries = Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_COMPACT_MAP);
-        this.entrySlots = Vm.getARWInstance(pageSize, maxPages, MemoryTag.NATIVE_COMPACT_MAP);
+        this.entries = Vm.getSpillableARWInstance(pageSize, maxPages, MemoryTag.NATIVE_COMPACT_MAP);
+        this.entrySlots = Vm.getSpillableARWInstance(pageSize, maxPages, MemoryTag.NATIVE_COMPACT_MAP);
         try {
             this.loadFactor = loadFactor;
             this.columnOffsets = new long[keyTypes.getColumnCount() + valueTypes.getColumnCount()];
@@ -293,6 +293,7 @@ public class CompactMap implements Map, Reopenable {
                 case ColumnType.LONG256:
                     sz = Long256.BYTES;
                     break;
+                case ColumnType.UUID:
                 case ColumnType.LONG128:
                     sz = 2 * Long.BYTES;
                     break;
@@ -44,8 +44,9 @@ public class FastMap implements Map, Reopenable {
     private final Key key = new Key();
     private final int keyBlockOffset;
     private final int keyDataOffset;
+    // key-value heap, moves to a spill file once the query runs out of memory budget
+    private final SpillableRegion kHeap;
     private final double loadFactor;
-    private final int mapMemoryTag;
     private final int maxResizes;
     private final FastMapRecord record;
     private final FastMapValue value;
@@ -122,19 +123,19 @@ public class FastMap implements Map, Reopenable {
             int mapMemoryTag,
             int listMemoryTag
     ) {
-        this.mapMemoryTag = mapMemoryTag;
         assert pageSize > 3;
         assert loadFactor > 0 && loadFactor < 1d;
         this.initialKeyCapacity = keyCapacity;
         this.initialPageSize = pageSize;
         this.loadFactor = loadFactor;
-        this.kStart = kPos = Unsafe.malloc(this.capacity = pageSize, mapMemoryTag);
+        this.kHeap = new SpillableRegion(mapMemoryTag);
+        this.kStart = kPos = kHeap.resize(this.capacity = pageSize);
         this.kLimit = kStart + pageSize;
         this.keyCapacity = (int) (keyCapacity / loadFactor);
         this.keyCapacity = this.keyCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(this.keyCapacity);
         this.mask = this.keyCapacity - 1;
         this.free = (int) (this.keyCapacity * loadFactor);
-        this.offsets = new DirectLongList(this.keyCapacity, listMemoryTag);
+        this.offsets = new DirectLongList(this.keyCapacity, listMemoryTag, true);
         this.offsets.setPos(this.keyCapacity);
         this.offsets.zero(0);
         this.hashFunction = hashFunction;
@@ -178,6 +179,7 @@ public class FastMap implements Map, Reopenable {
                     case ColumnType.LONG256:
                         offset += Long256.BYTES;
                         break;
+                    case ColumnType.UUID:
                     case ColumnType.LONG128:
                         offset += 16;
                         break;
@@ -217,7 +219,7 @@ public class FastMap implements Map, Reopenable {
     public final void close() {
         Misc.free(offsets);
         if (kStart != 0) {
-            Unsafe.free(kStart, capacity, mapMemoryTag);
+            kHeap.close();
             kLimit = kStart = kPos = 0;
             free = 0;
             size = 0;
@@ -252,7 +254,7 @@ public class FastMap implements Map, Reopenable {
 
     @Override
     public void restoreInitialCapacity() {
-        this.kStart = kPos = Unsafe.realloc(this.kStart, this.kLimit - this.kStart, this.capacity = initialPageSize, mapMemoryTag);
+        this.kStart = kPos = kHeap.resize(this.capacity = initialPageSize);
         this.kLimit = kStart + this.initialPageSize;
         this.keyCapacity = (int) (this.initialKeyCapacity / loadFactor);
         this.keyCapacity = this.keyCapacity < MIN_INITIAL_CAPACITY ? MIN_INITIAL_CAPACITY : Numbers.ceilPow2(this.keyCapacity);
@@ -395,7 +397,7 @@ public class FastMap implements Map, Reopenable {
     private void rehash() {
         int capacity = keyCapacity << 1;
         mask = capacity - 1;
-        DirectLongList newOffsets = new DirectLongList(capacity, MemoryTag.NATIVE_FAST_MAP_LONG_LIST);
+        DirectLongList newOffsets = new DirectLongList(capacity, MemoryTag.NATIVE_FAST_MAP_LONG_LIST, true);
         newOffsets.setPos(capacity);
         newOffsets.zero(0);
 
@@ -424,7 +426,7 @@ public class FastMap implements Map, Reopenable {
             if (kCapacity < target) {
                 kCapacity = Numbers.ceilPow2(target);
             }
-            long kAddress = Unsafe.realloc(this.kStart, this.capacity, kCapacity, mapMemoryTag);
+            long kAddress = kHeap.resize(kCapacity);
 
             this.capacity = kCapacity;
             long d = kAddress - this.kStart;
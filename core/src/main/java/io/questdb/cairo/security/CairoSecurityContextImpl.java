@@ -28,13 +28,24 @@ import io.questdb.cairo.CairoSecurityContext;
 
 public class CairoSecurityContextImpl implements CairoSecurityContext {
     private final boolean canWrite;
+    private final CharSequence principal;
 
     public CairoSecurityContextImpl(boolean canWrite) {
+        this(canWrite, null);
+    }
+
+    public CairoSecurityContextImpl(boolean canWrite, CharSequence principal) {
         this.canWrite = canWrite;
+        this.principal = principal;
     }
 
     @Override
     public boolean canWrite() {
         return canWrite;
     }
+
+    @Override
+    public CharSequence getPrincipal() {
+        return principal;
+    }
 }
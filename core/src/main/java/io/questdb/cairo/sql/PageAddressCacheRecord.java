@@ -230,6 +230,10 @@ public class PageAddressCacheRecord implements Record, Closeable {
         return Rows.toRowID(frameIndex, rowIndex);
     }
 
+    public long getRowIndex() {
+        return rowIndex;
+    }
+
     @Override
     public short getShort(int columnIndex) {
         final long address = pageAddressCache.getPageAddress(frameIndex, columnIndex);
@@ -44,6 +44,13 @@ public interface PageFrameCursor extends Closeable, SymbolTableSource {
 
     @Nullable PageFrame next();
 
+    /**
+     * @return number of rows in all page frames of this cursor, or -1 if unknown
+     */
+    default long rowCount() {
+        return -1;
+    }
+
     /**
      * @return size of page in bytes
      */
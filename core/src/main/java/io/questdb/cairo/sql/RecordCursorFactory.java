@@ -132,6 +132,15 @@ public interface RecordCursorFactory extends Closeable, Sinkable, Plannable {
         return false;
     }
 
+    /**
+     * True if factory can publish filtered page frames via {@link #execute(SqlExecutionContext, SCSequence, int)},
+     * so that the caller could reduce rows of each frame itself, e.g. to aggregate them without going through
+     * the record cursor.
+     */
+    default boolean supportsPageFrameSequence() {
+        return false;
+    }
+
     default boolean supportsUpdateRowId(CharSequence tableName) {
         return false;
     }
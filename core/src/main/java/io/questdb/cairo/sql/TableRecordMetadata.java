@@ -42,5 +42,15 @@ public interface TableRecordMetadata extends RecordMetadata, QuietCloseable {
 
     String getTableName();
 
+    /**
+     * Retention window of the table in microseconds. Partitions that end before
+     * the table's max timestamp minus this window are dropped by the TTL job.
+     *
+     * @return TTL in microseconds, 0 when retention is disabled
+     */
+    default long getTtl() {
+        return 0;
+    }
+
     boolean isWalEnabled();
 }
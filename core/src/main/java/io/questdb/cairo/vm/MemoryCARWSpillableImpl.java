@@ -0,0 +1,56 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.vm;
+
+import io.questdb.std.SpillableRegion;
+
+/**
+ * A version of {@link MemoryCARWImpl} for query working memory that moves its contiguous region
+ * to a spill file once the query runs out of memory budget, see {@link SpillableRegion}.
+ */
+public class MemoryCARWSpillableImpl extends MemoryCARWImpl {
+    private final SpillableRegion region;
+
+    public MemoryCARWSpillableImpl(long pageSize, int maxPages, int memoryTag) {
+        super(pageSize, maxPages, memoryTag);
+        this.region = new SpillableRegion(memoryTag);
+    }
+
+    public boolean isSpilled() {
+        return region.isSpilled();
+    }
+
+    @Override
+    protected long reallocateMemory(long currentBaseAddress, long currentSize, long newSize) {
+        assert currentBaseAddress == region.getAddress();
+        return region.resize(newSize);
+    }
+
+    @Override
+    protected void releaseMemory(long baseAddress, long size) {
+        assert baseAddress == region.getAddress();
+        region.close();
+    }
+}
@@ -131,6 +131,10 @@ public class Vm {
         return new MemoryCMARWImpl(ff, name, ff.getPageSize(), -1, memoryTag, opts);
     }
 
+    public static MemoryARW getSpillableARWInstance(long pageSize, int maxPages, int memoryTag) {
+        return new MemoryCARWSpillableImpl(pageSize, maxPages, memoryTag);
+    }
+
     public static long getStorageLength(int len) {
         return STRING_LENGTH_BYTES + len * 2L;
     }
@@ -102,6 +102,8 @@ public interface MetadataChangeSPI {
 
     void setMetaO3MaxLag(long o3MaxLagUs);
 
+    void setMetaTtl(long ttlUs);
+
     void tick();
 
     void updateCommitInterval(double commitIntervalFraction, long commitIntervalDefault);
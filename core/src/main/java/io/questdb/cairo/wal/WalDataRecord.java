@@ -129,6 +129,20 @@ public class WalDataRecord implements Record, Sinkable {
         return reader.getColumn(absoluteColumnIndex).getLong(offset);
     }
 
+    @Override
+    public long getLong128Hi(int col) {
+        final long offset = recordIndex * 16;
+        final int absoluteColumnIndex = getPrimaryColumnIndex(col);
+        return reader.getColumn(absoluteColumnIndex).getLong(offset + Long.BYTES); // Store Lo then Hi
+    }
+
+    @Override
+    public long getLong128Lo(int col) {
+        final long offset = recordIndex * 16;
+        final int absoluteColumnIndex = getPrimaryColumnIndex(col);
+        return reader.getColumn(absoluteColumnIndex).getLong(offset); // Store Lo then Hi
+    }
+
     @Override
     public void getLong256(int col, CharSink sink) {
         final long offset = recordIndex * Long256.BYTES;
@@ -520,6 +520,7 @@ public class WalWriter implements TableWriterAPI {
             case ColumnType.GEOLONG:
                 nullers.add(() -> mem1.putLong(GeoHashes.NULL));
                 break;
+            case ColumnType.UUID:
             case ColumnType.LONG128:
                 nullers.add(() -> mem1.putLong128LittleEndian(Long128Constant.NULL_HI, Long128Constant.NULL_LO));
                 break;
@@ -1402,6 +1403,11 @@ public class WalWriter implements TableWriterAPI {
             setRowValueNotNull(columnIndex);
         }
 
+        @Override
+        public void putUuid(int columnIndex, CharSequence uuid) {
+            WriterRowUtils.putUuid(columnIndex, uuid, this);
+        }
+
         @Override
         public void putLong256(int columnIndex, long l0, long l1, long l2, long l3) {
             getPrimaryColumn(columnIndex).putLong256(l0, l1, l2, l3);
@@ -29,6 +29,7 @@ import io.questdb.cairo.GeoHashes;
 import io.questdb.cairo.ImplicitCastException;
 import io.questdb.cairo.TableWriter;
 import io.questdb.std.NumericException;
+import io.questdb.std.Uuid;
 
 public class WriterRowUtils {
 
@@ -76,4 +77,17 @@ public class WriterRowUtils {
         }
         putGeoHash(index, val, type, row);
     }
-}
\ No newline at end of file
+
+    public static void putUuid(int index, CharSequence uuid, TableWriter.Row row) {
+        if (uuid == null) {
+            row.putLong128LittleEndian(index, Uuid.NULL_HI_AND_LO, Uuid.NULL_HI_AND_LO);
+            return;
+        }
+        try {
+            Uuid.checkDashesAndLength(uuid);
+            row.putLong128LittleEndian(index, Uuid.parseHi(uuid), Uuid.parseLo(uuid));
+        } catch (NumericException e) {
+            throw ImplicitCastException.inconvertibleValue(uuid, ColumnType.STRING, ColumnType.UUID);
+        }
+    }
+}
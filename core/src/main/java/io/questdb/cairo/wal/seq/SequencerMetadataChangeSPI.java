@@ -91,6 +91,11 @@ public interface SequencerMetadataChangeSPI extends MetadataChangeSPI {
         throw CairoException.critical(0).put("change of o3MaxLag does not update sequencer metadata");
     }
 
+    @Override
+    default void setMetaTtl(long ttlUs) {
+        throw CairoException.critical(0).put("change of ttl does not update sequencer metadata");
+    }
+
     @Override
     default void tick() {
         // no-op
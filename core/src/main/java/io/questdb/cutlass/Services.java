@@ -30,9 +30,9 @@ import io.questdb.WorkerPoolManager.Requester;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cutlass.http.*;
 import io.questdb.cutlass.http.processors.HealthCheckProcessor;
+import io.questdb.cutlass.http.processors.JsonQueryOffloadJob;
 import io.questdb.cutlass.http.processors.JsonQueryProcessor;
 import io.questdb.cutlass.http.processors.PrometheusMetricsProcessor;
-import io.questdb.cutlass.http.processors.QueryCache;
 import io.questdb.cutlass.line.tcp.LineTcpReceiver;
 import io.questdb.cutlass.line.tcp.LineTcpReceiverConfiguration;
 import io.questdb.cutlass.line.udp.AbstractLineProtoUdpReceiver;
@@ -45,6 +45,7 @@ import io.questdb.griffin.DatabaseSnapshotAgent;
 import io.questdb.griffin.FunctionFactoryCache;
 import io.questdb.griffin.SqlExecutionContextImpl;
 import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.std.Os;
 import org.jetbrains.annotations.Nullable;
 
@@ -67,6 +68,16 @@ public final class Services {
             return null;
         }
 
+        // The query pool is:
+        // - DEDICATED when PropertyKey.HTTP_QUERY_WORKER_COUNT is > 0
+        // - not used otherwise, queries run on the HTTP pool
+        JsonQueryOffloadJob offloadJob = null;
+        final WorkerPoolConfiguration queryPoolConfiguration = configuration.getQueryWorkerPoolConfiguration();
+        if (queryPoolConfiguration.getWorkerCount() > 0) {
+            offloadJob = new JsonQueryOffloadJob(configuration.getJsonQueryProcessorConfiguration().getQueryQueueCapacity());
+            workerPoolManager.getInstance(queryPoolConfiguration, metrics.health(), Requester.HTTP_QUERY).assign(offloadJob);
+        }
+
         // The pool is:
         // - DEDICATED when PropertyKey.HTTP_WORKER_COUNT is > 0
         // - SHARED otherwise
@@ -77,7 +88,8 @@ public final class Services {
                 workerPoolManager.getSharedWorkerCount(),
                 functionFactoryCache,
                 snapshotAgent,
-                metrics
+                metrics,
+                offloadJob
         );
     }
 
@@ -90,20 +102,43 @@ public final class Services {
             @Nullable FunctionFactoryCache functionFactoryCache,
             @Nullable DatabaseSnapshotAgent snapshotAgent,
             Metrics metrics
+    ) {
+        return createHttpServer(
+                configuration,
+                cairoEngine,
+                workerPool,
+                sharedWorkerCount,
+                functionFactoryCache,
+                snapshotAgent,
+                metrics,
+                null
+        );
+    }
+
+    @Nullable
+    public static HttpServer createHttpServer(
+            HttpServerConfiguration configuration,
+            CairoEngine cairoEngine,
+            WorkerPool workerPool,
+            int sharedWorkerCount,
+            @Nullable FunctionFactoryCache functionFactoryCache,
+            @Nullable DatabaseSnapshotAgent snapshotAgent,
+            Metrics metrics,
+            @Nullable JsonQueryOffloadJob offloadJob
     ) {
         if (!configuration.isEnabled()) {
             return null;
         }
 
         final HttpServer server = new HttpServer(configuration, cairoEngine.getMessageBus(), metrics, workerPool);
-        QueryCache.configure(configuration, metrics);
         HttpServer.HttpRequestProcessorBuilder jsonQueryProcessorBuilder = () -> new JsonQueryProcessor(
                 configuration.getJsonQueryProcessorConfiguration(),
                 cairoEngine,
                 workerPool.getWorkerCount(),
                 sharedWorkerCount,
                 functionFactoryCache,
-                snapshotAgent
+                snapshotAgent,
+                offloadJob
         );
 
         HttpServer.addDefaultEndpoints(
@@ -0,0 +1,944 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.vm.Vm;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.*;
+
+import java.io.Closeable;
+
+/**
+ * Encodes query result as Arrow IPC stream: schema message, dictionary batch per
+ * symbol column, record batches of up to <code>batchSize</code> rows and end-of-stream
+ * marker. Messages are built one at a time by {@link #nextMessage()} and copied out by
+ * {@link #drain(long, long)}, so that at most one batch is held in memory regardless of
+ * how slow the reader is.
+ * <p>
+ * Table scans are read via page frames. Fixed-width columns, whose memory layout is the
+ * same in QuestDB and Arrow, are not copied: record batch body points at column memory
+ * and only validity bitmaps are computed. All other columns, and all other cursors,
+ * are encoded row by row.
+ */
+public class ArrowStreamWriter implements Closeable, Mutable {
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+    private static final int DICTIONARY_BATCH_DATA = 1;
+    private static final int DICTIONARY_BATCH_ID = 0;
+    private static final int DICTIONARY_ENCODING_ID = 0;
+    private static final int DICTIONARY_ENCODING_INDEX_TYPE = 1;
+    private static final int ENCODING_BINARY = 0;
+    private static final int ENCODING_BOOL = 1;
+    private static final int ENCODING_DICTIONARY = 2;
+    private static final int ENCODING_FIXED = 3;
+    private static final int ENCODING_NULL = 4;
+    private static final int ENCODING_UTF8 = 5;
+    private static final int ENCODING_UUID = 6;
+    private static final int FIELD_CHILDREN = 5;
+    private static final int FIELD_DICTIONARY = 4;
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_NULLABLE = 1;
+    private static final int FIELD_TYPE = 3;
+    private static final int FIELD_TYPE_TYPE = 2;
+    private static final int FIXED_SIZE_BINARY_BYTE_WIDTH = 0;
+    private static final int FLOATING_POINT_PRECISION = 0;
+    private static final byte HEADER_DICTIONARY_BATCH = 2;
+    private static final byte HEADER_RECORD_BATCH = 3;
+    private static final byte HEADER_SCHEMA = 1;
+    private static final int INT_BIT_WIDTH = 0;
+    private static final int INT_IS_SIGNED = 1;
+    private static final int MESSAGE_BODY_LENGTH = 3;
+    private static final int MESSAGE_HEADER = 2;
+    private static final int MESSAGE_HEADER_TYPE = 1;
+    private static final int MESSAGE_VERSION = 0;
+    private static final short METADATA_VERSION_V5 = 4;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short PRECISION_SINGLE = 1;
+    private static final int RECORD_BATCH_BUFFERS = 2;
+    private static final int RECORD_BATCH_LENGTH = 0;
+    private static final int RECORD_BATCH_NODES = 1;
+    private static final int SCHEMA_FIELDS = 1;
+    private static final int STATE_DICTIONARY = 1;
+    private static final int STATE_DONE = 4;
+    private static final int STATE_EOS = 3;
+    private static final int STATE_RECORD_BATCH = 2;
+    private static final int STATE_SCHEMA = 0;
+    private static final short TIME_UNIT_MICROSECOND = 2;
+    private static final short TIME_UNIT_MILLISECOND = 1;
+    private static final int TIMESTAMP_TIMEZONE = 1;
+    private static final int TIMESTAMP_UNIT = 0;
+    private static final byte TYPE_BINARY = 4;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_FIXED_SIZE_BINARY = 15;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_NULL = 1;
+    private static final byte TYPE_TIMESTAMP = 10;
+    private static final byte TYPE_UTF8 = 5;
+    private final int batchSize;
+    // address and size pairs of record batch body buffers
+    private final LongList buffers = new LongList();
+    private final IntList columnEncodings = new IntList();
+    // addresses of zero-copy value buffers, 0 when values are in staging memory
+    private final LongList columnFrameAddresses = new LongList();
+    private final LongList columnNullCounts = new LongList();
+    private final ObjList<MemoryCARW> dataMem = new ObjList<>();
+    private final IntList dictionaryColumns = new IntList();
+    private final FlatBufferSink fb = new FlatBufferSink();
+    private final MemoryCARW metadataMem;
+    // length and null count pairs of record batch field nodes
+    private final LongList nodes = new LongList();
+    private final PageAddressCache pageAddressCache;
+    private final PageAddressCacheRecord pageFrameRecord = new PageAddressCacheRecord();
+    private final long pageSize;
+    // address and size pairs of the current message
+    private final LongList segments = new LongList();
+    private final FlatBufferSink.MemoryCharSink utf8Sink = new FlatBufferSink.MemoryCharSink();
+    private final ObjList<MemoryCARW> validityMem = new ObjList<>();
+    private final ObjList<MemoryCARW> valueMem = new ObjList<>();
+    private int dictionaryIndex;
+    private long frameRowHi;
+    private long frameRowLo;
+    private RecordMetadata metadata;
+    private PageFrameCursor pageFrameCursor;
+    private long paddingAddress;
+    private Record record;
+    private RecordCursor recordCursor;
+    // rows consumed from the cursor, including skipped ones
+    private long rowIndex;
+    private int segmentIndex;
+    private long segmentOffset;
+    private long skip;
+    private int state = STATE_DONE;
+    private long stop;
+    private SymbolTableSource symbolTableSource;
+
+    public ArrowStreamWriter(CairoConfiguration configuration, int batchSize) {
+        this.batchSize = batchSize;
+        this.pageSize = configuration.getMiscAppendPageSize();
+        this.pageAddressCache = new PageAddressCache(configuration);
+        this.metadataMem = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+        this.paddingAddress = Unsafe.calloc(Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+    }
+
+    @Override
+    public void clear() {
+        metadata = null;
+        pageFrameCursor = null;
+        recordCursor = null;
+        record = null;
+        symbolTableSource = null;
+        pageFrameRecord.close();
+        pageAddressCache.clear();
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        state = STATE_DONE;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        Misc.free(metadataMem);
+        Misc.freeObjList(validityMem);
+        Misc.freeObjList(valueMem);
+        Misc.freeObjList(dataMem);
+        validityMem.clear();
+        valueMem.clear();
+        dataMem.clear();
+        if (paddingAddress != 0) {
+            Unsafe.free(paddingAddress, Long.BYTES, MemoryTag.NATIVE_HTTP_CONN);
+            paddingAddress = 0;
+        }
+    }
+
+    /**
+     * Copies bytes of the current message to the given buffer.
+     *
+     * @return number of bytes copied, less than len once the message is drained
+     */
+    public long drain(long address, long len) {
+        long n = 0;
+        while (n < len && segmentIndex < segments.size()) {
+            final long segmentAddress = segments.getQuick(segmentIndex);
+            final long segmentSize = segments.getQuick(segmentIndex + 1);
+            final long chunk = Math.min(segmentSize - segmentOffset, len - n);
+            Vect.memcpy(address + n, segmentAddress + segmentOffset, chunk);
+            n += chunk;
+            segmentOffset += chunk;
+            if (segmentOffset == segmentSize) {
+                segmentIndex += 2;
+                segmentOffset = 0;
+            }
+        }
+        return n;
+    }
+
+    public boolean isDrained() {
+        return segmentIndex == segments.size();
+    }
+
+    /**
+     * Builds next message of the stream. Record batch body may reference the current
+     * page frame, hence the message has to be drained before this method is called again.
+     *
+     * @return false when the stream is complete
+     */
+    public boolean nextMessage() {
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        switch (state) {
+            case STATE_SCHEMA:
+                putSchema();
+                dictionaryIndex = 0;
+                state = dictionaryColumns.size() > 0 ? STATE_DICTIONARY : STATE_RECORD_BATCH;
+                return true;
+            case STATE_DICTIONARY:
+                putDictionaryBatch(dictionaryColumns.getQuick(dictionaryIndex++));
+                if (dictionaryIndex == dictionaryColumns.size()) {
+                    state = STATE_RECORD_BATCH;
+                }
+                return true;
+            case STATE_RECORD_BATCH:
+                final long rowCount = pageFrameCursor != null ? readPageFrameBatch() : readRecordBatch();
+                if (rowCount > 0) {
+                    putRecordBatch(rowCount);
+                    return true;
+                }
+                // fall through
+            case STATE_EOS:
+                metadataMem.jumpTo(0);
+                metadataMem.putInt(CONTINUATION_MARKER);
+                metadataMem.putInt(0);
+                addSegment(metadataMem.addressOf(0), metadataMem.getAppendOffset());
+                state = STATE_DONE;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public ArrowStreamWriter of(RecordMetadata metadata, PageFrameCursor cursor, long skip, long stop) {
+        this.pageFrameCursor = cursor;
+        this.recordCursor = null;
+        pageAddressCache.clear();
+        pageFrameRecord.of(cursor, pageAddressCache);
+        this.record = pageFrameRecord;
+        this.frameRowLo = 0;
+        this.frameRowHi = 0;
+        return of0(metadata, cursor, skip, stop);
+    }
+
+    public ArrowStreamWriter of(RecordMetadata metadata, RecordCursor cursor, long skip, long stop) {
+        this.pageFrameCursor = null;
+        this.recordCursor = cursor;
+        this.record = cursor.getRecord();
+        return of0(metadata, cursor, skip, stop);
+    }
+
+    private static long align8(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static boolean hasNulls(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isNull(int columnType, long address, long row) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+                return Unsafe.getUnsafe().getInt(address + (row << 2)) == Numbers.INT_NaN;
+            case ColumnType.FLOAT:
+                return Float.isNaN(Unsafe.getUnsafe().getFloat(address + (row << 2)));
+            case ColumnType.DOUBLE:
+                return Double.isNaN(Unsafe.getUnsafe().getDouble(address + (row << 3)));
+            case ColumnType.LONG256:
+                final long p = address + (row << 5);
+                return Unsafe.getUnsafe().getLong(p) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(p + 8) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(p + 16) == Numbers.LONG_NaN
+                        && Unsafe.getUnsafe().getLong(p + 24) == Numbers.LONG_NaN;
+            default:
+                return Unsafe.getUnsafe().getLong(address + (row << 3)) == Numbers.LONG_NaN;
+        }
+    }
+
+    private static boolean isNull(Long256 value) {
+        return value.getLong0() == Numbers.LONG_NaN
+                && value.getLong1() == Numbers.LONG_NaN
+                && value.getLong2() == Numbers.LONG_NaN
+                && value.getLong3() == Numbers.LONG_NaN;
+    }
+
+    private static void putBit(MemoryCARW mem, long row, boolean bit) {
+        if ((row & 7) == 0) {
+            mem.putByte((byte) 0);
+        }
+        if (bit) {
+            final long offset = row >>> 3;
+            mem.putByte(offset, (byte) (mem.getByte(offset) | (1 << (row & 7))));
+        }
+    }
+
+    private void addBuffer(MemoryCARW mem) {
+        final long size = mem.getAppendOffset();
+        addBuffer(size > 0 ? mem.addressOf(0) : 0, size);
+    }
+
+    private void addBuffer(long address, long size) {
+        buffers.add(address);
+        buffers.add(size);
+    }
+
+    private void addNode(long length, long nullCount) {
+        nodes.add(length);
+        nodes.add(nullCount);
+    }
+
+    private void addSegment(long address, long size) {
+        segments.add(address);
+        segments.add(size);
+    }
+
+    private MemoryCARW columnMem(ObjList<MemoryCARW> list, int columnIndex) {
+        MemoryCARW mem = list.getQuiet(columnIndex);
+        if (mem == null) {
+            mem = Vm.getCARWInstance(pageSize, Integer.MAX_VALUE, MemoryTag.NATIVE_HTTP_CONN);
+            list.extendAndSet(columnIndex, mem);
+        }
+        return mem;
+    }
+
+    private void clearColumns() {
+        for (int i = 0, n = columnEncodings.size(); i < n; i++) {
+            validityMem.getQuick(i).jumpTo(0);
+            valueMem.getQuick(i).jumpTo(0);
+            dataMem.getQuick(i).jumpTo(0);
+            columnNullCounts.setQuick(i, 0);
+            columnFrameAddresses.setQuick(i, 0);
+            final int encoding = columnEncodings.getQuick(i);
+            if (encoding == ENCODING_UTF8 || encoding == ENCODING_BINARY) {
+                valueMem.getQuick(i).putInt(0);
+            }
+        }
+    }
+
+    private int encodingOf(int columnIndex, int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                return ENCODING_BOOL;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.LONG256:
+                return ENCODING_FIXED;
+            case ColumnType.SYMBOL:
+                if (metadata.isSymbolTableStatic(columnIndex) && symbolTableSource.getSymbolTable(columnIndex) instanceof StaticSymbolTable) {
+                    return ENCODING_DICTIONARY;
+                }
+                return ENCODING_UTF8;
+            case ColumnType.CHAR:
+            case ColumnType.STRING:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+                return ENCODING_UTF8;
+            case ColumnType.BINARY:
+                return ENCODING_BINARY;
+            case ColumnType.UUID:
+                return ENCODING_UUID;
+            case ColumnType.NULL:
+                return ENCODING_NULL;
+            default:
+                throw CairoException.nonCritical()
+                        .put("unsupported column type [column=").put(metadata.getColumnName(columnIndex))
+                        .put(", type=").put(ColumnType.nameOf(columnType))
+                        .put(']');
+        }
+    }
+
+    private void endMessage(int messagePos) {
+        final int size = fb.finish(messagePos);
+        metadataMem.putInt(Integer.BYTES, size);
+        addSegment(metadataMem.addressOf(0), metadataMem.getAppendOffset());
+    }
+
+    private ArrowStreamWriter of0(RecordMetadata metadata, SymbolTableSource symbolTableSource, long skip, long stop) {
+        this.metadata = metadata;
+        this.symbolTableSource = symbolTableSource;
+        this.skip = skip;
+        this.stop = stop;
+        this.rowIndex = 0;
+        final int columnCount = metadata.getColumnCount();
+        columnEncodings.clear();
+        dictionaryColumns.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final int encoding = encodingOf(i, metadata.getColumnType(i));
+            columnEncodings.add(encoding);
+            if (encoding == ENCODING_DICTIONARY) {
+                dictionaryColumns.add(i);
+            }
+            columnMem(validityMem, i);
+            columnMem(valueMem, i);
+            columnMem(dataMem, i);
+        }
+        columnNullCounts.setAll(columnCount, 0);
+        columnFrameAddresses.setAll(columnCount, 0);
+        segments.clear();
+        segmentIndex = 0;
+        segmentOffset = 0;
+        state = STATE_SCHEMA;
+        return this;
+    }
+
+    private void putDictionaryBatch(int columnIndex) {
+        final StaticSymbolTable symbolTable = (StaticSymbolTable) symbolTableSource.getSymbolTable(columnIndex);
+        final int symbolCount = symbolTable.getSymbolCount();
+        final MemoryCARW offsets = valueMem.getQuick(columnIndex);
+        final MemoryCARW data = dataMem.getQuick(columnIndex);
+        offsets.jumpTo(0);
+        data.jumpTo(0);
+        offsets.putInt(0);
+        utf8Sink.of(data);
+        for (int key = 0; key < symbolCount; key++) {
+            utf8Sink.encodeUtf8(symbolTable.valueOf(key));
+            putUtf8Offset(offsets, data);
+        }
+        nodes.clear();
+        buffers.clear();
+        addNode(symbolCount, 0);
+        addBuffer(0, 0);
+        addBuffer(offsets);
+        addBuffer(data);
+        putBatchMessage(HEADER_DICTIONARY_BATCH, symbolCount, columnIndex);
+    }
+
+    private void putBatchMessage(byte headerType, long rowCount, int dictionaryId) {
+        long bodyLength = 0;
+        for (int i = 1, n = buffers.size(); i < n; i += 2) {
+            bodyLength += align8(buffers.getQuick(i));
+        }
+
+        final int messagePos = startMessage(headerType, bodyLength);
+        int headerField = fb.getOffsetField(MESSAGE_HEADER);
+        if (dictionaryId > -1) {
+            fb.startTable();
+            fb.addLong(DICTIONARY_BATCH_ID, dictionaryId);
+            fb.addOffset(DICTIONARY_BATCH_DATA);
+            fb.patchOffset(headerField, fb.endTable());
+            headerField = fb.getOffsetField(DICTIONARY_BATCH_DATA);
+        }
+
+        fb.startTable();
+        fb.addLong(RECORD_BATCH_LENGTH, rowCount);
+        fb.addOffset(RECORD_BATCH_NODES);
+        fb.addOffset(RECORD_BATCH_BUFFERS);
+        fb.patchOffset(headerField, fb.endTable());
+        final int nodesField = fb.getOffsetField(RECORD_BATCH_NODES);
+        final int buffersField = fb.getOffsetField(RECORD_BATCH_BUFFERS);
+
+        fb.patchOffset(nodesField, fb.startVector(nodes.size() / 2, Long.BYTES));
+        for (int i = 0, n = nodes.size(); i < n; i++) {
+            metadataMem.putLong(nodes.getQuick(i));
+        }
+        fb.patchOffset(buffersField, fb.startVector(buffers.size() / 2, Long.BYTES));
+        long offset = 0;
+        for (int i = 1, n = buffers.size(); i < n; i += 2) {
+            final long size = buffers.getQuick(i);
+            metadataMem.putLong(offset);
+            metadataMem.putLong(size);
+            offset += align8(size);
+        }
+        endMessage(messagePos);
+
+        for (int i = 0, n = buffers.size(); i < n; i += 2) {
+            final long size = buffers.getQuick(i + 1);
+            if (size > 0) {
+                addSegment(buffers.getQuick(i), size);
+                final long padding = align8(size) - size;
+                if (padding > 0) {
+                    addSegment(paddingAddress, padding);
+                }
+            }
+        }
+    }
+
+    private int putField(int columnIndex) {
+        final boolean dictionary = columnEncodings.getQuick(columnIndex) == ENCODING_DICTIONARY;
+        fb.startTable();
+        fb.addOffset(FIELD_NAME);
+        fb.addBool(FIELD_NULLABLE, true);
+        fb.addByte(FIELD_TYPE_TYPE, typeOf(columnIndex));
+        fb.addOffset(FIELD_TYPE);
+        if (dictionary) {
+            fb.addOffset(FIELD_DICTIONARY);
+        }
+        fb.addOffset(FIELD_CHILDREN);
+        final int fieldPos = fb.endTable();
+        final int nameField = fb.getOffsetField(FIELD_NAME);
+        final int typeField = fb.getOffsetField(FIELD_TYPE);
+        final int dictionaryField = dictionary ? fb.getOffsetField(FIELD_DICTIONARY) : -1;
+        final int childrenField = fb.getOffsetField(FIELD_CHILDREN);
+
+        // referenced objects are written after the table, offsets always point forward
+        fb.patchOffset(nameField, fb.putString(metadata.getColumnName(columnIndex)));
+        fb.patchOffset(typeField, putType(columnIndex));
+        if (dictionary) {
+            fb.startTable();
+            fb.addLong(DICTIONARY_ENCODING_ID, columnIndex);
+            fb.addOffset(DICTIONARY_ENCODING_INDEX_TYPE);
+            fb.patchOffset(dictionaryField, fb.endTable());
+            final int indexTypeField = fb.getOffsetField(DICTIONARY_ENCODING_INDEX_TYPE);
+            fb.patchOffset(indexTypeField, putIntType(Integer.SIZE));
+        }
+        fb.patchOffset(childrenField, fb.startVector(0, Integer.BYTES));
+        return fieldPos;
+    }
+
+    private void putFixedValue(int columnIndex, Record record, long row) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        final MemoryCARW values = valueMem.getQuick(columnIndex);
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BYTE:
+                values.putByte(record.getByte(columnIndex));
+                break;
+            case ColumnType.SHORT:
+                values.putShort(record.getShort(columnIndex));
+                break;
+            case ColumnType.INT:
+                final int i = record.getInt(columnIndex);
+                values.putInt(i);
+                putValidity(columnIndex, row, i != Numbers.INT_NaN);
+                break;
+            case ColumnType.SYMBOL:
+                final int key = record.getInt(columnIndex);
+                values.putInt(key);
+                putValidity(columnIndex, row, key != SymbolTable.VALUE_IS_NULL);
+                break;
+            case ColumnType.LONG:
+                final long l = record.getLong(columnIndex);
+                values.putLong(l);
+                putValidity(columnIndex, row, l != Numbers.LONG_NaN);
+                break;
+            case ColumnType.DATE:
+                final long date = record.getDate(columnIndex);
+                values.putLong(date);
+                putValidity(columnIndex, row, date != Numbers.LONG_NaN);
+                break;
+            case ColumnType.TIMESTAMP:
+                final long timestamp = record.getTimestamp(columnIndex);
+                values.putLong(timestamp);
+                putValidity(columnIndex, row, timestamp != Numbers.LONG_NaN);
+                break;
+            case ColumnType.FLOAT:
+                final float f = record.getFloat(columnIndex);
+                values.putFloat(f);
+                putValidity(columnIndex, row, !Float.isNaN(f));
+                break;
+            case ColumnType.DOUBLE:
+                final double d = record.getDouble(columnIndex);
+                values.putDouble(d);
+                putValidity(columnIndex, row, !Double.isNaN(d));
+                break;
+            default:
+                final Long256 long256 = record.getLong256A(columnIndex);
+                values.putLong256(long256);
+                putValidity(columnIndex, row, !isNull(long256));
+                break;
+        }
+    }
+
+    /**
+     * Points value buffer of fixed-width column at page frame memory. Validity bitmap
+     * is the only thing that has to be computed.
+     */
+    private void putFrameColumn(int columnIndex, long lo, long rowCount) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        final int size = ColumnType.sizeOf(columnType);
+        final long address = pageAddressCache.getPageAddress(0, columnIndex);
+        if (address == 0) {
+            // column top, values are nulls, or zeros for types without null
+            final long valuesAddress = valueMem.getQuick(columnIndex).appendAddressFor(rowCount * size);
+            Vect.memset(valuesAddress, rowCount * size, 0);
+            if (hasNulls(columnType)) {
+                final long validityAddress = validityMem.getQuick(columnIndex).appendAddressFor((rowCount + 7) >>> 3);
+                Vect.memset(validityAddress, (rowCount + 7) >>> 3, 0);
+                columnNullCounts.setQuick(columnIndex, rowCount);
+            }
+            return;
+        }
+
+        final long lhs = address + lo * size;
+        columnFrameAddresses.setQuick(columnIndex, lhs);
+        if (hasNulls(columnType)) {
+            final MemoryCARW validity = validityMem.getQuick(columnIndex);
+            long nullCount = 0;
+            for (long r = 0; r < rowCount; r += 8) {
+                int bits = 0;
+                for (int b = 0, m = (int) Math.min(8, rowCount - r); b < m; b++) {
+                    if (isNull(columnType, lhs, r + b)) {
+                        nullCount++;
+                    } else {
+                        bits |= 1 << b;
+                    }
+                }
+                validity.putByte((byte) bits);
+            }
+            columnNullCounts.setQuick(columnIndex, nullCount);
+        }
+    }
+
+    private int putIntType(int bitWidth) {
+        fb.startTable();
+        fb.addInt(INT_BIT_WIDTH, bitWidth);
+        fb.addBool(INT_IS_SIGNED, true);
+        return fb.endTable();
+    }
+
+    private void putRecordBatch(long rowCount) {
+        nodes.clear();
+        buffers.clear();
+        for (int i = 0, n = columnEncodings.size(); i < n; i++) {
+            final int encoding = columnEncodings.getQuick(i);
+            if (encoding == ENCODING_NULL) {
+                addNode(rowCount, rowCount);
+                continue;
+            }
+            final long nullCount = columnNullCounts.getQuick(i);
+            addNode(rowCount, nullCount);
+            if (nullCount > 0) {
+                addBuffer(validityMem.getQuick(i).addressOf(0), (rowCount + 7) >>> 3);
+            } else {
+                addBuffer(0, 0);
+            }
+            switch (encoding) {
+                case ENCODING_FIXED:
+                case ENCODING_DICTIONARY:
+                    final long frameAddress = columnFrameAddresses.getQuick(i);
+                    if (frameAddress != 0) {
+                        addBuffer(frameAddress, rowCount * ColumnType.sizeOf(metadata.getColumnType(i)));
+                    } else {
+                        addBuffer(valueMem.getQuick(i));
+                    }
+                    break;
+                case ENCODING_UTF8:
+                case ENCODING_BINARY:
+                    addBuffer(valueMem.getQuick(i));
+                    addBuffer(dataMem.getQuick(i));
+                    break;
+                default:
+                    addBuffer(valueMem.getQuick(i));
+                    break;
+            }
+        }
+        putBatchMessage(HEADER_RECORD_BATCH, rowCount, -1);
+    }
+
+    private void putSchema() {
+        final int messagePos = startMessage(HEADER_SCHEMA, 0);
+        final int headerField = fb.getOffsetField(MESSAGE_HEADER);
+        fb.startTable();
+        fb.addOffset(SCHEMA_FIELDS);
+        fb.patchOffset(headerField, fb.endTable());
+        final int fieldsField = fb.getOffsetField(SCHEMA_FIELDS);
+
+        final int columnCount = metadata.getColumnCount();
+        final int fieldsPos = fb.startVector(columnCount, Integer.BYTES);
+        for (int i = 0; i < columnCount; i++) {
+            metadataMem.putInt(0);
+        }
+        fb.patchOffset(fieldsField, fieldsPos);
+        for (int i = 0; i < columnCount; i++) {
+            fb.patchOffset(fieldsPos + (i + 1) * Integer.BYTES, putField(i));
+        }
+        endMessage(messagePos);
+    }
+
+    private int putType(int columnIndex) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        fb.startTable();
+        switch (columnEncodings.getQuick(columnIndex)) {
+            case ENCODING_UUID:
+                fb.addInt(FIXED_SIZE_BINARY_BYTE_WIDTH, 16);
+                return fb.endTable();
+            case ENCODING_FIXED:
+                break;
+            default:
+                return fb.endTable();
+        }
+
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.FLOAT:
+                fb.addShort(FLOATING_POINT_PRECISION, PRECISION_SINGLE);
+                return fb.endTable();
+            case ColumnType.DOUBLE:
+                fb.addShort(FLOATING_POINT_PRECISION, PRECISION_DOUBLE);
+                return fb.endTable();
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                final boolean date = ColumnType.tagOf(columnType) == ColumnType.DATE;
+                fb.addShort(TIMESTAMP_UNIT, date ? TIME_UNIT_MILLISECOND : TIME_UNIT_MICROSECOND);
+                fb.addOffset(TIMESTAMP_TIMEZONE);
+                final int typePos = fb.endTable();
+                final int timezoneField = fb.getOffsetField(TIMESTAMP_TIMEZONE);
+                fb.patchOffset(timezoneField, fb.putString("UTC"));
+                return typePos;
+            case ColumnType.LONG256:
+                fb.addInt(FIXED_SIZE_BINARY_BYTE_WIDTH, Long256.BYTES);
+                return fb.endTable();
+            default:
+                fb.addInt(INT_BIT_WIDTH, ColumnType.sizeOf(columnType) * Byte.SIZE);
+                fb.addBool(INT_IS_SIGNED, true);
+                return fb.endTable();
+        }
+    }
+
+    private void putUtf8Offset(MemoryCARW offsets, MemoryCARW data) {
+        final long size = data.getAppendOffset();
+        if (size > Integer.MAX_VALUE) {
+            throw CairoException.nonCritical().put("arrow batch data exceeds 2GB, reduce batch size");
+        }
+        offsets.putInt((int) size);
+    }
+
+    private void putValidity(int columnIndex, long row, boolean valid) {
+        putBit(validityMem.getQuick(columnIndex), row, valid);
+        if (!valid) {
+            columnNullCounts.increment(columnIndex);
+        }
+    }
+
+    private void putValue(int columnIndex, Record record, long row) {
+        switch (columnEncodings.getQuick(columnIndex)) {
+            case ENCODING_FIXED:
+            case ENCODING_DICTIONARY:
+                putFixedValue(columnIndex, record, row);
+                break;
+            case ENCODING_BOOL:
+                putBit(valueMem.getQuick(columnIndex), row, record.getBool(columnIndex));
+                break;
+            case ENCODING_UTF8:
+                putVarcharValue(columnIndex, record, row);
+                break;
+            case ENCODING_BINARY:
+                final MemoryCARW data = dataMem.getQuick(columnIndex);
+                final BinarySequence bin = record.getBin(columnIndex);
+                if (bin != null) {
+                    final long len = bin.length();
+                    bin.copyTo(data.appendAddressFor(len), 0, len);
+                }
+                putValidity(columnIndex, row, bin != null);
+                putUtf8Offset(valueMem.getQuick(columnIndex), data);
+                break;
+            case ENCODING_UUID:
+                final long lo = record.getLong128Lo(columnIndex);
+                final long hi = record.getLong128Hi(columnIndex);
+                // fixed size binary holds uuid bytes in canonical, most significant first, order
+                final MemoryCARW values = valueMem.getQuick(columnIndex);
+                values.putLong(Long.reverseBytes(hi));
+                values.putLong(Long.reverseBytes(lo));
+                putValidity(columnIndex, row, !Uuid.isNull(lo, hi));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void putVarcharValue(int columnIndex, Record record, long row) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        final MemoryCARW data = dataMem.getQuick(columnIndex);
+        utf8Sink.of(data);
+        boolean valid = true;
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.CHAR:
+                final char c = record.getChar(columnIndex);
+                if (c != 0) {
+                    utf8Sink.putUtf8(c);
+                } else {
+                    valid = false;
+                }
+                break;
+            case ColumnType.SYMBOL:
+                final CharSequence sym = record.getSym(columnIndex);
+                if (sym != null) {
+                    utf8Sink.encodeUtf8(sym);
+                } else {
+                    valid = false;
+                }
+                break;
+            case ColumnType.STRING:
+                final CharSequence str = record.getStr(columnIndex);
+                if (str != null) {
+                    utf8Sink.encodeUtf8(str);
+                } else {
+                    valid = false;
+                }
+                break;
+            default:
+                final long hash;
+                switch (ColumnType.tagOf(columnType)) {
+                    case ColumnType.GEOBYTE:
+                        hash = record.getGeoByte(columnIndex);
+                        break;
+                    case ColumnType.GEOSHORT:
+                        hash = record.getGeoShort(columnIndex);
+                        break;
+                    case ColumnType.GEOINT:
+                        hash = record.getGeoInt(columnIndex);
+                        break;
+                    default:
+                        hash = record.getGeoLong(columnIndex);
+                        break;
+                }
+                if (hash != GeoHashes.NULL) {
+                    final int bitFlags = GeoHashes.getBitFlags(columnType);
+                    if (bitFlags < 0) {
+                        GeoHashes.appendCharsUnsafe(hash, -bitFlags, utf8Sink);
+                    } else {
+                        GeoHashes.appendBinaryStringUnsafe(hash, bitFlags, utf8Sink);
+                    }
+                } else {
+                    valid = false;
+                }
+                break;
+        }
+        putValidity(columnIndex, row, valid);
+        putUtf8Offset(valueMem.getQuick(columnIndex), data);
+    }
+
+    private long readPageFrameBatch() {
+        while (frameRowLo == frameRowHi) {
+            if (rowIndex >= stop) {
+                return 0;
+            }
+            final PageFrame frame = pageFrameCursor.next();
+            if (frame == null) {
+                return 0;
+            }
+            // intersect frame rows with [skip, stop) range
+            final long frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+            frameRowLo = Math.min(frameRowCount, Math.max(0, skip - rowIndex));
+            frameRowHi = Math.max(frameRowLo, Math.min(frameRowCount, stop - rowIndex));
+            rowIndex += frameRowCount;
+            pageAddressCache.clear();
+            pageAddressCache.of(metadata);
+            pageAddressCache.add(0, frame);
+        }
+
+        clearColumns();
+        final long rowCount = Math.min(batchSize, frameRowHi - frameRowLo);
+        for (int i = 0, n = columnEncodings.size(); i < n; i++) {
+            final int encoding = columnEncodings.getQuick(i);
+            if (encoding == ENCODING_FIXED || encoding == ENCODING_DICTIONARY) {
+                putFrameColumn(i, frameRowLo, rowCount);
+            } else if (encoding != ENCODING_NULL) {
+                for (long r = 0; r < rowCount; r++) {
+                    pageFrameRecord.setRowIndex(frameRowLo + r);
+                    putValue(i, pageFrameRecord, r);
+                }
+            }
+        }
+        frameRowLo += rowCount;
+        return rowCount;
+    }
+
+    private long readRecordBatch() {
+        clearColumns();
+        long rowCount = 0;
+        while (rowCount < batchSize && rowIndex < stop && recordCursor.hasNext()) {
+            if (rowIndex++ < skip) {
+                continue;
+            }
+            for (int i = 0, n = columnEncodings.size(); i < n; i++) {
+                putValue(i, record, rowCount);
+            }
+            rowCount++;
+        }
+        return rowCount;
+    }
+
+    private int startMessage(byte headerType, long bodyLength) {
+        metadataMem.jumpTo(0);
+        metadataMem.putInt(CONTINUATION_MARKER);
+        metadataMem.putInt(0);
+        fb.of(metadataMem);
+        fb.startTable();
+        fb.addShort(MESSAGE_VERSION, METADATA_VERSION_V5);
+        fb.addByte(MESSAGE_HEADER_TYPE, headerType);
+        fb.addOffset(MESSAGE_HEADER);
+        fb.addLong(MESSAGE_BODY_LENGTH, bodyLength);
+        return fb.endTable();
+    }
+
+    private byte typeOf(int columnIndex) {
+        switch (columnEncodings.getQuick(columnIndex)) {
+            case ENCODING_BOOL:
+                return TYPE_BOOL;
+            case ENCODING_NULL:
+                return TYPE_NULL;
+            case ENCODING_BINARY:
+                return TYPE_BINARY;
+            case ENCODING_UTF8:
+            case ENCODING_DICTIONARY:
+                // dictionary encoded fields declare type of dictionary values
+                return TYPE_UTF8;
+            case ENCODING_UUID:
+                return TYPE_FIXED_SIZE_BINARY;
+            default:
+                switch (ColumnType.tagOf(metadata.getColumnType(columnIndex))) {
+                    case ColumnType.FLOAT:
+                    case ColumnType.DOUBLE:
+                        return TYPE_FLOATING_POINT;
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        return TYPE_TIMESTAMP;
+                    case ColumnType.LONG256:
+                        return TYPE_FIXED_SIZE_BINARY;
+                    default:
+                        return TYPE_INT;
+                }
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.vm.api.MemoryA;
+import io.questdb.cairo.vm.api.MemoryCARW;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.str.AbstractCharSink;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Minimal FlatBuffers serializer for Arrow IPC message metadata. Reference builders
+ * write buffers back to front, this one appends objects front to back instead: tables
+ * reserve their offset fields, which are patched once referenced objects are written
+ * after them. Offsets therefore always point forward, as FlatBuffers requires.
+ */
+class FlatBufferSink {
+    private static final int OFFSET_FIELD = -1;
+    private final IntList fieldOffsets = new IntList();
+    private final IntList fieldSizes = new IntList();
+    private final IntList fieldSlots = new IntList();
+    private final LongList fieldValues = new LongList();
+    private final IntList offsetFieldPositions = new IntList();
+    private final MemoryCharSink utf8Sink = new MemoryCharSink();
+    private long base;
+    private MemoryCARW mem;
+
+    void addBool(int slot, boolean value) {
+        addField(slot, Byte.BYTES, value ? 1 : 0);
+    }
+
+    void addByte(int slot, byte value) {
+        addField(slot, Byte.BYTES, value);
+    }
+
+    void addInt(int slot, int value) {
+        addField(slot, Integer.BYTES, value);
+    }
+
+    void addLong(int slot, long value) {
+        addField(slot, Long.BYTES, value);
+    }
+
+    /**
+     * Reserves offset field, its position is available via {@link #getOffsetField(int)}
+     * once the table is written.
+     */
+    void addOffset(int slot) {
+        addField(slot, OFFSET_FIELD, 0);
+    }
+
+    void addShort(int slot, short value) {
+        addField(slot, Short.BYTES, value);
+    }
+
+    /**
+     * Writes vtable and inline part of the table started by {@link #startTable()}.
+     * Inline fields are sorted by size to keep them naturally aligned.
+     *
+     * @return position of the table
+     */
+    int endTable() {
+        int slotCount = 0;
+        for (int i = 0, n = fieldSlots.size(); i < n; i++) {
+            slotCount = Math.max(slotCount, fieldSlots.getQuick(i) + 1);
+        }
+
+        align(Short.BYTES);
+        final int vtablePos = position();
+        final int vtableSize = 4 + 2 * slotCount;
+        // soffset is followed by 8-byte fields, they are aligned when table starts at 4 mod 8
+        int tablePos = vtablePos + vtableSize;
+        while ((tablePos & 7) != 4) {
+            tablePos++;
+        }
+
+        fieldOffsets.setAll(fieldSlots.size(), 0);
+        int tableSize = Integer.BYTES;
+        for (int size = Long.BYTES; size > 0; size >>= 1) {
+            for (int i = 0, n = fieldSlots.size(); i < n; i++) {
+                if (sizeOf(fieldSizes.getQuick(i)) == size) {
+                    fieldOffsets.setQuick(i, tableSize);
+                    tableSize += size;
+                }
+            }
+        }
+
+        mem.putShort((short) vtableSize);
+        mem.putShort((short) tableSize);
+        for (int slot = 0; slot < slotCount; slot++) {
+            final int index = fieldSlots.indexOf(slot, 0, fieldSlots.size());
+            mem.putShort((short) (index > -1 ? fieldOffsets.getQuick(index) : 0));
+        }
+        pad(tablePos);
+        mem.putInt(tablePos - vtablePos);
+        pad(tablePos + tableSize);
+
+        offsetFieldPositions.setAll(slotCount, -1);
+        for (int i = 0, n = fieldSlots.size(); i < n; i++) {
+            final long address = base + tablePos + fieldOffsets.getQuick(i);
+            final long value = fieldValues.getQuick(i);
+            switch (fieldSizes.getQuick(i)) {
+                case OFFSET_FIELD:
+                    offsetFieldPositions.setQuick(fieldSlots.getQuick(i), tablePos + fieldOffsets.getQuick(i));
+                    break;
+                case Byte.BYTES:
+                    mem.putByte(address, (byte) value);
+                    break;
+                case Short.BYTES:
+                    mem.putShort(address, (short) value);
+                    break;
+                case Integer.BYTES:
+                    mem.putInt(address, (int) value);
+                    break;
+                default:
+                    mem.putLong(address, value);
+                    break;
+            }
+        }
+        return tablePos;
+    }
+
+    /**
+     * Sets root offset of the buffer and pads it to 8 bytes.
+     *
+     * @return size of the buffer
+     */
+    int finish(int rootPos) {
+        patchOffset(0, rootPos);
+        align(Long.BYTES);
+        return position();
+    }
+
+    int getOffsetField(int slot) {
+        return offsetFieldPositions.getQuick(slot);
+    }
+
+    /**
+     * Starts new buffer at the current append offset of the memory, which
+     * is expected to be 8-byte aligned. Root offset is reserved.
+     */
+    void of(MemoryCARW mem) {
+        this.mem = mem;
+        this.base = mem.getAppendOffset();
+        mem.putInt(0);
+    }
+
+    void patchOffset(int fieldPos, int targetPos) {
+        assert fieldPos > -1 && targetPos >= fieldPos;
+        mem.putInt(base + fieldPos, targetPos - fieldPos);
+    }
+
+    int position() {
+        return (int) (mem.getAppendOffset() - base);
+    }
+
+    /**
+     * Writes UTF-8 encoded, zero terminated string.
+     *
+     * @return position of the string
+     */
+    int putString(CharSequence value) {
+        align(Integer.BYTES);
+        final int pos = position();
+        mem.putInt(0);
+        utf8Sink.of(mem).encodeUtf8(value);
+        mem.putInt(base + pos, position() - pos - Integer.BYTES);
+        mem.putByte((byte) 0);
+        return pos;
+    }
+
+    void startTable() {
+        fieldSlots.clear();
+        fieldSizes.clear();
+        fieldValues.clear();
+    }
+
+    /**
+     * Writes vector length aligning the elements, which are to be appended by the caller.
+     *
+     * @return position of the vector
+     */
+    int startVector(int length, int elementAlignment) {
+        final int alignment = Math.max(Integer.BYTES, elementAlignment);
+        while ((position() + Integer.BYTES) % alignment != 0) {
+            mem.putByte((byte) 0);
+        }
+        final int pos = position();
+        mem.putInt(length);
+        return pos;
+    }
+
+    private static int sizeOf(int fieldSize) {
+        return fieldSize == OFFSET_FIELD ? Integer.BYTES : fieldSize;
+    }
+
+    private void addField(int slot, int size, long value) {
+        fieldSlots.add(slot);
+        fieldSizes.add(size);
+        fieldValues.add(value);
+    }
+
+    private void align(int alignment) {
+        while (position() % alignment != 0) {
+            mem.putByte((byte) 0);
+        }
+    }
+
+    private void pad(int pos) {
+        while (position() < pos) {
+            mem.putByte((byte) 0);
+        }
+    }
+
+    static class MemoryCharSink extends AbstractCharSink {
+        private MemoryA mem;
+
+        @Override
+        public CharSink put(char c) {
+            mem.putByte((byte) c);
+            return this;
+        }
+
+        MemoryCharSink of(MemoryA mem) {
+            this.mem = mem;
+            return this;
+        }
+    }
+}
@@ -26,6 +26,7 @@ package io.questdb.cutlass.http;
 
 import io.questdb.cutlass.http.processors.JsonQueryProcessorConfiguration;
 import io.questdb.cutlass.http.processors.StaticContentProcessorConfiguration;
+import io.questdb.mp.WorkerPoolConfiguration;
 import io.questdb.network.DefaultIODispatcherConfiguration;
 import io.questdb.network.IODispatcherConfiguration;
 import io.questdb.std.FilesFacade;
@@ -41,11 +42,21 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
     private final IODispatcherConfiguration dispatcherConfiguration;
     private final HttpContextConfiguration httpContextConfiguration;
     private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new JsonQueryProcessorConfiguration() {
+        @Override
+        public int getArrowBatchSize() {
+            return 65536;
+        }
+
         @Override
         public MillisecondClock getClock() {
             return httpContextConfiguration.getClock();
         }
 
+        @Override
+        public long getColumnarMaxRowCount() {
+            return 1_000_000;
+        }
+
         @Override
         public int getConnectionCheckFrequency() {
             return 1_000_000;
@@ -75,6 +86,27 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         public long getMaxQueryResponseRowLimit() {
             return Long.MAX_VALUE;
         }
+
+        @Override
+        public int getQueryPageRowCount() {
+            return 10_000;
+        }
+
+        @Override
+        public int getQueryQueueCapacity() {
+            return 64;
+        }
+    };
+    private final WorkerPoolConfiguration queryWorkerPoolConfiguration = new WorkerPoolConfiguration() {
+        @Override
+        public String getPoolName() {
+            return "http-query";
+        }
+
+        @Override
+        public int getWorkerCount() {
+            return 0;
+        }
     };
     private final StaticContentProcessorConfiguration staticContentProcessorConfiguration = new StaticContentProcessorConfiguration() {
         @Override
@@ -155,6 +187,11 @@ public class DefaultHttpServerConfiguration implements HttpServerConfiguration {
         return 4;
     }
 
+    @Override
+    public WorkerPoolConfiguration getQueryWorkerPoolConfiguration() {
+        return queryWorkerPoolConfiguration;
+    }
+
     @Override
     public StaticContentProcessorConfiguration getStaticContentProcessorConfiguration() {
         return staticContentProcessorConfiguration;
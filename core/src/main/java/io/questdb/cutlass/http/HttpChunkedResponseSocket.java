@@ -33,8 +33,18 @@ public interface HttpChunkedResponseSocket extends CharSink {
 
     void done() throws PeerDisconnectedException, PeerIsSlowToReadException;
 
+    /**
+     * Address at which raw bytes can be copied into the response buffer, to be
+     * followed by {@link #onWrite(int)} with the number of bytes copied.
+     */
+    long getWriteAddress();
+
+    long getWriteNAvailable();
+
     HttpResponseHeader headers();
 
+    void onWrite(int size);
+
     boolean resetToBookmark();
 
     void sendChunk(boolean done) throws PeerDisconnectedException, PeerIsSlowToReadException;
@@ -28,6 +28,7 @@ import io.questdb.Metrics;
 import io.questdb.cairo.CairoSecurityContext;
 import io.questdb.cairo.security.CairoSecurityContextImpl;
 import io.questdb.cutlass.http.ex.*;
+import io.questdb.cutlass.http.processors.QueryCache;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.network.*;
@@ -52,6 +53,7 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
     private final MultipartParserState multipartParserState = new MultipartParserState();
     private final NetworkFacade nf;
     private final Runnable onPeerDisconnect;
+    private final QueryCache queryCache;
     private final int recvBufferSize;
     private final HttpResponseSink responseSink;
     private final RetryAttemptAttributes retryAttemptAttributes = new RetryAttemptAttributes();
@@ -68,6 +70,14 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
     private long totalBytesSent;
 
     public HttpConnectionContext(HttpContextConfiguration configuration, Metrics metrics) {
+        this(configuration, metrics, null);
+    }
+
+    /**
+     * @param queryCache cache of the server the connection belongs to, may be null when the context
+     *                   does not serve SQL queries
+     */
+    public HttpConnectionContext(HttpContextConfiguration configuration, Metrics metrics, QueryCache queryCache) {
         this.nf = configuration.getNetworkFacade();
         this.csPool = new ObjectPool<>(DirectByteCharSequence.FACTORY, configuration.getConnectionStringPoolCapacity());
         this.headerParser = new HttpHeaderParser(configuration.getRequestHeaderBufferSize(), csPool);
@@ -82,6 +92,7 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
         this.serverKeepAlive = configuration.getServerKeepAlive();
         this.onPeerDisconnect = configuration.onPeerDisconnect();
         this.metrics = metrics;
+        this.queryCache = queryCache;
     }
 
     @Override
@@ -169,6 +180,10 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
         return nCompletedRequests;
     }
 
+    public QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     public HttpRawSocket getRawResponseSocket() {
         return responseSink.getRawSocket();
     }
@@ -192,7 +207,7 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
                 keepGoing = handleClientRecv(selector, rescheduleContext);
                 break;
             case IOOperation.WRITE:
-                keepGoing = handleClientSend();
+                keepGoing = handleClientSend(rescheduleContext);
                 break;
             default:
                 dispatcher.disconnect(this, DISCONNECT_REASON_UNKNOWN_OPERATION);
@@ -250,6 +265,7 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
         if (pendingRetry) {
             pendingRetry = false;
             HttpRequestProcessor processor = getHttpRequestProcessor(selector);
+            final long bytesSent = responseSink.getTotalBytesSent();
             try {
                 LOG.info().$("retrying query [fd=").$(fd).$(']').$();
                 processor.onRequestRetry(this);
@@ -272,6 +288,12 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
                     busyRcvLoop(selector, rescheduleContext);
                 }
             } catch (RetryOperationException e2) {
+                if (responseSink.getTotalBytesSent() > bytesSent) {
+                    // processor made progress before asking for another retry,
+                    // start over with the shortest wait rather than keep backing off
+                    scheduleRetry(processor, rescheduleContext);
+                    return true;
+                }
                 pendingRetry = true;
                 return false;
             } catch (PeerDisconnectedException ignore) {
@@ -290,6 +312,20 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
         return true;
     }
 
+    private static boolean isNonZeroQuality(CharSequence acceptEncoding, int lo, int hi) {
+        int q = Chars.indexOf(acceptEncoding, lo, hi, '=');
+        if (q == -1) {
+            return true;
+        }
+        for (int i = q + 1; i < hi; i++) {
+            final char c = acceptEncoding.charAt(i);
+            if (c != '0' && c != '.' && c != ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @SuppressWarnings("StatementWithEmptyBody")
     private void busyRcvLoop(HttpRequestProcessorSelector selector, RescheduleContext rescheduleContext) {
         clear();
@@ -542,9 +578,8 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
             final boolean multipartRequest = Chars.equalsNc("multipart/form-data", headerParser.getContentType());
             final boolean multipartProcessor = processor instanceof HttpMultipartContentListener;
 
-            if (allowDeflateBeforeSend && Chars.contains(headerParser.getHeader("Accept-Encoding"), "gzip")) {
-                responseSink.setDeflateBeforeSend(true);
-            }
+            // negotiated for every request, keep-alive connection can mix clients with different capabilities
+            responseSink.setDeflateBeforeSend(allowDeflateBeforeSend && isGzipAccepted(headerParser.getHeader("Accept-Encoding")));
 
             try {
                 if (multipartRequest && !multipartProcessor) {
@@ -603,7 +638,7 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
         return busyRecv;
     }
 
-    private boolean handleClientSend() {
+    private boolean handleClientSend(RescheduleContext rescheduleContext) {
         if (resumeProcessor != null) {
             try {
                 responseSink.resumeSend();
@@ -619,6 +654,9 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
             } catch (ServerDisconnectException ignore) {
                 LOG.info().$("kicked out [fd=").$(fd).$(']').$();
                 dispatcher.disconnect(this, DISCONNECT_REASON_KICKED_OUT_AT_SEND);
+            } catch (RetryOperationException e) {
+                // processor is waiting on a resource, e.g. the next page of query results
+                scheduleRetry(resumeProcessor, rescheduleContext);
             }
         } else {
             LOG.error().$("spurious write request [fd=").$(fd).I$();
@@ -672,4 +710,42 @@ public class HttpConnectionContext extends AbstractMutableIOContext<HttpConnecti
         Vect.memcpy(recvBuffer, start, receivedBytes);
         LOG.debug().$("peer is slow, waiting for bigger part to parse [multipart]").$();
     }
+
+    /**
+     * Checks Accept-Encoding header value for gzip content coding. Explicit "gzip" entry takes
+     * precedence over "*" and entries with zero quality value, such as "gzip;q=0", are refused.
+     */
+    static boolean isGzipAccepted(CharSequence acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        int lo = 0;
+        final int len = acceptEncoding.length();
+        while (lo < len) {
+            int hi = Chars.indexOf(acceptEncoding, lo, len, ',');
+            if (hi == -1) {
+                hi = len;
+            }
+            int paramLo = Chars.indexOf(acceptEncoding, lo, hi, ';');
+            int codingLo = lo;
+            int codingHi = paramLo == -1 ? hi : paramLo;
+            while (codingLo < codingHi && acceptEncoding.charAt(codingLo) == ' ') {
+                codingLo++;
+            }
+            while (codingHi > codingLo && acceptEncoding.charAt(codingHi - 1) == ' ') {
+                codingHi--;
+            }
+            final boolean accepted = paramLo == -1 || isNonZeroQuality(acceptEncoding, paramLo + 1, hi);
+            if (Chars.equalsLowerCaseAscii(acceptEncoding, codingLo, codingHi, "gzip", 0, 4)
+                    || Chars.equalsLowerCaseAscii(acceptEncoding, codingLo, codingHi, "x-gzip", 0, 6)) {
+                return accepted;
+            }
+            if (codingHi - codingLo == 1 && acceptEncoding.charAt(codingLo) == '*') {
+                wildcard = accepted;
+            }
+            lo = hi + 1;
+        }
+        return wildcard;
+    }
 }
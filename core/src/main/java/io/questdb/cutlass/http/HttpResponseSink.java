@@ -424,11 +424,26 @@ public class HttpResponseSink implements Closeable, Mutable {
             }
         }
 
+        @Override
+        public long getWriteAddress() {
+            return buffer._wptr;
+        }
+
+        @Override
+        public long getWriteNAvailable() {
+            return buffer.getWriteNAvailable();
+        }
+
         @Override
         public HttpResponseHeader headers() {
             return headerImpl;
         }
 
+        @Override
+        public void onWrite(int size) {
+            buffer.onWrite(size);
+        }
+
         @Override
         public boolean resetToBookmark() {
             buffer._wptr = bookmark;
@@ -51,11 +51,28 @@ public class HttpServer implements Closeable {
     private static final Log LOG = LogFactory.getLog(HttpServer.class);
     private final IODispatcher<HttpConnectionContext> dispatcher;
     private final HttpContextFactory httpContextFactory;
+    private final QueryCache queryCache;
     private final WaitProcessor rescheduleContext;
     private final ObjList<HttpRequestProcessorSelectorImpl> selectors;
     private final int workerCount;
 
+    public HttpServer(HttpServerConfiguration configuration, MessageBus messageBus, Metrics metrics, WorkerPool pool) {
+        this(configuration, messageBus, metrics, pool, new QueryCache(configuration, metrics));
+    }
+
     public HttpServer(HttpMinServerConfiguration configuration, MessageBus messageBus, Metrics metrics, WorkerPool pool) {
+        // min server does not run SQL, the cache is there for processors that are bound to it nonetheless
+        this(configuration, messageBus, metrics, pool, new QueryCache(1, 1, 1, metrics.jsonQuery()));
+    }
+
+    private HttpServer(
+            HttpMinServerConfiguration configuration,
+            MessageBus messageBus,
+            Metrics metrics,
+            WorkerPool pool,
+            QueryCache queryCache
+    ) {
+        this.queryCache = queryCache;
         this.workerCount = pool.getWorkerCount();
         this.selectors = new ObjList<>(workerCount);
 
@@ -63,7 +80,7 @@ public class HttpServer implements Closeable {
             selectors.add(new HttpRequestProcessorSelectorImpl());
         }
 
-        this.httpContextFactory = new HttpContextFactory(configuration.getHttpContextConfiguration(), metrics);
+        this.httpContextFactory = new HttpContextFactory(configuration.getHttpContextConfiguration(), metrics, queryCache);
         this.dispatcher = IODispatchers.create(
                 configuration.getDispatcherConfiguration(),
                 httpContextFactory
@@ -90,10 +107,7 @@ public class HttpServer implements Closeable {
                     if (seq > -1) {
                         // Queue is not empty, so flush query cache.
                         LOG.info().$("flushing HTTP server query cache [worker=").$(workerId).$(']').$();
-                        QueryCache queryCache = QueryCache.getWeakThreadLocalInstance();
-                        if (queryCache != null) {
-                            queryCache.clear();
-                        }
+                        queryCache.clear();
                         queryCacheEventSubSeq.done(seq);
                     }
 
@@ -106,10 +120,7 @@ public class HttpServer implements Closeable {
 
             // http context factory has thread local pools
             // therefore we need each thread to clean their thread locals individually
-            pool.assignThreadLocalCleaner(i, () -> {
-                httpContextFactory.freeThreadLocal();
-                Misc.free(QueryCache.getWeakThreadLocalInstance());
-            });
+            pool.assignThreadLocalCleaner(i, httpContextFactory::freeThreadLocal);
 
             pool.freeOnExit(() -> {
                 messageBus.getQueryCacheEventFanOut().remove(queryCacheEventSubSeq);
@@ -223,6 +234,7 @@ public class HttpServer implements Closeable {
         Misc.free(rescheduleContext);
         Misc.freeObjListAndClear(selectors);
         Misc.free(httpContextFactory);
+        Misc.free(queryCache);
     }
 
     @FunctionalInterface
@@ -231,8 +243,8 @@ public class HttpServer implements Closeable {
     }
 
     private static class HttpContextFactory extends MutableIOContextFactory<HttpConnectionContext> {
-        public HttpContextFactory(HttpContextConfiguration configuration, Metrics metrics) {
-            super(() -> new HttpConnectionContext(configuration, metrics), configuration.getConnectionPoolInitialCapacity());
+        public HttpContextFactory(HttpContextConfiguration configuration, Metrics metrics, QueryCache queryCache) {
+            super(() -> new HttpConnectionContext(configuration, metrics, queryCache), configuration.getConnectionPoolInitialCapacity());
         }
     }
 
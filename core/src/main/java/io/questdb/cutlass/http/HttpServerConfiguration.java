@@ -39,6 +39,8 @@ public interface HttpServerConfiguration extends WorkerPoolConfiguration, HttpMi
 
     int getQueryCacheRowCount();
 
+    WorkerPoolConfiguration getQueryWorkerPoolConfiguration();
+
     StaticContentProcessorConfiguration getStaticContentProcessorConfiguration();
 
     WaitProcessorConfiguration getWaitProcessorConfiguration();
@@ -31,6 +31,9 @@ import org.jetbrains.annotations.TestOnly;
 
 public class JsonQueryMetrics {
 
+    private final Counter cacheEvictionCounter;
+    private final Counter cacheHitCounter;
+    private final Counter cacheMissCounter;
     private final Gauge cachedQueriesGauge;
     private final Counter completedQueriesCounter;
     private final Counter startedQueriesCounter;
@@ -39,6 +42,28 @@ public class JsonQueryMetrics {
         this.startedQueriesCounter = metricsRegistry.newCounter("json_queries");
         this.completedQueriesCounter = metricsRegistry.newCounter("json_queries_completed");
         this.cachedQueriesGauge = metricsRegistry.newGauge("json_queries_cached");
+        this.cacheHitCounter = metricsRegistry.newCounter("json_queries_cache_hits");
+        this.cacheMissCounter = metricsRegistry.newCounter("json_queries_cache_misses");
+        this.cacheEvictionCounter = metricsRegistry.newCounter("json_queries_cache_evictions");
+    }
+
+    @TestOnly
+    public long cacheEvictionCount() {
+        return cacheEvictionCounter.getValue();
+    }
+
+    public Counter cacheEvictionCounter() {
+        return cacheEvictionCounter;
+    }
+
+    @TestOnly
+    public long cacheHitCount() {
+        return cacheHitCounter.getValue();
+    }
+
+    @TestOnly
+    public long cacheMissCount() {
+        return cacheMissCounter.getValue();
     }
 
     public Gauge cachedQueriesGauge() {
@@ -50,6 +75,14 @@ public class JsonQueryMetrics {
         return completedQueriesCounter.getValue();
     }
 
+    public void markCacheHit() {
+        cacheHitCounter.inc();
+    }
+
+    public void markCacheMiss() {
+        cacheMissCounter.inc();
+    }
+
     public void markComplete() {
         completedQueriesCounter.inc();
     }
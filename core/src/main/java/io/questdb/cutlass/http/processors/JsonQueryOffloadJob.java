@@ -0,0 +1,77 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.mp.*;
+import io.questdb.std.Os;
+
+/**
+ * Fetches pages of /exec query results on the query worker pool. HTTP workers publish
+ * the state of a parked connection and pick the page up once the state reports it as fetched.
+ */
+public class JsonQueryOffloadJob extends AbstractQueueConsumerJob<JsonQueryOffloadJob.Task> {
+    private final MPSequence pubSeq;
+
+    public JsonQueryOffloadJob(int queueCapacity) {
+        this(new RingQueue<>(Task::new, queueCapacity), new MPSequence(queueCapacity), new MCSequence(queueCapacity));
+    }
+
+    private JsonQueryOffloadJob(RingQueue<Task> queue, MPSequence pubSeq, MCSequence subSeq) {
+        super(queue, subSeq);
+        this.pubSeq = pubSeq;
+        pubSeq.then(subSeq).then(pubSeq);
+    }
+
+    @Override
+    protected boolean doRun(int workerId, long cursor) {
+        final Task task = queue.get(cursor);
+        final JsonQueryProcessorState state = task.state;
+        task.state = null;
+        subSeq.done(cursor);
+        state.fetchPage();
+        return true;
+    }
+
+    boolean submit(JsonQueryProcessorState state) {
+        while (true) {
+            final long cursor = pubSeq.next();
+            if (cursor > -1) {
+                queue.get(cursor).state = state;
+                pubSeq.done(cursor);
+                return true;
+            }
+            if (cursor == -1) {
+                // queue is full
+                return false;
+            }
+            Os.pause();
+        }
+    }
+
+    static class Task {
+        private JsonQueryProcessorState state;
+    }
+}
@@ -61,7 +61,9 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     private final JsonQueryProcessorConfiguration configuration;
     private final Metrics metrics;
     private final NanosecondClock nanosecondClock;
+    private final JsonQueryOffloadJob offloadJob;
     private final Path path = new Path();
+    private final QueryAdmissionController queryAdmissionController;
     private final SqlExecutionContextImpl sqlExecutionContext;
 
     @TestOnly
@@ -80,12 +82,25 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             int sharedWorkerCount,
             @Nullable FunctionFactoryCache functionFactoryCache,
             @Nullable DatabaseSnapshotAgent snapshotAgent
+    ) {
+        this(configuration, engine, workerCount, sharedWorkerCount, functionFactoryCache, snapshotAgent, null);
+    }
+
+    public JsonQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            int workerCount,
+            int sharedWorkerCount,
+            @Nullable FunctionFactoryCache functionFactoryCache,
+            @Nullable DatabaseSnapshotAgent snapshotAgent,
+            @Nullable JsonQueryOffloadJob offloadJob
     ) {
         this(
                 configuration,
                 engine,
                 new SqlCompiler(engine, functionFactoryCache, snapshotAgent),
-                new SqlExecutionContextImpl(engine, workerCount, sharedWorkerCount)
+                new SqlExecutionContextImpl(engine, workerCount, sharedWorkerCount),
+                offloadJob
         );
     }
 
@@ -94,6 +109,20 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CairoEngine engine,
             SqlCompiler sqlCompiler,
             SqlExecutionContextImpl sqlExecutionContext
+    ) {
+        this(configuration, engine, sqlCompiler, sqlExecutionContext, null);
+    }
+
+    /**
+     * @param offloadJob when not null, SELECT results are fetched page by page on the pool running this job
+     *                   and the HTTP worker is released while a page is being fetched
+     */
+    public JsonQueryProcessor(
+            JsonQueryProcessorConfiguration configuration,
+            CairoEngine engine,
+            SqlCompiler sqlCompiler,
+            SqlExecutionContextImpl sqlExecutionContext,
+            @Nullable JsonQueryOffloadJob offloadJob
     ) {
         this.configuration = configuration;
         this.compiler = sqlCompiler;
@@ -130,6 +159,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         this.metrics = engine.getMetrics();
         this.asyncWriterStartTimeout = engine.getConfiguration().getWriterAsyncCommandBusyWaitTimeout();
         this.asyncCommandTimeout = engine.getConfiguration().getWriterAsyncCommandMaxTimeout();
+        this.offloadJob = offloadJob;
+        this.queryAdmissionController = engine.getQueryAdmissionController();
     }
 
     @Override
@@ -144,17 +175,10 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         final HttpConnectionContext context = state.getHttpConnectionContext();
         circuitBreaker.resetTimer();
 
-        if (fut == null) {
+        if (fut == null && !state.isOffloaded()) {
             metrics.jsonQuery().markStart();
             state.startExecutionTimer();
-            // do not set random for new request to avoid copying random from previous request into next one
-            // the only time we need to copy random from state is when we resume request execution
-            sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), circuitBreaker.of(context.getFd()));
-            if (state.getStatementTimeout() > 0L) {
-                circuitBreaker.setTimeout(state.getStatementTimeout());
-            } else {
-                circuitBreaker.resetMaxTimeToDefault();
-            }
+            bindExecutionContext(state, context);
             state.info().$("exec [q='").utf8(state.getQuery()).$("']").$();
         }
 
@@ -164,7 +188,17 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 return;
             }
 
-            final RecordCursorFactory factory = QueryCache.getThreadLocalInstance().poll(state.getQuery());
+            if (state.isOffloaded()) {
+                resumeOffload(state);
+                return;
+            }
+
+            if (!state.getQueryAdmission().tryAdmit(context.getCairoSecurityContext())) {
+                // queued behind other queries of the same principal, retry parks the request
+                throw RetryOperationException.INSTANCE;
+            }
+
+            final RecordCursorFactory factory = context.getQueryCache().poll(state.getQuery());
             if (factory != null) {
                 try {
                     sqlExecutionContext.storeTelemetry(CompiledQuery.SELECT, Telemetry.ORIGIN_HTTP_JSON);
@@ -174,7 +208,7 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                             configuration.getKeepAliveHeader());
                 } catch (ReaderOutOfDateException e) {
                     LOG.info().$(e.getFlyweightMessage()).$();
-                    Misc.free(factory);
+                    context.getQueryCache().invalidate(state.getQuery(), factory);
                     compileQuery(state);
                 }
             } else {
@@ -190,7 +224,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         } catch (CairoError | CairoException e) {
             internalError(context.getChunkedResponseSocket(), e.getFlyweightMessage(), e, state);
             readyForNextRequest(context);
-        } catch (PeerIsSlowToReadException | PeerDisconnectedException e) {
+        } catch (PeerIsSlowToReadException | PeerDisconnectedException | ServerDisconnectException |
+                 RetryOperationException e) {
             // re-throw the exception
             throw e;
         } catch (Throwable e) {
@@ -213,12 +248,15 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
         JsonQueryProcessorState state = LV.get(context);
-        if (state == null) {
+        if (state == null || state.isAbandoned()) {
+            // abandoned state is released by the query worker, setting the new one does not free it
             LV.set(context, state = new JsonQueryProcessorState(
                     context,
                     nanosecondClock,
                     configuration.getFloatScale(),
-                    configuration.getDoubleScale()
+                    configuration.getDoubleScale(),
+                    configuration.getColumnarMaxRowCount(),
+                    new QueryAdmission(queryAdmissionController)
             ));
         }
 
@@ -226,7 +264,12 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         state.setRnd(null);
 
         if (parseUrl(state, configuration.getKeepAliveHeader())) {
-            execute0(state);
+            final MemoryAccount account = Unsafe.bindMemoryAccount(state.getQueryAdmission());
+            try {
+                execute0(state);
+            } finally {
+                Unsafe.bindMemoryAccount(account);
+            }
         } else {
             readyForNextRequest(context);
         }
@@ -237,7 +280,12 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException {
         JsonQueryProcessorState state = LV.get(context);
-        execute0(state);
+        final MemoryAccount account = Unsafe.bindMemoryAccount(state.getQueryAdmission());
+        try {
+            execute0(state);
+        } finally {
+            Unsafe.bindMemoryAccount(account);
+        }
     }
 
     @Override
@@ -257,7 +305,12 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         if (state != null) {
             // we are resuming request execution, we need to copy random to execution context
             sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.getRnd(), context.getFd(), circuitBreaker.of(context.getFd()));
-            doResumeSend(state, context);
+            final MemoryAccount account = Unsafe.bindMemoryAccount(state.getQueryAdmission());
+            try {
+                doResumeSend(state, context);
+            } finally {
+                Unsafe.bindMemoryAccount(account);
+            }
         }
     }
 
@@ -266,7 +319,8 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
             CompiledQuery cc,
             CharSequence keepAliveHeader
     ) throws SqlException {
-        throw SqlException.$(0, "copy from STDIN is not supported over REST");
+        Misc.free(cc.getRecordCursorFactory());
+        throw SqlException.$(0, "copy from STDIN or to STDOUT is not supported over REST");
     }
 
     private static void doResumeSend(
@@ -297,6 +351,13 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
                 }
             }
         }
+
+        if (state.isPageExhausted()) {
+            // flush the rows we have, the connection is parked until the next page is fetched
+            socket.sendChunk(false);
+            state.requestPage();
+            throw RetryOperationException.INSTANCE;
+        }
         // reached the end naturally?
         readyForNextRequest(context);
     }
@@ -340,6 +401,17 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         );
     }
 
+    private void bindExecutionContext(JsonQueryProcessorState state, HttpConnectionContext context) {
+        // do not set random for new request to avoid copying random from previous request into next one
+        // the only time we need to copy random from state is when we resume request execution
+        sqlExecutionContext.with(context.getCairoSecurityContext(), null, null, context.getFd(), circuitBreaker.of(context.getFd()));
+        if (state.getStatementTimeout() > 0L) {
+            circuitBreaker.setTimeout(state.getStatementTimeout());
+        } else {
+            circuitBreaker.resetMaxTimeToDefault();
+        }
+    }
+
     private void compileQuery(JsonQueryProcessorState state) throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
         boolean recompileStale = true;
         for (int retries = 0; recompileStale; retries++) {
@@ -452,6 +524,15 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
     ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         final HttpConnectionContext context = state.getHttpConnectionContext();
         try {
+            if (offloadJob != null) {
+                if (state.ofOffload(factory, offloadJob, sqlExecutionContext, configuration.getQueryPageRowCount())) {
+                    // HTTP worker is released while the first page is fetched
+                    state.requestPage();
+                    throw RetryOperationException.INSTANCE;
+                }
+                readyForNextRequest(context);
+                return;
+            }
             if (state.of(factory, sqlExecutionContext)) {
                 header(context.getChunkedResponseSocket(), keepAliveHeader, 200);
                 doResumeSend(state, context);
@@ -578,6 +659,55 @@ public class JsonQueryProcessor implements HttpRequestProcessor, Closeable {
         return true;
     }
 
+    private void resumeOffload(
+            JsonQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, ServerDisconnectException, SqlException {
+        if (!state.pollPage()) {
+            throw RetryOperationException.INSTANCE;
+        }
+
+        final HttpConnectionContext context = state.getHttpConnectionContext();
+        final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        // exhausted page means the header and the previous pages have been sent
+        final boolean responseStarted = state.isPageExhausted();
+        switch (state.getOffloadError()) {
+            case JsonQueryProcessorState.OFFLOAD_ERROR_NONE:
+                break;
+            case JsonQueryProcessorState.OFFLOAD_ERROR_QUERY:
+                if (responseStarted) {
+                    throw ServerDisconnectException.INSTANCE;
+                }
+                sendException(
+                        socket,
+                        state.getOffloadErrorPosition(),
+                        state.getOffloadErrorMessage(),
+                        state.getQuery(),
+                        configuration.getKeepAliveHeader()
+                );
+                readyForNextRequest(context);
+                return;
+            case JsonQueryProcessorState.OFFLOAD_ERROR_STALE:
+                if (responseStarted) {
+                    throw ServerDisconnectException.INSTANCE;
+                }
+                // table structure changed before the cursor was opened
+                state.discardOffload();
+                bindExecutionContext(state, context);
+                compileQuery(state);
+                return;
+            default:
+                throw ServerDisconnectException.INSTANCE;
+        }
+
+        if (responseStarted) {
+            state.startPage();
+        } else {
+            header(socket, configuration.getKeepAliveHeader(), 200);
+        }
+        doResumeSend(state, context);
+        metrics.jsonQuery().markComplete();
+    }
+
     private void retryQueryExecution(JsonQueryProcessorState state, OperationFuture fut) throws SqlException, PeerIsSlowToReadException, PeerDisconnectedException {
         final int waitResult;
         try {
@@ -29,8 +29,16 @@ import io.questdb.std.datetime.millitime.MillisecondClock;
 
 public interface JsonQueryProcessorConfiguration {
 
+    int getArrowBatchSize();
+
     MillisecondClock getClock();
 
+    /**
+     * Columnar responses are materialized before the first byte is sent, this caps the number of rows
+     * they may hold. Larger results have to be fetched in row format.
+     */
+    long getColumnarMaxRowCount();
+
     int getConnectionCheckFrequency();
 
     int getDoubleScale();
@@ -42,4 +50,8 @@ public interface JsonQueryProcessorConfiguration {
     CharSequence getKeepAliveHeader();
 
     long getMaxQueryResponseRowLimit();
+
+    int getQueryPageRowCount();
+
+    int getQueryQueueCapacity();
 }
@@ -24,8 +24,7 @@
 
 package io.questdb.cutlass.http.processors;
 
-import io.questdb.cairo.ColumnType;
-import io.questdb.cairo.GeoHashes;
+import io.questdb.cairo.*;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
 import io.questdb.cutlass.http.HttpChunkedResponseSocket;
@@ -47,10 +46,16 @@ import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class JsonQueryProcessorState implements Mutable, Closeable {
+    static final int QUERY_COLUMN_PREFIX = 10;
+    static final int QUERY_COLUMN_SUFFIX = 12;
+    static final int QUERY_COLUMN_VALUE = 11;
     static final int QUERY_METADATA = 2;
     static final int QUERY_METADATA_SUFFIX = 3;
+    static final int QUERY_NEXT_PAGE = 13;
+    static final int QUERY_PAGE_START = 14;
     static final int QUERY_PREFIX = 1;
     static final int QUERY_RECORD = 5;
     static final int QUERY_RECORD_PREFIX = 9;
@@ -58,21 +63,45 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     static final int QUERY_RECORD_SUFFIX = 6;
     static final int QUERY_SETUP_FIRST_RECORD = 8;
     static final int QUERY_SUFFIX = 7;
+    static final int OFFLOAD_ERROR_FATAL = 3;
+    static final int OFFLOAD_ERROR_NONE = 0;
+    static final int OFFLOAD_ERROR_QUERY = 1;
+    static final int OFFLOAD_ERROR_STALE = 2;
     private static final Log LOG = LogFactory.getLog(JsonQueryProcessorState.class);
+    private static final int OFFLOAD_ABANDONED = 5;
+    private static final int OFFLOAD_DONE = 4;
+    private static final int OFFLOAD_NONE = 0;
+    private static final int OFFLOAD_PENDING = 1;
+    private static final int OFFLOAD_QUEUED = 2;
+    private static final int OFFLOAD_RUNNING = 3;
+    private final IntList chainColumnSkew = new IntList();
+    private final ArrayColumnTypes chainSinkTypes = new ArrayColumnTypes();
+    private final ArrayColumnTypes chainTypes = new ArrayColumnTypes();
+    private final EntityColumnFilter columnFilter = new EntityColumnFilter();
     private final ObjList<String> columnNames = new ObjList<>();
     private final IntList columnSkewList = new IntList();
     private final IntList columnTypesAndFlags = new IntList();
+    private final long columnarMaxRowCount;
     private final StringSink columnsQueryParameter = new StringSink();
     private final int doubleScale;
     private final SCSequence eventSubSequence = new SCSequence();
     private final int floatScale;
     private final HttpConnectionContext httpConnectionContext;
     private final NanosecondClock nanosecondClock;
+    private final StringSink offloadErrorMessage = new StringSink();
+    private final AtomicInteger offloadStatus = new AtomicInteger(OFFLOAD_NONE);
     private final StringSink query = new StringSink();
+    private final QueryAdmission queryAdmission;
     private final ObjList<StateResumeAction> resumeActions = new ObjList<>();
+    private final ArrayColumnTypes sinkTypes = new ArrayColumnTypes();
     private final long statementTimeout;
+    private BytecodeAssembler asm;
+    private RecordChain chain;
+    private boolean chainHasRecord;
+    private long chainRowIndex;
     private int columnCount;
     private int columnIndex;
+    private boolean columnar = false;
     private long compilerNanos;
     private long count;
     private boolean countRows = false;
@@ -80,6 +109,14 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private long executeStartNanos;
     private boolean explain = false;
     private boolean noMeta = false;
+    private NetworkSqlExecutionCircuitBreaker offloadCircuitBreaker;
+    private int offloadError = OFFLOAD_ERROR_NONE;
+    private int offloadErrorPosition;
+    private SqlExecutionContextImpl offloadExecutionContext;
+    private boolean offloadHasMore;
+    private JsonQueryOffloadJob offloadJob;
+    private long offloadPageRowCount;
+    private boolean offloaded = false;
     private OperationFuture operationFuture;
     private boolean queryCacheable = false;
     private boolean queryJitCompiled = false;
@@ -98,9 +135,13 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             HttpConnectionContext httpConnectionContext,
             NanosecondClock nanosecondClock,
             int floatScale,
-            int doubleScale
+            int doubleScale,
+            long columnarMaxRowCount,
+            QueryAdmission queryAdmission
     ) {
         this.httpConnectionContext = httpConnectionContext;
+        this.columnarMaxRowCount = columnarMaxRowCount;
+        this.queryAdmission = queryAdmission;
         resumeActions.extendAndSet(QUERY_PREFIX, this::onQueryPrefix);
         resumeActions.extendAndSet(QUERY_METADATA, this::onQueryMetadata);
         resumeActions.extendAndSet(QUERY_METADATA_SUFFIX, this::onQueryMetadataSuffix);
@@ -109,6 +150,11 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         resumeActions.extendAndSet(QUERY_RECORD, this::onQueryRecord);
         resumeActions.extendAndSet(QUERY_RECORD_SUFFIX, this::onQueryRecordSuffix);
         resumeActions.extendAndSet(QUERY_SUFFIX, this::doQuerySuffix);
+        resumeActions.extendAndSet(QUERY_COLUMN_PREFIX, this::doColumnLoop);
+        resumeActions.extendAndSet(QUERY_COLUMN_VALUE, this::onQueryColumnValue);
+        resumeActions.extendAndSet(QUERY_COLUMN_SUFFIX, this::onQueryColumnSuffix);
+        resumeActions.extendAndSet(QUERY_NEXT_PAGE, this::onQueryNextPage);
+        resumeActions.extendAndSet(QUERY_PAGE_START, this::doPageLoop);
 
         this.nanosecondClock = nanosecondClock;
         this.floatScale = floatScale;
@@ -118,15 +164,23 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
 
     @Override
     public void clear() {
+        if (!cancelOffload()) {
+            // query worker owns the state until it finishes the page, the processor replaces abandoned state
+            return;
+        }
         columnCount = 0;
         columnSkewList.clear();
         columnTypesAndFlags.clear();
         columnNames.clear();
         cursor = Misc.free(cursor);
+        if (chain != null) {
+            // chain and its sink are reused by the next request that has the same column types
+            chain.clear();
+        }
         record = null;
         if (null != recordCursorFactory) {
             if (queryCacheable) {
-                QueryCache.getThreadLocalInstance().push(query, recordCursorFactory);
+                httpConnectionContext.getQueryCache().push(query, recordCursorFactory);
             } else {
                 recordCursorFactory.close();
             }
@@ -137,15 +191,20 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         queryState = QUERY_PREFIX;
         columnIndex = 0;
         countRows = false;
+        columnar = false;
+        offloaded = false;
+        offloadError = OFFLOAD_ERROR_NONE;
         explain = false;
         queryJitCompiled = false;
         operationFuture = Misc.free(operationFuture);
+        queryAdmission.release();
     }
 
     @Override
     public void close() {
-        cursor = Misc.free(cursor);
-        recordCursorFactory = Misc.free(recordCursorFactory);
+        if (cancelOffload()) {
+            freeQueryResources();
+        }
         freeAsyncOperation();
     }
 
@@ -164,6 +223,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.countRows = Chars.equalsNc("true", request.getUrlParam("count"));
         this.timings = Chars.equalsNc("true", request.getUrlParam("timings"));
         this.explain = Chars.equalsNc("true", request.getUrlParam("explain"));
+        this.columnar = Chars.equalsNc("columnar", request.getUrlParam("fmt"));
         this.quoteLargeNum = Chars.equalsNc("true", request.getUrlParam("quoteLargeNum"))
                 || Chars.equalsNc("con", request.getUrlParam("src"));
     }
@@ -200,6 +260,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return query;
     }
 
+    public QueryAdmission getQueryAdmission() {
+        return queryAdmission;
+    }
+
     public short getQueryType() {
         return queryType;
     }
@@ -383,6 +447,18 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         socket.put('"').putISODate(t).put('"');
     }
 
+    private static void putUuidValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+        final long lo = rec.getLong128Lo(col);
+        final long hi = rec.getLong128Hi(col);
+        if (Uuid.isNull(lo, hi)) {
+            socket.put("null");
+            return;
+        }
+        socket.put('"');
+        Uuid.toSink(socket, lo, hi);
+        socket.put('"');
+    }
+
     private boolean addColumnToOutput(RecordMetadata metadata, CharSequence columnNames, int start, int hi) throws PeerDisconnectedException, PeerIsSlowToReadException {
 
         if (start == hi) {
@@ -423,11 +499,125 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.columnNames.add(metadata.getColumnName(i));
     }
 
+    /**
+     * Detaches HTTP worker from the offloaded query. The cursor must not be released while query worker
+     * is fetching from it, so a running fetch is abandoned instead and the query worker releases the query
+     * resources once it is done.
+     *
+     * @return false when the fetch has been abandoned and the state must no longer be used by HTTP worker
+     */
+    private boolean cancelOffload() {
+        while (true) {
+            final int status = offloadStatus.get();
+            switch (status) {
+                case OFFLOAD_ABANDONED:
+                    return false;
+                case OFFLOAD_RUNNING:
+                    if (offloadStatus.compareAndSet(OFFLOAD_RUNNING, OFFLOAD_ABANDONED)) {
+                        return false;
+                    }
+                    break;
+                default:
+                    if (offloadStatus.compareAndSet(status, OFFLOAD_NONE)) {
+                        return true;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void checkColumnarRowCount() {
+        if (count >= columnarMaxRowCount) {
+            throw CairoException.nonCritical()
+                    .put("columnar result exceeds row limit, narrow the query or use row format [limit=")
+                    .put(columnarMaxRowCount)
+                    .put(']');
+        }
+    }
+
+    /**
+     * Chain and the sink class copying records into it are kept between requests, a request with
+     * the same column types reuses them instead of defining another sink class.
+     */
+    private void createChain(CairoConfiguration configuration) {
+        sinkTypes.clear();
+        chainTypes.clear();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = columnTypesAndFlags.getQuick(2 * i);
+            switch (ColumnType.tagOf(columnType)) {
+                case ColumnType.SYMBOL:
+                    // symbol tables do not travel with the chain, symbols are copied as strings
+                    sinkTypes.add(columnType);
+                    chainTypes.add(ColumnType.STRING);
+                    break;
+                case ColumnType.BINARY:
+                case ColumnType.RECORD:
+                case ColumnType.NULL:
+                    // these are always sent as empty or null, there is nothing to copy, see getChainColumnType()
+                    sinkTypes.add(ColumnType.NULL);
+                    chainTypes.add(ColumnType.NULL);
+                    break;
+                default:
+                    sinkTypes.add(columnType);
+                    chainTypes.add(columnType);
+                    break;
+            }
+        }
+
+        if (chain != null && isChainReusable()) {
+            chain.clear();
+            return;
+        }
+
+        columnFilter.of(columnCount);
+        if (asm == null) {
+            asm = new BytecodeAssembler();
+        }
+        final RecordSink recordSink = RecordSinkFactory.getInstance(
+                asm,
+                sinkTypes,
+                columnFilter,
+                true,
+                columnSkewList.size() > 0 ? columnSkewList : null
+        );
+        chain = Misc.free(chain);
+        chain = new RecordChain(
+                chainTypes,
+                recordSink,
+                configuration.getSqlSortValuePageSize(),
+                configuration.getSqlSortValueMaxPages()
+        );
+        chainSinkTypes.clear();
+        for (int i = 0; i < columnCount; i++) {
+            chainSinkTypes.add(sinkTypes.getColumnType(i));
+        }
+        chainColumnSkew.clear();
+        chainColumnSkew.addAll(columnSkewList);
+    }
+
+    private void doColumnLoop(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        while (columnIndex < columnCount) {
+            doQueryColumnPrefix(socket);
+            doQueryColumnValues(socket);
+            doQueryColumnSuffix(socket);
+        }
+        doQuerySuffix(socket, columnCount);
+    }
+
     private void doFirstRecordLoop(
             HttpChunkedResponseSocket socket,
             int columnCount
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        if (onQuerySetupFirstRecord()) {
+        if (columnar) {
+            // rows are materialized by now, dataset is sent column by column
+            columnIndex = 0;
+            doColumnLoop(socket, columnCount);
+        } else if (offloaded) {
+            doPageLoop(socket, columnCount);
+        } else if (onQuerySetupFirstRecord()) {
             doRecordFetchLoop(socket, columnCount);
         } else {
             doQuerySuffix(socket, columnCount);
@@ -438,10 +628,57 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             HttpChunkedResponseSocket socket,
             int columnCount
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        if (doQueryNextRecord()) {
+        if (nextRecord()) {
             doRecordFetchLoop(socket, columnCount);
         } else {
-            doQuerySuffix(socket, columnCount);
+            doQueryPageSuffix(socket, columnCount);
+        }
+    }
+
+    private void doPageLoop(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        chain.toTop();
+        if (chain.hasNext()) {
+            doRecordFetchLoop(socket, columnCount);
+        } else {
+            doQueryPageSuffix(socket, columnCount);
+        }
+    }
+
+    private void doQueryColumnPrefix(HttpChunkedResponseSocket socket) {
+        queryState = QUERY_COLUMN_PREFIX;
+        socket.bookmark();
+        if (columnIndex > 0) {
+            socket.put(',');
+        }
+        socket.put('[');
+        chain.toTop();
+        chainRowIndex = 0;
+        chainHasRecord = chain.hasNext();
+    }
+
+    private void doQueryColumnSuffix(HttpChunkedResponseSocket socket) {
+        queryState = QUERY_COLUMN_SUFFIX;
+        socket.bookmark();
+        socket.put(']');
+        columnIndex++;
+    }
+
+    private void doQueryColumnValues(HttpChunkedResponseSocket socket) {
+        queryState = QUERY_COLUMN_VALUE;
+        final Record rec = chain.getRecord();
+        final int columnType = getChainColumnType(columnIndex);
+        final int bitFlags = columnTypesAndFlags.getQuick(2 * columnIndex + 1);
+        while (chainHasRecord) {
+            socket.bookmark();
+            if (chainRowIndex > 0) {
+                socket.put(',');
+            }
+            putValue(socket, rec, columnIndex, columnType, bitFlags);
+            chainRowIndex++;
+            chainHasRecord = chain.hasNext();
         }
     }
 
@@ -478,6 +715,18 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return false;
     }
 
+    private void doQueryPageSuffix(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (offloaded && offloadHasMore) {
+            // the processor parks the connection until query worker fetches the next page
+            queryState = QUERY_NEXT_PAGE;
+        } else {
+            doQuerySuffix(socket, columnCount);
+        }
+    }
+
     private boolean doQueryPrefix(HttpChunkedResponseSocket socket) {
         if (noMeta) {
             socket.bookmark();
@@ -499,75 +748,12 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
                 socket.put(',');
             }
 
-            int columnIdx = columnSkewList.size() > 0 ? columnSkewList.getQuick(columnIndex) : columnIndex;
-            int columnType = columnTypesAndFlags.getQuick(2 * columnIndex);
-            switch (ColumnType.tagOf(columnType)) {
-                case ColumnType.BOOLEAN:
-                    putBooleanValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.BYTE:
-                    putByteValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.DOUBLE:
-                    putDoubleValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.FLOAT:
-                    putFloatValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.INT:
-                    putIntValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.LONG:
-                    putLongValue(socket, record, columnIdx, quoteLargeNum);
-                    break;
-                case ColumnType.DATE:
-                    putDateValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.TIMESTAMP:
-                    putTimestampValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.SHORT:
-                    putShortValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.CHAR:
-                    putCharValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.STRING:
-                    putStrValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.SYMBOL:
-                    putSymValue(socket, record, columnIdx);
-                    break;
-                case ColumnType.BINARY:
-                    putBinValue(socket);
-                    break;
-                case ColumnType.LONG256:
-                    putLong256Value(socket, record, columnIdx);
-                    break;
-                case ColumnType.GEOBYTE:
-                    putGeoHashStringByteValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOSHORT:
-                    putGeoHashStringShortValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOINT:
-                    putGeoHashStringIntValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.GEOLONG:
-                    putGeoHashStringLongValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex + 1));
-                    break;
-                case ColumnType.RECORD:
-                    putRecValue(socket);
-                    break;
-                case ColumnType.NULL:
-                    socket.put("null");
-                    break;
-                case ColumnType.LONG128:
-                    throw new UnsupportedOperationException();
-                default:
-                    assert false : "Not supported type in output " + ColumnType.nameOf(columnType);
-                    socket.put("null"); // To make JSON valid
-                    break;
+            if (offloaded) {
+                // page columns are laid out in output order already
+                putValue(socket, chain.getRecord(), columnIndex, getChainColumnType(columnIndex), columnTypesAndFlags.getQuick(2 * columnIndex + 1));
+            } else {
+                int columnIdx = columnSkewList.size() > 0 ? columnSkewList.getQuick(columnIndex) : columnIndex;
+                putValue(socket, record, columnIdx, columnTypesAndFlags.getQuick(2 * columnIndex), columnTypesAndFlags.getQuick(2 * columnIndex + 1));
             }
         }
     }
@@ -575,7 +761,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
     private void doQueryRecordPrefix(HttpChunkedResponseSocket socket) {
         queryState = QUERY_RECORD_PREFIX;
         socket.bookmark();
-        if (count > skip) {
+        if (offloaded ? chainRowIndex > 0 : count > skip) {
             socket.put(',');
         }
         socket.put('[');
@@ -584,7 +770,12 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
 
     private void doQueryRecordSuffix(HttpChunkedResponseSocket socket) {
         queryState = QUERY_RECORD_SUFFIX;
-        count++;
+        if (offloaded) {
+            // row count is kept by the query worker
+            chainRowIndex++;
+        } else {
+            count++;
+        }
         socket.bookmark();
         socket.put(']');
     }
@@ -627,14 +818,60 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
             doQueryRecordPrefix(socket);
             doQueryRecord(socket, columnCount);
             doQueryRecordSuffix(socket);
-        } while (doQueryNextRecord());
-        doQuerySuffix(socket, columnCount);
+        } while (nextRecord());
+        doQueryPageSuffix(socket, columnCount);
+    }
+
+    private void freeQueryResources() {
+        cursor = Misc.free(cursor);
+        chain = Misc.free(chain);
+        recordCursorFactory = Misc.free(recordCursorFactory);
+        offloadCircuitBreaker = Misc.free(offloadCircuitBreaker);
+        offloadExecutionContext = null;
+        queryAdmission.release();
+    }
+
+    private int getChainColumnType(int columnIndex) {
+        final int columnType = columnTypesAndFlags.getQuick(2 * columnIndex);
+        // binary is not copied into the chain, it is still sent as an empty array
+        return ColumnType.tagOf(columnType) == ColumnType.BINARY ? columnType : chainTypes.getColumnType(columnIndex);
     }
 
     private long getFd() {
         return httpConnectionContext.getFd();
     }
 
+    private boolean isChainReusable() {
+        if (chainSinkTypes.getColumnCount() != columnCount || !chainColumnSkew.equals(columnSkewList)) {
+            return false;
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (chainSinkTypes.getColumnType(i) != sinkTypes.getColumnType(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void materialize(SqlExecutionContextImpl sqlExecutionContext) {
+        createChain(sqlExecutionContext.getCairoEngine().getConfiguration());
+        if (onQuerySetupFirstRecord()) {
+            final SqlExecutionCircuitBreaker circuitBreaker = sqlExecutionContext.getCircuitBreaker();
+            long offset = -1;
+            do {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                checkColumnarRowCount();
+                offset = chain.put(record, offset);
+                count++;
+            } while (doQueryNextRecord());
+        }
+    }
+
+    private boolean nextRecord() {
+        // query worker has already applied the limit to the rows in the page
+        return offloaded ? chain.hasNext() : doQueryNextRecord();
+    }
+
     private void onNoMoreData() {
         long nanos = nanosecondClock.getTicks();
         if (countRows) {
@@ -656,6 +893,22 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         recordCountNanos = nanosecondClock.getTicks() - nanos;
     }
 
+    private void onQueryColumnSuffix(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        doQueryColumnSuffix(socket);
+        doColumnLoop(socket, columnCount);
+    }
+
+    private void onQueryColumnValue(
+            HttpChunkedResponseSocket socket,
+            int columnCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        doQueryColumnValues(socket);
+        onQueryColumnSuffix(socket, columnCount);
+    }
+
     private void onQueryMetadata(
             HttpChunkedResponseSocket socket,
             int columnCount
@@ -672,6 +925,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         doFirstRecordLoop(socket, columnCount);
     }
 
+    private void onQueryNextPage(HttpChunkedResponseSocket socket, int columnCount) {
+        // page is not fetched yet, there is nothing to send
+    }
+
     private void onQueryPrefix(HttpChunkedResponseSocket socket, int columnCount) throws PeerDisconnectedException, PeerIsSlowToReadException {
         if (doQueryPrefix(socket)) {
             doQueryMetadata(socket, columnCount);
@@ -723,47 +980,7 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return true;
     }
 
-    private void putBinValue(HttpChunkedResponseSocket socket) {
-        socket.put('[');
-        socket.put(']');
-    }
-
-    private void putDoubleValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getDouble(col), doubleScale);
-    }
-
-    private void putFloatValue(HttpChunkedResponseSocket socket, Record rec, int col) {
-        socket.put(rec.getFloat(col), floatScale);
-    }
-
-    static void prepareExceptionJson(HttpChunkedResponseSocket socket, int position, CharSequence message, CharSequence query) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        socket.put('{').
-                putQuoted("query").put(':').encodeUtf8AndQuote(query == null ? "" : query).put(',').
-                putQuoted("error").put(':').encodeUtf8AndQuote(message).put(',').
-                putQuoted("position").put(':').put(position);
-        socket.put('}');
-        socket.sendChunk(true);
-    }
-
-    boolean noCursor() {
-        return cursor == null;
-    }
-
-    boolean of(RecordCursorFactory factory, SqlExecutionContextImpl sqlExecutionContext)
-            throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
-        return of(factory, true, sqlExecutionContext);
-    }
-
-    boolean of(RecordCursorFactory factory, boolean queryCacheable, SqlExecutionContextImpl sqlExecutionContext)
-            throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
-        this.recordCursorFactory = factory;
-        this.queryCacheable = queryCacheable;
-        this.queryJitCompiled = factory.usesCompiledFilter();
-        // Enable column pre-touch in REST API only when limit=n,m is not specified since when limit is defined we do
-        // a no-op loop over the cursor to calculate the total row count and pre-touch only slows things down.
-        sqlExecutionContext.setColumnPreTouchEnabled(stop == Long.MAX_VALUE);
-        this.cursor = factory.getCursor(sqlExecutionContext);
-        final RecordMetadata metadata = factory.getMetadata();
+    private boolean prepareColumns(RecordMetadata metadata) throws PeerDisconnectedException, PeerIsSlowToReadException {
         HttpRequestHeader header = httpConnectionContext.getRequestHeader();
         DirectByteCharSequence columnNames = header.getUrlParam("cols");
         int columnCount;
@@ -811,6 +1028,312 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         return true;
     }
 
+    private void putBinValue(HttpChunkedResponseSocket socket) {
+        socket.put('[');
+        socket.put(']');
+    }
+
+    private void putDoubleValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+        socket.put(rec.getDouble(col), doubleScale);
+    }
+
+    private void putFloatValue(HttpChunkedResponseSocket socket, Record rec, int col) {
+        socket.put(rec.getFloat(col), floatScale);
+    }
+
+    private void putValue(HttpChunkedResponseSocket socket, Record rec, int col, int columnType, int bitFlags) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                putBooleanValue(socket, rec, col);
+                break;
+            case ColumnType.BYTE:
+                putByteValue(socket, rec, col);
+                break;
+            case ColumnType.DOUBLE:
+                putDoubleValue(socket, rec, col);
+                break;
+            case ColumnType.FLOAT:
+                putFloatValue(socket, rec, col);
+                break;
+            case ColumnType.INT:
+                putIntValue(socket, rec, col);
+                break;
+            case ColumnType.LONG:
+                putLongValue(socket, rec, col, quoteLargeNum);
+                break;
+            case ColumnType.DATE:
+                putDateValue(socket, rec, col);
+                break;
+            case ColumnType.TIMESTAMP:
+                putTimestampValue(socket, rec, col);
+                break;
+            case ColumnType.SHORT:
+                putShortValue(socket, rec, col);
+                break;
+            case ColumnType.CHAR:
+                putCharValue(socket, rec, col);
+                break;
+            case ColumnType.STRING:
+                putStrValue(socket, rec, col);
+                break;
+            case ColumnType.SYMBOL:
+                putSymValue(socket, rec, col);
+                break;
+            case ColumnType.BINARY:
+                putBinValue(socket);
+                break;
+            case ColumnType.LONG256:
+                putLong256Value(socket, rec, col);
+                break;
+            case ColumnType.GEOBYTE:
+                putGeoHashStringByteValue(socket, rec, col, bitFlags);
+                break;
+            case ColumnType.GEOSHORT:
+                putGeoHashStringShortValue(socket, rec, col, bitFlags);
+                break;
+            case ColumnType.GEOINT:
+                putGeoHashStringIntValue(socket, rec, col, bitFlags);
+                break;
+            case ColumnType.GEOLONG:
+                putGeoHashStringLongValue(socket, rec, col, bitFlags);
+                break;
+            case ColumnType.RECORD:
+                putRecValue(socket);
+                break;
+            case ColumnType.NULL:
+                socket.put("null");
+                break;
+            case ColumnType.UUID:
+                putUuidValue(socket, rec, col);
+                break;
+            case ColumnType.LONG128:
+                throw new UnsupportedOperationException();
+            default:
+                assert false : "Not supported type in output " + ColumnType.nameOf(columnType);
+                socket.put("null"); // To make JSON valid
+                break;
+        }
+    }
+
+    private void setOffloadError(int error, int position, CharSequence message) {
+        offloadError = error;
+        offloadErrorPosition = position;
+        offloadErrorMessage.clear();
+        offloadErrorMessage.put(message);
+    }
+
+    static void prepareExceptionJson(HttpChunkedResponseSocket socket, int position, CharSequence message, CharSequence query) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        socket.put('{').
+                putQuoted("query").put(':').encodeUtf8AndQuote(query == null ? "" : query).put(',').
+                putQuoted("error").put(':').encodeUtf8AndQuote(message).put(',').
+                putQuoted("position").put(':').put(position);
+        socket.put('}');
+        socket.sendChunk(true);
+    }
+
+    /**
+     * Releases the cursor and the factory of offloaded query so that it can be compiled again. This is
+     * only valid before the response header is sent.
+     */
+    void discardOffload() {
+        cursor = Misc.free(cursor);
+        if (chain != null) {
+            chain.clear();
+        }
+        recordCursorFactory = Misc.free(recordCursorFactory);
+        columnCount = 0;
+        columnSkewList.clear();
+        columnTypesAndFlags.clear();
+        columnNames.clear();
+        offloaded = false;
+        offloadError = OFFLOAD_ERROR_NONE;
+        offloadStatus.set(OFFLOAD_NONE);
+    }
+
+    /**
+     * Runs on query worker. The first call opens the cursor, every call copies up to page row count
+     * records into the chain. HTTP worker does not touch the cursor until the status flips to done.
+     */
+    void fetchPage() {
+        if (!offloadStatus.compareAndSet(OFFLOAD_QUEUED, OFFLOAD_RUNNING)) {
+            // request has been abandoned while the page was queued
+            return;
+        }
+        final MemoryAccount account = Unsafe.bindMemoryAccount(queryAdmission);
+        try {
+            if (cursor == null) {
+                cursor = recordCursorFactory.getCursor(offloadExecutionContext);
+                offloadHasMore = onQuerySetupFirstRecord();
+            } else {
+                chain.clear();
+            }
+            // columnar output needs the entire result set
+            final long pageRowCount = columnar ? Long.MAX_VALUE : offloadPageRowCount;
+            long offset = -1;
+            for (long n = 0; offloadHasMore && n < pageRowCount; n++) {
+                offloadCircuitBreaker.statefulThrowExceptionIfTripped();
+                if (columnar) {
+                    checkColumnarRowCount();
+                }
+                offset = chain.put(record, offset);
+                count++;
+                offloadHasMore = doQueryNextRecord();
+            }
+        } catch (ReaderOutOfDateException e) {
+            info().$(e.getFlyweightMessage()).$();
+            setOffloadError(OFFLOAD_ERROR_STALE, 0, e.getFlyweightMessage());
+        } catch (SqlException | ImplicitCastException e) {
+            logSqlError(e);
+            setOffloadError(OFFLOAD_ERROR_QUERY, e.getPosition(), e.getFlyweightMessage());
+        } catch (CairoException e) {
+            queryCacheable = e.isCacheable();
+            if (e.isInterruption()) {
+                info().$("query cancelled [q=`").utf8(query).$("`, reason=`").$(e.getFlyweightMessage()).$("`]").$();
+            } else if (e.isCritical()) {
+                critical().$("error [q=`").utf8(query).$(", msg=`").$(e.getFlyweightMessage()).$('`').$(", errno=`").$(e.getErrno()).I$();
+            } else {
+                error().$("error [q=`").utf8(query).$(", msg=`").$(e.getFlyweightMessage()).$('`').$(", errno=`").$(e.getErrno()).I$();
+            }
+            setOffloadError(OFFLOAD_ERROR_QUERY, 0, e.getFlyweightMessage());
+        } catch (CairoError e) {
+            error().$("error [q=`").utf8(query).$(", msg=`").$(e.getFlyweightMessage()).I$();
+            setOffloadError(OFFLOAD_ERROR_QUERY, 0, e.getFlyweightMessage());
+        } catch (Throwable e) {
+            critical().$("Uh-oh. Error!").$(e).$();
+            setOffloadError(OFFLOAD_ERROR_FATAL, 0, "internal error");
+        } finally {
+            if (!offloadStatus.compareAndSet(OFFLOAD_RUNNING, OFFLOAD_DONE)) {
+                // HTTP worker has abandoned the request while the page was being fetched
+                freeQueryResources();
+            }
+            Unsafe.bindMemoryAccount(account);
+        }
+    }
+
+    int getOffloadError() {
+        return offloadError;
+    }
+
+    CharSequence getOffloadErrorMessage() {
+        return offloadErrorMessage;
+    }
+
+    int getOffloadErrorPosition() {
+        return offloadErrorPosition;
+    }
+
+    boolean isAbandoned() {
+        return offloadStatus.get() == OFFLOAD_ABANDONED;
+    }
+
+    boolean isOffloaded() {
+        return offloaded;
+    }
+
+    boolean isPageExhausted() {
+        return queryState == QUERY_NEXT_PAGE;
+    }
+
+    boolean noCursor() {
+        return cursor == null;
+    }
+
+    boolean of(RecordCursorFactory factory, SqlExecutionContextImpl sqlExecutionContext)
+            throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        return of(factory, true, sqlExecutionContext);
+    }
+
+    boolean of(RecordCursorFactory factory, boolean queryCacheable, SqlExecutionContextImpl sqlExecutionContext)
+            throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        this.recordCursorFactory = factory;
+        this.queryCacheable = queryCacheable;
+        this.queryJitCompiled = factory.usesCompiledFilter();
+        // Enable column pre-touch in REST API only when limit=n,m is not specified since when limit is defined we do
+        // a no-op loop over the cursor to calculate the total row count and pre-touch only slows things down.
+        sqlExecutionContext.setColumnPreTouchEnabled(stop == Long.MAX_VALUE);
+        this.cursor = factory.getCursor(sqlExecutionContext);
+        if (!prepareColumns(factory.getMetadata())) {
+            return false;
+        }
+        if (columnar) {
+            materialize(sqlExecutionContext);
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the response for paged execution on the query worker pool. The cursor is opened by
+     * the first page fetch, so that the calling HTTP worker is released as soon as the page is requested.
+     */
+    boolean ofOffload(
+            RecordCursorFactory factory,
+            JsonQueryOffloadJob offloadJob,
+            SqlExecutionContextImpl sqlExecutionContext,
+            long pageRowCount
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        this.recordCursorFactory = factory;
+        this.queryCacheable = true;
+        this.queryJitCompiled = factory.usesCompiledFilter();
+        if (!prepareColumns(factory.getMetadata())) {
+            return false;
+        }
+
+        final CairoEngine engine = sqlExecutionContext.getCairoEngine();
+        if (offloadExecutionContext == null) {
+            // query worker needs its own context, the one passed in belongs to HTTP worker
+            offloadExecutionContext = new SqlExecutionContextImpl(
+                    engine,
+                    sqlExecutionContext.getWorkerCount(),
+                    sqlExecutionContext.getSharedWorkerCount()
+            );
+            offloadCircuitBreaker = new NetworkSqlExecutionCircuitBreaker(
+                    engine.getConfiguration().getCircuitBreakerConfiguration(),
+                    MemoryTag.NATIVE_CB3
+            );
+        }
+        final long fd = getFd();
+        offloadExecutionContext.with(sqlExecutionContext.getCairoSecurityContext(), null, null, fd, offloadCircuitBreaker.of(fd));
+        if (statementTimeout > 0L) {
+            offloadCircuitBreaker.setTimeout(statementTimeout);
+        } else {
+            offloadCircuitBreaker.resetMaxTimeToDefault();
+        }
+        offloadCircuitBreaker.resetTimer();
+        offloadExecutionContext.setColumnPreTouchEnabled(stop == Long.MAX_VALUE);
+
+        createChain(engine.getConfiguration());
+        this.offloadJob = offloadJob;
+        this.offloadPageRowCount = pageRowCount;
+        this.offloadError = OFFLOAD_ERROR_NONE;
+        this.offloaded = true;
+        chainRowIndex = 0;
+        return true;
+    }
+
+    /**
+     * Returns true when the requested page has been fetched. Page that did not fit the queue
+     * is resubmitted.
+     */
+    boolean pollPage() {
+        switch (offloadStatus.get()) {
+            case OFFLOAD_DONE:
+                return true;
+            case OFFLOAD_PENDING:
+                requestPage();
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    void requestPage() {
+        offloadStatus.set(OFFLOAD_QUEUED);
+        if (!offloadJob.submit(this)) {
+            // queue is full, the page is requested again on the next retry
+            offloadStatus.set(OFFLOAD_PENDING);
+        }
+    }
+
     void resume(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
         resumeActions.getQuick(queryState).onResume(socket, columnCount);
     }
@@ -819,6 +1342,10 @@ public class JsonQueryProcessorState implements Mutable, Closeable {
         this.queryCacheable = queryCacheable;
     }
 
+    void startPage() {
+        queryState = QUERY_PAGE_START;
+    }
+
     @FunctionalInterface
     interface StateResumeAction {
         void onResume(
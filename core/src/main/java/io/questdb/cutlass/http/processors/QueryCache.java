@@ -29,68 +29,165 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.http.HttpServerConfiguration;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
-import io.questdb.metrics.Gauge;
-import io.questdb.std.AssociativeCache;
-import org.jetbrains.annotations.NotNull;
+import io.questdb.std.*;
+import io.questdb.std.ThreadLocal;
+import io.questdb.std.str.StringSink;
 
 import java.io.Closeable;
 
+/**
+ * Query cache of HTTP server shared by all its workers and connections, so that a query sent by many clients,
+ * e.g. by dashboard panels, is compiled once rather than once per worker thread.
+ * <p>
+ * Factories are checked out by {@link #poll(CharSequence)}, so that no factory is used by two queries at
+ * the same time, and are returned by {@link #push(CharSequence, RecordCursorFactory)} once the query is done.
+ * The cache is split into segments, each guarded by its own lock.
+ * <p>
+ * Cached factories are invalidated lazily. Factory compiled against an older table structure version
+ * fails with ReaderOutOfDateException when it opens a cursor, at which point it is discarded via
+ * {@link #invalidate(CharSequence, RecordCursorFactory)} and the query is compiled again.
+ */
 public final class QueryCache implements Closeable {
 
     private static final Log LOG = LogFactory.getLog(QueryCache.class);
-    private static ThreadLocal<QueryCache> TL_QUERY_CACHE;
-    private static HttpServerConfiguration httpServerConfiguration;
-    private static Metrics metrics;
-    private final AssociativeCache<RecordCursorFactory> cache;
+    private static final ThreadLocal<StringSink> tlSink = new ThreadLocal<>(StringSink::new);
+    private final JsonQueryMetrics metrics;
+    private final int segmentMask;
+    private final ObjList<AssociativeCache<RecordCursorFactory>> segments;
 
-    public QueryCache(int blocks, int rows, Gauge cachedQueriesGauge) {
-        this.cache = new AssociativeCache<>(blocks, rows, cachedQueriesGauge);
+    public QueryCache(HttpServerConfiguration configuration, Metrics metrics) {
+        // one segment per worker keeps the capacity of the former per-thread caches
+        this(
+                configuration.isQueryCacheEnabled() ? configuration.getWorkerCount() : 1,
+                configuration.isQueryCacheEnabled() ? configuration.getQueryCacheBlockCount() : 1,
+                configuration.isQueryCacheEnabled() ? configuration.getQueryCacheRowCount() : 1,
+                metrics.jsonQuery()
+        );
     }
 
-    public static void configure(HttpServerConfiguration configuration, Metrics metrics) {
-        TL_QUERY_CACHE = new ThreadLocal<>();
-        httpServerConfiguration = configuration;
-        QueryCache.metrics = metrics;
-    }
-
-    public static @NotNull QueryCache getThreadLocalInstance() {
-        QueryCache cache = TL_QUERY_CACHE.get();
-        if (cache == null) {
-            final boolean enableQueryCache = httpServerConfiguration.isQueryCacheEnabled();
-            final int blockCount = enableQueryCache ? httpServerConfiguration.getQueryCacheBlockCount() : 1;
-            final int rowCount = enableQueryCache ? httpServerConfiguration.getQueryCacheRowCount() : 1;
-            TL_QUERY_CACHE.set(cache = new QueryCache(blockCount, rowCount, metrics.jsonQuery().cachedQueriesGauge()));
+    public QueryCache(int segmentCount, int blocks, int rows, JsonQueryMetrics metrics) {
+        segmentCount = Numbers.ceilPow2(Math.max(1, segmentCount));
+        this.segments = new ObjList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new AssociativeCache<>(blocks, rows, metrics.cachedQueriesGauge(), metrics.cacheEvictionCounter()));
         }
-        return cache;
+        this.segmentMask = segmentCount - 1;
+        this.metrics = metrics;
     }
 
-    public static QueryCache getWeakThreadLocalInstance() {
-        if (TL_QUERY_CACHE != null) {
-            return TL_QUERY_CACHE.get();
+    /**
+     * Collapses whitespace outside of string literals, quoted names and comments, so that the same
+     * query formatted differently hits the same cache entry. Whitespace after a line comment is
+     * collapsed into a line break, which terminates the comment.
+     */
+    static CharSequence normalize(CharSequence sql) {
+        final StringSink sink = tlSink.get();
+        sink.clear();
+        char quote = 0;
+        boolean lineComment = false;
+        boolean blockComment = false;
+        boolean space = false;
+        boolean lineBreak = false;
+        for (int i = 0, n = sql.length(); i < n; i++) {
+            final char c = sql.charAt(i);
+            if (quote != 0) {
+                // doubled quote is an escape, the state flips twice
+                if (c == quote) {
+                    quote = 0;
+                }
+                sink.put(c);
+                continue;
+            }
+            if (blockComment) {
+                sink.put(c);
+                if (c == '*' && i + 1 < n && sql.charAt(i + 1) == '/') {
+                    sink.put('/');
+                    blockComment = false;
+                    i++;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (lineComment && (c == '\n' || c == '\r')) {
+                    lineBreak = true;
+                    lineComment = false;
+                }
+                space = true;
+                continue;
+            }
+            if (space) {
+                if (sink.length() > 0) {
+                    sink.put(lineBreak ? '\n' : ' ');
+                }
+                space = false;
+                lineBreak = false;
+            }
+            sink.put(c);
+            if (!lineComment) {
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+                    lineComment = true;
+                } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+                    blockComment = true;
+                    sink.put('*');
+                    i++;
+                }
+            }
         }
-        return null;
+        return sink;
     }
 
     public void clear() {
-        cache.clear();
+        for (int i = 0, n = segments.size(); i < n; i++) {
+            final AssociativeCache<RecordCursorFactory> segment = segments.getQuick(i);
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
         LOG.info().$("cleared").$();
     }
 
     @Override
     public void close() {
-        cache.close();
+        clear();
         LOG.info().$("closed").$();
     }
 
+    /**
+     * Frees factory that was checked out of the cache, but turned out to be stale, e.g. because
+     * the table structure has changed since the query was compiled.
+     */
+    public void invalidate(CharSequence sql, RecordCursorFactory factory) {
+        Misc.free(factory);
+        metrics.cacheEvictionCounter().inc();
+        log("invalidate", sql);
+    }
+
     public RecordCursorFactory poll(CharSequence sql) {
-        final RecordCursorFactory factory = cache.poll(sql);
-        log(factory == null ? "miss" : "hit", sql);
+        final CharSequence key = normalize(sql);
+        final AssociativeCache<RecordCursorFactory> segment = segmentOf(key);
+        final RecordCursorFactory factory;
+        synchronized (segment) {
+            factory = segment.poll(key);
+        }
+        if (factory != null) {
+            metrics.markCacheHit();
+            log("hit", sql);
+        } else {
+            metrics.markCacheMiss();
+            log("miss", sql);
+        }
         return factory;
     }
 
     public void push(CharSequence sql, RecordCursorFactory factory) {
         if (factory != null) {
-            cache.put(sql, factory);
+            final CharSequence key = normalize(sql);
+            final AssociativeCache<RecordCursorFactory> segment = segmentOf(key);
+            synchronized (segment) {
+                segment.put(key, factory);
+            }
             log("push", sql);
         }
     }
@@ -101,4 +198,9 @@ public final class QueryCache implements Closeable {
                 .$(", sql=").utf8(sql)
                 .I$();
     }
+
+    private AssociativeCache<RecordCursorFactory> segmentOf(CharSequence key) {
+        // segments take the upper bits of the hash, rows within segment take the lower ones
+        return segments.getQuick((Hash.spread(Chars.hashCode(key)) >>> 16) & segmentMask);
+    }
 }
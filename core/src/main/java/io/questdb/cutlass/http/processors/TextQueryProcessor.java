@@ -30,7 +30,10 @@ import io.questdb.cairo.*;
 import io.questdb.cairo.sql.NetworkSqlExecutionCircuitBreaker;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
 import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cutlass.arrow.ArrowStreamWriter;
 import io.questdb.cutlass.http.*;
+import io.questdb.cutlass.http.ex.RetryOperationException;
 import io.questdb.cutlass.text.TextUtil;
 import io.questdb.cutlass.text.Utf8Exception;
 import io.questdb.griffin.*;
@@ -49,6 +52,8 @@ import org.jetbrains.annotations.TestOnly;
 
 import java.io.Closeable;
 
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
 public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
 
     private static final Log LOG = LogFactory.getLog(TextQueryProcessor.class);
@@ -57,6 +62,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     // Being asynchronous we may need to be able to return factory to the cache
     // by the same thread that executes the dispatcher.
     private static final LocalValue<TextQueryProcessorState> LV = new LocalValue<>();
+    private final CairoConfiguration cairoConfiguration;
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final MillisecondClock clock;
     private final SqlCompiler compiler;
@@ -64,6 +70,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     private final int doubleScale;
     private final int floatScale;
     private final Metrics metrics;
+    private final QueryAdmissionController queryAdmissionController;
     private final SqlExecutionContextImpl sqlExecutionContext;
 
     @TestOnly
@@ -84,6 +91,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             @Nullable DatabaseSnapshotAgent snapshotAgent
     ) {
         this.configuration = configuration;
+        this.cairoConfiguration = engine.getConfiguration();
         this.compiler = new SqlCompiler(engine, functionFactoryCache, snapshotAgent);
         this.floatScale = configuration.getFloatScale();
         this.clock = configuration.getClock();
@@ -91,6 +99,7 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         this.doubleScale = configuration.getDoubleScale();
         this.circuitBreaker = new NetworkSqlExecutionCircuitBreaker(engine.getConfiguration().getCircuitBreakerConfiguration(), MemoryTag.NATIVE_CB4);
         this.metrics = engine.getMetrics();
+        this.queryAdmissionController = engine.getQueryAdmissionController();
     }
 
     @Override
@@ -104,9 +113,15 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             TextQueryProcessorState state
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         try {
+            if (!state.queryAdmission.tryAdmit(context.getCairoSecurityContext())) {
+                // queued behind other queries of the same principal, retry parks the request
+                throw RetryOperationException.INSTANCE;
+            }
+
             boolean isExpRequest = isExpUrl(context.getRequestHeader().getUrl());
 
-            state.recordCursorFactory = QueryCache.getThreadLocalInstance().poll(state.query);
+            state.recordCursorFactory = context.getQueryCache().poll(state.query);
+            boolean cachedFactory = state.recordCursorFactory != null;
             state.setQueryCacheable(true);
             sqlExecutionContext.with(
                     context.getCairoSecurityContext(),
@@ -119,8 +134,14 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                 final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
                 if (cc.getType() == CompiledQuery.SELECT) {
                     state.recordCursorFactory = cc.getRecordCursorFactory();
-                } else if (isExpRequest) {
-                    throw SqlException.$(0, "/exp endpoint only accepts SELECT");
+                } else {
+                    if (cc.getType() == CompiledQuery.COPY_REMOTE) {
+                        // COPY TO STDOUT is the PGWire way of exporting data
+                        Misc.free(cc.getRecordCursorFactory());
+                    }
+                    if (isExpRequest) {
+                        throw SqlException.$(0, "/exp endpoint only accepts SELECT");
+                    }
                 }
                 info(state).$("execute-new [q=`").utf8(state.query).
                         $("`, skip: ").$(state.skip).
@@ -140,14 +161,24 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
                     boolean runQuery = true;
                     for (int retries = 0; runQuery; retries++) {
                         try {
-                            state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            if (state.arrow) {
+                                openArrowStream(state);
+                            } else {
+                                state.cursor = state.recordCursorFactory.getCursor(sqlExecutionContext);
+                            }
                             runQuery = false;
                         } catch (ReaderOutOfDateException e) {
                             if (retries == ReaderOutOfDateException.MAX_RETRY_ATTEMPS) {
                                 throw e;
                             }
                             info(state).$(e.getFlyweightMessage()).$();
-                            state.recordCursorFactory = Misc.free(state.recordCursorFactory);
+                            if (cachedFactory) {
+                                context.getQueryCache().invalidate(state.query, state.recordCursorFactory);
+                                state.recordCursorFactory = null;
+                                cachedFactory = false;
+                            } else {
+                                state.recordCursorFactory = Misc.free(state.recordCursorFactory);
+                            }
                             final CompiledQuery cc = compiler.compile(state.query, sqlExecutionContext);
                             if (cc.getType() != CompiledQuery.SELECT && isExpRequest) {
                                 throw SqlException.$(0, "/exp endpoint only accepts SELECT");
@@ -185,19 +216,37 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         TextQueryProcessorState state = LV.get(context);
         if (state == null) {
-            LV.set(context, state = new TextQueryProcessorState(context));
+            LV.set(context, state = new TextQueryProcessorState(context, new QueryAdmission(queryAdmissionController)));
         }
         // new request clears random
         state.rnd = null;
 
         HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
         if (parseUrl(socket, context.getRequestHeader(), state)) {
-            execute(context, state);
+            final MemoryAccount account = Unsafe.bindMemoryAccount(state.queryAdmission);
+            try {
+                execute(context, state);
+            } finally {
+                Unsafe.bindMemoryAccount(account);
+            }
         } else {
             readyForNextRequest(context);
         }
     }
 
+    @Override
+    public void onRequestRetry(
+            HttpConnectionContext context
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final TextQueryProcessorState state = LV.get(context);
+        final MemoryAccount account = Unsafe.bindMemoryAccount(state.queryAdmission);
+        try {
+            execute(context, state);
+        } finally {
+            Unsafe.bindMemoryAccount(account);
+        }
+    }
+
     @Override
     public void parkRequest(HttpConnectionContext context) {
         TextQueryProcessorState state = LV.get(context);
@@ -211,15 +260,74 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             HttpConnectionContext context
     ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         TextQueryProcessorState state = LV.get(context);
-        if (state == null || state.cursor == null) {
+        if (state == null || (state.cursor == null && state.pageFrameCursor == null)) {
             return;
         }
 
+        final MemoryAccount account = Unsafe.bindMemoryAccount(state.queryAdmission);
+        try {
+            doResumeSend(context, state);
+        } finally {
+            Unsafe.bindMemoryAccount(account);
+        }
+    }
+
+    private static boolean isExpUrl(CharSequence tok) {
+        if (tok.length() != 4) {
+            return false;
+        }
+
+        int i = 0;
+        return (tok.charAt(i++) | 32) == '/'
+                && (tok.charAt(i++) | 32) == 'e'
+                && (tok.charAt(i++) | 32) == 'x'
+                && (tok.charAt(i) | 32) == 'p';
+    }
+
+    private static void putGeoHashStringValue(HttpChunkedResponseSocket socket, long value, int type) {
+        if (value == GeoHashes.NULL) {
+            socket.put("null");
+        } else {
+            int bitFlags = GeoHashes.getBitFlags(type);
+            socket.put('\"');
+            if (bitFlags < 0) {
+                GeoHashes.appendCharsUnsafe(value, -bitFlags, socket);
+            } else {
+                GeoHashes.appendBinaryStringUnsafe(value, bitFlags, socket);
+            }
+            socket.put('\"');
+        }
+    }
+
+    private static void putStringOrNull(CharSink r, CharSequence str) {
+        if (str != null) {
+            r.encodeUtf8AndQuote(str);
+        }
+    }
+
+    private static void readyForNextRequest(HttpConnectionContext context) {
+        LOG.info().$("all sent [fd=").$(context.getFd()).$(", lastRequestBytesSent=").$(context.getLastRequestBytesSent()).$(", nCompletedRequests=").$(context.getNCompletedRequests() + 1)
+                .$(", totalBytesSent=").$(context.getTotalBytesSent()).$(']').$();
+    }
+
+    private LogRecord critical(TextQueryProcessorState state) {
+        return LOG.critical().$('[').$(state.getFd()).$("] ");
+    }
+
+    private void doResumeSend(
+            HttpConnectionContext context,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
         // copy random during query resume
         sqlExecutionContext.with(context.getCairoSecurityContext(), null, state.rnd, context.getFd(), circuitBreaker.of(context.getFd()));
         LOG.debug().$("resume [fd=").$(context.getFd()).$(']').$();
 
         final HttpChunkedResponseSocket socket = context.getChunkedResponseSocket();
+        if (state.arrow) {
+            sendArrowStream(socket, state);
+            readyForNextRequest(context);
+            return;
+        }
         final int columnCount = state.metadata.getColumnCount();
 
         OUT:
@@ -315,48 +423,6 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         readyForNextRequest(context);
     }
 
-    private static boolean isExpUrl(CharSequence tok) {
-        if (tok.length() != 4) {
-            return false;
-        }
-
-        int i = 0;
-        return (tok.charAt(i++) | 32) == '/'
-                && (tok.charAt(i++) | 32) == 'e'
-                && (tok.charAt(i++) | 32) == 'x'
-                && (tok.charAt(i) | 32) == 'p';
-    }
-
-    private static void putGeoHashStringValue(HttpChunkedResponseSocket socket, long value, int type) {
-        if (value == GeoHashes.NULL) {
-            socket.put("null");
-        } else {
-            int bitFlags = GeoHashes.getBitFlags(type);
-            socket.put('\"');
-            if (bitFlags < 0) {
-                GeoHashes.appendCharsUnsafe(value, -bitFlags, socket);
-            } else {
-                GeoHashes.appendBinaryStringUnsafe(value, bitFlags, socket);
-            }
-            socket.put('\"');
-        }
-    }
-
-    private static void putStringOrNull(CharSink r, CharSequence str) {
-        if (str != null) {
-            r.encodeUtf8AndQuote(str);
-        }
-    }
-
-    private static void readyForNextRequest(HttpConnectionContext context) {
-        LOG.info().$("all sent [fd=").$(context.getFd()).$(", lastRequestBytesSent=").$(context.getLastRequestBytesSent()).$(", nCompletedRequests=").$(context.getNCompletedRequests() + 1)
-                .$(", totalBytesSent=").$(context.getTotalBytesSent()).$(']').$();
-    }
-
-    private LogRecord critical(TextQueryProcessorState state) {
-        return LOG.critical().$('[').$(state.getFd()).$("] ");
-    }
-
     private LogRecord info(TextQueryProcessorState state) {
         return LOG.info().$('[').$(state.getFd()).$("] ");
     }
@@ -372,6 +438,21 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         sendException(socket, 0, e.getMessage(), state);
     }
 
+    private void openArrowStream(TextQueryProcessorState state) throws SqlException {
+        final RecordCursorFactory factory = state.recordCursorFactory;
+        if (state.arrowWriter == null) {
+            state.arrowWriter = new ArrowStreamWriter(cairoConfiguration, configuration.getArrowBatchSize());
+        }
+        // page frames let fixed-width columns go out without being copied row by row
+        if (factory.supportPageFrameCursor() && !factory.hasDescendingOrder()) {
+            state.pageFrameCursor = factory.getPageFrameCursor(sqlExecutionContext, ORDER_ASC);
+            state.arrowWriter.of(factory.getMetadata(), state.pageFrameCursor, state.skip, state.stop);
+        } else {
+            state.cursor = factory.getCursor(sqlExecutionContext);
+            state.arrowWriter.of(factory.getMetadata(), state.cursor, state.skip, state.stop);
+        }
+    }
+
     private boolean parseUrl(
             HttpChunkedResponseSocket socket,
             HttpRequestHeader request,
@@ -431,6 +512,17 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             state.fileName = fileName.toString();
         }
 
+        DirectByteCharSequence format = request.getUrlParam("fmt");
+        state.arrow = false;
+        if (format != null && !Chars.equals(format, "csv")) {
+            if (!Chars.equals(format, "arrow")) {
+                info(state).$("unsupported export format [fmt=").$(format).$(']').$();
+                sendException(socket, 0, "Unsupported export format, expected csv or arrow", state);
+                return false;
+            }
+            state.arrow = true;
+        }
+
         DirectByteCharSequence delimiter = request.getUrlParam("delimiter");
         state.delimiter = ',';
 
@@ -524,6 +616,13 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
             case ColumnType.GEOLONG:
                 putGeoHashStringValue(socket, rec.getGeoLong(col), type);
                 break;
+            case ColumnType.UUID:
+                final long lo = rec.getLong128Lo(col);
+                final long hi = rec.getLong128Hi(col);
+                if (!Uuid.isNull(lo, hi)) {
+                    Uuid.toSink(socket, lo, hi);
+                }
+                break;
             case ColumnType.LONG128:
                 throw new UnsupportedOperationException();
             default:
@@ -531,6 +630,24 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
         }
     }
 
+    private void sendArrowStream(
+            HttpChunkedResponseSocket socket,
+            TextQueryProcessorState state
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        final ArrowStreamWriter writer = state.arrowWriter;
+        // message is built only after the previous one is handed over to the socket in full,
+        // record batches may point at the current page frame
+        while (!writer.isDrained() || writer.nextMessage()) {
+            final long available = socket.getWriteNAvailable();
+            if (available > 0) {
+                socket.onWrite((int) writer.drain(socket.getWriteAddress(), available));
+            } else {
+                socket.sendChunk(false);
+            }
+        }
+        sendDone(socket, state);
+    }
+
     private void sendConfirmation(HttpChunkedResponseSocket socket) throws PeerDisconnectedException, PeerIsSlowToReadException {
         socket.put("DDL Success\n");
         socket.sendChunk(true);
@@ -572,11 +689,14 @@ public class TextQueryProcessor implements HttpRequestProcessor, Closeable {
     }
 
     protected void header(HttpChunkedResponseSocket socket, TextQueryProcessorState state, int status_code) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        socket.status(status_code, "text/csv; charset=utf-8");
+        // errors are always sent as text
+        final boolean arrow = state.arrow && status_code == 200;
+        final String extension = arrow ? ".arrow\"" : ".csv\"";
+        socket.status(status_code, arrow ? "application/vnd.apache.arrow.stream" : "text/csv; charset=utf-8");
         if (state.fileName != null && state.fileName.length() > 0) {
-            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"").put(state.fileName).put(extension).put(Misc.EOL);
         } else {
-            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(".csv\"").put(Misc.EOL);
+            socket.headers().put("Content-Disposition: attachment; filename=\"questdb-query-").put(clock.getTicks()).put(extension).put(Misc.EOL);
         }
 
         socket.headers().setKeepAlive(configuration.getKeepAliveHeader());
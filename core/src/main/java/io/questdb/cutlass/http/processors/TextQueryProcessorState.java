@@ -24,10 +24,13 @@
 
 package io.questdb.cutlass.http.processors;
 
+import io.questdb.cairo.QueryAdmission;
+import io.questdb.cairo.sql.PageFrameCursor;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cutlass.arrow.ArrowStreamWriter;
 import io.questdb.cutlass.http.HttpConnectionContext;
 import io.questdb.std.Misc;
 import io.questdb.std.Mutable;
@@ -38,7 +41,10 @@ import java.io.Closeable;
 
 public class TextQueryProcessorState implements Mutable, Closeable {
     final StringSink query = new StringSink();
+    final QueryAdmission queryAdmission;
     private final HttpConnectionContext httpConnectionContext;
+    boolean arrow = false;
+    ArrowStreamWriter arrowWriter;
     int columnIndex;
     long count;
     boolean countRows = false;
@@ -47,6 +53,7 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     String fileName;
     RecordMetadata metadata;
     boolean noMeta = false;
+    PageFrameCursor pageFrameCursor;
     int queryState = JsonQueryProcessorState.QUERY_PREFIX;
     Record record;
     RecordCursorFactory recordCursorFactory;
@@ -55,18 +62,23 @@ public class TextQueryProcessorState implements Mutable, Closeable {
     long stop;
     private boolean queryCacheable = false;
 
-    public TextQueryProcessorState(HttpConnectionContext httpConnectionContext) {
+    public TextQueryProcessorState(HttpConnectionContext httpConnectionContext, QueryAdmission queryAdmission) {
         this.httpConnectionContext = httpConnectionContext;
+        this.queryAdmission = queryAdmission;
     }
 
     @Override
     public void clear() {
         metadata = null;
+        if (arrowWriter != null) {
+            arrowWriter.clear();
+        }
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         record = null;
         if (null != recordCursorFactory) {
             if (queryCacheable) {
-                QueryCache.getThreadLocalInstance().push(query, recordCursorFactory);
+                httpConnectionContext.getQueryCache().push(query, recordCursorFactory);
             } else {
                 recordCursorFactory.close();
             }
@@ -77,12 +89,17 @@ public class TextQueryProcessorState implements Mutable, Closeable {
         queryState = JsonQueryProcessorState.QUERY_PREFIX;
         columnIndex = 0;
         countRows = false;
+        arrow = false;
+        queryAdmission.release();
     }
 
     @Override
     public void close() {
+        arrowWriter = Misc.free(arrowWriter);
         cursor = Misc.free(cursor);
+        pageFrameCursor = Misc.free(pageFrameCursor);
         recordCursorFactory = Misc.free(recordCursorFactory);
+        queryAdmission.release();
     }
 
     public long getFd() {
@@ -33,6 +33,7 @@ import io.questdb.std.Chars;
 import io.questdb.std.Numbers;
 import io.questdb.std.NumericException;
 import io.questdb.std.Unsafe;
+import io.questdb.std.Uuid;
 import io.questdb.std.str.DirectByteCharSequence;
 import io.questdb.std.str.FloatingDirectCharSink;
 
@@ -231,6 +232,14 @@ public class LineTcpEventBuffer {
         return address + Long.BYTES + Byte.BYTES;
     }
 
+    public long addUuid(long address, long lo, long hi) {
+        checkCapacity(address, Uuid.BYTES + Byte.BYTES);
+        Unsafe.getUnsafe().putByte(address, LineTcpParser.ENTITY_TYPE_UUID);
+        Unsafe.getUnsafe().putLong(address + Byte.BYTES, lo);
+        Unsafe.getUnsafe().putLong(address + Byte.BYTES + Long.BYTES, hi);
+        return address + Uuid.BYTES + Byte.BYTES;
+    }
+
     public long columnValueLength(byte entityType, long offset) {
         CharSequence cs;
         switch (entityType) {
@@ -261,6 +270,8 @@ public class LineTcpEventBuffer {
                 return Float.BYTES;
             case LineTcpParser.ENTITY_TYPE_DOUBLE:
                 return Double.BYTES;
+            case LineTcpParser.ENTITY_TYPE_UUID:
+                return Uuid.BYTES;
             case ENTITY_TYPE_NULL:
                 return 0;
             default:
@@ -31,6 +31,8 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.Misc;
 import io.questdb.std.Numbers;
+import io.questdb.std.NumericException;
+import io.questdb.std.Uuid;
 import io.questdb.std.datetime.microtime.MicrosecondClock;
 import io.questdb.std.str.DirectByteCharSequence;
 
@@ -276,6 +278,10 @@ class LineTcpMeasurementEvent implements Closeable {
                         row.putTimestamp(colIndex, buffer.readLong(offset));
                         offset += Long.BYTES;
                         break;
+                    case LineTcpParser.ENTITY_TYPE_UUID:
+                        row.putLong128LittleEndian(colIndex, buffer.readLong(offset + Long.BYTES), buffer.readLong(offset));
+                        offset += Uuid.BYTES;
+                        break;
                     case ENTITY_TYPE_NULL:
                         // ignored, default nulls is used
                         break;
@@ -460,6 +466,15 @@ class LineTcpMeasurementEvent implements Closeable {
                                 }
                                 break;
 
+                            case ColumnType.UUID:
+                                try {
+                                    Uuid.checkDashesAndLength(entityValue);
+                                    offset = buffer.addUuid(offset, Uuid.parseLo(entityValue), Uuid.parseHi(entityValue));
+                                } catch (NumericException e) {
+                                    throw castError("string", columnWriterIndex, colType, entity.getName());
+                                }
+                                break;
+
                             default:
                                 if (symbolAsFieldSupported && colType == ColumnType.SYMBOL) {
                                     offset = buffer.addSymbol(offset, entityValue, parser.hasNonAsciiChars(), localDetails.getSymbolLookup(columnWriterIndex));
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.QueryAdmissionController;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.network.IOOperation;
+import io.questdb.std.ObjList;
+import io.questdb.std.QuietCloseable;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+
+/**
+ * Connections whose query is queued for admission. Parked connections are not registered with
+ * the dispatcher, so they neither hold an I/O worker nor poll the socket. They are handed back to
+ * the dispatcher for write, which parses the queued message again, after a running query is
+ * released and at least every {@link #POLL_INTERVAL_MS}, so that admission timeouts, memory
+ * freed by running queries and disconnected clients are noticed.
+ */
+class PGAdmissionWaitQueue extends SynchronizedJob implements QuietCloseable {
+    static final long POLL_INTERVAL_MS = 50;
+    private final MillisecondClock clock;
+    private final QueryAdmissionController controller;
+    private final ObjList<PGConnectionContext> parked = new ObjList<>();
+    private final ObjList<PGConnectionContext> waking = new ObjList<>();
+    private long pollTicks;
+    private long releaseCount;
+
+    PGAdmissionWaitQueue(QueryAdmissionController controller, MillisecondClock clock) {
+        this.controller = controller;
+        this.clock = clock;
+    }
+
+    @Override
+    public void close() {
+        // the dispatcher disconnects contexts registered with it when it closes
+        wakeAll();
+    }
+
+    public synchronized void park(PGConnectionContext context) {
+        parked.add(context);
+    }
+
+    @Override
+    protected boolean runSerially() {
+        final long releaseCount = controller.getReleaseCount();
+        final long ticks = clock.getTicks();
+        if (releaseCount == this.releaseCount && ticks - pollTicks < POLL_INTERVAL_MS) {
+            return false;
+        }
+        this.releaseCount = releaseCount;
+        this.pollTicks = ticks;
+        return wakeAll();
+    }
+
+    private boolean wakeAll() {
+        // registering may wait for the dispatcher to drain its interest queue, so it
+        // happens outside the lock taken by I/O workers parking their connections
+        synchronized (waking) {
+            synchronized (this) {
+                waking.addAll(parked);
+                parked.clear();
+            }
+            final int n = waking.size();
+            for (int i = 0; i < n; i++) {
+                final PGConnectionContext context = waking.getQuick(i);
+                context.getDispatcher().registerChannel(context, IOOperation.WRITE);
+            }
+            waking.clear();
+            return n > 0;
+        }
+    }
+}
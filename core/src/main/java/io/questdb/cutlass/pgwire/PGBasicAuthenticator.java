@@ -25,7 +25,6 @@
 package io.questdb.cutlass.pgwire;
 
 import io.questdb.cairo.CairoSecurityContext;
-import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.security.CairoSecurityContextImpl;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
@@ -42,7 +41,7 @@ public class PGBasicAuthenticator implements PGAuthenticator {
     public PGBasicAuthenticator(String username, String password, boolean readOnlyContext) {
         this.username = username;
         this.password = password;
-        this.securityContext = readOnlyContext ? new CairoSecurityContextImpl(false) : AllowAllCairoSecurityContext.INSTANCE;
+        this.securityContext = new CairoSecurityContextImpl(!readOnlyContext, username);
     }
 
     @Override
@@ -30,11 +30,11 @@ import io.questdb.cairo.pool.WriterSource;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.functions.bind.BindVariableServiceImpl;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.SCSequence;
@@ -70,6 +70,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     public static final String TAG_SELECT = "SELECT";
     public static final String TAG_SET = "SET";
     public static final String TAG_UPDATE = "UPDATE";
+    private static final int BYTE_BYTES_X = Numbers.bswap(Byte.BYTES);
     private static final int COMMIT_TRANSACTION = 2;
     private static final int ERROR_TRANSACTION = 3;
     private static final int INIT_CANCEL_REQUEST = 80877102;
@@ -77,12 +78,18 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private static final int INIT_STARTUP_MESSAGE = 196608;
     private static final int INT_BYTES_X = Numbers.bswap(Integer.BYTES);
     private static final int INT_NULL_X = Numbers.bswap(-1);
+    private static final int LONG_BYTES_X = Numbers.bswap(Long.BYTES);
+    // rows of pipelined INSERT executions are committed on Sync
+    private static final int IMPLICIT_TRANSACTION = 5;
     private static final int IN_TRANSACTION = 1;
     private final static Log LOG = LogFactory.getLog(PGConnectionContext.class);
     private static final byte MESSAGE_TYPE_BIND_COMPLETE = '2';
     private static final byte MESSAGE_TYPE_CLOSE_COMPLETE = '3';
     private static final byte MESSAGE_TYPE_COMMAND_COMPLETE = 'C';
+    private static final byte MESSAGE_TYPE_COPY_DATA = 'd';
+    private static final byte MESSAGE_TYPE_COPY_DONE = 'c';
     private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
+    private static final byte MESSAGE_TYPE_COPY_OUT_RESPONSE = 'H';
     private static final byte MESSAGE_TYPE_DATA_ROW = 'D';
     private static final byte MESSAGE_TYPE_EMPTY_QUERY = 'I';
     private static final byte MESSAGE_TYPE_ERROR_RESPONSE = 'E';
@@ -95,13 +102,17 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private static final byte MESSAGE_TYPE_READY_FOR_QUERY = 'Z';
     private static final byte MESSAGE_TYPE_ROW_DESCRIPTION = 'T';
     private static final int NO_TRANSACTION = 0;
+    // signature, flags field and header extension length of the binary COPY format
+    private static final byte[] PGCOPY_HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
     private static final int PREFIXED_MESSAGE_HEADER_LEN = 5;
     private static final int PROTOCOL_TAIL_COMMAND_LENGTH = 64;
     private static final int ROLLING_BACK_TRANSACTION = 4;
+    private static final int SHORT_BYTES_X = Numbers.bswap(Short.BYTES);
     private static final int SYNC_BIND = 3;
     private static final int SYNC_DESCRIBE = 2;
     private static final int SYNC_DESCRIBE_PORTAL = 4;
     private static final int SYNC_PARSE = 1;
+    private static final int UUID_BYTES_X = Numbers.bswap(Uuid.BYTES);
     private static final String WRITER_LOCK_REASON = "pgConnection";
     private final PGAuthenticator authenticator;
     private final BatchCallback batchCallback;
@@ -112,6 +123,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private final IntList bindSelectColumnFormats;
     private final IntList bindVariableTypes = new IntList();
     private final CharacterStore characterStore;
+    private final PGCopyInProcessor copyInProcessor = new PGCopyInProcessor();
+    private final StringSink copyOutNullString = new StringSink();
     private final NetworkSqlExecutionCircuitBreaker circuitBreaker;
     private final DirectByteCharSequence dbcs = new DirectByteCharSequence();
     private final boolean dumpNetworkTraffic;
@@ -124,6 +137,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private final NetworkFacade nf;
     private final Path path = new Path();
     private final CharSequenceObjHashMap<TableWriterAPI> pendingWriters;
+    private final QueryAdmission queryAdmission;
     private final int recvBufferSize;
     private final ResponseAsciiSink responseAsciiSink = new ResponseAsciiSink();
     private final IntList selectColumnTypes = new IntList();
@@ -144,11 +158,17 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private int bufferRemainingOffset = 0;
     private int bufferRemainingSize = 0;
     private boolean completed = true;
+    private byte copyOutDelimiter;
+    private int copyOutFormat;
+    // CSV header line or binary signature is sent before the first row
+    private boolean copyOutHeaderPending;
     private RecordCursor currentCursor = null;
     private RecordCursorFactory currentFactory = null;
     private boolean isEmptyQuery;
     private long maxRows;
     private int parsePhaseBindVariableCount;
+    // admission is held for the whole Q or E message, so that batch statements do not queue one by one
+    private boolean queryAdmitted;
     //command tag used when returning row count to client,
     //see CommandComplete (B) at https://www.postgresql.org/docs/current/protocol-message-formats.html
     private CharSequence queryTag;
@@ -158,6 +178,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private long recvBufferWriteOffset = 0;
     private boolean requireInitialMessage = true;
     private PGResumeProcessor resumeProcessor;
+    private final PGResumeProcessor resumeCopyOutDoneRef = this::resumeCopyOutDone;
+    private final PGResumeProcessor resumeCopyOutRef = this::resumeCopyOut;
     private Rnd rnd;
     private long rowCount;
     private long sendBuffer;
@@ -215,6 +237,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         this.namedPortalMap = new CharSequenceObjHashMap<>(configuration.getNamedStatementCacheCapacity());
         this.binarySequenceParamsPool = new ObjectPool<>(DirectBinarySequence::new, configuration.getBinParamCountCapacity());
         this.circuitBreaker = new NetworkSqlExecutionCircuitBreaker(configuration.getCircuitBreakerConfiguration(), MemoryTag.NATIVE_CB5);
+        this.queryAdmission = new QueryAdmission(engine.getQueryAdmissionController());
         this.typesAndInsertPool = new WeakSelfReturningObjectPool<>(TypesAndInsert::new, configuration.getInsertPoolCapacity()); // 64
         final boolean enableInsertCache = configuration.isInsertCacheEnabled();
         final int insertBlockCount = enableInsertCache ? configuration.getInsertCacheBlockCount() : 1; // 8
@@ -292,6 +315,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         authenticationRequired = true;
         username = null;
         typeManager.clear();
+        copyInProcessor.clear();
         clearWriters();
         clearRecvBuffer();
         typesAndInsertCache.clear();
@@ -302,11 +326,13 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         binarySequenceParamsPool.clear();
         resumeProcessor = null;
         completed = true;
+        queryAdmitted = false;
         clearCursorAndFactory();
         totalReceived = 0;
         typesAndSelectIsCached = true;
         typesAndUpdateIsCached = false;
         statementTimeout = -1L;
+        transactionState = NO_TRANSACTION;
         circuitBreaker.resetMaxTimeToDefault();
         circuitBreaker.unsetTimer();
     }
@@ -329,6 +355,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         Misc.free(path);
         Misc.free(utf8Sink);
         Misc.free(circuitBreaker);
+        Misc.free(copyInProcessor);
         freeBuffers();
     }
 
@@ -348,13 +375,14 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             @Transient AssociativeCache<TypesAndUpdate> typesAndUpdateCache,
             @Transient WeakSelfReturningObjectPool<TypesAndUpdate> typesAndUpdatePool,
             int operation
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException, PeerIsSlowToWriteException, BadProtocolException {
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, PeerIsSlowToWriteException, BadProtocolException, QueryAdmissionQueuedException {
 
         this.typesAndSelectCache = selectAndTypesCache;
         this.typesAndSelectPool = selectAndTypesPool;
         this.typesAndUpdateCache = typesAndUpdateCache;
         this.typesAndUpdatePool = typesAndUpdatePool;
 
+        final MemoryAccount account = Unsafe.bindMemoryAccount(queryAdmission);
         try {
             if (bufferRemainingSize > 0) {
                 doSend(bufferRemainingOffset, bufferRemainingSize);
@@ -414,6 +442,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             prepareNonCriticalError(-1, e.getMessage());
             sendAndReset();
             clearRecvBuffer();
+        } finally {
+            Unsafe.bindMemoryAccount(account);
         }
     }
 
@@ -542,11 +572,11 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         throw BadProtocolException.INSTANCE;
     }
 
-    private static int getIntUnsafe(long address) {
+    static int getIntUnsafe(long address) {
         return Numbers.bswap(Unsafe.getUnsafe().getInt(address));
     }
 
-    private static short getShortUnsafe(long address) {
+    static short getShortUnsafe(long address) {
         return Numbers.bswap(Unsafe.getUnsafe().getShort(address));
     }
 
@@ -590,8 +620,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void appendBooleanColumnBin(Record record, int columnIndex) {
-        responseAsciiSink.putNetworkInt(Byte.BYTES);
-        responseAsciiSink.put(record.getBool(columnIndex) ? (byte) 1 : (byte) 0);
+        responseAsciiSink.ensureCapacity(5);
+        responseAsciiSink.putIntUnsafe(0, BYTE_BYTES_X);
+        responseAsciiSink.putByteUnsafe(4, record.getBool(columnIndex) ? (byte) 1 : (byte) 0);
+        responseAsciiSink.bump(5);
     }
 
     private void appendByteColumn(Record record, int columnIndex) {
@@ -601,9 +633,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void appendByteColumnBin(Record record, int columnIndex) {
-        final byte value = record.getByte(columnIndex);
-        responseAsciiSink.putNetworkInt(Short.BYTES);
-        responseAsciiSink.putNetworkShort(value);
+        // there is no single byte integer in PG, bytes are sent as int2
+        putShortColumnBin(record.getByte(columnIndex));
     }
 
     private void appendCharColumn(Record record, int columnIndex) {
@@ -617,6 +648,282 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void appendColumn(Record record, int i) throws SqlException {
+        final int type = activeSelectColumnTypes.getQuick(2 * i);
+        final short columnBinaryFlag = getColumnBinaryFlag(type);
+        final int typeTag = ColumnType.tagOf(type);
+
+        final int tagWithFlag = toColumnBinaryType(columnBinaryFlag, typeTag);
+        switch (tagWithFlag) {
+            case BINARY_TYPE_INT:
+                appendIntColumnBin(record, i);
+                break;
+            case ColumnType.INT:
+                appendIntCol(record, i);
+                break;
+            case ColumnType.STRING:
+            case BINARY_TYPE_STRING:
+                appendStrColumn(record, i);
+                break;
+            case ColumnType.SYMBOL:
+            case BINARY_TYPE_SYMBOL:
+                appendSymbolColumn(record, i);
+                break;
+            case BINARY_TYPE_LONG:
+                appendLongColumnBin(record, i);
+                break;
+            case ColumnType.LONG:
+                appendLongColumn(record, i);
+                break;
+            case ColumnType.SHORT:
+                appendShortColumn(record, i);
+                break;
+            case BINARY_TYPE_DOUBLE:
+                appendDoubleColumnBin(record, i);
+                break;
+            case ColumnType.DOUBLE:
+                appendDoubleColumn(record, i);
+                break;
+            case BINARY_TYPE_FLOAT:
+                appendFloatColumnBin(record, i);
+                break;
+            case BINARY_TYPE_SHORT:
+                appendShortColumnBin(record, i);
+                break;
+            case BINARY_TYPE_DATE:
+                appendDateColumnBin(record, i);
+                break;
+            case BINARY_TYPE_TIMESTAMP:
+                appendTimestampColumnBin(record, i);
+                break;
+            case BINARY_TYPE_BYTE:
+                appendByteColumnBin(record, i);
+                break;
+            case ColumnType.FLOAT:
+                appendFloatColumn(record, i);
+                break;
+            case ColumnType.TIMESTAMP:
+                appendTimestampColumn(record, i);
+                break;
+            case ColumnType.DATE:
+                appendDateColumn(record, i);
+                break;
+            case ColumnType.BOOLEAN:
+                appendBooleanColumn(record, i);
+                break;
+            case BINARY_TYPE_BOOLEAN:
+                appendBooleanColumnBin(record, i);
+                break;
+            case ColumnType.BYTE:
+                appendByteColumn(record, i);
+                break;
+            case ColumnType.BINARY:
+            case BINARY_TYPE_BINARY:
+                appendBinColumn(record, i);
+                break;
+            case ColumnType.CHAR:
+            case BINARY_TYPE_CHAR:
+                appendCharColumn(record, i);
+                break;
+            case ColumnType.LONG256:
+            case BINARY_TYPE_LONG256:
+                // long256 is sent as varchar, binary representation of which is the text
+                appendLong256Column(record, i);
+                break;
+            case ColumnType.UUID:
+                appendUuidColumn(record, i);
+                break;
+            case BINARY_TYPE_UUID:
+                appendUuidColumnBin(record, i);
+                break;
+            // geohashes are sent as varchar, binary representation of which is the text
+            case ColumnType.GEOBYTE:
+            case BINARY_TYPE_GEOBYTE:
+                putGeoHashStringByteValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
+                break;
+            case ColumnType.GEOSHORT:
+            case BINARY_TYPE_GEOSHORT:
+                putGeoHashStringShortValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
+                break;
+            case ColumnType.GEOINT:
+            case BINARY_TYPE_GEOINT:
+                putGeoHashStringIntValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
+                break;
+            case ColumnType.GEOLONG:
+            case BINARY_TYPE_GEOLONG:
+                putGeoHashStringLongValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
+                break;
+            case ColumnType.NULL:
+            case BINARY_TYPE_NULL:
+                responseAsciiSink.setNullValue();
+                break;
+            default:
+                assert false;
+        }
+    }
+
+    private void appendCopyOutBinColumn(Record record, int columnIndex) throws SqlException {
+        final BinarySequence sequence = record.getBin(columnIndex);
+        if (sequence == null) {
+            putCopyOutNull();
+        } else {
+            final long blobSize = sequence.length();
+            if (blobSize >= maxBlobSizeOnQuery) {
+                throw SqlException.position(0)
+                        .put("blob is too large [blobSize=").put(blobSize)
+                        .put(", max=").put(maxBlobSizeOnQuery)
+                        .put(", columnIndex=").put(columnIndex)
+                        .put(']');
+            }
+            // bytea hex format, the backslash is escaped in text format
+            if (copyOutFormat == CopyModel.FORMAT_TEXT) {
+                responseAsciiSink.put('\\');
+            }
+            responseAsciiSink.put('\\').put('x');
+            for (long i = 0; i < blobSize; i++) {
+                final int b = sequence.byteAt(i) & 0xff;
+                responseAsciiSink.put(Numbers.hexDigits[b >> 4]).put(Numbers.hexDigits[b & 0xf]);
+            }
+        }
+    }
+
+    private void appendCopyOutColumn(Record record, int columnIndex) throws SqlException {
+        switch (ColumnType.tagOf(activeSelectColumnTypes.getQuick(2 * columnIndex))) {
+            case ColumnType.STRING:
+                appendCopyOutStr(record.getStr(columnIndex));
+                break;
+            case ColumnType.SYMBOL:
+                appendCopyOutStr(record.getSym(columnIndex));
+                break;
+            case ColumnType.CHAR:
+                final char charValue = record.getChar(columnIndex);
+                appendCopyOutStr(charValue != 0 ? SingleCharCharSequence.get(charValue) : null);
+                break;
+            case ColumnType.BINARY:
+                appendCopyOutBinColumn(record, columnIndex);
+                break;
+            default:
+                // values that never need escaping are printed by DataRow encoder,
+                // which prefixes them with their length
+                final long lo = sendBufferPtr;
+                appendColumn(record, columnIndex);
+                final int len = getIntUnsafe(lo);
+                if (len == -1) {
+                    sendBufferPtr = lo;
+                    putCopyOutNull();
+                } else {
+                    Vect.memmove(lo, lo + Integer.BYTES, len);
+                    sendBufferPtr -= Integer.BYTES;
+                }
+                break;
+        }
+    }
+
+    private void appendCopyOutHeader() {
+        final RecordMetadata metadata = currentFactory.getMetadata();
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_DATA);
+        final long offset = responseAsciiSink.skip();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            if (i > 0) {
+                responseAsciiSink.put(copyOutDelimiter);
+            }
+            appendCopyOutStr(metadata.getColumnName(i));
+        }
+        responseAsciiSink.put((byte) '\n');
+        responseAsciiSink.putLen(offset);
+    }
+
+    private void appendCopyOutRecord(Record record, int columnCount) throws SqlException {
+        if (copyOutFormat == CopyModel.FORMAT_BINARY) {
+            responseAsciiSink.put(MESSAGE_TYPE_COPY_DATA);
+            final long offset = responseAsciiSink.skip();
+            if (copyOutHeaderPending) {
+                putCopyOutSignature();
+            }
+            responseAsciiSink.putNetworkShort((short) columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                appendColumn(record, i);
+            }
+            responseAsciiSink.putLen(offset);
+        } else {
+            if (copyOutHeaderPending) {
+                appendCopyOutHeader();
+            }
+            responseAsciiSink.put(MESSAGE_TYPE_COPY_DATA);
+            final long offset = responseAsciiSink.skip();
+            for (int i = 0; i < columnCount; i++) {
+                if (i > 0) {
+                    responseAsciiSink.put(copyOutDelimiter);
+                }
+                appendCopyOutColumn(record, i);
+            }
+            responseAsciiSink.put((byte) '\n');
+            responseAsciiSink.putLen(offset);
+        }
+        copyOutHeaderPending = false;
+        rowCount += 1;
+    }
+
+    private void appendCopyOutStr(CharSequence value) {
+        if (value == null) {
+            putCopyOutNull();
+            return;
+        }
+
+        final int len = value.length();
+        if (copyOutFormat == CopyModel.FORMAT_CSV) {
+            boolean quote = Chars.equals(value, copyOutNullString);
+            for (int i = 0; i < len && !quote; i++) {
+                final char c = value.charAt(i);
+                quote = c == copyOutDelimiter || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                responseAsciiSink.encodeUtf8(value);
+                return;
+            }
+            responseAsciiSink.put('"');
+            int lo = 0;
+            for (int i = 0; i < len; i++) {
+                if (value.charAt(i) == '"') {
+                    // quotes are doubled, the second one is sent with the rest of the value
+                    responseAsciiSink.encodeUtf8(value, lo, i + 1);
+                    lo = i;
+                }
+            }
+            responseAsciiSink.encodeUtf8(value, lo, len);
+            responseAsciiSink.put('"');
+        } else {
+            int lo = 0;
+            for (int i = 0; i < len; i++) {
+                final char c = value.charAt(i);
+                final char escape;
+                switch (c) {
+                    case '\\':
+                        escape = '\\';
+                        break;
+                    case '\n':
+                        escape = 'n';
+                        break;
+                    case '\r':
+                        escape = 'r';
+                        break;
+                    case '\t':
+                        escape = 't';
+                        break;
+                    default:
+                        escape = c == copyOutDelimiter ? c : 0;
+                        break;
+                }
+                if (escape != 0) {
+                    responseAsciiSink.encodeUtf8(value, lo, i);
+                    responseAsciiSink.put('\\').put(escape);
+                    lo = i + 1;
+                }
+            }
+            responseAsciiSink.encodeUtf8(value, lo, len);
+        }
+    }
+
     private void appendDateColumn(Record record, int columnIndex) {
         final long longValue = record.getDate(columnIndex);
         if (longValue != Numbers.LONG_NaN) {
@@ -631,9 +938,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private void appendDateColumnBin(Record record, int columnIndex) {
         final long longValue = record.getLong(columnIndex);
         if (longValue != Numbers.LONG_NaN) {
-            responseAsciiSink.putNetworkInt(Long.BYTES);
             // PG epoch starts at 2000 rather than 1970
-            responseAsciiSink.putNetworkLong(longValue * 1000 - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+            putLongColumnBin(longValue * 1000 - Numbers.JULIAN_EPOCH_OFFSET_USEC);
         } else {
             responseAsciiSink.setNullValue();
         }
@@ -653,8 +959,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private void appendDoubleColumnBin(Record record, int columnIndex) {
         final double value = record.getDouble(columnIndex);
         if (value == value) {
-            responseAsciiSink.putNetworkInt(Double.BYTES);
-            responseAsciiSink.putNetworkDouble(value);
+            putLongColumnBin(Double.doubleToRawLongBits(value));
         } else {
             responseAsciiSink.setNullValue();
         }
@@ -674,8 +979,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private void appendFloatColumnBin(Record record, int columnIndex) {
         final float value = record.getFloat(columnIndex);
         if (value == value) {
-            responseAsciiSink.putNetworkInt(Float.BYTES);
-            responseAsciiSink.putNetworkFloat(value);
+            putIntColumnBin(Float.floatToRawIntBits(value));
         } else {
             responseAsciiSink.setNullValue();
         }
@@ -695,10 +999,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private void appendIntColumnBin(Record record, int columnIndex) {
         final int value = record.getInt(columnIndex);
         if (value != Numbers.INT_NaN) {
-            responseAsciiSink.ensureCapacity(8);
-            responseAsciiSink.putIntUnsafe(0, INT_BYTES_X);
-            responseAsciiSink.putIntUnsafe(4, Numbers.bswap(value));
-            responseAsciiSink.bump(8);
+            putIntColumnBin(value);
         } else {
             responseAsciiSink.setNullValue();
         }
@@ -737,8 +1038,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private void appendLongColumnBin(Record record, int columnIndex) {
         final long longValue = record.getLong(columnIndex);
         if (longValue != Numbers.LONG_NaN) {
-            responseAsciiSink.putNetworkInt(Long.BYTES);
-            responseAsciiSink.putNetworkLong(longValue);
+            putLongColumnBin(longValue);
         } else {
             responseAsciiSink.setNullValue();
         }
@@ -749,104 +1049,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         final long offset = responseAsciiSink.skip();
         responseAsciiSink.putNetworkShort((short) columnCount);
         for (int i = 0; i < columnCount; i++) {
-            final int type = activeSelectColumnTypes.getQuick(2 * i);
-            final short columnBinaryFlag = getColumnBinaryFlag(type);
-            final int typeTag = ColumnType.tagOf(type);
-
-            final int tagWithFlag = toColumnBinaryType(columnBinaryFlag, typeTag);
-            switch (tagWithFlag) {
-                case BINARY_TYPE_INT:
-                    appendIntColumnBin(record, i);
-                    break;
-                case ColumnType.INT:
-                    appendIntCol(record, i);
-                    break;
-                case ColumnType.STRING:
-                case BINARY_TYPE_STRING:
-                    appendStrColumn(record, i);
-                    break;
-                case ColumnType.SYMBOL:
-                case BINARY_TYPE_SYMBOL:
-                    appendSymbolColumn(record, i);
-                    break;
-                case BINARY_TYPE_LONG:
-                    appendLongColumnBin(record, i);
-                    break;
-                case ColumnType.LONG:
-                    appendLongColumn(record, i);
-                    break;
-                case ColumnType.SHORT:
-                    appendShortColumn(record, i);
-                    break;
-                case BINARY_TYPE_DOUBLE:
-                    appendDoubleColumnBin(record, i);
-                    break;
-                case ColumnType.DOUBLE:
-                    appendDoubleColumn(record, i);
-                    break;
-                case BINARY_TYPE_FLOAT:
-                    appendFloatColumnBin(record, i);
-                    break;
-                case BINARY_TYPE_SHORT:
-                    appendShortColumnBin(record, i);
-                    break;
-                case BINARY_TYPE_DATE:
-                    appendDateColumnBin(record, i);
-                    break;
-                case BINARY_TYPE_TIMESTAMP:
-                    appendTimestampColumnBin(record, i);
-                    break;
-                case BINARY_TYPE_BYTE:
-                    appendByteColumnBin(record, i);
-                    break;
-                case ColumnType.FLOAT:
-                    appendFloatColumn(record, i);
-                    break;
-                case ColumnType.TIMESTAMP:
-                    appendTimestampColumn(record, i);
-                    break;
-                case ColumnType.DATE:
-                    appendDateColumn(record, i);
-                    break;
-                case ColumnType.BOOLEAN:
-                    appendBooleanColumn(record, i);
-                    break;
-                case BINARY_TYPE_BOOLEAN:
-                    appendBooleanColumnBin(record, i);
-                    break;
-                case ColumnType.BYTE:
-                    appendByteColumn(record, i);
-                    break;
-                case ColumnType.BINARY:
-                case BINARY_TYPE_BINARY:
-                    appendBinColumn(record, i);
-                    break;
-                case ColumnType.CHAR:
-                case BINARY_TYPE_CHAR:
-                    appendCharColumn(record, i);
-                    break;
-                case ColumnType.LONG256:
-                case BINARY_TYPE_LONG256:
-                    appendLong256Column(record, i);
-                    break;
-                case ColumnType.GEOBYTE:
-                    putGeoHashStringByteValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
-                    break;
-                case ColumnType.GEOSHORT:
-                    putGeoHashStringShortValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
-                    break;
-                case ColumnType.GEOINT:
-                    putGeoHashStringIntValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
-                    break;
-                case ColumnType.GEOLONG:
-                    putGeoHashStringLongValue(record, i, activeSelectColumnTypes.getQuick(2 * i + 1));
-                    break;
-                case ColumnType.NULL:
-                    responseAsciiSink.setNullValue();
-                    break;
-                default:
-                    assert false;
-            }
+            appendColumn(record, i);
         }
         responseAsciiSink.putLen(offset);
         rowCount += 1;
@@ -859,9 +1062,18 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void appendShortColumnBin(Record record, int columnIndex) {
-        final short value = record.getShort(columnIndex);
-        responseAsciiSink.putNetworkInt(Short.BYTES);
-        responseAsciiSink.putNetworkShort(value);
+        putShortColumnBin(record.getShort(columnIndex));
+    }
+
+    private void appendSingleCopyOutRecord(Record record, int columnCount) throws SqlException {
+        try {
+            appendCopyOutRecord(record, columnCount);
+        } catch (NoSpaceLeftInResponseBufferException e) {
+            LOG.error().$("not enough space in buffer for row data [buffer=").$(sendBufferSize).I$();
+            responseAsciiSink.reset();
+            freeFactory();
+            throw CairoException.critical(0).put("server configuration error: not enough space in send buffer for row data");
+        }
     }
 
     private void appendSingleRecord(Record record, int columnCount) throws SqlException {
@@ -915,9 +1127,35 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         if (longValue == Numbers.LONG_NaN) {
             responseAsciiSink.setNullValue();
         } else {
-            responseAsciiSink.putNetworkInt(Long.BYTES);
             // PG epoch starts at 2000 rather than 1970
-            responseAsciiSink.putNetworkLong(longValue - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+            putLongColumnBin(longValue - Numbers.JULIAN_EPOCH_OFFSET_USEC);
+        }
+    }
+
+    private void appendUuidColumn(Record record, int columnIndex) {
+        final long lo = record.getLong128Lo(columnIndex);
+        final long hi = record.getLong128Hi(columnIndex);
+        if (Uuid.isNull(lo, hi)) {
+            responseAsciiSink.setNullValue();
+        } else {
+            final long a = responseAsciiSink.skip();
+            Uuid.toSink(responseAsciiSink, lo, hi);
+            responseAsciiSink.putLenEx(a);
+        }
+    }
+
+    private void appendUuidColumnBin(Record record, int columnIndex) {
+        final long lo = record.getLong128Lo(columnIndex);
+        final long hi = record.getLong128Hi(columnIndex);
+        if (Uuid.isNull(lo, hi)) {
+            responseAsciiSink.setNullValue();
+        } else {
+            // network byte order of the 16 UUID bytes is the high long followed by the low long
+            responseAsciiSink.ensureCapacity(20);
+            responseAsciiSink.putIntUnsafe(0, UUID_BYTES_X);
+            responseAsciiSink.putLongUnsafe(4, Numbers.bswap(hi));
+            responseAsciiSink.putLongUnsafe(12, Numbers.bswap(lo));
+            responseAsciiSink.bump(20);
         }
     }
 
@@ -1037,6 +1275,9 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     private void clearCursorAndFactory() {
         resumeProcessor = null;
         currentCursor = Misc.free(currentCursor);
+        if (!queryAdmitted) {
+            queryAdmission.release();
+        }
         // do not free factory, we may cache it
         currentFactory = null;
         // we resumed the cursor send the typeAndSelect will be null
@@ -1064,6 +1305,19 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void clearCopyOut() {
+        clearCursorAndFactory();
+        // factory of COPY TO STDOUT is not cached, the following queries are
+        typesAndSelectIsCached = true;
+    }
+
+    private void commitImplicitTransaction() {
+        if (transactionState == IMPLICIT_TRANSACTION) {
+            transactionState = COMMIT_TRANSACTION;
+            executeTag0();
+        }
+    }
+
     private boolean compileQuery(@Transient SqlCompiler compiler) throws SqlException {
         if (queryText != null && queryText.length() > 0) {
 
@@ -1100,8 +1354,13 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 return false;
             }
 
-            // not cached - compile to see what it is
+            // not cached - compile to see what it is, DDL may need writers held by implicit transaction
+            commitImplicitTransaction();
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext); //here
+            if (cc.getType() == CompiledQuery.COPY_REMOTE) {
+                Misc.free(cc.getRecordCursorFactory());
+                throw SqlException.$(0, "COPY FROM STDIN and COPY TO STDOUT are supported by simple query protocol only");
+            }
             processCompiledQuery(cc);
         } else {
             isEmptyQuery = true;
@@ -1238,6 +1497,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         try {
             switch (transactionState) {
                 case IN_TRANSACTION:
+                case IMPLICIT_TRANSACTION:
                     final InsertMethod m = typesAndInsert.getInsert().createMethod(sqlExecutionContext, this);
                     try {
                         rowCount = m.execute();
@@ -1451,7 +1711,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
      * any additional bytes received
      */
     private void parse(long address, int len, @Transient SqlCompiler compiler)
-            throws PeerDisconnectedException, PeerIsSlowToReadException, BadProtocolException, SqlException, AuthenticationException {
+            throws PeerDisconnectedException, PeerIsSlowToReadException, BadProtocolException, SqlException, AuthenticationException, QueryAdmissionQueuedException {
 
         if (requireInitialMessage) {
             sendRNQ = true;
@@ -1497,6 +1757,16 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                     .$(']').$();
             return;
         }
+        if ((type == 'Q' || type == 'E') && !authenticationRequired) {
+            // rejected query is answered with an error followed by ready-for-query
+            sendRNQ = true;
+            if (!tryAdmit()) {
+                // queued behind other queries, the message stays in the receive buffer and is parsed
+                // again when the admission wait queue hands the connection back for write
+                throw QueryAdmissionQueuedException.INSTANCE;
+            }
+        }
+
         // we have enough to read entire message
         recvBufferReadOffset += msgLen + 1;
         final long msgLimit = address + msgLen + 1;
@@ -1530,10 +1800,15 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 break;
             case 'E': // execute
                 sendRNQ = true;
-                processExec(msgLo, msgLimit, compiler);
+                try {
+                    processExec(msgLo, msgLimit, compiler);
+                } finally {
+                    releaseIdleAdmission();
+                }
                 break;
             case 'S': // sync
                 processSyncActions();
+                commitImplicitTransaction();
                 prepareReadyForQuery();
                 prepareForNewQuery();
                 sendRNQ = true;
@@ -1542,6 +1817,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 // some clients (asyncpg) chose not to send 'S' (sync) message
                 // but instead fire 'H'. Can't wrap my head around as to why
                 // query execution is so ambiguous
+                commitImplicitTransaction();
                 if (syncActions.size() > 0) {
                     processSyncActions();
                     prepareForNewQuery();
@@ -1554,9 +1830,20 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 break;
             case 'Q': // simple query
                 sendRNQ = true;
-                processQuery(msgLo, msgLimit, compiler);
+                try {
+                    processQuery(msgLo, msgLimit, compiler);
+                } finally {
+                    releaseIdleAdmission();
+                }
                 break;
             case 'd': // COPY data
+                processCopyData(msgLo, msgLimit);
+                break;
+            case 'c': // COPY done
+                processCopyDone();
+                break;
+            case 'f': // COPY fail
+                processCopyFail(msgLo, msgLimit);
                 break;
             default:
                 LOG.error().$("unknown message [type=").$(type).$(']').$();
@@ -1587,6 +1874,50 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         responseAsciiSink.putIntDirect(INT_BYTES_X);
     }
 
+    private void prepareCopyInResponse() {
+        final byte format = (byte) (copyInProcessor.getFormat() == CopyModel.FORMAT_BINARY ? 1 : 0);
+        final int columnCount = copyInProcessor.getColumnCount();
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
+        final long addr = responseAsciiSink.skip();
+        responseAsciiSink.put(format);
+        responseAsciiSink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseAsciiSink.putNetworkShort(format);
+        }
+        responseAsciiSink.putLen(addr);
+    }
+
+    private void prepareCopyOutDone() {
+        if (copyOutFormat == CopyModel.FORMAT_BINARY) {
+            // file trailer
+            responseAsciiSink.put(MESSAGE_TYPE_COPY_DATA);
+            final long offset = responseAsciiSink.skip();
+            if (copyOutHeaderPending) {
+                putCopyOutSignature();
+            }
+            responseAsciiSink.putNetworkShort((short) -1);
+            responseAsciiSink.putLen(offset);
+        } else if (copyOutHeaderPending) {
+            appendCopyOutHeader();
+        }
+        copyOutHeaderPending = false;
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_DONE);
+        responseAsciiSink.putIntDirect(INT_BYTES_X);
+        prepareCommandComplete(true);
+    }
+
+    private void prepareCopyOutResponse(int columnCount) {
+        final byte format = (byte) (copyOutFormat == CopyModel.FORMAT_BINARY ? 1 : 0);
+        responseAsciiSink.put(MESSAGE_TYPE_COPY_OUT_RESPONSE);
+        final long addr = responseAsciiSink.skip();
+        responseAsciiSink.put(format);
+        responseAsciiSink.putNetworkShort((short) columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            responseAsciiSink.putNetworkShort(format);
+        }
+        responseAsciiSink.putLen(addr);
+    }
+
     private void prepareDescribePortalResponse() {
         if (typesAndSelect != null) {
             try {
@@ -1955,6 +2286,15 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 }
                 queryTag = TAG_COPY;
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                // factory is set in the COPY ... TO STDOUT case
+                if (cq.getRecordCursorFactory() != null) {
+                    typesAndSelectIsCached = false;
+                    typesAndSelect = typesAndSelectPool.pop();
+                    typesAndSelect.of(cq.getRecordCursorFactory(), bindVariableService);
+                }
+                queryTag = TAG_COPY;
+                break;
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
@@ -1989,6 +2329,47 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void processCopyData(long lo, long msgLimit) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        // data is dropped when there is no COPY in progress, e.g. after COPY has failed
+        if (copyInProcessor.isActive()) {
+            try {
+                copyInProcessor.onData(lo, msgLimit);
+            } catch (CairoException ex) {
+                copyInProcessor.clear();
+                prepareError(ex);
+                sendRNQ = true;
+                sendReadyForNewQuery();
+            }
+        }
+    }
+
+    private void processCopyDone() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (copyInProcessor.isActive()) {
+            try {
+                rowCount = copyInProcessor.finish();
+                queryTag = TAG_COPY;
+                prepareCommandComplete(true);
+            } catch (CairoException ex) {
+                copyInProcessor.clear();
+                prepareError(ex);
+            }
+            sendRNQ = true;
+            sendReadyForNewQuery();
+        }
+    }
+
+    private void processCopyFail(long lo, long msgLimit) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (copyInProcessor.isActive()) {
+            copyInProcessor.clear();
+            utf8Sink.clear();
+            // error message is a null-terminated string
+            Chars.utf8Decode(lo, msgLimit - 1, utf8Sink);
+            prepareError(CairoException.nonCritical().put("COPY from stdin failed: ").put(utf8Sink));
+            sendRNQ = true;
+            sendReadyForNewQuery();
+        }
+    }
+
     private void processDescribe(long lo, long msgLimit, @Transient SqlCompiler compiler)
             throws SqlException, BadProtocolException {
         sqlExecutionContext.getCircuitBreaker().resetTimer();
@@ -2044,12 +2425,21 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     }
 
     private void processExecute(int maxRows, SqlCompiler compiler) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        if (typesAndInsert == null) {
+            // statements that follow inserts see the inserted rows
+            commitImplicitTransaction();
+        }
         if (typesAndSelect != null) {
             LOG.debug().$("executing query").$();
             setupFactoryAndCursor(compiler);
             sendCursor(maxRows, resumeCursorExecuteRef, resumeCommandCompleteRef);
         } else if (typesAndInsert != null) {
             LOG.debug().$("executing insert").$();
+            if (transactionState == NO_TRANSACTION) {
+                // batch of pipelined inserts, e.g. JDBC executeBatch(), keeps
+                // appending to the same writer and commits once
+                transactionState = IMPLICIT_TRANSACTION;
+            }
             executeInsert();
         } else if (typesAndUpdate != null) {
             LOG.debug().$("executing update").$();
@@ -2228,6 +2618,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
     //process one or more queries (batch/script) . "Simple Query" in PostgreSQL docs.
     private void processQuery(long lo, long limit, @Transient SqlCompiler compiler)
             throws BadProtocolException, PeerDisconnectedException, PeerIsSlowToReadException {
+        commitImplicitTransaction();
         prepareForNewQuery();
         CharacterStoreEntry e = characterStore.newEntry();
 
@@ -2235,11 +2626,19 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             queryText = characterStore.toImmutable();
             try {
                 compiler.compileBatch(queryText, sqlExecutionContext, batchCallback);
+                if (copyInProcessor.isActive()) {
+                    // client streams the data next, query completes once the data is copied
+                    prepareCopyInResponse();
+                    sendAndReset();
+                    return;
+                }
                 // we need to continue parsing receive buffer even if we errored out
                 // this is because PG client might expect separate responses to everything it sent
             } catch (SqlException ex) {
+                copyInProcessor.clear();
                 prepareNonCriticalError(ex.getPosition(), ex.getFlyweightMessage());
             } catch (CairoException ex) {
+                copyInProcessor.clear();
                 if (ex.isInterruption()) {
                     prepareQueryCanceled(ex.getFlyweightMessage());
                 } else {
@@ -2250,6 +2649,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             LOG.error().$("invalid UTF8 bytes in parse query").$();
             throw BadProtocolException.INSTANCE;
         }
+        // release before the client learns that the query is done, its next query may need the slot
+        releaseIdleAdmission();
         sendReadyForNewQuery();
     }
 
@@ -2276,6 +2677,16 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void putCopyOutNull() {
+        responseAsciiSink.encodeUtf8(copyOutNullString);
+    }
+
+    private void putCopyOutSignature() {
+        for (int i = 0, n = PGCOPY_HEADER.length; i < n; i++) {
+            responseAsciiSink.put(PGCOPY_HEADER[i]);
+        }
+    }
+
     private void putGeoHashStringByteValue(Record rec, int col, int bitFlags) {
         byte l = rec.getGeoByte(col);
         putGeoHashStringValue(l, bitFlags);
@@ -2310,6 +2721,29 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    // binary column values are written with a single capacity check, length prefix and value
+    // are stored in network byte order directly into the send buffer
+    private void putIntColumnBin(int value) {
+        responseAsciiSink.ensureCapacity(8);
+        responseAsciiSink.putIntUnsafe(0, INT_BYTES_X);
+        responseAsciiSink.putIntUnsafe(4, Numbers.bswap(value));
+        responseAsciiSink.bump(8);
+    }
+
+    private void putLongColumnBin(long value) {
+        responseAsciiSink.ensureCapacity(12);
+        responseAsciiSink.putIntUnsafe(0, LONG_BYTES_X);
+        responseAsciiSink.putLongUnsafe(4, Numbers.bswap(value));
+        responseAsciiSink.bump(12);
+    }
+
+    private void putShortColumnBin(short value) {
+        responseAsciiSink.ensureCapacity(6);
+        responseAsciiSink.putIntUnsafe(0, SHORT_BYTES_X);
+        responseAsciiSink.putShortUnsafe(4, Numbers.bswap(value));
+        responseAsciiSink.bump(6);
+    }
+
     private void removeNamedStatement(CharSequence statementName) {
         if (statementName != null) {
             final int index = namedStatementMap.keyIndex(statementName);
@@ -2322,7 +2756,16 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         }
     }
 
+    private void releaseIdleAdmission() {
+        queryAdmitted = false;
+        // suspended cursor keeps the admission until it is fully sent
+        if (currentCursor == null) {
+            queryAdmission.release();
+        }
+    }
+
     private void reportError(CairoException ex) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        rollbackImplicitTransaction();
         prepareError(ex);
         sendReadyForNewQuery();
         clearRecvBuffer();
@@ -2330,6 +2773,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
 
     private void reportNonCriticalError(int position, CharSequence flyweightMessage)
             throws PeerDisconnectedException, PeerIsSlowToReadException {
+        rollbackImplicitTransaction();
         prepareNonCriticalError(position, flyweightMessage);
         sendReadyForNewQuery();
         clearRecvBuffer();
@@ -2337,6 +2781,7 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
 
     private void reportQueryCancelled(CharSequence flyweightMessage)
             throws PeerDisconnectedException, PeerIsSlowToReadException {
+        rollbackImplicitTransaction();
         prepareQueryCanceled(flyweightMessage);
         sendReadyForNewQuery();
         clearRecvBuffer();
@@ -2346,6 +2791,21 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         prepareCommandComplete(true);
     }
 
+    private void resumeCopyOut() throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
+        final Record record = currentCursor.getRecord();
+        final int columnCount = currentFactory.getMetadata().getColumnCount();
+        responseAsciiSink.bookmark();
+        appendSingleCopyOutRecord(record, columnCount);
+        sendCopyOut(record, columnCount);
+        sendReadyForNewQuery();
+    }
+
+    private void resumeCopyOutDone() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        prepareCopyOutDone();
+        clearCopyOut();
+        sendReadyForNewQuery();
+    }
+
     private void resumeCursorExecute() throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
         final Record record = currentCursor.getRecord();
         final int columnCount = currentFactory.getMetadata().getColumnCount();
@@ -2372,38 +2832,50 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         sendReadyForNewQuery();
     }
 
+    private void rollbackImplicitTransaction() {
+        // error discards rows of the whole pipeline, same as in PostgreSQL
+        if (transactionState == IMPLICIT_TRANSACTION) {
+            transactionState = ROLLING_BACK_TRANSACTION;
+            executeTag0();
+        }
+    }
+
     private void sendAndReset() throws PeerDisconnectedException, PeerIsSlowToReadException {
         doSend(0, (int) (sendBufferPtr - sendBuffer));
         responseAsciiSink.reset();
     }
 
-    // This method is currently unused. it's used for the COPY sub-protocol, which is currently not implemented.
-    // It's left here so when we add the sub-protocol later we won't need to reimplemented it.
-    // We could keep it just in git history, but chances are nobody would recall to search for it there
-    private void sendCopyInResponse(CairoEngine engine, TextLoader textLoader) throws PeerDisconnectedException, PeerIsSlowToReadException {
-        if (
-                TableUtils.TABLE_EXISTS == engine.getStatus(
-                        sqlExecutionContext.getCairoSecurityContext(),
-                        path,
-                        textLoader.getTableName()
-                )) {
-            responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
-            long addr = responseAsciiSink.skip();
-            responseAsciiSink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
-            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName(), WRITER_LOCK_REASON)) {
-                RecordMetadata metadata = writer.getMetadata();
-                responseAsciiSink.putNetworkShort((short) metadata.getColumnCount());
-                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                    responseAsciiSink.putNetworkShort((short) PGOids.getTypeOid(metadata.getColumnType(i)));
+    private void sendCopyOut(Record record, int columnCount)
+            throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        // unlike DataRow, each CopyData message carries single row, so that
+        // clients that decode copied rows one message at a time see whole rows
+        while (currentCursor.hasNext()) {
+            responseAsciiSink.bookmark();
+            try {
+                try {
+                    appendCopyOutRecord(record, columnCount);
+                } catch (NoSpaceLeftInResponseBufferException e) {
+                    responseAsciiSink.resetToBookmark();
+                    sendAndReset();
+                    appendSingleCopyOutRecord(record, columnCount);
                 }
+            } catch (SqlException e) {
+                clearCopyOut();
+                responseAsciiSink.resetToBookmark();
+                throw e;
             }
-            responseAsciiSink.putLen(addr);
-        } else {
-            final SqlException e = SqlException.$(0, "table does not exist [table=").put(textLoader.getTableName()).put(']');
-            prepareNonCriticalError(e.getPosition(), e.getFlyweightMessage());
-            prepareReadyForQuery();
         }
-        sendAndReset();
+
+        responseAsciiSink.bookmark();
+        try {
+            prepareCopyOutDone();
+        } catch (NoSpaceLeftInResponseBufferException e) {
+            responseAsciiSink.resetToBookmark();
+            resumeProcessor = resumeCopyOutDoneRef;
+            sendAndReset();
+            prepareCopyOutDone();
+        }
+        clearCopyOut();
     }
 
     private void sendCursor(
@@ -2537,6 +3009,69 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
         recvBufferReadOffset = 0;
     }
 
+    private void startCopyIn(CopyModel model) {
+        final TableWriterAPI writer = engine.getTableWriterAPI(
+                sqlExecutionContext.getCairoSecurityContext(),
+                GenericLexer.unquote(model.getTarget().token),
+                WRITER_LOCK_REASON
+        );
+        try {
+            final int maxUncommittedRows = writer.getMetadata().getMaxUncommittedRows();
+            copyInProcessor.of(
+                    writer,
+                    model.getColumnNames(),
+                    model.getFormat(),
+                    model.getDelimiter(),
+                    model.getNullString(),
+                    model.isHeader(),
+                    maxUncommittedRows > 0 && maxUncommittedRows < Integer.MAX_VALUE ? maxUncommittedRows : engine.getConfiguration().getMaxUncommittedRows()
+            );
+        } catch (Throwable th) {
+            // processor owns the writer
+            copyInProcessor.clear();
+            throw th;
+        }
+    }
+
+    private void startCopyOut(CopyModel model) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
+        copyOutFormat = model.getFormat();
+        copyOutDelimiter = model.getDelimiter() != -1 ? model.getDelimiter() : (byte) (copyOutFormat == CopyModel.FORMAT_CSV ? ',' : '\t');
+        copyOutNullString.clear();
+        if (model.getNullString() != null) {
+            copyOutNullString.put(model.getNullString());
+        } else if (copyOutFormat == CopyModel.FORMAT_TEXT) {
+            copyOutNullString.put("\\N");
+        }
+        copyOutHeaderPending = copyOutFormat == CopyModel.FORMAT_BINARY || (copyOutFormat == CopyModel.FORMAT_CSV && model.isHeader());
+
+        final int columnCount = currentFactory.getMetadata().getColumnCount();
+        if (copyOutFormat == CopyModel.FORMAT_BINARY) {
+            for (int i = 0; i < columnCount; i++) {
+                activeSelectColumnTypes.setQuick(2 * i, toColumnBinaryType((short) 1, activeSelectColumnTypes.getQuick(2 * i)));
+            }
+        }
+
+        rowCount = 0;
+        prepareCopyOutResponse(columnCount);
+        resumeProcessor = resumeCopyOutRef;
+        sendCopyOut(currentCursor.getRecord(), columnCount);
+    }
+
+    private boolean tryAdmit() {
+        try {
+            if (queryAdmission.tryAdmit(sqlExecutionContext.getCairoSecurityContext())) {
+                queryAdmitted = true;
+                return true;
+            }
+            // do not keep disconnected clients in the queue
+            sqlExecutionContext.getCircuitBreaker().statefulThrowExceptionIfTrippedNoThrottle();
+            return false;
+        } catch (Throwable e) {
+            queryAdmission.release();
+            throw e;
+        }
+    }
+
     private void validateParameterCounts(short parameterFormatCount, short parameterValueCount, int parameterTypeCount) throws BadProtocolException {
         if (parameterValueCount > 0) {
             if (parameterValueCount < parameterTypeCount) {
@@ -2684,16 +3219,24 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             try {
                 PGConnectionContext.this.queryText = text;
                 LOG.info().$("parse [fd=").$(fd).$(", q=").utf8(text).I$();
+                if (copyInProcessor.isActive()) {
+                    throw SqlException.$(0, "COPY FROM STDIN must be the last statement of the query");
+                }
                 processCompiledQuery(cq);
 
                 if (typesAndSelect != null) {
                     activeSelectColumnTypes = selectColumnTypes;
                     buildSelectColumnTypes();
                     assert queryText != null;
-                    queryTag = TAG_SELECT;
-                    setupFactoryAndCursor(compiler);
-                    prepareRowDescription();
-                    sendCursor(0, resumeCursorQueryRef, resumeQueryCompleteRef);
+                    if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                        setupFactoryAndCursor(compiler);
+                        startCopyOut(cq.getCopyModel());
+                    } else {
+                        queryTag = TAG_SELECT;
+                        setupFactoryAndCursor(compiler);
+                        prepareRowDescription();
+                        sendCursor(0, resumeCursorQueryRef, resumeQueryCompleteRef);
+                    }
                 } else if (typesAndInsert != null) {
                     executeInsert();
                 } else if (typesAndUpdate != null) {
@@ -2701,6 +3244,8 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
                 } else if (cq.getType() == CompiledQuery.INSERT_AS_SELECT ||
                         cq.getType() == CompiledQuery.CREATE_TABLE_AS_SELECT) {
                     prepareCommandComplete(true);
+                } else if (cq.getType() == CompiledQuery.COPY_REMOTE) {
+                    startCopyIn(cq.getCopyModel());
                 } else {
                     executeTag();
                     prepareCommandComplete(false);
@@ -2785,6 +3330,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             }
         }
 
+        public void putByteUnsafe(long offset, byte value) {
+            Unsafe.getUnsafe().putByte(sendBufferPtr + offset, value);
+        }
+
         public void putIntDirect(int value) {
             ensureCapacity(Integer.BYTES);
             putIntUnsafe(0, value);
@@ -2803,6 +3352,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             putInt(start, (int) (sendBufferPtr - start - Integer.BYTES));
         }
 
+        public void putLongUnsafe(long offset, long value) {
+            Unsafe.getUnsafe().putLong(sendBufferPtr + offset, value);
+        }
+
         public void putNetworkDouble(double value) {
             ensureCapacity(Double.BYTES);
             Unsafe.getUnsafe().putDouble(sendBufferPtr, Double.longBitsToDouble(Numbers.bswap(Double.doubleToLongBits(value))));
@@ -2833,6 +3386,10 @@ public class PGConnectionContext extends AbstractMutableIOContext<PGConnectionCo
             sendBufferPtr += Short.BYTES;
         }
 
+        public void putShortUnsafe(long offset, short value) {
+            Unsafe.getUnsafe().putShort(sendBufferPtr + offset, value);
+        }
+
         public void resetToBookmark() {
             assert bookmarkPtr != -1;
             sendBufferPtr = bookmarkPtr;
@@ -0,0 +1,773 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.TableWriterAPI;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.griffin.model.CopyModel;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+
+/**
+ * Decodes data of COPY ... FROM STDIN statement as it arrives in CopyData messages and appends
+ * rows to the table writer.
+ * <p>
+ * Supports text, CSV and binary formats as defined by PostgreSQL. Unlike the text loader, it does
+ * not attempt to detect the structure of the data: fields are expected in the order of the column
+ * list of the statement or, when the list is omitted, in the order of the table columns. Row, which
+ * is split between two CopyData messages, is carried over to the next message.
+ * <p>
+ * Invalid row fails the whole statement, rows are committed once the number of uncommitted rows
+ * reaches the table's max uncommitted rows setting.
+ */
+public class PGCopyInProcessor implements Closeable, Mutable {
+    private static final int BINARY_HEADER_LEN = 19;
+    private static final byte[] BINARY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final String DEFAULT_CSV_NULL_STRING = "";
+    private static final String DEFAULT_TEXT_NULL_STRING = "\\N";
+    private static final long JULIAN_EPOCH_OFFSET_MILLIS = Numbers.JULIAN_EPOCH_OFFSET_USEC / 1000;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private final IntList columnIndexes = new IntList();
+    private final IntList columnTypes = new IntList();
+    // lo and hi address pairs of fields of current row, hi < lo for binary NULL
+    private final LongList fields = new LongList();
+    private final StringSink errorSink = new StringSink();
+    private final StringSink nullString = new StringSink();
+    private final StringSink sink = new StringSink();
+    private long carryCapacity;
+    private long carryLen;
+    private long carryPtr;
+    private byte delimiter;
+    private boolean done;
+    private int format;
+    private boolean headerPending;
+    private long lineNumber;
+    private int maxUncommittedRows;
+    private long rowCount;
+    private long scratchCapacity;
+    private long scratchPtr;
+    private int timestampField;
+    private TableWriterAPI writer;
+
+    @Override
+    public void clear() {
+        if (writer != null) {
+            try {
+                writer.rollback();
+            } finally {
+                writer = Misc.free(writer);
+            }
+        }
+        columnIndexes.clear();
+        columnTypes.clear();
+        fields.clear();
+        carryLen = 0;
+        done = false;
+        headerPending = false;
+        lineNumber = 0;
+        rowCount = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        carryPtr = Unsafe.free(carryPtr, carryCapacity, MemoryTag.NATIVE_PGW_CONN);
+        carryCapacity = 0;
+        scratchPtr = Unsafe.free(scratchPtr, scratchCapacity, MemoryTag.NATIVE_PGW_CONN);
+        scratchCapacity = 0;
+    }
+
+    /**
+     * Decodes remainder of the data and commits the rows.
+     *
+     * @return number of rows copied
+     */
+    public long finish() {
+        if (carryLen > 0) {
+            final long lo = carryPtr;
+            final long hi = carryPtr + carryLen;
+            if (parse(lo, hi, true) < hi && !done) {
+                throw error("unexpected end of data");
+            }
+            carryLen = 0;
+        }
+        writer.commit();
+        writer = Misc.free(writer);
+        final long rows = rowCount;
+        clear();
+        return rows;
+    }
+
+    public int getColumnCount() {
+        return columnIndexes.size();
+    }
+
+    public int getFormat() {
+        return format;
+    }
+
+    public boolean isActive() {
+        return writer != null;
+    }
+
+    /**
+     * Prepares to copy data into the table. The processor takes ownership of the writer, which
+     * is released by either {@link #finish()} or {@link #clear()}.
+     *
+     * @param writer             table writer
+     * @param columnNames        names of the columns as they appear in the data, empty for all table columns
+     * @param format             one of {@link CopyModel} formats
+     * @param delimiter          field delimiter or -1 for the format's default
+     * @param nullString         NULL value representation or null for the format's default
+     * @param header             true when the first line of CSV data is to be skipped
+     * @param maxUncommittedRows number of uncommitted rows that triggers a commit
+     */
+    public void of(
+            TableWriterAPI writer,
+            ObjList<CharSequence> columnNames,
+            int format,
+            byte delimiter,
+            @Nullable CharSequence nullString,
+            boolean header,
+            int maxUncommittedRows
+    ) {
+        clear();
+        this.writer = writer;
+        this.format = format;
+        this.delimiter = delimiter != -1 ? delimiter : (byte) (format == CopyModel.FORMAT_CSV ? ',' : '\t');
+        this.nullString.clear();
+        this.nullString.put(nullString != null ? nullString : (format == CopyModel.FORMAT_CSV ? DEFAULT_CSV_NULL_STRING : DEFAULT_TEXT_NULL_STRING));
+        this.headerPending = header && format == CopyModel.FORMAT_CSV;
+        this.maxUncommittedRows = maxUncommittedRows;
+
+        final RecordMetadata metadata = writer.getMetadata();
+        if (columnNames.size() == 0) {
+            for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+                if (metadata.getColumnType(i) > 0) {
+                    addColumn(metadata, i);
+                }
+            }
+        } else {
+            for (int i = 0, n = columnNames.size(); i < n; i++) {
+                final CharSequence columnName = columnNames.getQuick(i);
+                final int columnIndex = metadata.getColumnIndexQuiet(columnName);
+                if (columnIndex < 0) {
+                    throw CairoException.nonCritical().put("invalid column [name=").put(columnName).put(']');
+                }
+                if (columnIndexes.indexOf(columnIndex, 0, columnIndexes.size()) > -1) {
+                    throw CairoException.duplicateColumn(columnName);
+                }
+                addColumn(metadata, columnIndex);
+            }
+        }
+
+        final int timestampIndex = metadata.getTimestampIndex();
+        timestampField = timestampIndex > -1 ? columnIndexes.indexOf(timestampIndex, 0, columnIndexes.size()) : -1;
+        if (timestampIndex > -1 && timestampField < 0) {
+            throw CairoException.nonCritical().put("designated timestamp column is not in the column list [name=")
+                    .put(metadata.getColumnName(timestampIndex)).put(']');
+        }
+    }
+
+    /**
+     * Decodes content of a CopyData message.
+     *
+     * @param lo message data start address
+     * @param hi message data end address
+     */
+    public void onData(long lo, long hi) {
+        if (done) {
+            // data after the end marker is ignored
+            return;
+        }
+        if (carryLen > 0) {
+            appendCarry(lo, hi);
+            final long p = parse(carryPtr, carryPtr + carryLen, false);
+            carryLen = carryPtr + carryLen - p;
+            if (carryLen > 0) {
+                Vect.memmove(carryPtr, p, carryLen);
+            }
+        } else {
+            final long p = parse(lo, hi, false);
+            if (p < hi) {
+                appendCarry(p, hi);
+            }
+        }
+    }
+
+    private static boolean parseBoolean(CharSequence value) {
+        if (Chars.equalsLowerCaseAscii(value, "t")
+                || Chars.equalsLowerCaseAscii(value, "true")
+                || Chars.equalsLowerCaseAscii(value, "on")
+                || Chars.equals(value, '1')) {
+            return true;
+        }
+        if (Chars.equalsLowerCaseAscii(value, "f")
+                || Chars.equalsLowerCaseAscii(value, "false")
+                || Chars.equalsLowerCaseAscii(value, "off")
+                || Chars.equals(value, '0')) {
+            return false;
+        }
+        throw ImplicitCastException.inconvertibleValue(value, ColumnType.STRING, ColumnType.BOOLEAN);
+    }
+
+    private static long readInteger(long lo, long len) {
+        switch ((int) len) {
+            case Byte.BYTES:
+                return Unsafe.getUnsafe().getByte(lo);
+            case Short.BYTES:
+                return PGConnectionContext.getShortUnsafe(lo);
+            case Integer.BYTES:
+                return PGConnectionContext.getIntUnsafe(lo);
+            case Long.BYTES:
+                return PGConnectionContext.getLongUnsafe(lo);
+            default:
+                throw CairoException.nonCritical().put("unexpected integer length [length=").put(len).put(']');
+        }
+    }
+
+    private static int unhex(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private void addColumn(RecordMetadata metadata, int columnIndex) {
+        final int columnType = metadata.getColumnType(columnIndex);
+        if (ColumnType.tagOf(columnType) == ColumnType.LONG128) {
+            throw CairoException.nonCritical().put("unsupported column type [name=").put(metadata.getColumnName(columnIndex))
+                    .put(", type=").put(ColumnType.nameOf(columnType)).put(']');
+        }
+        columnIndexes.add(columnIndex);
+        columnTypes.add(columnType);
+    }
+
+    private void appendCarry(long lo, long hi) {
+        final long len = hi - lo;
+        if (carryLen + len > carryCapacity) {
+            final long capacity = Math.max(carryCapacity * 2, carryLen + len);
+            carryPtr = Unsafe.realloc(carryPtr, carryCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+            carryCapacity = capacity;
+        }
+        Vect.memcpy(carryPtr + carryLen, lo, len);
+        carryLen += len;
+    }
+
+    private CharSequence decodeCsv(long lo, long hi) {
+        if (hi - lo > 1 && Unsafe.getUnsafe().getByte(lo) == '"') {
+            // quoted field, doubled quotes stand for a quote
+            final long p = ensureScratch(hi - lo);
+            long q = p;
+            for (long i = lo + 1; i < hi - 1; i++) {
+                final byte b = Unsafe.getUnsafe().getByte(i);
+                Unsafe.getUnsafe().putByte(q++, b);
+                if (b == '"') {
+                    i++;
+                }
+            }
+            return utf8(p, q);
+        }
+        return utf8(lo, hi);
+    }
+
+    private CharSequence decodeText(long lo, long hi) {
+        final long p = ensureScratch(hi - lo);
+        long q = p;
+        for (long i = lo; i < hi; i++) {
+            byte b = Unsafe.getUnsafe().getByte(i);
+            if (b == '\\' && i + 1 < hi) {
+                b = Unsafe.getUnsafe().getByte(++i);
+                switch (b) {
+                    case 'b':
+                        b = '\b';
+                        break;
+                    case 'f':
+                        b = '\f';
+                        break;
+                    case 'n':
+                        b = '\n';
+                        break;
+                    case 'r':
+                        b = '\r';
+                        break;
+                    case 't':
+                        b = '\t';
+                        break;
+                    case 'v':
+                        b = 11;
+                        break;
+                    case 'x':
+                        if (i + 1 < hi && unhex(Unsafe.getUnsafe().getByte(i + 1)) > -1) {
+                            int v = unhex(Unsafe.getUnsafe().getByte(++i));
+                            if (i + 1 < hi && unhex(Unsafe.getUnsafe().getByte(i + 1)) > -1) {
+                                v = v * 16 + unhex(Unsafe.getUnsafe().getByte(++i));
+                            }
+                            b = (byte) v;
+                        }
+                        break;
+                    default:
+                        if (b >= '0' && b <= '7') {
+                            int v = b - '0';
+                            for (int k = 0; k < 2 && i + 1 < hi; k++) {
+                                final byte d = Unsafe.getUnsafe().getByte(i + 1);
+                                if (d < '0' || d > '7') {
+                                    break;
+                                }
+                                v = v * 8 + d - '0';
+                                i++;
+                            }
+                            b = (byte) v;
+                        }
+                        // any other character stands for itself
+                        break;
+                }
+            }
+            Unsafe.getUnsafe().putByte(q++, b);
+        }
+        return utf8(p, q);
+    }
+
+    private long ensureScratch(long size) {
+        if (size > scratchCapacity) {
+            final long capacity = Math.max(scratchCapacity * 2, size);
+            scratchPtr = Unsafe.realloc(scratchPtr, scratchCapacity, capacity, MemoryTag.NATIVE_PGW_CONN);
+            scratchCapacity = capacity;
+        }
+        return scratchPtr;
+    }
+
+    private CairoException error(CharSequence message) {
+        return CairoException.nonCritical().put(message).put(" [line=").put(lineNumber).put(']');
+    }
+
+    private long findLineEnd(long lo, long hi) {
+        if (format == CopyModel.FORMAT_CSV) {
+            boolean quoted = false;
+            for (long p = lo; p < hi; p++) {
+                final byte b = Unsafe.getUnsafe().getByte(p);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return p;
+                }
+            }
+            return -1;
+        }
+        for (long p = lo; p < hi; p++) {
+            if (Unsafe.getUnsafe().getByte(p) == '\n') {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isEndMarker(long lo, long hi) {
+        return hi - lo == 2 && Unsafe.getUnsafe().getByte(lo) == '\\' && Unsafe.getUnsafe().getByte(lo + 1) == '.';
+    }
+
+    private boolean isNullString(long lo, long hi) {
+        // NULL string is matched against raw field bytes, before escapes and quotes are processed
+        final int len = nullString.length();
+        if (hi - lo != len) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            if (Unsafe.getUnsafe().getByte(lo + i) != (byte) nullString.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long parse(long lo, long hi, boolean eof) {
+        return format == CopyModel.FORMAT_BINARY ? parseBinary(lo, hi) : parseLines(lo, hi, eof);
+    }
+
+    private long parseBinary(long lo, long hi) {
+        long p = lo;
+        if (lineNumber == 0) {
+            // file header: signature, flags and header extension area
+            if (hi - p < BINARY_HEADER_LEN) {
+                return p;
+            }
+            for (int i = 0, n = BINARY_SIGNATURE.length; i < n; i++) {
+                if (Unsafe.getUnsafe().getByte(p + i) != BINARY_SIGNATURE[i]) {
+                    throw error("invalid COPY file signature");
+                }
+            }
+            final int extensionLen = PGConnectionContext.getIntUnsafe(p + BINARY_HEADER_LEN - Integer.BYTES);
+            if (extensionLen < 0) {
+                throw error("invalid COPY file header");
+            }
+            if (hi - p < BINARY_HEADER_LEN + extensionLen) {
+                return p;
+            }
+            p += BINARY_HEADER_LEN + extensionLen;
+            lineNumber++;
+        }
+
+        final int columnCount = columnIndexes.size();
+        while (p + Short.BYTES <= hi) {
+            final short fieldCount = PGConnectionContext.getShortUnsafe(p);
+            if (fieldCount == -1) {
+                // file trailer
+                done = true;
+                return hi;
+            }
+
+            // make sure the entire tuple is available
+            fields.clear();
+            long q = p + Short.BYTES;
+            for (int i = 0; i < fieldCount; i++) {
+                if (q + Integer.BYTES > hi) {
+                    return p;
+                }
+                final int len = PGConnectionContext.getIntUnsafe(q);
+                q += Integer.BYTES;
+                if (len > 0 && q + len > hi) {
+                    return p;
+                }
+                fields.add(q, len > -1 ? q + len : q - 1);
+                q += Math.max(len, 0);
+            }
+
+            lineNumber++;
+            if (fieldCount != columnCount) {
+                throw error("row field count does not match column count");
+            }
+            writeRow();
+            p = q;
+        }
+        return p;
+    }
+
+    private void parseLine(long lo, long hi) {
+        fields.clear();
+        long fieldLo = lo;
+        if (format == CopyModel.FORMAT_CSV) {
+            boolean quoted = false;
+            for (long p = lo; p < hi; p++) {
+                final byte b = Unsafe.getUnsafe().getByte(p);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (b == delimiter && !quoted) {
+                    fields.add(fieldLo, p);
+                    fieldLo = p + 1;
+                }
+            }
+        } else {
+            for (long p = lo; p < hi; p++) {
+                final byte b = Unsafe.getUnsafe().getByte(p);
+                if (b == '\\') {
+                    // escaped character cannot be a delimiter
+                    p++;
+                } else if (b == delimiter) {
+                    fields.add(fieldLo, p);
+                    fieldLo = p + 1;
+                }
+            }
+        }
+        fields.add(fieldLo, hi);
+
+        final int fieldCount = fields.size() / 2;
+        final int columnCount = columnIndexes.size();
+        if (fieldCount < columnCount) {
+            throw error("missing data for column");
+        }
+        if (fieldCount > columnCount) {
+            throw error("extra data after last expected column");
+        }
+        writeRow();
+    }
+
+    private long parseLines(long lo, long hi, boolean eof) {
+        long p = lo;
+        while (p < hi && !done) {
+            long lineEnd = findLineEnd(p, hi);
+            if (lineEnd == -1) {
+                if (!eof) {
+                    break;
+                }
+                lineEnd = hi;
+            }
+
+            long lineHi = lineEnd;
+            if (lineHi > p && Unsafe.getUnsafe().getByte(lineHi - 1) == '\r') {
+                lineHi--;
+            }
+
+            lineNumber++;
+            if (isEndMarker(p, lineHi)) {
+                done = true;
+            } else if (headerPending) {
+                headerPending = false;
+            } else {
+                parseLine(p, lineHi);
+            }
+            p = Math.min(lineEnd + 1, hi);
+        }
+        return p;
+    }
+
+    private void putBinaryValue(TableWriter.Row row, int columnIndex, int columnType, long lo, long len) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, Unsafe.getUnsafe().getByte(lo) != 0);
+                break;
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, (byte) readInteger(lo, len));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, (short) readInteger(lo, len));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(columnIndex, SqlUtil.implicitCastStrAsChar(utf8(lo, lo + len)));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, (int) readInteger(lo, len));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, readInteger(lo, len));
+                break;
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+                final double value;
+                if (len == Float.BYTES) {
+                    value = Float.intBitsToFloat(PGConnectionContext.getIntUnsafe(lo));
+                } else if (len == Double.BYTES) {
+                    value = Double.longBitsToDouble(PGConnectionContext.getLongUnsafe(lo));
+                } else {
+                    throw CairoException.nonCritical().put("unexpected floating point length [length=").put(len).put(']');
+                }
+                if (ColumnType.tagOf(columnType) == ColumnType.FLOAT) {
+                    row.putFloat(columnIndex, (float) value);
+                } else {
+                    row.putDouble(columnIndex, value);
+                }
+                break;
+            case ColumnType.DATE:
+                // PostgreSQL dates are days and timestamps are micros since 2000-01-01
+                if (len == Integer.BYTES) {
+                    row.putDate(columnIndex, PGConnectionContext.getIntUnsafe(lo) * MILLIS_PER_DAY + JULIAN_EPOCH_OFFSET_MILLIS);
+                } else {
+                    row.putDate(columnIndex, readInteger(lo, len) / 1000 + JULIAN_EPOCH_OFFSET_MILLIS);
+                }
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, readTimestamp(lo, len));
+                break;
+            case ColumnType.UUID:
+                if (len != 2 * Long.BYTES) {
+                    throw CairoException.nonCritical().put("unexpected uuid length [length=").put(len).put(']');
+                }
+                row.putLong128LittleEndian(columnIndex, PGConnectionContext.getLongUnsafe(lo), PGConnectionContext.getLongUnsafe(lo + Long.BYTES));
+                break;
+            case ColumnType.BINARY:
+                row.putBin(columnIndex, lo, len);
+                break;
+            default:
+                putTextValue(row, columnIndex, columnType, utf8(lo, lo + len));
+                break;
+        }
+    }
+
+    private void putTextValue(TableWriter.Row row, int columnIndex, int columnType, CharSequence value) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+                row.putBool(columnIndex, parseBoolean(value));
+                break;
+            case ColumnType.BYTE:
+                row.putByte(columnIndex, SqlUtil.implicitCastStrAsByte(value));
+                break;
+            case ColumnType.SHORT:
+                row.putShort(columnIndex, SqlUtil.implicitCastStrAsShort(value));
+                break;
+            case ColumnType.CHAR:
+                row.putChar(columnIndex, SqlUtil.implicitCastStrAsChar(value));
+                break;
+            case ColumnType.INT:
+                row.putInt(columnIndex, SqlUtil.implicitCastStrAsInt(value));
+                break;
+            case ColumnType.LONG:
+                row.putLong(columnIndex, SqlUtil.implicitCastStrAsLong(value));
+                break;
+            case ColumnType.FLOAT:
+                row.putFloat(columnIndex, SqlUtil.implicitCastStrAsFloat(value));
+                break;
+            case ColumnType.DOUBLE:
+                row.putDouble(columnIndex, SqlUtil.implicitCastStrAsDouble(value));
+                break;
+            case ColumnType.DATE:
+                row.putDate(columnIndex, SqlUtil.implicitCastStrAsDate(value));
+                break;
+            case ColumnType.TIMESTAMP:
+                row.putTimestamp(columnIndex, SqlUtil.implicitCastStrAsTimestamp(value));
+                break;
+            case ColumnType.SYMBOL:
+                row.putSym(columnIndex, value);
+                break;
+            case ColumnType.LONG256:
+                row.putLong256(columnIndex, value);
+                break;
+            case ColumnType.UUID:
+                row.putUuid(columnIndex, value);
+                break;
+            case ColumnType.BINARY:
+                putTextBinary(row, columnIndex, value);
+                break;
+            default:
+                if (ColumnType.isGeoHash(columnType)) {
+                    row.putGeoStr(columnIndex, value);
+                } else {
+                    row.putStr(columnIndex, value);
+                }
+                break;
+        }
+    }
+
+    private void putTextBinary(TableWriter.Row row, int columnIndex, CharSequence value) {
+        // bytea hex format, i.e. \x0102ff
+        final int len = value.length();
+        if (len < 2 || value.charAt(0) != '\\' || value.charAt(1) != 'x' || (len & 1) != 0) {
+            throw ImplicitCastException.inconvertibleValue(value, ColumnType.STRING, ColumnType.BINARY);
+        }
+        final long p = ensureScratch((len - 2) / 2);
+        for (int i = 2, k = 0; i < len; i += 2, k++) {
+            final int h = unhex((byte) value.charAt(i));
+            final int l = unhex((byte) value.charAt(i + 1));
+            if (h < 0 || l < 0) {
+                throw ImplicitCastException.inconvertibleValue(value, ColumnType.STRING, ColumnType.BINARY);
+            }
+            Unsafe.getUnsafe().putByte(p + k, (byte) (h * 16 + l));
+        }
+        row.putBin(columnIndex, p, (len - 2) / 2);
+    }
+
+    private long readTimestamp(long lo, long len) {
+        if (len != Long.BYTES) {
+            throw CairoException.nonCritical().put("unexpected timestamp length [length=").put(len).put(']');
+        }
+        return PGConnectionContext.getLongUnsafe(lo) + Numbers.JULIAN_EPOCH_OFFSET_USEC;
+    }
+
+    private CharSequence utf8(long lo, long hi) {
+        sink.clear();
+        if (!Chars.utf8Decode(lo, hi, sink)) {
+            throw CairoException.nonCritical().put("invalid UTF8 bytes");
+        }
+        return sink;
+    }
+
+    private CharSequence value(int field) {
+        final long lo = fields.getQuick(2 * field);
+        final long hi = fields.getQuick(2 * field + 1);
+        switch (format) {
+            case CopyModel.FORMAT_CSV:
+                return isNullString(lo, hi) ? null : decodeCsv(lo, hi);
+            case CopyModel.FORMAT_TEXT:
+                return isNullString(lo, hi) ? null : decodeText(lo, hi);
+            default:
+                return hi < lo ? null : utf8(lo, hi);
+        }
+    }
+
+    private void writeRow() {
+        final boolean binary = format == CopyModel.FORMAT_BINARY;
+        TableWriter.Row row = null;
+        int field = timestampField;
+        try {
+            if (timestampField > -1) {
+                final long timestamp;
+                if (binary) {
+                    final long lo = fields.getQuick(2 * timestampField);
+                    final long hi = fields.getQuick(2 * timestampField + 1);
+                    timestamp = hi < lo ? Numbers.LONG_NaN : readTimestamp(lo, hi - lo);
+                } else {
+                    timestamp = SqlUtil.implicitCastStrAsTimestamp(value(timestampField));
+                }
+                if (timestamp == Numbers.LONG_NaN) {
+                    throw CairoException.nonCritical().put("designated timestamp column cannot be NULL");
+                }
+                row = writer.newRow(timestamp);
+            } else {
+                row = writer.newRow();
+            }
+
+            for (field = 0; field < columnIndexes.size(); field++) {
+                if (field == timestampField) {
+                    continue;
+                }
+                final int columnIndex = columnIndexes.getQuick(field);
+                final int columnType = columnTypes.getQuick(field);
+                if (binary) {
+                    final long lo = fields.getQuick(2 * field);
+                    final long hi = fields.getQuick(2 * field + 1);
+                    if (hi >= lo) {
+                        putBinaryValue(row, columnIndex, columnType, lo, hi - lo);
+                    }
+                } else {
+                    final CharSequence value = value(field);
+                    if (value != null) {
+                        putTextValue(row, columnIndex, columnType, value);
+                    }
+                }
+            }
+            row.append();
+        } catch (CairoException | ImplicitCastException e) {
+            if (row != null) {
+                row.cancel();
+            }
+            // exception instances are thread-local, copy the message before it is overwritten
+            errorSink.clear();
+            errorSink.put(e instanceof CairoException ? ((CairoException) e).getFlyweightMessage() : ((ImplicitCastException) e).getFlyweightMessage());
+            errorSink.put(" [line=").put(lineNumber);
+            if (field > -1) {
+                errorSink.put(", column=").put(writer.getMetadata().getColumnName(columnIndexes.getQuick(field)));
+            }
+            throw CairoException.nonCritical().put(errorSink).put(']');
+        }
+
+        rowCount++;
+        if (writer.getUncommittedRowCount() >= maxUncommittedRows) {
+            writer.ic();
+        }
+    }
+}
@@ -85,7 +85,8 @@ public class PGJobContext implements Closeable {
             throws PeerIsSlowToWriteException,
             PeerIsSlowToReadException,
             PeerDisconnectedException,
-            BadProtocolException {
+            BadProtocolException,
+            QueryAdmissionQueuedException {
         context.handleClientOperation(
                 compiler,
                 typesAndSelectCache,
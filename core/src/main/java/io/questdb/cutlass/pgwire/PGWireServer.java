@@ -49,6 +49,7 @@ public class PGWireServer implements Closeable {
 
     private static final Log LOG = LogFactory.getLog(PGWireServer.class);
 
+    private final PGAdmissionWaitQueue admissionWaitQueue;
     private final IODispatcher<PGConnectionContext> dispatcher;
     private final Metrics metrics;
     private final WorkerPool workerPool;
@@ -67,8 +68,13 @@ public class PGWireServer implements Closeable {
         );
         this.metrics = engine.getMetrics();
         this.workerPool = workerPool;
+        this.admissionWaitQueue = new PGAdmissionWaitQueue(
+                engine.getQueryAdmissionController(),
+                engine.getConfiguration().getMillisecondClock()
+        );
 
         workerPool.assign(dispatcher);
+        workerPool.assign(admissionWaitQueue);
 
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
             final PGJobContext jobContext = new PGJobContext(configuration, engine, functionFactoryCache, snapshotAgent);
@@ -86,6 +92,8 @@ public class PGWireServer implements Closeable {
                         context.getDispatcher().registerChannel(context, IOOperation.READ);
                     } catch (PeerIsSlowToReadException e) {
                         context.getDispatcher().registerChannel(context, IOOperation.WRITE);
+                    } catch (QueryAdmissionQueuedException e) {
+                        admissionWaitQueue.park(context);
                     } catch (PeerDisconnectedException e) {
                         context.getDispatcher().disconnect(context, operation == IOOperation.READ ? DISCONNECT_REASON_PEER_DISCONNECT_AT_RECV : DISCONNECT_REASON_PEER_DISCONNECT_AT_SEND);
                     } catch (BadProtocolException e) {
@@ -124,6 +132,8 @@ public class PGWireServer implements Closeable {
 
     @Override
     public void close() {
+        // parked connections go back to the dispatcher, which disconnects them on close
+        Misc.free(admissionWaitQueue);
         Misc.free(dispatcher);
     }
 
@@ -27,9 +27,9 @@ package io.questdb.griffin;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.sql.OperationFuture;
 import io.questdb.cairo.sql.RecordCursorFactory;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 
 public interface CompiledQuery {
@@ -80,6 +80,11 @@ public interface CompiledQuery {
 
     AlterOperation getAlterOperation();
 
+    /**
+     * Returns model of COPY ... FROM STDIN statement, data of which is streamed by the client.
+     */
+    CopyModel getCopyModel();
+
     InsertOperation getInsertOperation();
 
     RecordCursorFactory getRecordCursorFactory();
@@ -89,8 +94,6 @@ public interface CompiledQuery {
      */
     CharSequence getStatementName();
 
-    TextLoader getTextLoader();
-
     short getType();
 
     UpdateOperation getUpdateOperation();
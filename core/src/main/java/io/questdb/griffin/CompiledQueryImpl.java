@@ -29,11 +29,11 @@ import io.questdb.cairo.TableWriterAPI;
 import io.questdb.cairo.sql.InsertOperation;
 import io.questdb.cairo.sql.OperationFuture;
 import io.questdb.cairo.sql.RecordCursorFactory;
-import io.questdb.cutlass.text.TextLoader;
 import io.questdb.griffin.engine.ops.AlterOperation;
 import io.questdb.griffin.engine.ops.DoneOperationFuture;
 import io.questdb.griffin.engine.ops.OperationDispatcher;
 import io.questdb.griffin.engine.ops.UpdateOperation;
+import io.questdb.griffin.model.CopyModel;
 import io.questdb.mp.SCSequence;
 import io.questdb.std.Chars;
 import org.jetbrains.annotations.Nullable;
@@ -45,13 +45,13 @@ public class CompiledQueryImpl implements CompiledQuery {
     // number of rows either returned by SELECT operation or affected by UPDATE or INSERT
     private long affectedRowsCount;
     private AlterOperation alterOperation;
+    private CopyModel copyModel;
     private InsertOperation insertOperation;
     private RecordCursorFactory recordCursorFactory;
     private SqlExecutionContext sqlExecutionContext;
     private CharSequence sqlStatement;
     // prepared statement name for DEALLOCATE operation
     private CharSequence statementName;
-    private TextLoader textLoader;
     private short type;
     private UpdateOperation updateOperation;
 
@@ -102,6 +102,11 @@ public class CompiledQueryImpl implements CompiledQuery {
         return alterOperation;
     }
 
+    @Override
+    public CopyModel getCopyModel() {
+        return copyModel;
+    }
+
     @Override
     public InsertOperation getInsertOperation() {
         return insertOperation;
@@ -117,11 +122,6 @@ public class CompiledQueryImpl implements CompiledQuery {
         return statementName;
     }
 
-    @Override
-    public TextLoader getTextLoader() {
-        return textLoader;
-    }
-
     @Override
     public short getType() {
         return type;
@@ -197,9 +197,10 @@ public class CompiledQueryImpl implements CompiledQuery {
         return this;
     }
 
-    CompiledQuery ofCopyRemote(TextLoader textLoader) {
-        this.textLoader = textLoader;
-        return of(COPY_REMOTE);
+    CompiledQuery ofCopyRemote(CopyModel copyModel, @Nullable RecordCursorFactory factory) {
+        this.copyModel = copyModel;
+        // factory is set when data is copied to the client
+        return of(COPY_REMOTE, factory);
     }
 
     CompiledQuery ofCreateTable() {
@@ -59,6 +59,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
     // order of values matters here, partial match must have greater value than fuzzy match
     private static final int MATCH_NO_MATCH = 0;
     private static final int MATCH_PARTIAL_MATCH = 2;
+    // functions that return different values on every execution of the same query
+    private static final LowerCaseCharSequenceHashSet nonDeterministicFunctions = new LowerCaseCharSequenceHashSet();
     private final CairoConfiguration configuration;
     private final FunctionFactoryCache functionFactoryCache;
     private final ArrayDeque<Function> functionStack = new ArrayDeque<>();
@@ -134,6 +136,8 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
                 return Long256Column.newInstance(index);
             case ColumnType.LONG128:
                 return Long128Column.newInstance(index);
+            case ColumnType.UUID:
+                return UuidColumn.newInstance(index);
             default:
                 throw SqlException.position(position)
                         .put("unsupported column type ")
@@ -370,6 +374,11 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         return ex;
     }
 
+    private static boolean isNonDeterministic(CharSequence name) {
+        return nonDeterministicFunctions.contains(name)
+                || (name.length() > 4 && Chars.equalsLowerCaseAscii(name, 0, 4, "rnd_", 0, 4));
+    }
+
     private Function checkAndCreateFunction(
             FunctionFactory factory,
             @Transient ObjList<Function> args,
@@ -482,6 +491,7 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
                         || columnType == ColumnType.REGCLASS
                         || columnType == ColumnType.REGPROCEDURE
                         || columnType == ColumnType.ARRAY_STRING
+                        || columnType == ColumnType.UUID
         ) {
             return Constants.getTypeConstant(columnType);
         }
@@ -523,6 +533,11 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
             throw invalidFunction(node, args);
         }
 
+        if (sqlCodeGenerator != null && isNonDeterministic(node.token)) {
+            // results of such query cannot be reused
+            sqlCodeGenerator.disableResultCache();
+        }
+
         final int argCount = args == null ? 0 : args.size();
         FunctionFactory candidate = null;
         FunctionFactoryDescriptor candidateDescriptor = null;
@@ -947,5 +962,9 @@ public class FunctionParser implements PostOrderTreeTraversalAlgo.Visitor, Mutab
         FunctionFactoryCache.invalidFunctionNameChars.add(' ');
         FunctionFactoryCache.invalidFunctionNameChars.add('\"');
         FunctionFactoryCache.invalidFunctionNameChars.add('\'');
+
+        nonDeterministicFunctions.add("now");
+        nonDeterministicFunctions.add("systimestamp");
+        nonDeterministicFunctions.add("sysdate");
     }
 }
@@ -36,6 +36,9 @@ public class PlanSink {
     private String attrIndent;
     private String childIndent;
     private int depth;
+    // runtime statistics of the current and the next plan node, see EXPLAIN ANALYZE
+    private Sinkable lineStats;
+    private Sinkable nextStats;
 
     public PlanSink() {
         this.sink = new StringSink();
@@ -61,6 +64,7 @@ public class PlanSink {
     }
 
     public CharSequence getText() {
+        flushStats();
         return sink;
     }
 
@@ -73,12 +77,27 @@ public class PlanSink {
     public void reset() {
         this.sink.clear();
         this.depth = 0;
+        this.lineStats = null;
+        this.nextStats = null;
         this.attrIndent = "  ";
         this.childIndent = "    ";
     }
 
+    /**
+     * Runtime statistics of the next plan node. They are printed at the end of the line
+     * that starts with the node's type.
+     */
+    public PlanSink stats(Sinkable stats) {
+        this.nextStats = stats;
+        return this;
+    }
+
     public PlanSink type(CharSequence type) {
         sink.put(type);
+        if (nextStats != null) {
+            lineStats = nextStats;
+            nextStats = null;
+        }
         return this;
     }
 
@@ -124,7 +143,16 @@ public class PlanSink {
         return this;
     }
 
+    private void flushStats() {
+        if (lineStats != null) {
+            sink.put(' ');
+            lineStats.toSink(sink);
+            lineStats = null;
+        }
+    }
+
     private void newLine() {
+        flushStats();
         sink.put("\n");
         for (int i = 0; i < depth; i++) {
             sink.put(childIndent);
@@ -88,6 +88,7 @@ public class RecordToRowCopierUtils {
         int wPutSymChar = asm.poolInterfaceMethod(TableWriter.Row.class, "putSym", "(IC)V");
         int wPutStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putStr", "(ILjava/lang/CharSequence;)V");
         int wPutGeoStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putGeoStr", "(ILjava/lang/CharSequence;)V");
+        int wPutUuidStr = asm.poolInterfaceMethod(TableWriter.Row.class, "putUuid", "(ILjava/lang/CharSequence;)V");
         int implicitCastCharAsByte = asm.poolMethod(SqlUtil.class, "implicitCastCharAsByte", "(CI)B");
         int implicitCastCharAsGeoHash = asm.poolMethod(SqlUtil.class, "implicitCastCharAsGeoHash", "(CI)B");
         int implicitCastStrAsFloat = asm.poolMethod(SqlUtil.class, "implicitCastStrAsFloat", "(Ljava/lang/CharSequence;)F");
@@ -619,6 +620,9 @@ public class RecordToRowCopierUtils {
                         case ColumnType.GEOLONG:
                             asm.invokeInterface(wPutGeoStr, 2);
                             break;
+                        case ColumnType.UUID:
+                            asm.invokeInterface(wPutUuidStr, 2);
+                            break;
                         case ColumnType.STRING:
                             asm.invokeInterface(wPutStr, 2);
                             break;
@@ -638,7 +642,8 @@ public class RecordToRowCopierUtils {
                     asm.invokeInterface(wPutLong256, 2);
                     break;
                 case ColumnType.LONG128:
-                    assert toColumnTypeTag == ColumnType.LONG128;
+                case ColumnType.UUID:
+                    assert toColumnTypeTag == fromColumnTypeTag;
                     asm.invokeInterface(rGetLong128Hi);
                     asm.aload(1);
                     asm.iconst(i);
@@ -34,14 +34,17 @@ import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryCARW;
 import io.questdb.griffin.engine.EmptyTableRecordCursorFactory;
 import io.questdb.griffin.engine.LimitOverflowException;
+import io.questdb.griffin.engine.CachedResultRecordCursorFactory;
 import io.questdb.griffin.engine.LimitRecordCursorFactory;
 import io.questdb.griffin.engine.RecordComparator;
 import io.questdb.griffin.engine.analytic.AnalyticFunction;
 import io.questdb.griffin.engine.analytic.CachedAnalyticRecordCursorFactory;
+import io.questdb.griffin.engine.explain.ProfilingRecordCursorFactory;
 import io.questdb.griffin.engine.functions.GroupByFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.bind.IndexedParameterLinkFunction;
 import io.questdb.griffin.engine.functions.bind.NamedParameterLinkFunction;
+import io.questdb.griffin.engine.functions.bool.FilterFunctionCompiler;
 import io.questdb.griffin.engine.functions.cast.*;
 import io.questdb.griffin.engine.functions.columns.*;
 import io.questdb.griffin.engine.functions.constants.*;
@@ -62,6 +65,7 @@ import io.questdb.jit.JitUtil;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
+import io.questdb.std.ex.BytecodeException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -69,6 +73,7 @@ import java.io.Closeable;
 
 import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
 import static io.questdb.griffin.SqlKeywords.*;
+import static io.questdb.griffin.model.ExpressionNode.CONSTANT;
 import static io.questdb.griffin.model.ExpressionNode.FUNCTION;
 import static io.questdb.griffin.model.ExpressionNode.LITERAL;
 import static io.questdb.griffin.model.QueryModel.*;
@@ -83,7 +88,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private static final SetRecordCursorFactoryConstructor SET_EXCEPT_CONSTRUCTOR = ExceptRecordCursorFactory::new;
     private static final SetRecordCursorFactoryConstructor SET_INTERSECT_CONSTRUCTOR = IntersectRecordCursorFactory::new;
     private static final SetRecordCursorFactoryConstructor SET_UNION_CONSTRUCTOR = UnionRecordCursorFactory::new;
+    private static final IntObjHashMap<VectorAggregateFunctionConstructor> approxCountDistinctConstructors = new IntObjHashMap<>();
     private static final IntObjHashMap<VectorAggregateFunctionConstructor> avgConstructors = new IntObjHashMap<>();
+    private static final IntObjHashMap<VectorAggregateFunctionConstructor> countDistinctConstructors = new IntObjHashMap<>();
     private static final boolean[] joinsRequiringTimestamp = new boolean[JOIN_MAX + 1];
     private static final IntObjHashMap<VectorAggregateFunctionConstructor> ksumConstructors = new IntObjHashMap<>();
     private static final IntHashSet limitTypes = new IntHashSet();
@@ -99,6 +106,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final CairoEngine engine;
     private final EntityColumnFilter entityColumnFilter = new EntityColumnFilter();
     private final ObjectPool<ExpressionNode> expressionNodePool;
+    private final FilterFunctionCompiler filterFunctionCompiler;
     private final FunctionParser functionParser;
     private final IntList groupByFunctionPositions = new IntList();
     private final ObjObjHashMap<IntList, ObjList<AnalyticFunction>> groupedAnalytic = new ObjObjHashMap<>();
@@ -114,6 +122,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final RecordComparatorCompiler recordComparatorCompiler;
     private final IntList recordFunctionPositions = new IntList();
     private final WeakClosableObjectPool<PageFrameReduceTask> reduceTaskPool;
+    // interval models of the table scans, null when the whole table is scanned
+    private final ObjList<RuntimeIntrinsicIntervalModel> resultCacheIntervals = new ObjList<>();
+    // tables scanned by the query, results of the top-level query are versioned against these
+    private final ObjList<String> resultCacheTables = new ObjList<>();
     private final WhereClauseSymbolEstimator symbolEstimator = new WhereClauseSymbolEstimator();
     private final IntList tempAggIndex = new IntList();
     private final IntList tempKeyIndex = new IntList();
@@ -128,6 +140,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private final WhereClauseParser whereClauseParser = new WhereClauseParser();
     private boolean enableJitNullChecks = true;
     private boolean fullFatJoins = false;
+    // collects factories of the query stages for EXPLAIN ANALYZE, null when the query is not profiled
+    private ObjList<ProfilingRecordCursorFactory> profiledFactories;
+    private boolean resultCacheable = true;
 
     public SqlCodeGenerator(
             CairoEngine engine,
@@ -139,6 +154,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         this.configuration = configuration;
         this.functionParser = functionParser;
         this.recordComparatorCompiler = new RecordComparatorCompiler(asm);
+        this.filterFunctionCompiler = new FilterFunctionCompiler(asm);
         this.enableJitDebug = configuration.isSqlJitDebugEnabled();
         this.jitIRMem = Vm.getCARWInstance(configuration.getSqlJitIRMemoryPageSize(),
                 configuration.getSqlJitIRMemoryMaxPages(), MemoryTag.NATIVE_JIT);
@@ -157,6 +173,9 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         whereClauseParser.clear();
         symbolEstimator.clear();
         intListPool.clear();
+        resultCacheTables.clear();
+        resultCacheIntervals.clear();
+        resultCacheable = true;
     }
 
     @Override
@@ -183,6 +202,68 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return generateQuery(model, executionContext, true);
     }
 
+    /**
+     * Generates factory of the query with each query stage, such as select, filter, order by or limit,
+     * wrapped into {@link ProfilingRecordCursorFactory}, which collects the stage's runtime statistics.
+     *
+     * @param profiledFactories receives the wrapping factories, outer stages follow the inner ones
+     */
+    public RecordCursorFactory generate(
+            QueryModel model,
+            SqlExecutionContext executionContext,
+            ObjList<ProfilingRecordCursorFactory> profiledFactories
+    ) throws SqlException {
+        this.profiledFactories = profiledFactories;
+        try {
+            return generateQuery(model, executionContext, true);
+        } finally {
+            this.profiledFactories = null;
+        }
+    }
+
+    /**
+     * Wraps factory of the top-level query into {@link CachedResultRecordCursorFactory} when result cache
+     * is enabled and the query result can be reused, i.e. the query reads tables only and calls no functions
+     * such as now() or rnd_int().
+     *
+     * @param factory top-level factory, generated since the last {@link #clear()}
+     * @param query   query text
+     * @return either the original or the wrapping factory
+     */
+    public RecordCursorFactory generateResultCache(RecordCursorFactory factory, CharSequence query) {
+        if (!configuration.isSqlResultCacheEnabled() || !resultCacheable || resultCacheTables.size() == 0) {
+            return factory;
+        }
+
+        final RecordMetadata metadata = factory.getMetadata();
+        final int columnCount = metadata.getColumnCount();
+        final ArrayColumnTypes chainTypes = new ArrayColumnTypes();
+        for (int i = 0; i < columnCount; i++) {
+            final int columnType = metadata.getColumnType(i);
+            if (!CachedResultRecordCursorFactory.isCacheable(columnType)) {
+                return factory;
+            }
+            // symbols are stored as strings
+            chainTypes.add(ColumnType.isSymbol(columnType) ? ColumnType.STRING : columnType);
+        }
+
+        try {
+            entityColumnFilter.of(columnCount);
+            return new CachedResultRecordCursorFactory(
+                    engine,
+                    factory,
+                    query,
+                    new ObjList<>(resultCacheTables),
+                    new ObjList<>(resultCacheIntervals),
+                    chainTypes,
+                    RecordSinkFactory.getInstance(asm, metadata, entityColumnFilter, true)
+            );
+        } catch (Throwable th) {
+            Misc.free(factory);
+            throw th;
+        }
+    }
+
     private static boolean allGroupsFirstLastWithSingleSymbolFilter(QueryModel model, RecordMetadata metadata) {
         final ObjList<QueryColumn> columns = model.getColumns();
         for (int i = 0, n = columns.size(); i < n; i++) {
@@ -205,6 +286,17 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return true;
     }
 
+    private static VectorAggregateFunctionConstructor approxPercentileConstructor(int columnType, double percentile) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.DOUBLE:
+            case ColumnType.LONG:
+            case ColumnType.INT:
+                return (keyKind, columnIndex, workerCount) -> new ApproxPercentileVectorAggregateFunction(columnType, columnIndex, percentile, workerCount);
+            default:
+                return null;
+        }
+    }
+
     private static RecordCursorFactory createFullFatAsOfJoin(CairoConfiguration configuration,
                                                              RecordMetadata metadata,
                                                              RecordCursorFactory masterFactory,
@@ -243,6 +335,14 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return model.getOrderByDirectionAdvice().getQuick(index);
     }
 
+    // distinct counts and percentiles keep per-worker sets and digests, which are not stored in Rosti
+    private static boolean isNonKeyedVectorFunction(ExpressionNode ast) {
+        return Chars.equalsIgnoreCase(ast.token, "count_distinct")
+                || Chars.equalsIgnoreCase(ast.token, "approx_count_distinct")
+                || Chars.equalsIgnoreCase(ast.token, "approx_median")
+                || Chars.equalsIgnoreCase(ast.token, "approx_percentile");
+    }
+
     private VectorAggregateFunctionConstructor assembleFunctionReference(RecordMetadata metadata, ExpressionNode ast) {
         int columnIndex;
         if (ast.type == FUNCTION && ast.paramCount == 1 && SqlKeywords.isSumKeyword(ast.token) && ast.rhs.type == LITERAL) {
@@ -273,6 +373,41 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             columnIndex = metadata.getColumnIndex(ast.rhs.token);
             tempVecConstructorArgIndexes.add(columnIndex);
             return maxConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "count_distinct")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return countDistinctConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "approx_count_distinct")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return approxCountDistinctConstructors.get(metadata.getColumnType(columnIndex));
+        } else if (isSingleColumnFunction(ast, "approx_median")) {
+            columnIndex = metadata.getColumnIndex(ast.rhs.token);
+            tempVecConstructorArgIndexes.add(columnIndex);
+            return approxPercentileConstructor(metadata.getColumnType(columnIndex), 0.5);
+        } else if (
+                ast.type == FUNCTION
+                        && ast.paramCount == 2
+                        && Chars.equalsIgnoreCase(ast.token, "approx_percentile")
+                        && ast.lhs.type == LITERAL
+                        && ast.rhs.type == CONSTANT
+        ) {
+            final double percentile;
+            try {
+                percentile = Numbers.parseDouble(ast.rhs.token);
+            } catch (NumericException e) {
+                return null;
+            }
+            if (percentile < 0 || percentile > 1) {
+                // let the group by function report the error
+                return null;
+            }
+            columnIndex = metadata.getColumnIndex(ast.lhs.token);
+            final VectorAggregateFunctionConstructor constructor = approxPercentileConstructor(metadata.getColumnType(columnIndex), percentile);
+            if (constructor != null) {
+                tempVecConstructorArgIndexes.add(columnIndex);
+            }
+            return constructor;
         }
         return null;
     }
@@ -289,6 +424,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         tempVecConstructorArgIndexes.clear();
         tempAggIndex.clear();
 
+        boolean keyedAggregationSupported = true;
         for (int i = 0, n = columns.size(); i < n; i++) {
             final QueryColumn qc = columns.getQuick(i);
             final ExpressionNode ast = qc.getAst();
@@ -316,12 +452,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 if (constructor != null) {
                     tempVecConstructors.add(constructor);
                     tempAggIndex.add(i);
+                    keyedAggregationSupported &= !isNonKeyedVectorFunction(ast);
                 } else {
                     return false;
                 }
             }
         }
-        return true;
+        return keyedAggregationSupported || tempKeyIndexesInBase.size() == 0;
     }
 
     // Check if lo, hi is set and lo >=0 while hi < 0 (meaning - return whole result set except some rows at start and some at the end)
@@ -372,17 +509,43 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return null;
     }
 
+    /**
+     * Wraps Java filter function into a bytecode-compiled one, when the filter expression
+     * has anything to compile. The original function is used when compilation fails.
+     */
+    private Function compileJavaFilter(
+            Function filter,
+            ExpressionNode filterExpr,
+            RecordMetadata metadata,
+            SqlExecutionContext executionContext
+    ) {
+        try {
+            final Function compiledFilter = filterFunctionCompiler.compile(filter, filterExpr, metadata);
+            if (compiledFilter != null) {
+                return compiledFilter;
+            }
+        } catch (BytecodeException e) {
+            LOG.debug().$("could not compile filter [fd=").$(executionContext.getRequestFd()).$(", ex=").$(e).I$();
+        }
+        return filter;
+    }
+
     private @Nullable ObjList<Function> compileWorkerFilterConditionally(
             boolean condition,
             int workerCount,
             ExpressionNode filterExpr,
             RecordMetadata metadata,
-            SqlExecutionContext executionContext
+            SqlExecutionContext executionContext,
+            boolean javaFilter
     ) throws SqlException {
         if (condition) {
             ObjList<Function> workerFilters = new ObjList<>();
             for (int i = 0; i < workerCount; i++) {
-                workerFilters.extendAndSet(i, compileBooleanFilter(filterExpr, metadata, executionContext));
+                Function workerFilter = compileBooleanFilter(filterExpr, metadata, executionContext);
+                if (javaFilter) {
+                    workerFilter = compileJavaFilter(workerFilter, filterExpr, metadata, executionContext);
+                }
+                workerFilters.extendAndSet(i, workerFilter);
             }
             return workerFilters;
         }
@@ -1318,7 +1481,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                     executionContext.getSharedWorkerCount(),
                                     filterExpr,
                                     factory.getMetadata(),
-                                    executionContext
+                                    executionContext,
+                                    false
                             ),
                             jitFilter,
                             reduceTaskPool,
@@ -1339,11 +1503,12 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             }
 
             // Use Java filter.
+            final Function javaFilter = compileJavaFilter(filter, filterExpr, factory.getMetadata(), executionContext);
             final Function limitLoFunction;
             try {
                 limitLoFunction = getLimitLoFunctionOnly(model, executionContext);
             } catch (Throwable e) {
-                Misc.free(filter);
+                Misc.free(javaFilter);
                 Misc.free(factory);
                 throw e;
             }
@@ -1352,24 +1517,27 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     configuration,
                     executionContext.getMessageBus(),
                     factory,
-                    filter,
+                    javaFilter,
                     reduceTaskPool,
                     compileWorkerFilterConditionally(
-                            !filter.isReadThreadSafe(),
+                            !javaFilter.isReadThreadSafe(),
                             executionContext.getSharedWorkerCount(),
                             filterExpr,
                             factory.getMetadata(),
-                            executionContext
+                            executionContext,
+                            true
                     ),
                     limitLoFunction,
                     limitLoPos,
                     preTouchColumns
             );
         }
-        return new FilteredRecordCursorFactory(factory, filter);
+        return new FilteredRecordCursorFactory(factory, compileJavaFilter(filter, filterExpr, factory.getMetadata(), executionContext));
     }
 
     private RecordCursorFactory generateFunctionQuery(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        // function cursors are not versioned
+        resultCacheable = false;
         final Function function = model.getTableNameFunction();
         if (function != null) {
             // We're transferring ownership of the function's factory to another factory
@@ -1591,7 +1759,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 ExpressionNode filterExpr = slaveModel.getPostJoinWhereClause();
                 if (filterExpr != null) {
                     if (configuration.isSqlParallelFilterEnabled() && master.supportPageFrameCursor()) {
-                        final Function filter = compileBooleanFilter(
+                        final Function filter = compileJavaFilter(
+                                compileBooleanFilter(filterExpr, master.getMetadata(), executionContext),
                                 filterExpr,
                                 master.getMetadata(),
                                 executionContext
@@ -1608,7 +1777,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                                         executionContext.getSharedWorkerCount(),
                                         filterExpr,
                                         master.getMetadata(),
-                                        executionContext
+                                        executionContext,
+                                        true
                                 ),
                                 null,
                                 0,
@@ -2087,6 +2257,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
                     if (canBeOptimized(model, executionContext, loFunc, hiFunc)) {
                         model.setLimitImplemented(true);
+                        generateTopKFilter(recordCursorFactory, metadata, listColumnFilterA, loFunc, hiFunc, executionContext);
                         return new LimitedSizeSortedLightRecordCursorFactory(
                                 configuration,
                                 orderedMetadata,
@@ -2133,32 +2304,17 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     private RecordCursorFactory generateQuery(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
         RecordCursorFactory factory = generateQuery0(model, executionContext, processJoins);
         if (model.getUnionModel() != null) {
-            return generateSetFactory(model, factory, executionContext);
+            return profile(factory, generateSetFactory(model, factory, executionContext));
         }
         return factory;
     }
 
     private RecordCursorFactory generateQuery0(QueryModel model, SqlExecutionContext executionContext, boolean processJoins) throws SqlException {
-        return generateLimit(
-                generateOrderBy(
-                        generateLatestBy(
-                                generateFilter(
-                                        generateSelect(
-                                                model,
-                                                executionContext,
-                                                processJoins
-                                        ),
-                                        model,
-                                        executionContext
-                                ),
-                                model
-                        ),
-                        model,
-                        executionContext
-                ),
-                model,
-                executionContext
-        );
+        RecordCursorFactory factory = profile(null, generateSelect(model, executionContext, processJoins));
+        factory = profile(factory, generateFilter(factory, model, executionContext));
+        factory = profile(factory, generateLatestBy(factory, model));
+        factory = profile(factory, generateOrderBy(factory, model, executionContext));
+        return profile(factory, generateLimit(factory, model, executionContext));
     }
 
     @NotNull
@@ -3048,8 +3204,15 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
             RecordMetadata metadata = factory.getMetadata();
 
+            // Parallel filter publishes row ids of matching rows per page frame. Non-keyed vector
+            // aggregates can consume these directly instead of going through the record cursor.
+            final boolean filteredFramingSupported = !pageFramingSupported
+                    && !specialCaseKeys
+                    && factory.supportsPageFrameSequence()
+                    && !factory.followedLimitAdvice();
+
             // Inspect model for possibility of vector aggregate intrinsics.
-            if (pageFramingSupported && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys)) {
+            if ((pageFramingSupported || filteredFramingSupported) && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys)) {
                 // Create metadata from everything we've gathered.
                 GenericRecordMetadata meta = new GenericRecordMetadata();
 
@@ -3100,6 +3263,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                 }
 
                 if (tempKeyIndexesInBase.size() == 0) {
+                    if (filteredFramingSupported) {
+                        return new GroupByNotKeyedFilteredVectorRecordCursorFactory(
+                                factory,
+                                meta,
+                                tempVaf
+                        );
+                    }
                     return new GroupByNotKeyedVectorRecordCursorFactory(
                             configuration,
                             factory,
@@ -3108,7 +3278,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     );
                 }
 
-                if (tempKeyIndexesInBase.size() == 1) {
+                if (tempKeyIndexesInBase.size() == 1 && pageFramingSupported) {
                     for (int i = 0, n = tempVaf.size(); i < n; i++) {
                         tempVaf.getQuick(i).pushValueTypes(arrayColumnTypes);
                     }
@@ -3228,7 +3398,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
     }
 
     @NotNull
-    private VirtualRecordCursorFactory generateSelectVirtualWithSubquery(QueryModel model, SqlExecutionContext executionContext, RecordCursorFactory factory) throws SqlException {
+    private RecordCursorFactory generateSelectVirtualWithSubquery(QueryModel model, SqlExecutionContext executionContext, RecordCursorFactory factory) throws SqlException {
         try {
             final ObjList<QueryColumn> columns = model.getColumns();
             final int columnCount = columns.size();
@@ -3362,6 +3532,30 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     }
                 }
             }
+
+            if (
+                    configuration.isSqlColumnarProjectionEnabled()
+                            && !model.isUpdate()
+                            && factory.supportPageFrameCursor()
+                            && !factory.hasDescendingOrder()
+            ) {
+                // arithmetic projections over table columns are evaluated column-at-a-time
+                ObjList<DoubleProjectionKernel> kernels = null;
+                for (int i = 0; i < columnCount; i++) {
+                    if (functions.getQuick(i).getType() == ColumnType.DOUBLE) {
+                        final DoubleProjectionKernel kernel = DoubleProjectionKernel.compile(columns.getQuick(i).getAst(), metadata);
+                        if (kernel != null) {
+                            if (kernels == null) {
+                                kernels = new ObjList<>(columnCount);
+                            }
+                            kernels.extendAndSet(i, kernel);
+                        }
+                    }
+                }
+                if (kernels != null) {
+                    return new PageFrameVirtualRecordCursorFactory(configuration, virtualMetadata, functions, kernels, factory);
+                }
+            }
             return new VirtualRecordCursorFactory(virtualMetadata, functions, factory);
         } catch (SqlException | CairoException e) {
             factory.close();
@@ -3527,6 +3721,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
         // topDownColumnCount can be 0 for 'select count()' queries
 
+        resultCacheTables.add(reader.getTableName());
+        resultCacheIntervals.add(null);
+        final int resultCacheScanIndex = resultCacheTables.size() - 1;
+
         int readerTimestampIndex;
         readerTimestampIndex = getTimestampIndex(model, metadata);
 
@@ -3676,6 +3874,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
             final boolean intervalHitsOnlyOnePartition;
             if (intrinsicModel.hasIntervalFilters()) {
                 RuntimeIntrinsicIntervalModel intervalModel = intrinsicModel.buildIntervalModel();
+                resultCacheIntervals.setQuick(resultCacheScanIndex, intervalModel);
                 dfcFactory = new IntervalFwdDataFrameCursorFactory(tableName, model.getTableId(), model.getTableVersion(), intervalModel, readerTimestampIndex);
                 intervalHitsOnlyOnePartition = intervalModel.allIntervalsHitOnePartition(reader.getPartitionedBy());
             } else {
@@ -3695,6 +3894,8 @@ public class SqlCodeGenerator implements Mutable, Closeable {
 
                     Function f = compileFilter(intrinsicModel, myMeta, executionContext);
                     if (f != null && f.isConstant() && !f.getBool(null)) {
+                        // interval model is freed along with the data frame cursor factory
+                        resultCacheIntervals.setQuick(resultCacheScanIndex, null);
                         Misc.free(dfcFactory);
                         return new EmptyTableRecordCursorFactory(myMeta);
                     }
@@ -3738,6 +3939,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     if (f != null && f.isConstant()) {
                         try {
                             if (!f.getBool(null)) {
+                                resultCacheIntervals.setQuick(resultCacheScanIndex, null);
                                 Misc.free(dfcFactory);
                                 return new EmptyTableRecordCursorFactory(myMeta);
                             }
@@ -3834,6 +4036,7 @@ public class SqlCodeGenerator implements Mutable, Closeable {
                     if (f != null && f.isConstant()) {
                         try {
                             if (!f.getBool(null)) {
+                                resultCacheIntervals.setQuick(resultCacheScanIndex, null);
                                 Misc.free(dfcFactory);
                                 return new EmptyTableRecordCursorFactory(myMeta);
                             }
@@ -4015,6 +4218,69 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         );
     }
 
+    // Lets parallel filter workers narrow the rows matched in each page frame down to the
+    // ORDER BY ... LIMIT N candidates, so that the serial top N tree is fed with a fraction of them.
+    private void generateTopKFilter(
+            RecordCursorFactory factory,
+            RecordMetadata metadata,
+            IntList orderByColumns,
+            Function loFunc,
+            Function hiFunc,
+            SqlExecutionContext executionContext
+    ) {
+        if (factory instanceof ProfilingRecordCursorFactory) {
+            factory = ((ProfilingRecordCursorFactory) factory).getBaseFactory();
+        }
+        if (!(factory instanceof AsyncFilteredRecordCursorFactory) && !(factory instanceof AsyncJitFilteredRecordCursorFactory)) {
+            return;
+        }
+        if (!loFunc.isConstant() || (hiFunc != null && !hiFunc.isConstant())) {
+            return;
+        }
+        for (int i = 0, n = orderByColumns.size(); i < n; i++) {
+            final int index = orderByColumns.getQuick(i);
+            // symbol tables are not safe to read from multiple threads
+            if (ColumnType.isSymbol(metadata.getColumnType((index > 0 ? index : -index) - 1))) {
+                return;
+            }
+        }
+
+        final long lo = loFunc.getLong(null);
+        final long limit;
+        final boolean isFirstN;
+        if (hiFunc == null) {
+            isFirstN = lo > -1;
+            limit = isFirstN ? lo : -lo;
+        } else {
+            final long hi = hiFunc.getLong(null);
+            if (lo < 0 && lo < hi) {
+                isFirstN = false;
+                limit = -lo;
+            } else if (lo > -1 && hi > lo) {
+                isFirstN = true;
+                limit = hi;
+            } else {
+                return;
+            }
+        }
+        if (limit < 1) {
+            return;
+        }
+
+        // owner thread may reduce frames alongside the workers, each gets an instance of the same comparator class
+        final Class<RecordComparator> comparatorClass = recordComparatorCompiler.compileClass(metadata, orderByColumns);
+        final ObjList<RecordComparator> comparators = new ObjList<>();
+        for (int i = 0, n = executionContext.getSharedWorkerCount() + 1; i < n; i++) {
+            comparators.add(BytecodeAssembler.newInstance(comparatorClass));
+        }
+        final PageFrameTopKFilter topKFilter = new PageFrameTopKFilter(comparators, limit, isFirstN);
+        if (factory instanceof AsyncFilteredRecordCursorFactory) {
+            ((AsyncFilteredRecordCursorFactory) factory).setTopKFilter(topKFilter);
+        } else {
+            ((AsyncJitFilteredRecordCursorFactory) factory).setTopKFilter(topKFilter);
+        }
+    }
+
     private RecordCursorFactory generateUnionAllFactory(
             QueryModel model,
             SqlExecutionContext executionContext,
@@ -4230,6 +4496,16 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         }
     }
 
+    // wraps factory of the next query stage, unless the stage kept the factory of the previous one
+    private RecordCursorFactory profile(@Nullable RecordCursorFactory prev, RecordCursorFactory factory) {
+        if (profiledFactories == null || factory == prev || factory instanceof ProfilingRecordCursorFactory) {
+            return factory;
+        }
+        final ProfilingRecordCursorFactory profilingFactory = new ProfilingRecordCursorFactory(factory, configuration.getNanosecondClock());
+        profiledFactories.add(profilingFactory);
+        return profilingFactory;
+    }
+
     private Function toLimitFunction(
             SqlExecutionContext executionContext,
             ExpressionNode limit,
@@ -4350,6 +4626,10 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         return metadata;
     }
 
+    void disableResultCache() {
+        resultCacheable = false;
+    }
+
     // used in tests
     void setEnableJitNullChecks(boolean value) {
         enableJitNullChecks = value;
@@ -4429,5 +4709,13 @@ public class SqlCodeGenerator implements Mutable, Closeable {
         maxConstructors.put(ColumnType.DATE, MaxDateVectorAggregateFunction::new);
         maxConstructors.put(ColumnType.TIMESTAMP, MaxTimestampVectorAggregateFunction::new);
         maxConstructors.put(ColumnType.INT, MaxIntVectorAggregateFunction::new);
+
+        countDistinctConstructors.put(ColumnType.INT, (keyKind, columnIndex, workerCount) -> new CountDistinctVectorAggregateFunction(ColumnType.INT, columnIndex, workerCount));
+        countDistinctConstructors.put(ColumnType.LONG, (keyKind, columnIndex, workerCount) -> new CountDistinctVectorAggregateFunction(ColumnType.LONG, columnIndex, workerCount));
+        countDistinctConstructors.put(ColumnType.SYMBOL, (keyKind, columnIndex, workerCount) -> new CountDistinctVectorAggregateFunction(ColumnType.SYMBOL, columnIndex, workerCount));
+
+        approxCountDistinctConstructors.put(ColumnType.INT, (keyKind, columnIndex, workerCount) -> new ApproxCountDistinctVectorAggregateFunction(ColumnType.INT, columnIndex, workerCount));
+        approxCountDistinctConstructors.put(ColumnType.LONG, (keyKind, columnIndex, workerCount) -> new ApproxCountDistinctVectorAggregateFunction(ColumnType.LONG, columnIndex, workerCount));
+        approxCountDistinctConstructors.put(ColumnType.SYMBOL, (keyKind, columnIndex, workerCount) -> new ApproxCountDistinctVectorAggregateFunction(ColumnType.SYMBOL, columnIndex, workerCount));
     }
 }
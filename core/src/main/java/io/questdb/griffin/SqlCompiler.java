@@ -33,6 +33,8 @@ import io.questdb.cairo.sql.*;
 import io.questdb.cairo.vm.Vm;
 import io.questdb.cairo.vm.api.MemoryMARW;
 import io.questdb.cutlass.text.*;
+import io.questdb.griffin.engine.explain.ExplainPlanRecordCursorFactory;
+import io.questdb.griffin.engine.explain.ProfilingRecordCursorFactory;
 import io.questdb.griffin.engine.functions.catalogue.*;
 import io.questdb.griffin.engine.ops.AlterOperationBuilder;
 import io.questdb.griffin.engine.ops.CopyFactory;
@@ -102,7 +104,6 @@ public class SqlCompiler implements Closeable {
     private final ObjectPool<ExpressionNode> sqlNodePool;
     private final TableStructureAdapter tableStructureAdapter = new TableStructureAdapter();
     private final ObjList<TableWriterAPI> tableWriters = new ObjList<>();
-    private final TextLoader textLoader;
     private final IntIntHashMap typeCast = new IntIntHashMap();
     private final VacuumColumnVersions vacuumColumnVersions;
     // Helper var used to pass back count in cases it can't be done via method result.
@@ -164,6 +165,7 @@ public class SqlCompiler implements Closeable {
         final KeywordBasedExecutor vacuumTable = this::vacuum;
         final KeywordBasedExecutor snapshotDatabase = this::snapshotDatabase;
         final KeywordBasedExecutor compileDeallocate = this::compileDeallocate;
+        final KeywordBasedExecutor compileExplain = this::compileExplain;
 
         keywordBasedExecutors.put("truncate", truncateTables);
         keywordBasedExecutors.put("TRUNCATE", truncateTables);
@@ -199,6 +201,8 @@ public class SqlCompiler implements Closeable {
         keywordBasedExecutors.put("VACUUM", vacuumTable);
         keywordBasedExecutors.put("snapshot", snapshotDatabase);
         keywordBasedExecutors.put("SNAPSHOT", snapshotDatabase);
+        keywordBasedExecutors.put("explain", compileExplain);
+        keywordBasedExecutors.put("EXPLAIN", compileExplain);
         keywordBasedExecutors.put("deallocate", compileDeallocate);
         keywordBasedExecutors.put("DEALLOCATE", compileDeallocate);
 
@@ -226,7 +230,6 @@ public class SqlCompiler implements Closeable {
                 queryModelPool,
                 postOrderTreeTraversalAlgo
         );
-        this.textLoader = new TextLoader(engine);
         alterOperationBuilder = new AlterOperationBuilder();
     }
 
@@ -248,7 +251,6 @@ public class SqlCompiler implements Closeable {
         vacuumColumnVersions.close();
         Misc.free(path);
         Misc.free(renamePath);
-        Misc.free(textLoader);
         Misc.free(rebuildIndex);
         Misc.free(codeGenerator);
         Misc.free(mem);
@@ -1039,6 +1041,12 @@ public class SqlCompiler implements Closeable {
                 throw SqlException.$(paramNameNamePosition, "o3MaxLag must be non negative");
             }
             return compiledQuery.ofAlter(alterOperationBuilder.ofSetO3MaxLag(tableNamePosition, tableName, tableId, o3MaxLag).build());
+        } else if (isTtlKeyword(paramName)) {
+            long ttl = SqlUtil.expectMicros(value, paramNameNamePosition);
+            if (ttl < 0) {
+                throw SqlException.$(paramNameNamePosition, "ttl must be non negative");
+            }
+            return compiledQuery.ofAlter(alterOperationBuilder.ofSetParamTtl(tableNamePosition, tableName, tableId, ttl).build());
         } else {
             throw SqlException.$(paramNameNamePosition, "unknown parameter '").put(paramName).put('\'');
         }
@@ -1132,6 +1140,28 @@ public class SqlCompiler implements Closeable {
         }
     }
 
+    private CompiledQuery compileExplain(SqlExecutionContext executionContext) throws SqlException {
+        CharSequence tok = SqlUtil.fetchNext(lexer);
+        final boolean analyze = tok != null && isAnalyzeKeyword(tok);
+        if (analyze) {
+            tok = SqlUtil.fetchNext(lexer);
+        }
+        if (tok == null) {
+            throw SqlException.$(lexer.getPosition(), "query expected");
+        }
+        final int position = lexer.lastTokenPosition();
+        lexer.unparseLast();
+        codeGenerator.clear();
+
+        final ExecutionModel executionModel = compileExecutionModel(executionContext);
+        if (executionModel.getModelType() != ExecutionModel.QUERY) {
+            throw SqlException.$(position, "EXPLAIN supports SELECT queries only");
+        }
+        final ObjList<ProfilingRecordCursorFactory> profiledFactories = analyze ? new ObjList<>() : null;
+        final RecordCursorFactory factory = codeGenerator.generate((QueryModel) executionModel, executionContext, profiledFactories);
+        return compiledQuery.of(new ExplainPlanRecordCursorFactory(factory, profiledFactories));
+    }
+
     private CompiledQuery compileInner(@NotNull SqlExecutionContext executionContext, CharSequence query) throws SqlException {
         SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
         if (!circuitBreaker.isTimerSet()) {
@@ -1143,7 +1173,7 @@ public class SqlCompiler implements Closeable {
         }
 
         final KeywordBasedExecutor executor = keywordBasedExecutors.get(tok);
-        final CompiledQuery cq = executor == null ? compileUsingModel(executionContext) : executor.execute(executionContext);
+        final CompiledQuery cq = executor == null ? compileUsingModel(executionContext, query) : executor.execute(executionContext);
         final short type = cq.getType();
         if (type == CompiledQuery.ALTER || type == CompiledQuery.UPDATE) {
             cq.withSqlStatement(Chars.toString(query));
@@ -1178,7 +1208,7 @@ public class SqlCompiler implements Closeable {
     }
 
     @NotNull
-    private CompiledQuery compileUsingModel(SqlExecutionContext executionContext) throws SqlException {
+    private CompiledQuery compileUsingModel(SqlExecutionContext executionContext, CharSequence query) throws SqlException {
         // This method will not populate sql cache directly;
         // factories are assumed to be non-reentrant and once
         // factory is out of this method the caller assumes
@@ -1194,7 +1224,9 @@ public class SqlCompiler implements Closeable {
         switch (executionModel.getModelType()) {
             case ExecutionModel.QUERY:
                 LOG.info().$("plan [q=`").$((QueryModel) executionModel).$("`, fd=").$(executionContext.getRequestFd()).$(']').$();
-                return compiledQuery.of(generate((QueryModel) executionModel, executionContext));
+                final RecordCursorFactory factory = generate((QueryModel) executionModel, executionContext);
+                // results are keyed on the query text, which is not known in batch mode
+                return compiledQuery.of(isSingleQueryMode ? codeGenerator.generateResultCache(factory, query) : factory);
             case ExecutionModel.CREATE_TABLE:
                 return createTableWithRetries(executionModel, executionContext);
             case ExecutionModel.COPY:
@@ -1641,11 +1673,15 @@ public class SqlCompiler implements Closeable {
 
     @NotNull
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
+        if (executionModel.getQueryModel() != null) {
+            // COPY ... TO STDOUT, result is streamed to the client by the protocol implementation
+            final QueryModel queryModel = optimiser.optimise(executionModel.getQueryModel(), executionContext);
+            return compiledQuery.ofCopyRemote(executionModel, generate(queryModel, executionContext));
+        }
         executionContext.getCairoSecurityContext().checkWritePermission();
         if (!executionModel.isCancel() && Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
-            // no-op implementation
-            setupTextLoaderFromModel(executionModel);
-            return compiledQuery.ofCopyRemote(textLoader);
+            // data is streamed by the client, statement is executed by the protocol implementation
+            return compiledQuery.ofCopyRemote(executionModel, null);
         }
         RecordCursorFactory copyFactory = executeCopy0(executionModel);
         return compiledQuery.ofCopyLocal(copyFactory);
@@ -2205,19 +2241,6 @@ public class SqlCompiler implements Closeable {
         return compiledQuery.ofRepair();
     }
 
-    private void setupTextLoaderFromModel(CopyModel model) {
-        textLoader.clear();
-        textLoader.setState(TextLoader.ANALYZE_STRUCTURE);
-        // todo: configure the following
-        //   - what happens when data row errors out, max errors may be?
-        //   - we should be able to skip X rows from top, dodgy headers etc.
-
-        textLoader.configureDestination(model.getTarget().token, false, false,
-                model.getAtomicity() != -1 ? model.getAtomicity() : Atomicity.SKIP_ROW,
-                model.getPartitionBy() < 0 ? PartitionBy.NONE : model.getPartitionBy(),
-                model.getTimestampColumnName(), model.getTimestampFormat());
-    }
-
     private CompiledQuery snapshotDatabase(SqlExecutionContext executionContext) throws SqlException {
         executionContext.getCairoSecurityContext().checkWritePermission();
         CharSequence tok = expectToken(lexer, "'prepare' or 'complete'");
@@ -40,6 +40,7 @@ public final class SqlParser {
 
     public static final int MAX_ORDER_BY_COLUMNS = 1560;
     private static final ExpressionNode ONE = ExpressionNode.FACTORY.newInstance().of(ExpressionNode.CONSTANT, "1", 0, 0);
+    private static final String PARTITION_BY_EXPECTED = "'NONE', 'MINUTE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected";
     private static final ExpressionNode ZERO_OFFSET = ExpressionNode.FACTORY.newInstance().of(ExpressionNode.CONSTANT, "'00:00'", 0, 0);
     private static final LowerCaseAsciiCharSequenceHashSet columnAliasStop = new LowerCaseAsciiCharSequenceHashSet();
     private static final LowerCaseAsciiCharSequenceHashSet groupByStopSet = new LowerCaseAsciiCharSequenceHashSet();
@@ -148,6 +149,13 @@ public final class SqlParser {
         }
     }
 
+    private void addCopyColumnName(CopyModel model, ExpressionNode node) throws SqlException {
+        if (node.type != ExpressionNode.LITERAL) {
+            throw SqlException.$(node.position, "column name expected");
+        }
+        model.addColumnName(GenericLexer.immutableOf(GenericLexer.unquote(node.token)));
+    }
+
     private void assertNotDot(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (Chars.indexOf(tok, '.') != -1) {
             throw SqlException.$(lexer.lastTokenPosition(), "'.' is not allowed here");
@@ -171,6 +179,14 @@ public final class SqlParser {
         throw SqlException.$((lexer.lastTokenPosition()), "'by' expected");
     }
 
+    private CharSequence expectCopyOptionValue(GenericLexer lexer, String expectedValue) throws SqlException {
+        CharSequence tok = tok(lexer, expectedValue);
+        if (isAsKeyword(tok)) {
+            tok = tok(lexer, expectedValue);
+        }
+        return tok;
+    }
+
     private ExpressionNode expectExpr(GenericLexer lexer) throws SqlException {
         final ExpressionNode n = expr(lexer, (QueryModel) null);
         if (n != null) {
@@ -203,6 +219,24 @@ public final class SqlParser {
         return nextLiteral(GenericLexer.immutableOf(GenericLexer.unquote(tok)), pos);
     }
 
+    /**
+     * Expects partition unit, optionally preceded by the unit multiplier, e.g. "DAY" or "15 MINUTE".
+     * Multiplier and unit are returned as single literal, which is validated by {@link PartitionBy#fromString(CharSequence)}.
+     */
+    private ExpressionNode expectPartitionBy(GenericLexer lexer) throws SqlException {
+        final CharSequence tok = tok(lexer, "partition unit");
+        final int pos = lexer.lastTokenPosition();
+        validateLiteral(pos, tok);
+        try {
+            Numbers.parseInt(tok);
+        } catch (NumericException e) {
+            return nextLiteral(GenericLexer.immutableOf(GenericLexer.unquote(tok)), pos);
+        }
+        final CharacterStoreEntry entry = characterStore.newEntry();
+        entry.put(tok).put(' ').put(tok(lexer, "partition unit"));
+        return nextLiteral(entry.toImmutable(), pos);
+    }
+
     private long expectLong(GenericLexer lexer) throws SqlException {
         CharSequence tok = tok(lexer, "long integer");
         boolean negative;
@@ -249,6 +283,13 @@ public final class SqlParser {
         model.setSampleBy(n, periodUnit);
     }
 
+    private void expectStdout(GenericLexer lexer) throws SqlException {
+        final CharSequence tok = tok(lexer, "'stdout'");
+        if (!isStdoutKeyword(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "'stdout' expected");
+        }
+    }
+
     private CharSequence expectTableNameOrSubQuery(GenericLexer lexer) throws SqlException {
         return tok(lexer, "table name or sub-query");
     }
@@ -344,11 +385,50 @@ public final class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer) throws SqlException {
-        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+        final int copyPosition = lexer.lastTokenPosition();
+        CharSequence tok = tok(lexer, "table name or query");
+        if (Chars.equals(tok, '(')) {
+            // COPY (SELECT ...) TO STDOUT
+            final QueryModel queryModel = parseDml(lexer, null, lexer.getPosition());
+            expectTok(lexer, ')');
+            expectTok(lexer, "to");
+            expectStdout(lexer);
+            return parseCopyToStdout(lexer, queryModel);
         }
+        lexer.unparseLast();
+
         ExpressionNode target = expectExpr(lexer);
-        CharSequence tok = tok(lexer, "'from' or 'to' or 'cancel'");
+        tok = tok(lexer, "'from' or 'to' or 'cancel'");
+
+        if (isToKeyword(tok)) {
+            if (target.type != ExpressionNode.LITERAL) {
+                throw SqlException.$(target.position, "table name expected");
+            }
+            expectStdout(lexer);
+            // same as "select * from table"
+            final QueryModel queryModel = queryModelPool.next();
+            queryModel.setModelPosition(target.position);
+            SqlUtil.addSelectStar(queryModel, queryColumnPool, expressionNodePool);
+            final QueryModel nestedModel = queryModelPool.next();
+            nestedModel.setModelPosition(target.position);
+            nestedModel.setTableName(literal(target.token, target.position));
+            queryModel.setNestedModel(nestedModel);
+            return parseCopyToStdout(lexer, queryModel);
+        }
+
+        if (isFromKeyword(tok)) {
+            tok = SqlUtil.fetchNext(lexer);
+            if (tok != null && isStdinKeyword(tok)) {
+                // data is streamed by the client, e.g. over PG Wire protocol
+                return parseCopyFromStdin(lexer, target);
+            }
+            lexer.unparseLast();
+            tok = "from";
+        }
+
+        if (Chars.isBlank(configuration.getSqlCopyInputRoot())) {
+            throw SqlException.$(copyPosition, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+        }
 
         if (isCancelKeyword(tok)) {
             CopyModel model = copyModelPool.next();
@@ -376,10 +456,10 @@ public final class SqlParser {
                         tok = optTok(lexer);
                     } else if (isPartitionKeyword(tok)) {
                         expectTok(lexer, "by");
-                        tok = tok(lexer, "year month day hour");
-                        int partitionBy = PartitionBy.fromString(tok);
+                        final ExpressionNode partitionByNode = expectPartitionBy(lexer);
+                        int partitionBy = PartitionBy.fromString(partitionByNode.token);
                         if (partitionBy == -1) {
-                            throw SqlException.$(lexer.getPosition(), "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+                            throw SqlException.$(lexer.getPosition(), PARTITION_BY_EXPECTED);
                         }
                         model.setPartitionBy(partitionBy);
                         tok = optTok(lexer);
@@ -433,6 +513,109 @@ public final class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    // COPY table [(column, ...)] FROM STDIN [options]
+    private ExecutionModel parseCopyFromStdin(GenericLexer lexer, ExpressionNode target) throws SqlException {
+        final CopyModel model = copyModelPool.next();
+        model.setFileName(expressionNodePool.next().of(ExpressionNode.LITERAL, "stdin", 0, lexer.lastTokenPosition()));
+        if (target.type == ExpressionNode.FUNCTION) {
+            // table name followed by column list is parsed as a function call
+            if (target.paramCount < 3) {
+                if (target.lhs != null) {
+                    addCopyColumnName(model, target.lhs);
+                }
+                addCopyColumnName(model, target.rhs);
+            } else {
+                for (int i = target.paramCount - 1; i > -1; i--) {
+                    addCopyColumnName(model, target.args.getQuick(i));
+                }
+            }
+            target = expressionNodePool.next().of(ExpressionNode.LITERAL, target.token, 0, target.position);
+        } else if (target.type != ExpressionNode.LITERAL) {
+            throw SqlException.$(target.position, "table name expected");
+        }
+        model.setTarget(target);
+        parseCopyOptions(lexer, model);
+        return model;
+    }
+
+    private void parseCopyOption(GenericLexer lexer, CopyModel model, CharSequence tok, boolean parenthesized) throws SqlException {
+        if (isFormatKeyword(tok)) {
+            tok = tok(lexer, "'text', 'csv' or 'binary'");
+            if (isTextKeyword(tok)) {
+                model.setFormat(CopyModel.FORMAT_TEXT);
+            } else if (isCsvKeyword(tok)) {
+                model.setFormat(CopyModel.FORMAT_CSV);
+            } else if (isBinaryKeyword(tok)) {
+                model.setFormat(CopyModel.FORMAT_BINARY);
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "'text', 'csv' or 'binary' expected");
+            }
+        } else if (!parenthesized && isCsvKeyword(tok)) {
+            model.setFormat(CopyModel.FORMAT_CSV);
+        } else if (!parenthesized && isBinaryKeyword(tok)) {
+            model.setFormat(CopyModel.FORMAT_BINARY);
+        } else if (isHeaderKeyword(tok)) {
+            tok = optTok(lexer);
+            if (tok != null && (isTrueKeyword(tok) || isOnKeyword(tok))) {
+                model.setHeader(true);
+            } else if (tok != null && isFalseKeyword(tok)) {
+                model.setHeader(false);
+            } else {
+                // option value is optional
+                model.setHeader(true);
+                lexer.unparseLast();
+            }
+        } else if (isDelimiterKeyword(tok)) {
+            final CharSequence delimiter = GenericLexer.unquote(expectCopyOptionValue(lexer, "delimiter character"));
+            if (delimiter.length() != 1) {
+                throw SqlException.$(lexer.lastTokenPosition(), "delimiter is empty or contains more than 1 character");
+            }
+            if (delimiter.charAt(0) > 127) {
+                throw SqlException.$(lexer.lastTokenPosition(), "delimiter is not an ascii character");
+            }
+            model.setDelimiter((byte) delimiter.charAt(0));
+        } else if (isNullKeyword(tok)) {
+            model.setNullString(GenericLexer.immutableOf(GenericLexer.unquote(expectCopyOptionValue(lexer, "null string"))));
+        } else {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+        }
+    }
+
+    // [[WITH] (option [, ...]) | [WITH] option ...]
+    private void parseCopyOptions(GenericLexer lexer, CopyModel model) throws SqlException {
+        CharSequence tok = optTok(lexer);
+        if (tok != null && isWithKeyword(tok)) {
+            tok = tok(lexer, "copy option");
+        }
+        if (tok != null && Chars.equals(tok, '(')) {
+            do {
+                parseCopyOption(lexer, model, tok(lexer, "copy option"), true);
+                tok = tok(lexer, "',' or ')'");
+            } while (Chars.equals(tok, ','));
+            if (!Chars.equals(tok, ')')) {
+                throw SqlException.$(lexer.lastTokenPosition(), "',' or ')' expected");
+            }
+            tok = optTok(lexer);
+        } else {
+            while (tok != null && !isSemicolon(tok)) {
+                parseCopyOption(lexer, model, tok, false);
+                tok = optTok(lexer);
+            }
+        }
+        if (tok != null && !isSemicolon(tok)) {
+            throw SqlException.$(lexer.lastTokenPosition(), "unexpected token: ").put(tok);
+        }
+    }
+
+    // COPY {table | (query)} TO STDOUT [options]
+    private ExecutionModel parseCopyToStdout(GenericLexer lexer, QueryModel queryModel) throws SqlException {
+        final CopyModel model = copyModelPool.next();
+        model.setFileName(expressionNodePool.next().of(ExpressionNode.LITERAL, "stdout", 0, lexer.lastTokenPosition()));
+        model.setQueryModel(queryModel);
+        parseCopyOptions(lexer, model);
+        return model;
+    }
+
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
         expectTok(lexer, "table");
         return parseCreateTable(lexer, executionContext);
@@ -508,7 +691,7 @@ public final class SqlParser {
                 throw SqlException.$(partitionBy.position, "partitioning is possible only on tables with designated timestamps");
             }
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, PARTITION_BY_EXPECTED);
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -768,7 +951,7 @@ public final class SqlParser {
     private ExpressionNode parseCreateTablePartition(GenericLexer lexer, CharSequence tok) throws SqlException {
         if (tok != null && isPartitionKeyword(tok)) {
             expectTok(lexer, "by");
-            return expectLiteral(lexer);
+            return expectPartitionBy(lexer);
         }
         return null;
     }
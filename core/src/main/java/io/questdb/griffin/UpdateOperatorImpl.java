@@ -404,6 +404,7 @@ public class UpdateOperatorImpl extends PurgingOperator implements QuietCloseabl
                 case ColumnType.BINARY:
                     dstFixMem.putLong(dstVarMem.putBin(masterRecord.getBin(i)));
                     break;
+                case ColumnType.UUID:
                 case ColumnType.LONG128:
                     dstFixMem.putLong(masterRecord.getLong128Lo(i));
                     dstFixMem.putLong(masterRecord.getLong128Hi(i));
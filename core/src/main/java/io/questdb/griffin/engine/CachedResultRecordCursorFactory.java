@@ -0,0 +1,498 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.model.RuntimeIntrinsicIntervalModel;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.StringSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Serves top-level SELECT results from the engine-wide {@link ResultCache}.
+ * <p>
+ * Result is keyed on the query text and bind variable values. It is reused for as long as the versions of
+ * the table partitions that overlap the queried time range stay the same, see
+ * {@link ResultCache#addTableVersions(TableReader, LongList, LongList)}. On a miss the base cursor is
+ * materialized into memory before the first row is returned. Result that outgrows the cache capacity is
+ * returned from the base cursor, which is rewound for that purpose, and the factory stops caching.
+ */
+public class CachedResultRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ResultCache cache;
+    private final ArrayColumnTypes chainTypes;
+    private final CachedResultRecordCursor cursor;
+    private final CairoEngine engine;
+    private final ObjList<RuntimeIntrinsicIntervalModel> intervalModels;
+    private final StringSink keySink = new StringSink();
+    private final int maxPages;
+    private final long pageSize;
+    private final String query;
+    private final RecordSink recordSink;
+    private final ObjList<String> tableNames;
+    private final LongList versions = new LongList();
+    private final LongList versionsAfter = new LongList();
+    private boolean cacheable = true;
+
+    public CachedResultRecordCursorFactory(
+            CairoEngine engine,
+            RecordCursorFactory base,
+            CharSequence query,
+            ObjList<String> tableNames,
+            ObjList<RuntimeIntrinsicIntervalModel> intervalModels,
+            ArrayColumnTypes chainTypes,
+            RecordSink recordSink
+    ) {
+        super(base.getMetadata());
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.cache = engine.getResultCache();
+        this.base = base;
+        this.query = Chars.toString(query);
+        this.tableNames = tableNames;
+        this.intervalModels = intervalModels;
+        this.chainTypes = chainTypes;
+        this.recordSink = recordSink;
+        this.pageSize = configuration.getSqlResultCachePageSize();
+        this.maxPages = (int) Math.max(1, Math.min(Integer.MAX_VALUE, configuration.getSqlResultCacheCapacity() / pageSize));
+        this.cursor = new CachedResultRecordCursor(cache);
+    }
+
+    public static boolean isCacheable(int columnType) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+            case ColumnType.FLOAT:
+            case ColumnType.DOUBLE:
+            case ColumnType.STRING:
+            case ColumnType.SYMBOL:
+            case ColumnType.LONG256:
+            case ColumnType.GEOBYTE:
+            case ColumnType.GEOSHORT:
+            case ColumnType.GEOINT:
+            case ColumnType.GEOLONG:
+            case ColumnType.BINARY:
+            case ColumnType.LONG128:
+            case ColumnType.UUID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        if (!cacheable) {
+            return base.getCursor(executionContext);
+        }
+
+        keySink.clear();
+        keySink.put(query);
+        if (!putBindVariables(executionContext.getBindVariableService(), keySink)) {
+            return base.getCursor(executionContext);
+        }
+
+        addVersions(executionContext, versions);
+        ResultCache.Entry entry = cache.poll(keySink, versions);
+        if (entry != null) {
+            cursor.of(entry.getChain(), entry, entry.getRowCount());
+            return cursor;
+        }
+
+        final RecordCursor baseCursor = base.getCursor(executionContext);
+        RecordChain chain = null;
+        long rowCount = 0;
+        try {
+            chain = new RecordChain(chainTypes, recordSink, pageSize, maxPages, MemoryTag.NATIVE_RESULT_CACHE);
+            final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+            final Record record = baseCursor.getRecord();
+            long offset = -1;
+            while (baseCursor.hasNext()) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                offset = chain.put(record, offset);
+                rowCount++;
+            }
+        } catch (LimitOverflowException e) {
+            // result does not fit into the cache, there is no point in materializing it again
+            cacheable = false;
+            Misc.free(chain);
+            baseCursor.toTop();
+            return baseCursor;
+        } catch (Throwable th) {
+            Misc.free(chain);
+            baseCursor.close();
+            throw th;
+        }
+        baseCursor.close();
+
+        try {
+            // table versions could have moved while the result was computed, in which case
+            // we don't know which of them the result corresponds to
+            addVersions(executionContext, versionsAfter);
+            if (versions.equals(versionsAfter)) {
+                entry = cache.put(keySink, versions, chain, rowCount);
+            }
+        } catch (Throwable th) {
+            Misc.free(chain);
+            throw th;
+        }
+        cursor.of(chain, entry, rowCount);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Cached result");
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static boolean putBindVariable(@Nullable Function function, CharSink sink) {
+        if (function == null) {
+            sink.put("null");
+            return true;
+        }
+
+        final int type = function.getType();
+        sink.put(type).put(':');
+        switch (ColumnType.tagOf(type)) {
+            case ColumnType.BOOLEAN:
+                sink.put(function.getBool(null));
+                break;
+            case ColumnType.BYTE:
+                sink.put(function.getByte(null));
+                break;
+            case ColumnType.SHORT:
+                sink.put(function.getShort(null));
+                break;
+            case ColumnType.CHAR:
+                sink.put((int) function.getChar(null));
+                break;
+            case ColumnType.INT:
+                sink.put(function.getInt(null));
+                break;
+            case ColumnType.LONG:
+                sink.put(function.getLong(null));
+                break;
+            case ColumnType.DATE:
+                sink.put(function.getDate(null));
+                break;
+            case ColumnType.TIMESTAMP:
+                sink.put(function.getTimestamp(null));
+                break;
+            case ColumnType.FLOAT:
+                sink.put(Float.floatToRawIntBits(function.getFloat(null)));
+                break;
+            case ColumnType.DOUBLE:
+                sink.put(Double.doubleToRawLongBits(function.getDouble(null)));
+                break;
+            case ColumnType.STRING:
+                putLengthPrefixed(function.getStr(null), sink);
+                break;
+            case ColumnType.SYMBOL:
+                putLengthPrefixed(function.getSymbol(null), sink);
+                break;
+            case ColumnType.LONG256:
+                function.getLong256(null, sink);
+                break;
+            case ColumnType.GEOBYTE:
+                sink.put(function.getGeoByte(null));
+                break;
+            case ColumnType.GEOSHORT:
+                sink.put(function.getGeoShort(null));
+                break;
+            case ColumnType.GEOINT:
+                sink.put(function.getGeoInt(null));
+                break;
+            case ColumnType.GEOLONG:
+                sink.put(function.getGeoLong(null));
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean putBindVariables(@Nullable BindVariableService bindVariableService, CharSink sink) {
+        if (bindVariableService == null) {
+            return true;
+        }
+
+        for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
+            sink.put('\0').put('$').put(i + 1).put('=');
+            if (!putBindVariable(bindVariableService.getFunction(i), sink)) {
+                return false;
+            }
+        }
+
+        final ObjList<CharSequence> names = bindVariableService.getNamedVariables();
+        for (int i = 0, n = names.size(); i < n; i++) {
+            final CharSequence name = names.getQuick(i);
+            sink.put('\0').put(':').put(name).put('=');
+            if (!putBindVariable(bindVariableService.getFunction(name), sink)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void putLengthPrefixed(@Nullable CharSequence value, CharSink sink) {
+        if (value == null) {
+            sink.put(TableUtils.NULL_LEN);
+        } else {
+            sink.put(value.length()).put(':').put(value);
+        }
+    }
+
+    private void addVersions(SqlExecutionContext executionContext, LongList sink) throws SqlException {
+        sink.clear();
+        for (int i = 0, n = tableNames.size(); i < n; i++) {
+            final RuntimeIntrinsicIntervalModel intervalModel = intervalModels.getQuick(i);
+            final LongList intervals = intervalModel != null ? intervalModel.calculateIntervals(executionContext) : null;
+            try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableNames.getQuick(i))) {
+                ResultCache.addTableVersions(reader, intervals, sink);
+            }
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+        Misc.free(cursor);
+    }
+
+    private static class CachedResultRecordCursor implements NoRandomAccessRecordCursor {
+        private final ResultCache cache;
+        private final SymbolAsStrRecord record = new SymbolAsStrRecord();
+        private RecordChain chain;
+        private ResultCache.Entry entry;
+        private long rowCount;
+
+        private CachedResultRecordCursor(ResultCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public void close() {
+            if (entry != null) {
+                cache.release(entry);
+                entry = null;
+            } else {
+                Misc.free(chain);
+            }
+            chain = null;
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return chain.hasNext();
+        }
+
+        @Override
+        public long size() {
+            return rowCount;
+        }
+
+        @Override
+        public void toTop() {
+            chain.toTop();
+        }
+
+        private void of(RecordChain chain, @Nullable ResultCache.Entry entry, long rowCount) {
+            this.chain = chain;
+            this.entry = entry;
+            this.rowCount = rowCount;
+            this.record.of(chain.getRecord());
+            chain.toTop();
+        }
+    }
+
+    /**
+     * Cached results keep symbols as strings, they outlive symbol tables of the readers.
+     */
+    private static class SymbolAsStrRecord implements Record {
+        private Record base;
+
+        @Override
+        public BinarySequence getBin(int col) {
+            return base.getBin(col);
+        }
+
+        @Override
+        public long getBinLen(int col) {
+            return base.getBinLen(col);
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return base.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return base.getByte(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return base.getChar(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            return base.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return base.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return base.getFloat(col);
+        }
+
+        @Override
+        public byte getGeoByte(int col) {
+            return base.getGeoByte(col);
+        }
+
+        @Override
+        public int getGeoInt(int col) {
+            return base.getGeoInt(col);
+        }
+
+        @Override
+        public long getGeoLong(int col) {
+            return base.getGeoLong(col);
+        }
+
+        @Override
+        public short getGeoShort(int col) {
+            return base.getGeoShort(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            return base.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            return base.getLong(col);
+        }
+
+        @Override
+        public long getLong128Hi(int col) {
+            return base.getLong128Hi(col);
+        }
+
+        @Override
+        public long getLong128Lo(int col) {
+            return base.getLong128Lo(col);
+        }
+
+        @Override
+        public void getLong256(int col, CharSink sink) {
+            base.getLong256(col, sink);
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return base.getLong256A(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            return base.getLong256B(col);
+        }
+
+        @Override
+        public short getShort(int col) {
+            return base.getShort(col);
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            return base.getStrB(col);
+        }
+
+        @Override
+        public int getStrLen(int col) {
+            return base.getStrLen(col);
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            return base.getStr(col);
+        }
+
+        @Override
+        public CharSequence getSymB(int col) {
+            return base.getStrB(col);
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return base.getTimestamp(col);
+        }
+
+        private void of(Record base) {
+            this.base = base;
+        }
+    }
+}
@@ -27,6 +27,7 @@ package io.questdb.griffin.engine;
 import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import org.jetbrains.annotations.Nullable;
@@ -57,6 +58,12 @@ public class LimitRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.recordCursorSupportsRandomAccess();
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Limit");
+        sink.child(base);
+    }
+
     @Override
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.explain;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.GenericRecordMetadata;
+import io.questdb.cairo.TableColumnMetadata;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.FlyweightCharSequence;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Returns the plan of the wrapped factory, one row per line. For EXPLAIN ANALYZE the
+ * query is executed to completion first and the plan is printed with runtime statistics
+ * of the profiled factories, see {@link ProfilingRecordCursorFactory}.
+ */
+public class ExplainPlanRecordCursorFactory extends AbstractRecordCursorFactory {
+    private static final RecordMetadata METADATA;
+    private final RecordCursorFactory base;
+    private final ExplainPlanRecordCursor cursor = new ExplainPlanRecordCursor();
+    private final PlanSink planSink = new PlanSink();
+    private final ObjList<ProfilingRecordCursorFactory> profiledFactories;
+
+    public ExplainPlanRecordCursorFactory(RecordCursorFactory base, @Nullable ObjList<ProfilingRecordCursorFactory> profiledFactories) {
+        super(METADATA);
+        this.base = base;
+        this.profiledFactories = profiledFactories;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        planSink.reset();
+        if (profiledFactories != null) {
+            for (int i = 0, n = profiledFactories.size(); i < n; i++) {
+                profiledFactories.getQuick(i).clearStats();
+            }
+            final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+            try (RecordCursor baseCursor = base.getCursor(executionContext)) {
+                while (baseCursor.hasNext()) {
+                    circuitBreaker.statefulThrowExceptionIfTripped();
+                }
+            }
+        }
+        base.toPlan(planSink);
+        return cursor.of(planSink.getText());
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type(profiledFactories != null ? "Explain Analyze" : "Explain");
+        sink.child(base);
+    }
+
+    @Override
+    protected void _close() {
+        Misc.free(base);
+    }
+
+    private static class ExplainPlanRecordCursor implements RecordCursor {
+        private final FlyweightCharSequence line = new FlyweightCharSequence();
+        // start offsets of the lines, followed by the end offset of the text
+        private final IntList lineOffsets = new IntList();
+        private final ExplainPlanRecord record = new ExplainPlanRecord();
+        private int lineIndex;
+        private CharSequence text;
+
+        @Override
+        public void close() {
+            text = null;
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public Record getRecordB() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return ++lineIndex < lineOffsets.size() - 1;
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long size() {
+            return lineOffsets.size() - 1;
+        }
+
+        @Override
+        public void toTop() {
+            lineIndex = -1;
+        }
+
+        private ExplainPlanRecordCursor of(CharSequence text) {
+            this.text = text;
+            lineOffsets.clear();
+            lineOffsets.add(0);
+            for (int i = 0, n = text.length(); i < n; i++) {
+                if (text.charAt(i) == '\n') {
+                    lineOffsets.add(i + 1);
+                }
+            }
+            lineOffsets.add(text.length() + 1);
+            toTop();
+            return this;
+        }
+
+        private class ExplainPlanRecord implements Record {
+            @Override
+            public CharSequence getStr(int col) {
+                final int lo = lineOffsets.getQuick(lineIndex);
+                // exclude the line separator
+                final int hi = lineOffsets.getQuick(lineIndex + 1) - 1;
+                return line.of(text, lo, hi - lo);
+            }
+
+            @Override
+            public CharSequence getStrB(int col) {
+                return getStr(col);
+            }
+
+            @Override
+            public int getStrLen(int col) {
+                return lineOffsets.getQuick(lineIndex + 1) - 1 - lineOffsets.getQuick(lineIndex);
+            }
+        }
+    }
+
+    static {
+        final GenericRecordMetadata metadata = new GenericRecordMetadata();
+        metadata.add(new TableColumnMetadata("QUERY PLAN", ColumnType.STRING));
+        METADATA = metadata;
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.explain;
+
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Runtime statistics of a plan node collected by EXPLAIN ANALYZE. Both time and peak query memory
+ * are inclusive of the node's children: memory charged to the node is passed on to the account
+ * of the enclosing node and, eventually, to the query's own account.
+ */
+public class OperatorStats implements MemoryAccount, Mutable, Sinkable {
+    private long frames;
+    private long loops;
+    private long memoryPeak;
+    private long memoryUsed;
+    private long nanos;
+    private MemoryAccount parent;
+    private long rows;
+
+    /**
+     * Binds this account to the current thread.
+     *
+     * @return previously bound account, to be restored once the node's call completes
+     */
+    public MemoryAccount bind() {
+        final MemoryAccount prev = Unsafe.bindMemoryAccount(this);
+        // structures of the node credit their memory back through this account, possibly after the
+        // enclosing account has moved on to another query
+        parent = prev != null ? prev.getOwner() : null;
+        return prev;
+    }
+
+    @Override
+    public void charge(long size, int memoryTag) {
+        if (parent != null) {
+            parent.charge(size, memoryTag);
+        }
+        add(size);
+    }
+
+    @Override
+    public void clear() {
+        frames = 0;
+        loops = 0;
+        memoryPeak = 0;
+        // memory still held by the node's structures is credited back once they free it
+        nanos = 0;
+        parent = null;
+        rows = 0;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getLoops() {
+        return loops;
+    }
+
+    public long getMemoryPeak() {
+        return memoryPeak;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    @Override
+    public SpillSpace getSpillSpace(long size) {
+        return parent != null ? parent.getSpillSpace(size) : null;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("(actual rows=").put(rows);
+        sink.put(" loops=").put(loops);
+        sink.put(" time=");
+        Numbers.append(sink, nanos / 1_000_000d, 3);
+        sink.put("ms");
+        if (memoryPeak > 0) {
+            sink.put(" memory=").put(memoryPeak);
+        }
+        if (frames > 0) {
+            sink.put(" frames=").put(frames);
+        }
+        sink.put(')');
+    }
+
+    @Override
+    public void transfer(long size, int memoryTag) {
+        if (parent != null) {
+            parent.transfer(size, memoryTag);
+        }
+        add(size);
+    }
+
+    private void add(long memory) {
+        memoryUsed += memory;
+        if (memoryUsed > memoryPeak) {
+            memoryPeak = memoryUsed;
+        }
+    }
+
+    void addFrame(long rows) {
+        frames++;
+        this.rows += rows;
+    }
+
+    void addFrames(long frames) {
+        this.frames += frames;
+    }
+
+    void addLoop() {
+        loops++;
+    }
+
+    void addNanos(long nanos) {
+        this.nanos += nanos;
+    }
+
+    void addRow() {
+        rows++;
+    }
+}
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.explain;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.SCSequence;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.Misc;
+import io.questdb.std.NanosecondClock;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Collects {@link OperatorStats} of the wrapped factory for EXPLAIN ANALYZE. The factory is
+ * transparent otherwise: it delegates every call and prints the wrapped factory's plan
+ * with the statistics appended to the node's line.
+ */
+public class ProfilingRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final NanosecondClock clock;
+    private final ProfilingPageFrameCursor pageFrameCursor = new ProfilingPageFrameCursor();
+    private final ProfilingRecordCursor recordCursor = new ProfilingRecordCursor();
+    private final OperatorStats stats = new OperatorStats();
+
+    public ProfilingRecordCursorFactory(RecordCursorFactory base, NanosecondClock clock) {
+        this.base = base;
+        this.clock = clock;
+    }
+
+    public void clearStats() {
+        stats.clear();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+    }
+
+    @Override
+    public SingleSymbolFilter convertToSampleByIndexDataFrameCursorFactory() {
+        return base.convertToSampleByIndexDataFrameCursorFactory();
+    }
+
+    @Override
+    public PageFrameSequence<?> execute(SqlExecutionContext executionContext, SCSequence collectSubSeq, int order) throws SqlException {
+        final MemoryAccount prev = stats.bind();
+        final long start = clock.getTicks();
+        try {
+            final PageFrameSequence<?> frameSequence = base.execute(executionContext, collectSubSeq, order);
+            if (frameSequence != null) {
+                stats.addLoop();
+                stats.addFrames(frameSequence.getFrameCount());
+            }
+            return frameSequence;
+        } finally {
+            stats.addNanos(clock.getTicks() - start);
+            Unsafe.bindMemoryAccount(prev);
+        }
+    }
+
+    @Override
+    public boolean followedLimitAdvice() {
+        return base.followedLimitAdvice();
+    }
+
+    @Override
+    public boolean followedOrderByAdvice() {
+        return base.followedOrderByAdvice();
+    }
+
+    @Override
+    public boolean fragmentedSymbolTables() {
+        return base.fragmentedSymbolTables();
+    }
+
+    public RecordCursorFactory getBaseFactory() {
+        return base;
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final MemoryAccount prev = stats.bind();
+        final long start = clock.getTicks();
+        try {
+            final RecordCursor cursor = base.getCursor(executionContext);
+            stats.addLoop();
+            return recordCursor.of(cursor);
+        } finally {
+            stats.addNanos(clock.getTicks() - start);
+            Unsafe.bindMemoryAccount(prev);
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return base.getMetadata();
+    }
+
+    @Override
+    public PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext, int order) throws SqlException {
+        final MemoryAccount prev = stats.bind();
+        final long start = clock.getTicks();
+        try {
+            final PageFrameCursor cursor = base.getPageFrameCursor(executionContext, order);
+            if (cursor == null) {
+                return null;
+            }
+            stats.addLoop();
+            return pageFrameCursor.of(cursor);
+        } finally {
+            stats.addNanos(clock.getTicks() - start);
+            Unsafe.bindMemoryAccount(prev);
+        }
+    }
+
+    public OperatorStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public boolean hasDescendingOrder() {
+        return base.hasDescendingOrder();
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return base.implementsLimit();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return base.recordCursorSupportsRandomAccess();
+    }
+
+    @Override
+    public boolean supportPageFrameCursor() {
+        return base.supportPageFrameCursor();
+    }
+
+    @Override
+    public boolean supportsPageFrameSequence() {
+        return base.supportsPageFrameSequence();
+    }
+
+    @Override
+    public boolean supportsUpdateRowId(CharSequence tableName) {
+        return base.supportsUpdateRowId(tableName);
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.stats(stats);
+        base.toPlan(sink);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        base.toSink(sink);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private class ProfilingPageFrameCursor implements PageFrameCursor {
+        private PageFrameCursor base;
+
+        @Override
+        public void close() {
+            final MemoryAccount prev = stats.bind();
+            try {
+                base = Misc.free(base);
+            } finally {
+                Unsafe.bindMemoryAccount(prev);
+            }
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public long getUpdateRowId(long rowIndex) {
+            return base.getUpdateRowId(rowIndex);
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return base.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public @Nullable PageFrame next() {
+            final MemoryAccount prev = stats.bind();
+            final long start = clock.getTicks();
+            try {
+                final PageFrame frame = base.next();
+                if (frame != null) {
+                    stats.addFrame(frame.getPartitionHi() - frame.getPartitionLo());
+                }
+                return frame;
+            } finally {
+                stats.addNanos(clock.getTicks() - start);
+                Unsafe.bindMemoryAccount(prev);
+            }
+        }
+
+        @Override
+        public long rowCount() {
+            return base.rowCount();
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+            stats.addLoop();
+        }
+
+        private ProfilingPageFrameCursor of(PageFrameCursor base) {
+            this.base = base;
+            return this;
+        }
+    }
+
+    private class ProfilingRecordCursor implements RecordCursor {
+        private RecordCursor base;
+        // true once rows are fetched since the cursor was opened or rewound, so that
+        // a toTop() on a fresh cursor is not counted as another loop
+        private boolean fetched;
+
+        @Override
+        public void close() {
+            final MemoryAccount prev = stats.bind();
+            try {
+                base = Misc.free(base);
+            } finally {
+                Unsafe.bindMemoryAccount(prev);
+            }
+        }
+
+        @Override
+        public Record getRecord() {
+            return base.getRecord();
+        }
+
+        @Override
+        public Record getRecordB() {
+            return base.getRecordB();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return base.getSymbolTable(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            final MemoryAccount prev = stats.bind();
+            final long start = clock.getTicks();
+            try {
+                fetched = true;
+                if (base.hasNext()) {
+                    stats.addRow();
+                    return true;
+                }
+                return false;
+            } finally {
+                stats.addNanos(clock.getTicks() - start);
+                Unsafe.bindMemoryAccount(prev);
+            }
+        }
+
+        @Override
+        public boolean isUsingIndex() {
+            return base.isUsingIndex();
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return base.newSymbolTable(columnIndex);
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            base.recordAt(record, atRowId);
+        }
+
+        @Override
+        public long size() {
+            return base.size();
+        }
+
+        @Override
+        public void skipTo(long rowCount) {
+            final MemoryAccount prev = stats.bind();
+            final long start = clock.getTicks();
+            try {
+                base.skipTo(rowCount);
+            } finally {
+                stats.addNanos(clock.getTicks() - start);
+                Unsafe.bindMemoryAccount(prev);
+            }
+        }
+
+        @Override
+        public void toTop() {
+            base.toTop();
+            if (fetched) {
+                fetched = false;
+                stats.addLoop();
+            }
+        }
+
+        private ProfilingRecordCursor of(RecordCursor base) {
+            this.base = base;
+            this.fetched = false;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.ScalarFunction;
+import io.questdb.std.BinarySequence;
+import io.questdb.std.Long256;
+import io.questdb.std.Uuid;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Base class for UUID functions. UUID values are 128-bit integers, see {@link Uuid},
+ * string accessors render them in the canonical text form.
+ */
+public abstract class UuidFunction implements ScalarFunction {
+    private final StringSink sinkA = new StringSink();
+    private final StringSink sinkB = new StringSink();
+
+    @Override
+    public final BinarySequence getBin(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getBinLen(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final boolean getBool(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final byte getByte(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final char getChar(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final long getDate(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final double getDouble(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final float getFloat(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public byte getGeoByte(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getGeoInt(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getGeoLong(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public short getGeoShort(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final int getInt(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final long getLong(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public abstract long getLong128Hi(Record rec);
+
+    @Override
+    public abstract long getLong128Lo(Record rec);
+
+    @Override
+    public final void getLong256(Record rec, CharSink sink) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final Long256 getLong256A(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final Long256 getLong256B(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final RecordCursorFactory getRecordCursorFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final short getShort(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final CharSequence getStr(Record rec) {
+        return toStr(rec, sinkA);
+    }
+
+    @Override
+    public final void getStr(Record rec, CharSink sink) {
+        final long lo = getLong128Lo(rec);
+        final long hi = getLong128Hi(rec);
+        if (!Uuid.isNull(lo, hi)) {
+            Uuid.toSink(sink, lo, hi);
+        }
+    }
+
+    @Override
+    public final CharSequence getStrB(Record rec) {
+        return toStr(rec, sinkB);
+    }
+
+    @Override
+    public final int getStrLen(Record rec) {
+        final CharSequence str = getStr(rec);
+        return str != null ? str.length() : TableUtils.NULL_LEN;
+    }
+
+    @Override
+    public final CharSequence getSymbol(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final CharSequence getSymbolB(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final long getTimestamp(Record rec) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public final int getType() {
+        return ColumnType.UUID;
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    private CharSequence toStr(Record rec, StringSink sink) {
+        final long lo = getLong128Lo(rec);
+        final long hi = getLong128Hi(rec);
+        if (Uuid.isNull(lo, hi)) {
+            return null;
+        }
+        sink.clear();
+        Uuid.toSink(sink, lo, hi);
+        return sink;
+    }
+}
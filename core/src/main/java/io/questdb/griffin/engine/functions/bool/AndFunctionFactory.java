@@ -72,7 +72,7 @@ public class AndFunctionFactory implements FunctionFactory {
         return new MyBooleanFunction(leftFunc, rightFunc);
     }
 
-    private static class MyBooleanFunction extends BooleanFunction implements BinaryFunction {
+    static class MyBooleanFunction extends BooleanFunction implements BinaryFunction {
         final Function left;
         final Function right;
 
@@ -0,0 +1,61 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.bool;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Base class for filters generated by {@link FilterFunctionCompiler}. Generated getBool() method
+ * evaluates the whole expression tree, calling into {@link #functions} only for the sub-expressions
+ * that could not be inlined. Each of those calls is made from its own call site, so that JIT compiler
+ * sees them as monomorphic.
+ * <p>
+ * The functions are leaves of the original filter function tree, which remains the owner of them,
+ * i.e. init(), toTop() and close() calls are delegated to the original filter.
+ */
+public abstract class CompiledFilterFunction extends BooleanFunction implements UnaryFunction {
+    // accessed by generated code
+    protected ObjList<Function> functions;
+    private Function filter;
+
+    @Override
+    public Function getArg() {
+        return filter;
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put(filter);
+    }
+
+    void of(Function filter, ObjList<Function> functions) {
+        this.filter = filter;
+        this.functions = functions;
+    }
+}
@@ -0,0 +1,634 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.bool;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.SqlUtil;
+import io.questdb.griffin.engine.functions.BinaryFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compiles boolean filter expressions into a single {@link CompiledFilterFunction} class, which is
+ * used when the filter cannot be handled by the native JIT.
+ * <p>
+ * AND, OR and NOT are compiled into short-circuit jumps. Comparisons of INT, LONG and TIMESTAMP
+ * columns with each other or with literals are inlined, i.e. generated code reads the columns
+ * straight from the record and keeps the literals, including parsed timestamp strings, in the
+ * constant pool. The remaining sub-expressions, e.g. string and date predicates, are evaluated
+ * by the respective leaves of the original filter function tree, each called from a separate call site.
+ * <p>
+ * The generated getBool() method for "a > 10 and s ~ 'foo'" is equivalent to the following:
+ * <code>
+ * if (rec.getInt(0) == Numbers.INT_NaN || rec.getInt(0) <= 10) return false;
+ * if (!functions.getQuick(0).getBool(rec)) return false;
+ * return true;
+ * </code>
+ */
+public class FilterFunctionCompiler {
+    private static final int KIND_AND = 1;
+    private static final int KIND_COMPARISON = 4;
+    private static final int KIND_FUNCTION = 5;
+    private static final int KIND_NOT = 3;
+    private static final int KIND_OR = 2;
+    // larger methods may not fit 16-bit jump offsets
+    private static final int MAX_CODE_LENGTH = Short.MAX_VALUE;
+    private static final int MAX_FUNCTIONS = Short.MAX_VALUE;
+    private static final int OP_EQ = 1;
+    private static final int OP_GE = 6;
+    private static final int OP_GT = 5;
+    private static final int OP_LE = 4;
+    private static final int OP_LT = 3;
+    private static final int OP_NE = 2;
+    private static final int OPERAND_INT_COLUMN = 1;
+    private static final int OPERAND_INT_CONSTANT = 4;
+    private static final int OPERAND_LONG_COLUMN = 2;
+    private static final int OPERAND_LONG_CONSTANT = 5;
+    private static final int OPERAND_NONE = 0;
+    private static final int OPERAND_STR_CONSTANT = 6;
+    private static final int OPERAND_TIMESTAMP_COLUMN = 3;
+    private static final int TYPE_INT = 1;
+    private static final int TYPE_LONG = 2;
+    private static final int TYPE_NONE = 0;
+    private static final int TYPE_TIMESTAMP = 3;
+    private final BytecodeAssembler asm;
+    private final ObjList<IntList> branchLists = new ObjList<>();
+    // constant pool indexes of comparison operands, -1 for columns
+    private final IntList constantIndexes = new IntList();
+    private final IntList falseBranches = new IntList();
+    private final IntList frameOffsets = new IntList();
+    private int constantCursor;
+    private int functionCursor;
+    private int functionsFieldIndex;
+    private int getBoolIndex;
+    private int getIntIndex;
+    private int getLongIndex;
+    private int getQuickIndex;
+    private int getTimestampIndex;
+    private int intNullIndex;
+    private int longNullIndex;
+    private RecordMetadata metadata;
+
+    public FilterFunctionCompiler(BytecodeAssembler asm) {
+        this.asm = asm;
+    }
+
+    /**
+     * Compiles filter expression into a function, which takes over the filter function parsed from
+     * the same expression. Logical operators of the expression must match the ones of the filter
+     * function, i.e. the expression is not compiled when the function parser folded some of them.
+     *
+     * @return compiled filter or null when the expression has nothing to inline or compile
+     */
+    @Nullable
+    public Function compile(Function filter, ExpressionNode expr, RecordMetadata metadata) {
+        this.metadata = metadata;
+        if (kindOf(expr) == KIND_FUNCTION) {
+            return null;
+        }
+
+        final ObjList<Function> functions = new ObjList<>();
+        asm.init(CompiledFilterFunction.class);
+        asm.setupPool();
+        final int stackMapTableIndex = asm.poolUtf8("StackMapTable");
+        final int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/engine/functions/bool/CompiledFilterFunctionAsm"));
+        final int superclassIndex = asm.poolClass(CompiledFilterFunction.class);
+        final int superIndex = asm.poolMethod(superclassIndex, "<init>", "()V");
+        final int typeIndex = asm.poolUtf8("Lio/questdb/std/ObjList;");
+        final int nameIndex = asm.poolUtf8().put("functions").$();
+        functionsFieldIndex = asm.poolField(thisClassIndex, asm.poolNameAndType(nameIndex, typeIndex));
+        getQuickIndex = asm.poolMethod(ObjList.class, "getQuick", "(I)Ljava/lang/Object;");
+        getBoolIndex = asm.poolInterfaceMethod(Function.class, "getBool", "(Lio/questdb/cairo/sql/Record;)Z");
+        getIntIndex = asm.poolInterfaceMethod(Record.class, "getInt", "(I)I");
+        getLongIndex = asm.poolInterfaceMethod(Record.class, "getLong", "(I)J");
+        getTimestampIndex = asm.poolInterfaceMethod(Record.class, "getTimestamp", "(I)J");
+        intNullIndex = asm.getPoolCount();
+        asm.poolIntConst(Numbers.INT_NaN);
+        longNullIndex = asm.poolLongConst(Numbers.LONG_NaN);
+        final int getBoolNameIndex = asm.poolUtf8("getBool");
+        final int getBoolSigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;)Z");
+
+        constantIndexes.clear();
+        if (!collect(expr, filter, functions) || functions.size() > MAX_FUNCTIONS) {
+            return null;
+        }
+
+        asm.finishPool();
+        asm.defineClass(thisClassIndex, superclassIndex);
+        asm.interfaceCount(0);
+        asm.fieldCount(0);
+        asm.methodCount(2);
+        asm.defineDefaultConstructor(superIndex);
+        if (!instrumentGetBoolMethod(expr, stackMapTableIndex, getBoolNameIndex, getBoolSigIndex)) {
+            return null;
+        }
+        // class attribute count
+        asm.putShort(0);
+
+        final CompiledFilterFunction compiledFilter = asm.newInstance();
+        compiledFilter.of(filter, functions);
+        return compiledFilter;
+    }
+
+    private static int comparisonOp(CharSequence token) {
+        if (Chars.equals(token, '=')) {
+            return OP_EQ;
+        }
+        if (Chars.equals(token, "!=") || Chars.equals(token, "<>")) {
+            return OP_NE;
+        }
+        if (Chars.equals(token, '<')) {
+            return OP_LT;
+        }
+        if (Chars.equals(token, "<=")) {
+            return OP_LE;
+        }
+        if (Chars.equals(token, '>')) {
+            return OP_GT;
+        }
+        if (Chars.equals(token, ">=")) {
+            return OP_GE;
+        }
+        return -1;
+    }
+
+    private static boolean isColumn(int operand) {
+        return operand == OPERAND_INT_COLUMN || operand == OPERAND_LONG_COLUMN || operand == OPERAND_TIMESTAMP_COLUMN;
+    }
+
+    private static boolean isIntOperand(int operand) {
+        return operand == OPERAND_INT_COLUMN || operand == OPERAND_INT_CONSTANT;
+    }
+
+    private static boolean isLogical(Function function) {
+        // constant folding of AND and OR replaces them with one of the arguments, hence the tree walk
+        // either meets a logical function in place of a leaf or runs out of logical functions
+        return function instanceof AndFunctionFactory.MyBooleanFunction
+                || function instanceof OrFunctionFactory.MyBooleanFunction
+                || function instanceof NotFunctionFactory.Func;
+    }
+
+    private static boolean isLongOperand(int operand) {
+        return operand == OPERAND_LONG_COLUMN || operand == OPERAND_INT_CONSTANT || operand == OPERAND_LONG_CONSTANT;
+    }
+
+    private static boolean isTimestampOperand(int operand) {
+        return operand == OPERAND_TIMESTAMP_COLUMN
+                || operand == OPERAND_INT_CONSTANT
+                || operand == OPERAND_LONG_CONSTANT
+                || operand == OPERAND_STR_CONSTANT;
+    }
+
+    private static int negate(int op) {
+        switch (op) {
+            case OP_EQ:
+                return OP_NE;
+            case OP_NE:
+                return OP_EQ;
+            case OP_LT:
+                return OP_GE;
+            case OP_LE:
+                return OP_GT;
+            case OP_GT:
+                return OP_LE;
+            default:
+                return OP_LT;
+        }
+    }
+
+    private static int operandOfConstant(CharSequence token) {
+        // same literal typing as in FunctionParser
+        try {
+            final int value = Numbers.parseInt(token);
+            return value != Numbers.INT_NaN ? OPERAND_INT_CONSTANT : OPERAND_NONE;
+        } catch (NumericException ignore) {
+        }
+        try {
+            final long value = Numbers.parseLong(token);
+            return value != Numbers.LONG_NaN ? OPERAND_LONG_CONSTANT : OPERAND_NONE;
+        } catch (NumericException ignore) {
+        }
+        return OPERAND_NONE;
+    }
+
+    private static int operandOfStrConstant(CharSequence token) {
+        // single character literals are chars, not strings
+        if (token.length() > 3) {
+            try {
+                return parseTimestamp(token) != Numbers.LONG_NaN ? OPERAND_STR_CONSTANT : OPERAND_NONE;
+            } catch (ImplicitCastException ignore) {
+                // conversion error has to be reported at runtime, by the comparison function
+            }
+        }
+        return OPERAND_NONE;
+    }
+
+    private static long parseConstant(ExpressionNode node, int type) throws NumericException {
+        if (node.type == ExpressionNode.OPERATION) {
+            // unary minus
+            return -Numbers.parseLong(unaryArg(node).token);
+        }
+        if (type == TYPE_TIMESTAMP && Chars.isQuoted(node.token)) {
+            return parseTimestamp(node.token);
+        }
+        return Numbers.parseLong(node.token);
+    }
+
+    private static long parseTimestamp(CharSequence quotedToken) {
+        // same conversion as in StrFunction.getTimestamp()
+        return SqlUtil.implicitCastStrAsTimestamp(quotedToken.subSequence(1, quotedToken.length() - 1));
+    }
+
+    private static ExpressionNode unaryArg(ExpressionNode node) {
+        return node.lhs != null ? node.lhs : node.rhs;
+    }
+
+    private boolean collect(ExpressionNode node, Function function, ObjList<Function> functions) {
+        switch (kindOf(node)) {
+            case KIND_AND:
+                return function instanceof AndFunctionFactory.MyBooleanFunction
+                        && collectBinary(node, (BinaryFunction) function, functions);
+            case KIND_OR:
+                return function instanceof OrFunctionFactory.MyBooleanFunction
+                        && collectBinary(node, (BinaryFunction) function, functions);
+            case KIND_NOT:
+                return function instanceof NotFunctionFactory.Func
+                        && collect(unaryArg(node), ((UnaryFunction) function).getArg(), functions);
+            case KIND_COMPARISON:
+                if (isLogical(function)) {
+                    return false;
+                }
+                final int type = comparisonType(node);
+                constantIndexes.add(poolOperand(node.lhs, type));
+                constantIndexes.add(poolOperand(node.rhs, type));
+                return true;
+            default:
+                if (isLogical(function) || function.isConstant()) {
+                    return false;
+                }
+                functions.add(function);
+                return true;
+        }
+    }
+
+    private boolean collectBinary(ExpressionNode node, BinaryFunction function, ObjList<Function> functions) {
+        return collect(node.lhs, function.getLeft(), functions) && collect(node.rhs, function.getRight(), functions);
+    }
+
+    /**
+     * Comparisons are inlined only when operand types resolve to a comparison function, whose
+     * semantics are mirrored by the generated code:
+     * <ul>
+     *     <li>INT with INT or int literal, i.e. =(II) and &lt;(II)</li>
+     *     <li>TIMESTAMP with TIMESTAMP, integer or string literal, i.e. =(NN) and &lt;(NN)</li>
+     *     <li>LONG with LONG or integer literal for equality only, i.e. =(LL), ordering of longs
+     *     is done via doubles</li>
+     * </ul>
+     */
+    private int comparisonType(ExpressionNode node) {
+        if (node.type != ExpressionNode.OPERATION || node.paramCount != 2) {
+            return TYPE_NONE;
+        }
+        final int op = comparisonOp(node.token);
+        if (op == -1) {
+            return TYPE_NONE;
+        }
+        final int left = operandOf(node.lhs);
+        final int right = operandOf(node.rhs);
+        if (!isColumn(left) && !isColumn(right)) {
+            return TYPE_NONE;
+        }
+        if (isIntOperand(left) && isIntOperand(right)) {
+            return TYPE_INT;
+        }
+        if (isTimestampOperand(left) && isTimestampOperand(right)) {
+            return TYPE_TIMESTAMP;
+        }
+        if ((op == OP_EQ || op == OP_NE) && isLongOperand(left) && isLongOperand(right)) {
+            return TYPE_LONG;
+        }
+        return TYPE_NONE;
+    }
+
+    private void emitCondition(ExpressionNode node, boolean jumpWhen, IntList branches, int depth) {
+        switch (kindOf(node)) {
+            case KIND_AND:
+                emitShortCircuit(node, false, jumpWhen, branches, depth);
+                break;
+            case KIND_OR:
+                emitShortCircuit(node, true, jumpWhen, branches, depth);
+                break;
+            case KIND_NOT:
+                emitCondition(unaryArg(node), !jumpWhen, branches, depth);
+                break;
+            case KIND_COMPARISON:
+                emitComparison(node, jumpWhen, branches, depth);
+                break;
+            default:
+                asm.aload(0);
+                asm.getfield(functionsFieldIndex);
+                asm.iconst(functionCursor++);
+                asm.invokeVirtual(getQuickIndex);
+                asm.aload(1);
+                asm.invokeInterface(getBoolIndex, 1);
+                branches.add(jumpWhen ? asm.ifne() : asm.ifeq());
+                break;
+        }
+    }
+
+    private void emitComparison(ExpressionNode node, boolean jumpWhen, IntList branches, int depth) {
+        final int type = comparisonType(node);
+        final int op = comparisonOp(node.token);
+        final int leftConstantIndex = constantIndexes.getQuick(constantCursor++);
+        final int rightConstantIndex = constantIndexes.getQuick(constantCursor++);
+
+        IntList skipBranches = null;
+        if (op != OP_EQ && op != OP_NE) {
+            // ordering comparisons are false when either of the values is null,
+            // equality compares nulls as regular values
+            skipBranches = getBranchList(depth);
+            final IntList nullBranches = jumpWhen ? skipBranches : branches;
+            if (leftConstantIndex == -1) {
+                emitNullCheck(node.lhs, type, nullBranches);
+            }
+            if (rightConstantIndex == -1) {
+                emitNullCheck(node.rhs, type, nullBranches);
+            }
+        }
+
+        emitOperand(node.lhs, type, leftConstantIndex);
+        emitOperand(node.rhs, type, rightConstantIndex);
+        final int jumpOp = jumpWhen ? op : negate(op);
+        if (type == TYPE_INT) {
+            switch (jumpOp) {
+                case OP_EQ:
+                    branches.add(asm.if_icmpeq());
+                    break;
+                case OP_NE:
+                    branches.add(asm.if_icmpne());
+                    break;
+                case OP_LT:
+                    branches.add(asm.if_icmplt());
+                    break;
+                case OP_LE:
+                    branches.add(asm.if_icmple());
+                    break;
+                case OP_GT:
+                    branches.add(asm.if_icmpgt());
+                    break;
+                default:
+                    branches.add(asm.if_icmpge());
+                    break;
+            }
+        } else {
+            asm.lcmp();
+            switch (jumpOp) {
+                case OP_EQ:
+                    branches.add(asm.ifeq());
+                    break;
+                case OP_NE:
+                    branches.add(asm.ifne());
+                    break;
+                case OP_LT:
+                    branches.add(asm.iflt());
+                    break;
+                case OP_LE:
+                    branches.add(asm.ifle());
+                    break;
+                case OP_GT:
+                    branches.add(asm.ifgt());
+                    break;
+                default:
+                    branches.add(asm.ifge());
+                    break;
+            }
+        }
+
+        if (skipBranches != null) {
+            setBranches(skipBranches);
+        }
+    }
+
+    private void emitNullCheck(ExpressionNode node, int type, IntList branches) {
+        emitOperand(node, type, -1);
+        if (type == TYPE_INT) {
+            asm.ldc(intNullIndex);
+            branches.add(asm.if_icmpeq());
+        } else {
+            asm.ldc2_w(longNullIndex);
+            asm.lcmp();
+            branches.add(asm.ifeq());
+        }
+    }
+
+    private void emitOperand(ExpressionNode node, int type, int constantIndex) {
+        if (constantIndex != -1) {
+            if (type == TYPE_INT) {
+                asm.ldc(constantIndex);
+            } else {
+                asm.ldc2_w(constantIndex);
+            }
+            return;
+        }
+
+        asm.aload(1);
+        asm.iconst(metadata.getColumnIndexQuiet(node.token));
+        switch (type) {
+            case TYPE_INT:
+                asm.invokeInterface(getIntIndex, 1);
+                break;
+            case TYPE_LONG:
+                asm.invokeInterface(getLongIndex, 1);
+                break;
+            default:
+                asm.invokeInterface(getTimestampIndex, 1);
+                break;
+        }
+    }
+
+    /**
+     * AND jumps as soon as one of the arguments is false, OR jumps as soon as one of the arguments
+     * is true. When the outer jump condition is the opposite, the first argument skips the second one
+     * instead.
+     */
+    private void emitShortCircuit(ExpressionNode node, boolean shortCircuitWhen, boolean jumpWhen, IntList branches, int depth) {
+        if (jumpWhen == shortCircuitWhen) {
+            emitCondition(node.lhs, jumpWhen, branches, depth);
+            emitCondition(node.rhs, jumpWhen, branches, depth);
+        } else {
+            final IntList skipBranches = getBranchList(depth);
+            emitCondition(node.lhs, shortCircuitWhen, skipBranches, depth + 1);
+            emitCondition(node.rhs, jumpWhen, branches, depth + 1);
+            setBranches(skipBranches);
+        }
+    }
+
+    private IntList getBranchList(int depth) {
+        IntList branches = branchLists.getQuiet(depth);
+        if (branches == null) {
+            branches = new IntList();
+            branchLists.extendAndSet(depth, branches);
+        }
+        branches.clear();
+        return branches;
+    }
+
+    private boolean instrumentGetBoolMethod(ExpressionNode expr, int stackMapTableIndex, int nameIndex, int sigIndex) {
+        constantCursor = 0;
+        functionCursor = 0;
+        falseBranches.clear();
+        frameOffsets.clear();
+
+        // two longs and a record column read on top of them
+        asm.startMethod(nameIndex, sigIndex, 6, 2);
+        emitCondition(expr, false, falseBranches, 0);
+        asm.iconst(1);
+        asm.ireturn();
+        setBranches(falseBranches);
+        asm.iconst(0);
+        asm.ireturn();
+
+        if (asm.position() - asm.getCodeStart() > MAX_CODE_LENGTH) {
+            return false;
+        }
+        asm.endMethodCode();
+
+        // exceptions
+        asm.putShort(0);
+
+        // attributes: 1 - StackMapTable
+        asm.putShort(1);
+        // operand stack is always empty at jump targets and locals are the method arguments,
+        // so that all frames are the same as the initial one
+        int frameCount = 0;
+        for (int i = 0, n = frameOffsets.size(); i < n; i++) {
+            if (i == 0 || frameOffsets.getQuick(i) != frameOffsets.getQuick(i - 1)) {
+                frameCount++;
+            }
+        }
+        asm.startStackMapTables(stackMapTableIndex, frameCount);
+        int prevOffset = -1;
+        for (int i = 0, n = frameOffsets.size(); i < n; i++) {
+            final int offset = frameOffsets.getQuick(i);
+            if (offset != prevOffset) {
+                asm.same_frame(offset - prevOffset - 1);
+                prevOffset = offset;
+            }
+        }
+        asm.endStackMapTables();
+        asm.endMethod();
+        return true;
+    }
+
+    private int kindOf(ExpressionNode node) {
+        if (node.type == ExpressionNode.OPERATION) {
+            if (node.paramCount == 2) {
+                if (SqlKeywords.isAndKeyword(node.token)) {
+                    return KIND_AND;
+                }
+                if (SqlKeywords.isOrKeyword(node.token)) {
+                    return KIND_OR;
+                }
+                if (comparisonType(node) != TYPE_NONE) {
+                    return KIND_COMPARISON;
+                }
+            } else if (node.paramCount == 1 && SqlKeywords.isNotKeyword(node.token)) {
+                return KIND_NOT;
+            }
+        }
+        return KIND_FUNCTION;
+    }
+
+    private int operandOf(ExpressionNode node) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+                if (columnIndex < 0) {
+                    return OPERAND_NONE;
+                }
+                switch (ColumnType.tagOf(metadata.getColumnType(columnIndex))) {
+                    case ColumnType.INT:
+                        return OPERAND_INT_COLUMN;
+                    case ColumnType.LONG:
+                        return OPERAND_LONG_COLUMN;
+                    case ColumnType.TIMESTAMP:
+                        return OPERAND_TIMESTAMP_COLUMN;
+                    default:
+                        return OPERAND_NONE;
+                }
+            case ExpressionNode.CONSTANT:
+                if (Chars.isQuoted(node.token)) {
+                    return operandOfStrConstant(node.token);
+                }
+                return operandOfConstant(node.token);
+            case ExpressionNode.OPERATION:
+                if (node.paramCount == 1 && Chars.equals(node.token, '-')) {
+                    final ExpressionNode arg = unaryArg(node);
+                    if (arg != null && arg.type == ExpressionNode.CONSTANT) {
+                        return operandOfConstant(arg.token);
+                    }
+                }
+                return OPERAND_NONE;
+            default:
+                return OPERAND_NONE;
+        }
+    }
+
+    private int poolOperand(ExpressionNode node, int type) {
+        if (node.type == ExpressionNode.LITERAL) {
+            return -1;
+        }
+        try {
+            final long value = parseConstant(node, type);
+            if (type == TYPE_INT) {
+                final int index = asm.getPoolCount();
+                asm.poolIntConst((int) value);
+                return index;
+            }
+            return asm.poolLongConst(value);
+        } catch (NumericException e) {
+            // operand type was checked already
+            throw new AssertionError(e);
+        }
+    }
+
+    private void setBranches(IntList branches) {
+        final int n = branches.size();
+        if (n > 0) {
+            final int target = asm.position();
+            for (int i = 0; i < n; i++) {
+                asm.setJmp(branches.getQuick(i), target);
+            }
+            frameOffsets.add(target - asm.getCodeStart());
+        }
+    }
+}
@@ -45,7 +45,7 @@ public class NotFunctionFactory implements FunctionFactory {
         return new Func(args.getQuick(0));
     }
 
-    private static class Func extends BooleanFunction implements UnaryFunction {
+    static class Func extends BooleanFunction implements UnaryFunction {
         private final Function arg;
 
         public Func(Function arg) {
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.cast;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.FunctionFactory;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.UuidFunction;
+import io.questdb.griffin.engine.functions.constants.UuidConstant;
+import io.questdb.std.IntList;
+import io.questdb.std.NumericException;
+import io.questdb.std.ObjList;
+import io.questdb.std.Uuid;
+
+public class CastStrToUuidFunctionFactory implements FunctionFactory {
+
+    public static Function newConstant(Function value, int position) throws SqlException {
+        final CharSequence str = value.getStr(null);
+        if (str == null) {
+            return UuidConstant.NULL;
+        }
+        try {
+            Uuid.checkDashesAndLength(str);
+            return new UuidConstant(Uuid.parseLo(str), Uuid.parseHi(str));
+        } catch (NumericException e) {
+            // throw SqlException if string literal is invalid UUID
+            // runtime parsing errors will result in NULL UUID
+            throw SqlException.position(position).put("invalid UUID constant");
+        }
+    }
+
+    @Override
+    public String getSignature() {
+        return "cast(Sz)";
+    }
+
+    @Override
+    public Function newInstance(int position, ObjList<Function> args, IntList argPositions, CairoConfiguration configuration, SqlExecutionContext sqlExecutionContext) throws SqlException {
+        final Function value = args.getQuick(0);
+        if (value.isConstant()) {
+            return newConstant(value, argPositions.getQuick(0));
+        }
+        return new Func(value);
+    }
+
+    private static class Func extends UuidFunction implements UnaryFunction {
+        private final Function arg;
+        private long hi;
+        private long lo;
+
+        public Func(Function arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        public Function getArg() {
+            return arg;
+        }
+
+        @Override
+        public long getLong128Hi(Record rec) {
+            parse(rec);
+            return hi;
+        }
+
+        @Override
+        public long getLong128Lo(Record rec) {
+            parse(rec);
+            return lo;
+        }
+
+        private void parse(Record rec) {
+            final CharSequence str = arg.getStr(rec);
+            if (str != null) {
+                try {
+                    Uuid.checkDashesAndLength(str);
+                    hi = Uuid.parseHi(str);
+                    lo = Uuid.parseLo(str);
+                    return;
+                } catch (NumericException ignore) {
+                }
+            }
+            hi = Uuid.NULL_HI_AND_LO;
+            lo = Uuid.NULL_HI_AND_LO;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.columns;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.ScalarFunction;
+import io.questdb.griffin.engine.functions.UuidFunction;
+
+public class UuidColumn extends UuidFunction implements ScalarFunction {
+    private final int columnIndex;
+
+    public UuidColumn(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    public static UuidColumn newInstance(int columnIndex) {
+        // instances are not cached, string accessors use per-instance buffers
+        return new UuidColumn(columnIndex);
+    }
+
+    @Override
+    public long getLong128Hi(Record rec) {
+        return rec.getLong128Hi(columnIndex);
+    }
+
+    @Override
+    public long getLong128Lo(Record rec) {
+        return rec.getLong128Lo(columnIndex);
+    }
+}
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.LongFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.Hash;
+import io.questdb.std.HyperLogLog;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+
+public class ApproxCountDistinctLongGroupByFunction extends LongFunction implements UnaryFunction, GroupByFunction {
+    private final Function arg;
+    private final ObjList<HyperLogLog> sketches = new ObjList<>();
+    private int sketchIndex;
+    private int valueIndex;
+
+    public ApproxCountDistinctLongGroupByFunction(Function arg) {
+        this.arg = arg;
+    }
+
+    @Override
+    public void clear() {
+        sketches.clear();
+        sketchIndex = 0;
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        final HyperLogLog sketch;
+        if (sketches.size() <= sketchIndex) {
+            sketches.extendAndSet(sketchIndex, sketch = new HyperLogLog());
+        } else {
+            sketch = sketches.getQuick(sketchIndex);
+        }
+
+        sketch.clear();
+        final long val = arg.getLong(record);
+        if (val != Numbers.LONG_NaN) {
+            sketch.add(Hash.fmix64(val));
+        }
+        mapValue.putInt(valueIndex + 1, sketchIndex++);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        final long val = arg.getLong(record);
+        if (val != Numbers.LONG_NaN) {
+            sketches.getQuick(mapValue.getInt(valueIndex + 1)).add(Hash.fmix64(val));
+        }
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        final int index = rec.getInt(valueIndex + 1);
+        // values set directly, e.g. by SAMPLE BY fill, have no sketch
+        return index > -1 ? sketches.getQuick(index).computeCardinality() : rec.getLong(valueIndex);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        columnTypes.add(ColumnType.LONG);
+        columnTypes.add(ColumnType.INT);
+    }
+
+    @Override
+    public void setEmpty(MapValue mapValue) {
+        setLong(mapValue, 0L);
+    }
+
+    @Override
+    public void setLong(MapValue mapValue, long value) {
+        mapValue.putLong(valueIndex, value);
+        mapValue.putInt(valueIndex + 1, -1);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        setLong(mapValue, Numbers.LONG_NaN);
+    }
+
+    @Override
+    public void toTop() {
+        UnaryFunction.super.toTop();
+        sketchIndex = 0;
+    }
+}
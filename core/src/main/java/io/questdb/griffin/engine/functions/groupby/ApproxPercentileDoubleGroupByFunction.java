@@ -0,0 +1,128 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.std.ObjList;
+import io.questdb.std.TDigest;
+import io.questdb.std.str.CharSink;
+import org.jetbrains.annotations.NotNull;
+
+public class ApproxPercentileDoubleGroupByFunction extends DoubleFunction implements UnaryFunction, GroupByFunction {
+    private final Function arg;
+    private final ObjList<TDigest> digests = new ObjList<>();
+    private final double percentile;
+    private int digestIndex;
+    private int valueIndex;
+
+    public ApproxPercentileDoubleGroupByFunction(@NotNull Function arg, double percentile) {
+        this.arg = arg;
+        this.percentile = percentile;
+    }
+
+    @Override
+    public void clear() {
+        digests.clear();
+        digestIndex = 0;
+    }
+
+    @Override
+    public void computeFirst(MapValue mapValue, Record record) {
+        final TDigest digest;
+        if (digests.size() <= digestIndex) {
+            digests.extendAndSet(digestIndex, digest = new TDigest());
+        } else {
+            digest = digests.getQuick(digestIndex);
+        }
+
+        digest.clear();
+        digest.add(arg.getDouble(record));
+        mapValue.putInt(valueIndex + 1, digestIndex++);
+    }
+
+    @Override
+    public void computeNext(MapValue mapValue, Record record) {
+        digests.getQuick(mapValue.getInt(valueIndex + 1)).add(arg.getDouble(record));
+    }
+
+    @Override
+    public Function getArg() {
+        return arg;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        final int index = rec.getInt(valueIndex + 1);
+        // values set directly, e.g. by SAMPLE BY fill, have no digest
+        return index > -1 ? digests.getQuick(index).quantile(percentile) : rec.getDouble(valueIndex);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return false;
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes columnTypes) {
+        this.valueIndex = columnTypes.getColumnCount();
+        columnTypes.add(ColumnType.DOUBLE);
+        columnTypes.add(ColumnType.INT);
+    }
+
+    @Override
+    public void setDouble(MapValue mapValue, double value) {
+        mapValue.putDouble(valueIndex, value);
+        mapValue.putInt(valueIndex + 1, -1);
+    }
+
+    @Override
+    public void setNull(MapValue mapValue) {
+        setDouble(mapValue, Double.NaN);
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("ApproxPercentileDouble(").put(arg).put(',').put(percentile).put(')');
+    }
+
+    @Override
+    public void toTop() {
+        UnaryFunction.super.toTop();
+        digestIndex = 0;
+    }
+}
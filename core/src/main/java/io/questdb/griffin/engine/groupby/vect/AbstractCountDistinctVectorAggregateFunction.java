@@ -0,0 +1,131 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.LongFunction;
+
+/**
+ * Base for non-keyed distinct counts over INT, SYMBOL and LONG columns. Page frames are aggregated
+ * concurrently into per-thread accumulators, which are merged once the result is read. Keyed
+ * aggregation is not supported, such queries are served by group by functions instead.
+ */
+public abstract class AbstractCountDistinctVectorAggregateFunction extends LongFunction implements VectorAggregateFunction {
+    protected final boolean intColumn;
+    protected final int slotCount;
+    private final int columnIndex;
+    private final VectorAggregateSlots slots;
+    private long count = -1;
+
+    protected AbstractCountDistinctVectorAggregateFunction(int columnType, int columnIndex, int workerCount) {
+        // INT and SYMBOL columns share storage format and null value
+        this.intColumn = ColumnType.sizeOf(columnType) == Integer.BYTES;
+        this.columnIndex = columnIndex;
+        this.slots = new VectorAggregateSlots(workerCount);
+        this.slotCount = slots.getSlotCount();
+    }
+
+    @Override
+    public void aggregate(long address, long addressSize, int columnSizeHint, int workerId) {
+        if (address == 0) {
+            // column top, all values are null
+            return;
+        }
+        final long valueCount = addressSize >>> (intColumn ? 2 : 3);
+        final int slot = slots.acquire(workerId);
+        try {
+            aggregate(slot, address, valueCount);
+        } finally {
+            slots.release(slot);
+        }
+    }
+
+    @Override
+    public boolean aggregate(long pRosti, long keyAddress, long valueAddress, long valueAddressSize, int columnSizeShr, int workerId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        count = -1;
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public long getLong(Record rec) {
+        if (count == -1) {
+            count = mergeSlots();
+        }
+        return count;
+    }
+
+    @Override
+    public int getValueOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void initRosti(long pRosti) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public boolean merge(long pRostiA, long pRostiB) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes types) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean wrapUp(long pRosti) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Adds non-null values of the frame to the accumulator of the slot. Slot is exclusively owned
+     * by the calling thread for the duration of the call.
+     */
+    protected abstract void aggregate(int slot, long address, long valueCount);
+
+    /**
+     * Merges accumulators of all slots and returns the distinct count.
+     */
+    protected abstract long mergeSlots();
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+public class ApproxCountDistinctVectorAggregateFunction extends AbstractCountDistinctVectorAggregateFunction {
+    private final ObjList<HyperLogLog> sketches = new ObjList<>();
+
+    public ApproxCountDistinctVectorAggregateFunction(int columnType, int columnIndex, int workerCount) {
+        super(columnType, columnIndex, workerCount);
+        for (int i = 0; i < slotCount; i++) {
+            sketches.add(new HyperLogLog());
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        for (int i = 0; i < slotCount; i++) {
+            sketches.getQuick(i).clear();
+        }
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("ApproxCountDistinctVector(").put(getColumnIndex()).put(')');
+    }
+
+    @Override
+    protected void aggregate(int slot, long address, long valueCount) {
+        final HyperLogLog sketch = sketches.getQuick(slot);
+        if (intColumn) {
+            for (long p = address, hi = address + (valueCount << 2); p < hi; p += Integer.BYTES) {
+                final int value = Unsafe.getUnsafe().getInt(p);
+                if (value != Numbers.INT_NaN) {
+                    // hash as long, same as approx_count_distinct(L) group by function
+                    sketch.add(Hash.fmix64((long) value));
+                }
+            }
+        } else {
+            for (long p = address, hi = address + (valueCount << 3); p < hi; p += Long.BYTES) {
+                final long value = Unsafe.getUnsafe().getLong(p);
+                if (value != Numbers.LONG_NaN) {
+                    sketch.add(Hash.fmix64(value));
+                }
+            }
+        }
+    }
+
+    @Override
+    protected long mergeSlots() {
+        final HyperLogLog union = sketches.getQuick(0);
+        for (int i = 1; i < slotCount; i++) {
+            union.merge(sketches.getQuick(i));
+        }
+        return union.computeCardinality();
+    }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.ArrayColumnTypes;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Non-keyed approximate percentile over DOUBLE, LONG and INT columns. Page frames are aggregated
+ * concurrently into per-thread digests, which are merged once the result is read.
+ */
+public class ApproxPercentileVectorAggregateFunction extends DoubleFunction implements VectorAggregateFunction {
+    private final int columnIndex;
+    private final int columnType;
+    private final ObjList<TDigest> digests = new ObjList<>();
+    private final double percentile;
+    private final int slotCount;
+    private final VectorAggregateSlots slots;
+    private double value = Double.NaN;
+    private boolean valueReady;
+
+    public ApproxPercentileVectorAggregateFunction(int columnType, int columnIndex, double percentile, int workerCount) {
+        this.columnType = columnType;
+        this.columnIndex = columnIndex;
+        this.percentile = percentile;
+        this.slots = new VectorAggregateSlots(workerCount);
+        this.slotCount = slots.getSlotCount();
+        for (int i = 0; i < slotCount; i++) {
+            digests.add(new TDigest());
+        }
+    }
+
+    @Override
+    public void aggregate(long address, long addressSize, int columnSizeHint, int workerId) {
+        if (address == 0) {
+            // column top, all values are null
+            return;
+        }
+        final int slot = slots.acquire(workerId);
+        try {
+            aggregate(digests.getQuick(slot), address, address + addressSize);
+        } finally {
+            slots.release(slot);
+        }
+    }
+
+    @Override
+    public boolean aggregate(long pRosti, long keyAddress, long valueAddress, long valueAddressSize, int columnSizeShr, int workerId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < slotCount; i++) {
+            digests.getQuick(i).clear();
+        }
+        valueReady = false;
+    }
+
+    @Override
+    public int getColumnIndex() {
+        return columnIndex;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        if (!valueReady) {
+            final TDigest union = digests.getQuick(0);
+            for (int i = 1; i < slotCount; i++) {
+                union.merge(digests.getQuick(i));
+            }
+            value = union.quantile(percentile);
+            valueReady = true;
+        }
+        return value;
+    }
+
+    @Override
+    public int getValueOffset() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void initRosti(long pRosti) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return false;
+    }
+
+    @Override
+    public boolean merge(long pRostiA, long pRostiB) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void pushValueTypes(ArrayColumnTypes types) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("ApproxPercentileVector(").put(columnIndex).put(',').put(percentile).put(')');
+    }
+
+    @Override
+    public boolean wrapUp(long pRosti) {
+        throw new UnsupportedOperationException();
+    }
+
+    private void aggregate(TDigest digest, long lo, long hi) {
+        switch (ColumnType.tagOf(columnType)) {
+            case ColumnType.INT:
+                for (long p = lo; p < hi; p += Integer.BYTES) {
+                    final int v = Unsafe.getUnsafe().getInt(p);
+                    if (v != Numbers.INT_NaN) {
+                        digest.add(v);
+                    }
+                }
+                break;
+            case ColumnType.LONG:
+                for (long p = lo; p < hi; p += Long.BYTES) {
+                    final long v = Unsafe.getUnsafe().getLong(p);
+                    if (v != Numbers.LONG_NaN) {
+                        digest.add(v);
+                    }
+                }
+                break;
+            default:
+                // NaN is null and is ignored by the digest
+                for (long p = lo; p < hi; p += Double.BYTES) {
+                    digest.add(Unsafe.getUnsafe().getDouble(p));
+                }
+                break;
+        }
+    }
+}
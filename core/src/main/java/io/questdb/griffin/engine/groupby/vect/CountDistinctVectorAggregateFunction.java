@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.std.*;
+import io.questdb.std.str.CharSink;
+
+/**
+ * Exact non-keyed distinct count. Each slot keeps one set per partition and a value always
+ * lands in the partition picked by its hash, so partitions of different slots never share values
+ * with each other. The final step unions sets partition by partition and sums their sizes, each
+ * union deals with a fraction of the distinct values.
+ */
+public class CountDistinctVectorAggregateFunction extends AbstractCountDistinctVectorAggregateFunction {
+    private final int partitionCount;
+    // set of partition p of slot s is at s * partitionCount + p
+    private final ObjList<LongHashSet> sets = new ObjList<>();
+
+    public CountDistinctVectorAggregateFunction(int columnType, int columnIndex, int workerCount) {
+        super(columnType, columnIndex, workerCount);
+        this.partitionCount = slotCount;
+        for (int i = 0, n = slotCount * partitionCount; i < n; i++) {
+            // values are never LONG_NaN, nulls are skipped
+            sets.add(new LongHashSet(16, 0.5, Numbers.LONG_NaN));
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        for (int i = 0, n = sets.size(); i < n; i++) {
+            sets.getQuick(i).clear();
+        }
+    }
+
+    @Override
+    public void toSink(CharSink sink) {
+        sink.put("CountDistinctVector(").put(getColumnIndex()).put(')');
+    }
+
+    @Override
+    protected void aggregate(int slot, long address, long valueCount) {
+        final int base = slot * partitionCount;
+        if (intColumn) {
+            for (long p = address, hi = address + (valueCount << 2); p < hi; p += Integer.BYTES) {
+                final int value = Unsafe.getUnsafe().getInt(p);
+                if (value != Numbers.INT_NaN) {
+                    sets.getQuick(base + partitionOf(value)).add(value);
+                }
+            }
+        } else {
+            for (long p = address, hi = address + (valueCount << 3); p < hi; p += Long.BYTES) {
+                final long value = Unsafe.getUnsafe().getLong(p);
+                if (value != Numbers.LONG_NaN) {
+                    sets.getQuick(base + partitionOf(value)).add(value);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected long mergeSlots() {
+        long count = 0;
+        for (int p = 0; p < partitionCount; p++) {
+            // merge into the largest set of the partition to minimise rehashing
+            int largest = p;
+            for (int i = p + partitionCount, n = sets.size(); i < n; i += partitionCount) {
+                if (sets.getQuick(i).size() > sets.getQuick(largest).size()) {
+                    largest = i;
+                }
+            }
+            final LongHashSet union = sets.getQuick(largest);
+            for (int i = p, n = sets.size(); i < n; i += partitionCount) {
+                if (i != largest) {
+                    union.addAll(sets.getQuick(i));
+                }
+            }
+            count += union.size();
+        }
+        return count;
+    }
+
+    private int partitionOf(long value) {
+        // sets index keys by their low bits, partitions take high bits of the hash to stay independent
+        return (int) (((Hash.fmix64(value) >>> 32) * partitionCount) >>> 32);
+    }
+}
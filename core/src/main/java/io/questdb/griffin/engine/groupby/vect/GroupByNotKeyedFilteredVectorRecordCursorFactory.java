@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SCSequence;
+import io.questdb.mp.Worker;
+import io.questdb.std.*;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_DESC;
+
+/**
+ * Non-keyed vector aggregation on top of a parallel filter. Filter workers, JIT-compiled or not,
+ * produce lists of matching row ids per page frame. Instead of stepping through those rows with a
+ * record cursor, this factory gathers values of the aggregated columns in small chunks and feeds
+ * the chunks to the same SIMD kernels that are used for unfiltered vector aggregation.
+ */
+public class GroupByNotKeyedFilteredVectorRecordCursorFactory extends AbstractRecordCursorFactory {
+    // number of rows gathered at a time, small enough for the chunk to stay in CPU cache
+    private static final int CHUNK_SIZE = 1024;
+    private static final Log LOG = LogFactory.getLog(GroupByNotKeyedFilteredVectorRecordCursorFactory.class);
+    private final RecordCursorFactory base;
+    private final long chunkSize;
+    private final SCSequence collectSubSeq = new SCSequence();
+    private final int[] columnSizeShrs;
+    private final GroupByNotKeyedFilteredVectorRecordCursor cursor;
+    private final ObjList<VectorAggregateFunction> vafList;
+    private long chunkAddress;
+
+    public GroupByNotKeyedFilteredVectorRecordCursorFactory(
+            RecordCursorFactory base,
+            RecordMetadata metadata,
+            @Transient ObjList<VectorAggregateFunction> vafList
+    ) {
+        super(metadata);
+        assert base.supportsPageFrameSequence();
+        this.base = base;
+        this.vafList = new ObjList<>(vafList.size());
+        this.vafList.addAll(vafList);
+        this.cursor = new GroupByNotKeyedFilteredVectorRecordCursor(this.vafList);
+
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final int vafCount = vafList.size();
+        this.columnSizeShrs = new int[vafCount];
+        int maxColumnSizeShr = 0;
+        for (int i = 0; i < vafCount; i++) {
+            final int columnIndex = vafList.getQuick(i).getColumnIndex();
+            columnSizeShrs[i] = columnIndex > -1 ? ColumnType.pow2SizeOf(baseMetadata.getColumnType(columnIndex)) : 0;
+            maxColumnSizeShr = Math.max(maxColumnSizeShr, columnSizeShrs[i]);
+        }
+        this.chunkSize = (long) CHUNK_SIZE << maxColumnSizeShr;
+        this.chunkAddress = Unsafe.malloc(chunkSize, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final int vafCount = vafList.size();
+        for (int i = 0; i < vafCount; i++) {
+            vafList.getQuick(i).clear();
+        }
+
+        // check if this executed via worker pool
+        final Thread thread = Thread.currentThread();
+        final int workerId;
+        if (thread instanceof Worker) {
+            workerId = ((Worker) thread).getWorkerId();
+        } else {
+            workerId = 0;
+        }
+
+        final SqlExecutionCircuitBreaker circuitBreaker = executionContext.getCircuitBreaker();
+        final int order = base.hasDescendingOrder() ? ORDER_DESC : ORDER_ASC;
+        final PageFrameSequence<?> frameSequence = base.execute(executionContext, collectSubSeq, order);
+        final int frameCount = frameSequence.getFrameCount();
+        try {
+            final PageAddressCache pageAddressCache = frameSequence.getPageAddressCache();
+            int frameIndex = -1;
+            while (frameIndex < frameCount - 1) {
+                final long cursor = frameSequence.next();
+                if (cursor < 0) {
+                    Os.pause();
+                    continue;
+                }
+
+                final PageFrameReduceTask task = frameSequence.getTask(cursor);
+                frameIndex = task.getFrameIndex();
+                try {
+                    if (!frameSequence.isActive()) {
+                        throw CairoException.nonCritical().put("timeout, query aborted").setInterruption(true);
+                    }
+                    circuitBreaker.statefulThrowExceptionIfTrippedNoThrottle();
+                    final DirectLongList rows = task.getRows();
+                    final long rowCount = rows.size();
+                    if (rowCount > 0) {
+                        aggregate(pageAddressCache, frameIndex, rows.getAddress(), rowCount, workerId, circuitBreaker);
+                    }
+                } finally {
+                    frameSequence.collect(cursor, false);
+                }
+            }
+        } catch (Throwable e) {
+            frameSequence.cancel();
+            throw e;
+        } finally {
+            if (frameCount > 0) {
+                frameSequence.await();
+            }
+            frameSequence.clear();
+        }
+
+        LOG.debug().$("done [frameCount=").$(frameCount).I$();
+        return cursor.of();
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("GroupByNotKeyed");
+        sink.meta("vectorized").val(true);
+        sink.attr("groupByFunctions").val(vafList);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    private static void gather(long pageAddress, long pRows, long lo, long hi, int columnSizeShr, long chunkAddress) {
+        switch (columnSizeShr) {
+            case 0:
+                for (long r = lo; r < hi; r++) {
+                    final long rowId = Unsafe.getUnsafe().getLong(pRows + (r << 3));
+                    Unsafe.getUnsafe().putByte(chunkAddress + r - lo, Unsafe.getUnsafe().getByte(pageAddress + rowId));
+                }
+                break;
+            case 1:
+                for (long r = lo; r < hi; r++) {
+                    final long rowId = Unsafe.getUnsafe().getLong(pRows + (r << 3));
+                    Unsafe.getUnsafe().putShort(chunkAddress + ((r - lo) << 1), Unsafe.getUnsafe().getShort(pageAddress + (rowId << 1)));
+                }
+                break;
+            case 2:
+                for (long r = lo; r < hi; r++) {
+                    final long rowId = Unsafe.getUnsafe().getLong(pRows + (r << 3));
+                    Unsafe.getUnsafe().putInt(chunkAddress + ((r - lo) << 2), Unsafe.getUnsafe().getInt(pageAddress + (rowId << 2)));
+                }
+                break;
+            case 3:
+                for (long r = lo; r < hi; r++) {
+                    final long rowId = Unsafe.getUnsafe().getLong(pRows + (r << 3));
+                    Unsafe.getUnsafe().putLong(chunkAddress + ((r - lo) << 3), Unsafe.getUnsafe().getLong(pageAddress + (rowId << 3)));
+                }
+                break;
+            default:
+                final int longCount = 1 << (columnSizeShr - 3);
+                for (long r = lo; r < hi; r++) {
+                    final long rowId = Unsafe.getUnsafe().getLong(pRows + (r << 3));
+                    final long src = pageAddress + (rowId << columnSizeShr);
+                    final long dst = chunkAddress + ((r - lo) << columnSizeShr);
+                    for (int i = 0; i < longCount; i++) {
+                        Unsafe.getUnsafe().putLong(dst + ((long) i << 3), Unsafe.getUnsafe().getLong(src + ((long) i << 3)));
+                    }
+                }
+                break;
+        }
+    }
+
+    private void aggregate(
+            PageAddressCache pageAddressCache,
+            int frameIndex,
+            long pRows,
+            long rowCount,
+            int workerId,
+            SqlExecutionCircuitBreaker circuitBreaker
+    ) {
+        for (int i = 0, n = vafList.size(); i < n; i++) {
+            final VectorAggregateFunction vaf = vafList.getQuick(i);
+            final int columnIndex = vaf.getColumnIndex();
+            final int columnSizeShr = columnSizeShrs[i];
+            // functions like count() do not read any column, they only need the number of rows;
+            // zero page address means that the column is absent in the frame (column top), all values are null
+            final long pageAddress = columnIndex > -1 ? pageAddressCache.getPageAddress(frameIndex, columnIndex) : 0;
+            if (pageAddress == 0) {
+                vaf.aggregate(0, rowCount << columnSizeShr, columnSizeShr, workerId);
+                continue;
+            }
+
+            for (long lo = 0; lo < rowCount; lo += CHUNK_SIZE) {
+                circuitBreaker.statefulThrowExceptionIfTripped();
+                final long hi = Math.min(lo + CHUNK_SIZE, rowCount);
+                gather(pageAddress, pRows, lo, hi, columnSizeShr, chunkAddress);
+                vaf.aggregate(chunkAddress, (hi - lo) << columnSizeShr, columnSizeShr, workerId);
+            }
+        }
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(vafList);
+        Misc.free(base);
+        chunkAddress = Unsafe.free(chunkAddress, chunkSize, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    private static class GroupByNotKeyedFilteredVectorRecordCursor implements NoRandomAccessRecordCursor {
+        private final Record recordA;
+        private int countDown = 1;
+
+        public GroupByNotKeyedFilteredVectorRecordCursor(ObjList<? extends Function> functions) {
+            this.recordA = new VirtualRecordNoRowid(functions);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return countDown-- > 0;
+        }
+
+        @Override
+        public long size() {
+            return 1;
+        }
+
+        @Override
+        public void toTop() {
+            countDown = 1;
+        }
+
+        private GroupByNotKeyedFilteredVectorRecordCursor of() {
+            toTop();
+            return this;
+        }
+    }
+}
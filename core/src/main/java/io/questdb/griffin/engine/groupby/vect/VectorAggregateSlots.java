@@ -0,0 +1,72 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.std.Os;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Accumulator slots of non-keyed vector aggregate functions that keep a per-thread state, such as
+ * a sketch or a digest. Page frames are aggregated concurrently, each into a slot that is exclusively
+ * owned by the aggregating thread until it is released.
+ */
+class VectorAggregateSlots {
+    private final AtomicIntegerArray locks;
+    private final int slotCount;
+
+    VectorAggregateSlots(int workerCount) {
+        // query owner thread aggregates frames alongside the workers
+        this.slotCount = workerCount + 1;
+        this.locks = new AtomicIntegerArray(slotCount);
+    }
+
+    /**
+     * Spins until a slot is available, starting with the slot of the worker.
+     *
+     * @param workerId id of the calling worker, -1 for the query owner thread
+     * @return acquired slot, to be passed to {@link #release(int)} once the frame is aggregated
+     */
+    int acquire(int workerId) {
+        final int start = workerId > -1 ? workerId % slotCount : 0;
+        while (true) {
+            for (int i = 0; i < slotCount; i++) {
+                final int slot = (i + start) % slotCount;
+                if (locks.compareAndSet(slot, 0, 1)) {
+                    return slot;
+                }
+            }
+            Os.pause();
+        }
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    void release(int slot) {
+        locks.set(slot, 0);
+    }
+}
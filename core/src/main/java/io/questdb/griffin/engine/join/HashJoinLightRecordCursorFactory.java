@@ -34,6 +34,7 @@ import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
@@ -95,6 +96,13 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         return masterFactory.supportsUpdateRowId(tableName);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Hash Join Light");
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     protected void _close() {
         ((JoinRecordMetadata) getMetadata()).close();
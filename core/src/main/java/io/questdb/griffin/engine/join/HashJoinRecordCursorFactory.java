@@ -31,6 +31,7 @@ import io.questdb.cairo.map.MapKey;
 import io.questdb.cairo.map.MapValue;
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
@@ -93,6 +94,13 @@ public class HashJoinRecordCursorFactory extends AbstractRecordCursorFactory {
         return masterFactory.supportsUpdateRowId(tableName);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Hash Join");
+        sink.child(masterFactory);
+        sink.child(slaveFactory);
+    }
+
     @Override
     protected void _close() {
         ((JoinRecordMetadata) getMetadata()).close();
@@ -52,6 +52,7 @@ public class AlterOperation extends AbstractOperation implements Mutable {
     public final static short RENAME_COLUMN = 9;
     public final static short SET_PARAM_COMMIT_LAG = 11;
     public final static short SET_PARAM_MAX_UNCOMMITTED_ROWS = 10;
+    public final static short SET_PARAM_TTL = 13;
     private final static Log LOG = LogFactory.getLog(AlterOperation.class);
     private final DirectCharSequenceList directCharList = new DirectCharSequenceList();
     // This is only used to serialize partition name in form 2020-02-12 or 2020-02 or 2020
@@ -120,6 +121,9 @@ public class AlterOperation extends AbstractOperation implements Mutable {
                 case SET_PARAM_COMMIT_LAG:
                     applyParamO3MaxLag(tableWriter);
                     break;
+                case SET_PARAM_TTL:
+                    applyParamTtl(tableWriter);
+                    break;
                 default:
                     LOG.error()
                             .$("invalid alter table command [code=").$(command)
@@ -368,6 +372,19 @@ public class AlterOperation extends AbstractOperation implements Mutable {
         }
     }
 
+    private void applyParamTtl(MetadataChangeSPI tableWriter) {
+        long ttl = longList.get(0);
+        try {
+            tableWriter.setMetaTtl(ttl);
+        } catch (CairoException e) {
+            LOG.error().$("could not change ttl [table=").$(tableName)
+                    .$(", errno=").$(e.getErrno())
+                    .$(", error=").$(e.getFlyweightMessage())
+                    .I$();
+            throw e;
+        }
+    }
+
     private void applyParamUncommittedRows(MetadataChangeSPI tableWriter) {
         int maxUncommittedRows = (int) longList.get(0);
         try {
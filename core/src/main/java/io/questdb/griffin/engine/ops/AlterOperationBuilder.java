@@ -215,4 +215,13 @@ public class AlterOperationBuilder {
         this.tableId = tableId;
         return this;
     }
+
+    public AlterOperationBuilder ofSetParamTtl(int tableNamePosition, String tableName, int tableId, long ttl) {
+        this.command = SET_PARAM_TTL;
+        this.tableNamePosition = tableNamePosition;
+        this.tableName = tableName;
+        this.longList.add(ttl);
+        this.tableId = tableId;
+        return this;
+    }
 }
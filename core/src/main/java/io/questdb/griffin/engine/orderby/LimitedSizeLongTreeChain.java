@@ -87,7 +87,7 @@ public class LimitedSizeLongTreeChain extends AbstractRedBlackTree implements Re
 
     public LimitedSizeLongTreeChain(long keyPageSize, int keyMaxPages, long valuePageSize, int valueMaxPages, boolean isfirstN, long maxValues) {
         super(keyPageSize, keyMaxPages);
-        this.valueChain = Vm.getARWInstance(valuePageSize, valueMaxPages, MemoryTag.NATIVE_TREE_CHAIN);
+        this.valueChain = Vm.getSpillableARWInstance(valuePageSize, valueMaxPages, MemoryTag.NATIVE_TREE_CHAIN);
         this.freeList = new LongList();
         this.chainFreeList = new LongList();
         this.isFirstN = isfirstN;
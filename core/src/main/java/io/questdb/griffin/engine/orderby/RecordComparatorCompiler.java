@@ -58,6 +58,18 @@ public class RecordComparatorCompiler {
      * @return RecordComparator instance.
      */
     public RecordComparator compile(ColumnTypes columnTypes, @Transient IntList keyColumnIndices) {
+        return BytecodeAssembler.newInstance(compileClass(columnTypes, keyColumnIndices));
+    }
+
+    /**
+     * Same as {@link #compile(ColumnTypes, IntList)}, but returns the comparator class. Use it when
+     * more than one comparator instance is needed, e.g. one per worker, to define the class once.
+     *
+     * @param columnTypes      types of columns in the cursor
+     * @param keyColumnIndices 1-based key column indexes, negative for descending order
+     * @return RecordComparator class, instances are created with {@link BytecodeAssembler#newInstance(Class)}
+     */
+    public Class<RecordComparator> compileClass(ColumnTypes columnTypes, @Transient IntList keyColumnIndices) {
 
         assert keyColumnIndices.size() < SqlParser.MAX_ORDER_BY_COLUMNS;
 
@@ -92,7 +104,11 @@ public class RecordComparatorCompiler {
 
         // class attribute count
         asm.putShort(0);
-        return asm.newInstance();
+        return asm.loadClass(RecordComparator.class);
+    }
+
+    private static boolean isLong128Storage(int columnType) {
+        return columnType == ColumnType.LONG128 || columnType == ColumnType.UUID;
     }
 
     private void instrumentCompareMethod(int stackMapTableIndex, int nameIndex, int descIndex, IntList keyColumns, ColumnTypes columnTypes) {
@@ -116,7 +132,7 @@ public class RecordComparatorCompiler {
             asm.iconst(columnIndex);
             asm.invokeInterface(fieldRecordAccessorIndicesA.getQuick(i), 1);
 
-            if (columnTypes.getColumnType(columnIndex) == ColumnType.LONG128) {
+            if (isLong128Storage(columnTypes.getColumnType(columnIndex))) {
                 asm.aload(0);
                 asm.getfield(fieldIndices.getQuick(fieldIndex++));
                 asm.aload(1);
@@ -197,7 +213,7 @@ public class RecordComparatorCompiler {
             asm.invokeInterface(fieldRecordAccessorIndicesB.getQuick(i), 1);
             asm.putfield(fieldIndices.getQuick(fieldIndex++));
 
-            if (columnTypes.getColumnType(columnIndex) == ColumnType.LONG128) {
+            if (isLong128Storage(columnTypes.getColumnType(columnIndex))) {
                 asm.aload(0);
                 asm.aload(1);
                 asm.iconst(columnIndex);
@@ -311,6 +327,7 @@ public class RecordComparatorCompiler {
                     fieldType = "Lio/questdb/std/Long256;";
                     comparatorClass = Long256Util.class;
                     break;
+                case ColumnType.UUID:
                 case ColumnType.LONG128:
                     getterNameA = "getLong128Hi";
                     getterNameB = "getLong128Lo";
@@ -345,7 +362,7 @@ public class RecordComparatorCompiler {
 
             int methodIndex;
             String getterType = fieldType;
-            if (columnType == ColumnType.LONG128) {
+            if (isLong128Storage(columnType)) {
                 // Special case, Long128 is 2 longs of type J on comparison
                 fieldTypeIndices.add(typeIndex);
                 int nameIndex2 = asm.poolUtf8().put('f').put(i).put(i).$();
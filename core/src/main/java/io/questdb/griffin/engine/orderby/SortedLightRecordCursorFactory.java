@@ -29,6 +29,7 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.RecordComparator;
@@ -72,6 +73,12 @@ public class SortedLightRecordCursorFactory extends AbstractRecordCursorFactory
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sort light");
+        sink.child(base);
+    }
+
     @Override
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
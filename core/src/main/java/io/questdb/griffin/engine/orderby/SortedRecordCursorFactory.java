@@ -30,6 +30,7 @@ import io.questdb.cairo.RecordSink;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.engine.RecordComparator;
@@ -71,6 +72,12 @@ public class SortedRecordCursorFactory extends AbstractRecordCursorFactory {
         return true;
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Sort");
+        sink.child(base);
+    }
+
     @Override
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
@@ -27,6 +27,7 @@ package io.questdb.griffin.engine.table;
 import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.*;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.*;
@@ -48,6 +49,7 @@ public class AsyncFilterAtom implements StatefulAtom, Closeable {
     // Used to randomize acquire attempts for work stealing threads. Accessed in a racy way, intentionally.
     private final Rnd rnd;
     private boolean preTouchEnabled;
+    private PageFrameTopKFilter topKFilter;
 
     public AsyncFilterAtom(
             @NotNull CairoConfiguration configuration,
@@ -95,6 +97,17 @@ public class AsyncFilterAtom implements StatefulAtom, Closeable {
     public void close() {
         Misc.free(filter);
         Misc.freeObjList(perWorkerFilters);
+        Misc.free(topKFilter);
+    }
+
+    /**
+     * Narrows the filtered rows down to the ORDER BY ... LIMIT N candidates, if the
+     * top K filter is set.
+     */
+    public void filterTopK(int workerId, PageFrameReduceTask task, DirectLongList rows) {
+        if (topKFilter != null) {
+            topKFilter.filter(workerId, task, rows);
+        }
     }
 
     public Function getFilter(int filterId) {
@@ -126,76 +139,32 @@ public class AsyncFilterAtom implements StatefulAtom, Closeable {
      * The idea is to access the memory to page fault and, thus, warm up the pages
      * in parallel, on multiple threads, instead of relying on the "query owner" thread
      * to do it later serially.
+     * <p>
+     * Frames with no matching rows are not touched at all. Otherwise, columns are touched
+     * one by one, so that each column file is read sequentially, and only one value is
+     * touched per memory page, so that dense ranges of matching rows cost a single read
+     * per page instead of a read per row.
      */
-    public void preTouchColumns(PageAddressCacheRecord record, DirectLongList rows) {
-        if (!preTouchEnabled || preTouchColumnTypes == null) {
+    public void preTouchColumns(PageAddressCache pageAddressCache, int frameIndex, DirectLongList rows) {
+        if (!preTouchEnabled || preTouchColumnTypes == null || rows.size() == 0) {
             return;
         }
         // We use a LongAdder as a black hole to make sure that the JVM JIT compiler keeps the load instructions in place.
         long sum = 0;
-        for (long p = 0; p < rows.size(); p++) {
-            long r = rows.get(p);
-            record.setRowIndex(r);
-            for (int i = 0; i < preTouchColumnTypes.size(); i++) {
-                int columnType = preTouchColumnTypes.getQuick(i);
-                switch (ColumnType.tagOf(columnType)) {
-                    case ColumnType.BOOLEAN:
-                        sum += record.getBool(i) ? 1 : 0;
-                        break;
-                    case ColumnType.BYTE:
-                        sum += record.getByte(i);
-                        break;
-                    case ColumnType.SHORT:
-                        sum += record.getShort(i);
-                        break;
-                    case ColumnType.INT:
-                    case ColumnType.SYMBOL: // We're interested in pre-touching pages, so we read the symbol key only.
-                        sum += record.getInt(i);
-                        break;
-                    case ColumnType.LONG:
-                    case ColumnType.DATE:
-                    case ColumnType.TIMESTAMP:
-                        sum += record.getLong(i);
-                        break;
-                    case ColumnType.FLOAT:
-                        sum += record.getFloat(i);
-                        break;
-                    case ColumnType.DOUBLE:
-                        sum += record.getDouble(i);
-                        break;
-                    case ColumnType.LONG256:
-                        Long256 l256 = record.getLong256A(i);
-                        sum += l256.getLong0();
-                        sum += l256.getLong1();
-                        sum += l256.getLong2();
-                        sum += l256.getLong3();
-                        break;
-                    case ColumnType.GEOBYTE:
-                        sum += record.getGeoByte(i);
-                        break;
-                    case ColumnType.GEOSHORT:
-                        sum += record.getGeoShort(i);
-                        break;
-                    case ColumnType.GEOINT:
-                        sum += record.getGeoInt(i);
-                        break;
-                    case ColumnType.GEOLONG:
-                        sum += record.getGeoLong(i);
-                        break;
-                    case ColumnType.STRING:
-                        CharSequence cs = record.getStr(i);
-                        if (cs != null && cs.length() > 0) {
-                            // Touch the first page of the string contents only.
-                            sum += cs.charAt(0);
-                        }
-                        break;
-                    case ColumnType.BINARY:
-                        BinarySequence bs = record.getBin(i);
-                        if (bs != null && bs.length() > 0) {
-                            // Touch the first page of the binary contents only.
-                            sum += bs.byteAt(0);
-                        }
-                        break;
+        for (int i = 0, n = preTouchColumnTypes.size(); i < n; i++) {
+            final long pageAddress = pageAddressCache.getPageAddress(frameIndex, i);
+            if (pageAddress == 0) {
+                // Column top, there is nothing to read.
+                continue;
+            }
+            final int columnType = preTouchColumnTypes.getQuick(i);
+            if (ColumnType.isVariableLength(columnType)) {
+                final long indexPageAddress = pageAddressCache.getIndexPageAddress(frameIndex, i);
+                sum += preTouchVarSizeColumn(pageAddress, indexPageAddress, rows);
+            } else {
+                final int shift = ColumnType.pow2SizeOf(columnType);
+                if (shift > -1) {
+                    sum += preTouchFixedSizeColumn(pageAddress, shift, rows);
                 }
             }
         }
@@ -209,4 +178,44 @@ public class AsyncFilterAtom implements StatefulAtom, Closeable {
         }
         perWorkerLocks.set(filterId, 0);
     }
+
+    public void setTopKFilter(PageFrameTopKFilter topKFilter) {
+        this.topKFilter = topKFilter;
+    }
+
+    private static long preTouchFixedSizeColumn(long pageAddress, int shift, DirectLongList rows) {
+        long sum = 0;
+        long lastPage = -1;
+        for (long p = 0, n = rows.size(); p < n; p++) {
+            final long address = pageAddress + (rows.get(p) << shift);
+            final long page = address / Files.PAGE_SIZE;
+            if (page != lastPage) {
+                sum += Unsafe.getUnsafe().getByte(address);
+                lastPage = page;
+            }
+        }
+        return sum;
+    }
+
+    private static long preTouchVarSizeColumn(long pageAddress, long indexPageAddress, DirectLongList rows) {
+        long sum = 0;
+        long lastIndexPage = -1;
+        long lastDataPage = -1;
+        for (long p = 0, n = rows.size(); p < n; p++) {
+            final long indexAddress = indexPageAddress + (rows.get(p) << 3);
+            final long indexPage = indexAddress / Files.PAGE_SIZE;
+            if (indexPage != lastIndexPage) {
+                sum += Unsafe.getUnsafe().getByte(indexAddress);
+                lastIndexPage = indexPage;
+            }
+            // Touch the first page of the value contents only.
+            final long address = pageAddress + Unsafe.getUnsafe().getLong(indexAddress);
+            final long dataPage = address / Files.PAGE_SIZE;
+            if (dataPage != lastDataPage) {
+                sum += Unsafe.getUnsafe().getByte(address);
+                lastDataPage = dataPage;
+            }
+        }
+        return sum;
+    }
 }
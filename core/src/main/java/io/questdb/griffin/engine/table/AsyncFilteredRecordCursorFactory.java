@@ -142,6 +142,15 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
         return base.recordCursorSupportsRandomAccess();
     }
 
+    public void setTopKFilter(PageFrameTopKFilter topKFilter) {
+        filterAtom.setTopKFilter(topKFilter);
+    }
+
+    @Override
+    public boolean supportsPageFrameSequence() {
+        return true;
+    }
+
     @Override
     public boolean supportsUpdateRowId(CharSequence tableName) {
         return base.supportsUpdateRowId(tableName);
@@ -179,8 +188,11 @@ public class AsyncFilteredRecordCursorFactory extends AbstractRecordCursorFactor
             atom.releaseFilter(filterId);
         }
 
+        // Keep ORDER BY ... LIMIT N candidates only, if asked.
+        atom.filterTopK(workerId, task, rows);
+
         // Pre-touch fixed-size columns, if asked.
-        atom.preTouchColumns(record, rows);
+        atom.preTouchColumns(task.getPageAddressCache(), task.getFrameIndex(), rows);
     }
 
     @Override
@@ -159,6 +159,15 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         return true;
     }
 
+    public void setTopKFilter(PageFrameTopKFilter topKFilter) {
+        filterAtom.setTopKFilter(topKFilter);
+    }
+
+    @Override
+    public boolean supportsPageFrameSequence() {
+        return true;
+    }
+
     @Override
     public boolean supportsUpdateRowId(CharSequence tableName) {
         return base.supportsUpdateRowId(tableName);
@@ -196,10 +205,11 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
                         rows.add(r);
                     }
                 }
-                return;
             } finally {
                 atom.releaseFilter(filterId);
             }
+            atom.filterTopK(workerId, task, rows);
+            return;
         }
 
         // Use JIT-compiled filter.
@@ -229,8 +239,11 @@ public class AsyncJitFilteredRecordCursorFactory extends AbstractRecordCursorFac
         );
         rows.setPos(hi);
 
+        // Keep ORDER BY ... LIMIT N candidates only, if asked.
+        atom.filterTopK(workerId, task, rows);
+
         // Pre-touch fixed-size columns, if asked.
-        atom.preTouchColumns(record, rows);
+        atom.preTouchColumns(pageAddressCache, task.getFrameIndex(), rows);
     }
 
     @Override
@@ -117,6 +117,11 @@ public class BwdTableReaderPageFrameCursor implements PageFrameCursor {
         return this;
     }
 
+    @Override
+    public long rowCount() {
+        return dataFrameCursor.size();
+    }
+
     @Override
     public long size() {
         return reader.size();
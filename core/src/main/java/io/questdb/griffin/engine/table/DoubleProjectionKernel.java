@@ -0,0 +1,436 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.PageAddressCache;
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlKeywords;
+import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.griffin.model.ExpressionNode;
+import io.questdb.std.*;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Column-at-a-time evaluation of DOUBLE arithmetic projections, such as "price * qty" or "(bid + ask) / 2".
+ * The expression is compiled into a small stack program, which is executed once per block of page frame
+ * rows instead of walking the function tree for every row. Intermediate results are kept in native
+ * buffers, one per stack slot, and DOUBLE columns are read in place.
+ * <p>
+ * Only expressions that produce exactly the same values as the scalar function tree are compiled: every
+ * arithmetic operator must have a DOUBLE operand, so that SQL function resolution picks the DOUBLE overload
+ * and INT/LONG nulls are converted to NaN before they take part in the calculation.
+ */
+public class DoubleProjectionKernel extends DoubleFunction {
+    // number of rows evaluated at a time, small enough for the buffers to stay in CPU cache
+    static final int BLOCK_SIZE = 1024;
+    private static final int KIND_DOUBLE = 0;
+    private static final int KIND_FLOAT = 1;
+    private static final int KIND_INTEGRAL = 2;
+    private static final int KIND_UNSUPPORTED = -1;
+    private static final int OP_ADD = 1;
+    private static final int OP_COLUMN = 5;
+    private static final int OP_CONST = 6;
+    private static final int OP_DIV = 4;
+    private static final int OP_MUL = 3;
+    private static final int OP_NEG = 7;
+    private static final int OP_SUB = 2;
+    private final long buffersSize;
+    // constant operands, stored as raw double bits
+    private final LongList constants;
+    // operand stack; zero address means that the operand is a constant
+    private final long[] operandAddresses;
+    private final double[] operandConstants;
+    private final IntList program;
+    private long blockLo;
+    private long buffersAddress;
+    private long resultAddress;
+
+    private DoubleProjectionKernel(IntList program, LongList constants, int stackDepth) {
+        this.program = program;
+        this.constants = constants;
+        this.operandAddresses = new long[stackDepth];
+        this.operandConstants = new double[stackDepth];
+        this.buffersSize = (long) stackDepth * BLOCK_SIZE * Double.BYTES;
+        this.buffersAddress = Unsafe.malloc(buffersSize, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Compiles projection expression into a kernel.
+     *
+     * @param node     projection expression
+     * @param metadata metadata of the page frames the kernel is going to be evaluated on
+     * @return compiled kernel or null when the expression is not supported
+     */
+    @Nullable
+    public static DoubleProjectionKernel compile(ExpressionNode node, RecordMetadata metadata) {
+        final IntList program = new IntList();
+        final LongList constants = new LongList();
+        if (compile(node, metadata, program, constants) != KIND_DOUBLE) {
+            return null;
+        }
+
+        // bare columns and constants are served well enough by their functions
+        int stackDepth = 0;
+        int maxStackDepth = 0;
+        boolean hasColumns = false;
+        boolean hasOperators = false;
+        for (int pc = 0, n = program.size(); pc < n; ) {
+            switch (program.getQuick(pc++)) {
+                case OP_COLUMN:
+                    hasColumns = true;
+                    pc += 2;
+                    maxStackDepth = Math.max(maxStackDepth, ++stackDepth);
+                    break;
+                case OP_CONST:
+                    pc++;
+                    maxStackDepth = Math.max(maxStackDepth, ++stackDepth);
+                    break;
+                case OP_NEG:
+                    hasOperators = true;
+                    break;
+                default:
+                    hasOperators = true;
+                    stackDepth--;
+                    break;
+            }
+        }
+        if (!hasColumns || !hasOperators) {
+            return null;
+        }
+        return new DoubleProjectionKernel(program, constants, maxStackDepth);
+    }
+
+    @Override
+    public void close() {
+        buffersAddress = Unsafe.free(buffersAddress, buffersSize, MemoryTag.NATIVE_DEFAULT);
+    }
+
+    /**
+     * Evaluates the expression for rows [lo, hi) of the given page frame. The number of rows
+     * must not exceed {@link #BLOCK_SIZE}.
+     */
+    public void evaluate(PageAddressCache pageAddressCache, int frameIndex, long lo, long hi) {
+        assert hi - lo <= BLOCK_SIZE;
+        final long count = hi - lo;
+        int sp = 0;
+        for (int pc = 0, n = program.size(); pc < n; ) {
+            final int op = program.getQuick(pc++);
+            switch (op) {
+                case OP_COLUMN: {
+                    final int columnIndex = program.getQuick(pc++);
+                    final int columnType = program.getQuick(pc++);
+                    final long pageAddress = pageAddressCache.getPageAddress(frameIndex, columnIndex);
+                    if (pageAddress == 0) {
+                        // column top, all values are null
+                        operandAddresses[sp] = 0;
+                        operandConstants[sp] = Double.NaN;
+                    } else if (columnType == ColumnType.DOUBLE) {
+                        operandAddresses[sp] = pageAddress + (lo << 3);
+                    } else {
+                        operandAddresses[sp] = load(pageAddress, columnType, lo, count, getBufferAddress(sp));
+                    }
+                    sp++;
+                    break;
+                }
+                case OP_CONST:
+                    operandAddresses[sp] = 0;
+                    operandConstants[sp] = Double.longBitsToDouble(constants.getQuick(program.getQuick(pc++)));
+                    sp++;
+                    break;
+                case OP_NEG: {
+                    final int a = sp - 1;
+                    if (operandAddresses[a] == 0) {
+                        operandConstants[a] = -operandConstants[a];
+                    } else {
+                        operandAddresses[a] = neg(operandAddresses[a], count, getBufferAddress(a));
+                    }
+                    break;
+                }
+                default: {
+                    final int a = sp - 2;
+                    final int b = sp - 1;
+                    if (operandAddresses[a] == 0 && operandAddresses[b] == 0) {
+                        operandConstants[a] = apply(op, operandConstants[a], operandConstants[b]);
+                    } else {
+                        final long addressA = materialize(a, count);
+                        final long addressB = materialize(b, count);
+                        operandAddresses[a] = apply(op, addressA, addressB, count, getBufferAddress(a));
+                    }
+                    sp--;
+                    break;
+                }
+            }
+        }
+        assert sp == 1;
+        this.resultAddress = materialize(0, count);
+        this.blockLo = lo;
+    }
+
+    @Override
+    public double getDouble(Record rec) {
+        final long rowIndex = ((PageAddressCacheRecord) rec).getRowIndex();
+        return Unsafe.getUnsafe().getDouble(resultAddress + ((rowIndex - blockLo) << 3));
+    }
+
+    @Override
+    public boolean supportsRandomAccess() {
+        return false;
+    }
+
+    private static double apply(int op, double a, double b) {
+        switch (op) {
+            case OP_ADD:
+                return a + b;
+            case OP_SUB:
+                return a - b;
+            case OP_MUL:
+                return a * b;
+            default:
+                return a / b;
+        }
+    }
+
+    private static long apply(int op, long addressA, long addressB, long count, long dst) {
+        switch (op) {
+            case OP_ADD:
+                for (long i = 0, offset = 0; i < count; i++, offset += Double.BYTES) {
+                    Unsafe.getUnsafe().putDouble(dst + offset, Unsafe.getUnsafe().getDouble(addressA + offset) + Unsafe.getUnsafe().getDouble(addressB + offset));
+                }
+                break;
+            case OP_SUB:
+                for (long i = 0, offset = 0; i < count; i++, offset += Double.BYTES) {
+                    Unsafe.getUnsafe().putDouble(dst + offset, Unsafe.getUnsafe().getDouble(addressA + offset) - Unsafe.getUnsafe().getDouble(addressB + offset));
+                }
+                break;
+            case OP_MUL:
+                for (long i = 0, offset = 0; i < count; i++, offset += Double.BYTES) {
+                    Unsafe.getUnsafe().putDouble(dst + offset, Unsafe.getUnsafe().getDouble(addressA + offset) * Unsafe.getUnsafe().getDouble(addressB + offset));
+                }
+                break;
+            default:
+                for (long i = 0, offset = 0; i < count; i++, offset += Double.BYTES) {
+                    Unsafe.getUnsafe().putDouble(dst + offset, Unsafe.getUnsafe().getDouble(addressA + offset) / Unsafe.getUnsafe().getDouble(addressB + offset));
+                }
+                break;
+        }
+        return dst;
+    }
+
+    private static int compile(ExpressionNode node, RecordMetadata metadata, IntList program, LongList constants) {
+        switch (node.type) {
+            case ExpressionNode.LITERAL:
+                return compileColumn(node, metadata, program);
+            case ExpressionNode.CONSTANT:
+                return compileConstant(node.token, program, constants);
+            case ExpressionNode.OPERATION:
+            case ExpressionNode.FUNCTION:
+                break;
+            default:
+                return KIND_UNSUPPORTED;
+        }
+
+        if (node.paramCount == 1 && Chars.equals(node.token, '-')) {
+            final ExpressionNode arg = node.lhs != null ? node.lhs : node.rhs;
+            final int kind = compile(arg, metadata, program, constants);
+            if (kind == KIND_DOUBLE) {
+                program.add(OP_NEG);
+                return KIND_DOUBLE;
+            }
+            if (kind == KIND_INTEGRAL && arg.type == ExpressionNode.CONSTANT) {
+                // negative integer literal, e.g. "-2 * price"; integer zero has no sign
+                final int index = program.getLast();
+                final double value = Double.longBitsToDouble(constants.getQuick(index));
+                constants.setQuick(index, Double.doubleToRawLongBits(value != 0 ? -value : 0));
+                return KIND_INTEGRAL;
+            }
+            return KIND_UNSUPPORTED;
+        }
+
+        if (node.paramCount != 2) {
+            return KIND_UNSUPPORTED;
+        }
+
+        if (SqlKeywords.isCastKeyword(node.token)) {
+            // cast(x as double) only widens the value, nulls are converted to NaN the same way columns are loaded
+            if (node.rhs.type != ExpressionNode.CONSTANT || ColumnType.tagOf(node.rhs.token) != ColumnType.DOUBLE) {
+                return KIND_UNSUPPORTED;
+            }
+            return compile(node.lhs, metadata, program, constants) != KIND_UNSUPPORTED ? KIND_DOUBLE : KIND_UNSUPPORTED;
+        }
+
+        final int op = getOperator(node.token);
+        if (op == -1) {
+            return KIND_UNSUPPORTED;
+        }
+        final int lhsKind = compile(node.lhs, metadata, program, constants);
+        if (lhsKind == KIND_UNSUPPORTED) {
+            return KIND_UNSUPPORTED;
+        }
+        final int rhsKind = compile(node.rhs, metadata, program, constants);
+        if (rhsKind == KIND_UNSUPPORTED) {
+            return KIND_UNSUPPORTED;
+        }
+        // without a DOUBLE operand the operator resolves to INT, LONG or FLOAT arithmetic
+        if (lhsKind != KIND_DOUBLE && rhsKind != KIND_DOUBLE) {
+            return KIND_UNSUPPORTED;
+        }
+        program.add(op);
+        return KIND_DOUBLE;
+    }
+
+    private static int compileColumn(ExpressionNode node, RecordMetadata metadata, IntList program) {
+        final int columnIndex = metadata.getColumnIndexQuiet(node.token);
+        if (columnIndex < 0) {
+            return KIND_UNSUPPORTED;
+        }
+        final int columnType = metadata.getColumnType(columnIndex);
+        final int kind;
+        switch (columnType) {
+            case ColumnType.DOUBLE:
+                kind = KIND_DOUBLE;
+                break;
+            case ColumnType.FLOAT:
+                kind = KIND_FLOAT;
+                break;
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.INT:
+            case ColumnType.LONG:
+                kind = KIND_INTEGRAL;
+                break;
+            default:
+                return KIND_UNSUPPORTED;
+        }
+        program.add(OP_COLUMN);
+        program.add(columnIndex);
+        program.add(columnType);
+        return kind;
+    }
+
+    private static int compileConstant(CharSequence token, IntList program, LongList constants) {
+        // mirrors numeric constant parsing in FunctionParser
+        double value;
+        int kind;
+        try {
+            value = Numbers.parseInt(token);
+            kind = KIND_INTEGRAL;
+        } catch (NumericException e) {
+            try {
+                value = Numbers.parseLong(token);
+                kind = KIND_INTEGRAL;
+            } catch (NumericException e1) {
+                try {
+                    value = Numbers.parseDouble(token);
+                    kind = KIND_DOUBLE;
+                } catch (NumericException e2) {
+                    return KIND_UNSUPPORTED;
+                }
+            }
+        }
+        program.add(OP_CONST);
+        program.add(constants.size());
+        constants.add(Double.doubleToRawLongBits(value));
+        return kind;
+    }
+
+    private static int getOperator(CharSequence token) {
+        if (token.length() == 1) {
+            switch (token.charAt(0)) {
+                case '+':
+                    return OP_ADD;
+                case '-':
+                    return OP_SUB;
+                case '*':
+                    return OP_MUL;
+                case '/':
+                    return OP_DIV;
+                default:
+                    break;
+            }
+        }
+        return -1;
+    }
+
+    private static long load(long pageAddress, int columnType, long lo, long count, long dst) {
+        switch (columnType) {
+            case ColumnType.FLOAT:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putDouble(dst + (i << 3), Unsafe.getUnsafe().getFloat(pageAddress + ((lo + i) << 2)));
+                }
+                break;
+            case ColumnType.BYTE:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putDouble(dst + (i << 3), Unsafe.getUnsafe().getByte(pageAddress + lo + i));
+                }
+                break;
+            case ColumnType.SHORT:
+                for (long i = 0; i < count; i++) {
+                    Unsafe.getUnsafe().putDouble(dst + (i << 3), Unsafe.getUnsafe().getShort(pageAddress + ((lo + i) << 1)));
+                }
+                break;
+            case ColumnType.INT:
+                for (long i = 0; i < count; i++) {
+                    final int value = Unsafe.getUnsafe().getInt(pageAddress + ((lo + i) << 2));
+                    Unsafe.getUnsafe().putDouble(dst + (i << 3), value != Numbers.INT_NaN ? value : Double.NaN);
+                }
+                break;
+            default:
+                for (long i = 0; i < count; i++) {
+                    final long value = Unsafe.getUnsafe().getLong(pageAddress + ((lo + i) << 3));
+                    Unsafe.getUnsafe().putDouble(dst + (i << 3), value != Numbers.LONG_NaN ? value : Double.NaN);
+                }
+                break;
+        }
+        return dst;
+    }
+
+    private static long neg(long address, long count, long dst) {
+        for (long i = 0, offset = 0; i < count; i++, offset += Double.BYTES) {
+            Unsafe.getUnsafe().putDouble(dst + offset, -Unsafe.getUnsafe().getDouble(address + offset));
+        }
+        return dst;
+    }
+
+    private long getBufferAddress(int slot) {
+        return buffersAddress + ((long) slot * BLOCK_SIZE << 3);
+    }
+
+    // returns address of the operand values, constants are spread over the slot's buffer
+    private long materialize(int slot, long count) {
+        final long address = operandAddresses[slot];
+        if (address != 0) {
+            return address;
+        }
+        final long dst = getBufferAddress(slot);
+        final double value = operandConstants[slot];
+        for (long i = 0; i < count; i++) {
+            Unsafe.getUnsafe().putDouble(dst + (i << 3), value);
+        }
+        return dst;
+    }
+}
@@ -28,6 +28,7 @@ import io.questdb.cairo.AbstractRecordCursorFactory;
 import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.PlanSink;
 import io.questdb.griffin.SqlException;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.std.Misc;
@@ -72,6 +73,13 @@ public class FilteredRecordCursorFactory extends AbstractRecordCursorFactory {
         return base.supportsUpdateRowId(tableName);
     }
 
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("Filter");
+        sink.attr("filter").val(filter);
+        sink.child(base);
+    }
+
     @Override
     public boolean usesCompiledFilter() {
         return base.usesCompiledFilter();
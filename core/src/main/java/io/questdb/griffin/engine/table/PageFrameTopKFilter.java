@@ -0,0 +1,189 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.PageAddressCacheRecord;
+import io.questdb.cairo.sql.async.PageFrameReduceTask;
+import io.questdb.cairo.sql.async.PageFrameSequence;
+import io.questdb.griffin.engine.RecordComparator;
+import io.questdb.std.*;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Narrows rows matched in a page frame down to the candidates for ORDER BY ... LIMIT N.
+ * <p>
+ * Runs on the reduce workers, so that the serial top N tree on the query owner thread
+ * receives at most N rows per frame instead of every matching row. Rows tied with the
+ * N-th row of the frame are kept too, so the outcome does not depend on the order in which
+ * the tree breaks ties. Each thread uses its own comparator and records; a thread that
+ * can't get a free slot leaves the frame as is.
+ */
+public class PageFrameTopKFilter implements QuietCloseable {
+    private final ObjList<RecordComparator> comparators;
+    private final ObjList<DirectLongList> heaps = new ObjList<>();
+    private final ObjList<PageAddressCacheRecord> leftRecords = new ObjList<>();
+    private final long limit;
+    private final AtomicIntegerArray locks;
+    // 1 when we keep the first N rows, -1 when we keep the last N rows
+    private final int order;
+    private final ObjList<PageAddressCacheRecord> rightRecords = new ObjList<>();
+
+    /**
+     * @param comparators one comparator per thread that may run the filter concurrently
+     * @param limit       number of rows to keep, must be positive
+     * @param isFirstN    true to keep the first rows in the comparator order, false to keep the last ones
+     */
+    public PageFrameTopKFilter(@NotNull ObjList<RecordComparator> comparators, long limit, boolean isFirstN) {
+        assert limit > 0;
+        this.comparators = comparators;
+        this.limit = limit;
+        this.order = isFirstN ? 1 : -1;
+        final int size = comparators.size();
+        this.locks = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            heaps.add(new DirectLongList(16, MemoryTag.NATIVE_LONG_LIST));
+            leftRecords.add(new PageAddressCacheRecord());
+            rightRecords.add(new PageAddressCacheRecord());
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(heaps);
+        Misc.freeObjList(leftRecords);
+        Misc.freeObjList(rightRecords);
+    }
+
+    public void filter(int workerId, @NotNull PageFrameReduceTask task, @NotNull DirectLongList rows) {
+        final long rowCount = rows.size();
+        if (rowCount <= limit) {
+            return;
+        }
+
+        final int size = comparators.size();
+        final int start = workerId == -1 ? 0 : workerId;
+        for (int i = 0; i < size; i++) {
+            final int slot = (i + start) % size;
+            if (locks.compareAndSet(slot, 0, 1)) {
+                try {
+                    filter(slot, task, rows, rowCount);
+                } finally {
+                    locks.set(slot, 0);
+                }
+                return;
+            }
+        }
+    }
+
+    private static void swap(DirectLongList heap, long a, long b) {
+        final long tmp = heap.get(a);
+        heap.set(a, heap.get(b));
+        heap.set(b, tmp);
+    }
+
+    private int compare(RecordComparator comparator, PageAddressCacheRecord left, long leftRow, PageAddressCacheRecord right, long rightRow) {
+        left.setRowIndex(leftRow);
+        right.setRowIndex(rightRow);
+        comparator.setLeft(left);
+        return order * comparator.compare(right);
+    }
+
+    private void filter(int slot, PageFrameReduceTask task, DirectLongList rows, long rowCount) {
+        final RecordComparator comparator = comparators.getQuick(slot);
+        final DirectLongList heap = heaps.getQuick(slot);
+        final PageAddressCacheRecord left = leftRecords.getQuick(slot);
+        final PageAddressCacheRecord right = rightRecords.getQuick(slot);
+
+        final PageFrameSequence<?> frameSequence = task.getFrameSequence();
+        left.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        left.setFrameIndex(task.getFrameIndex());
+        right.of(frameSequence.getSymbolTableSource(), frameSequence.getPageAddressCache());
+        right.setFrameIndex(task.getFrameIndex());
+
+        // Find the N-th row with a bounded max-heap, the root is the worst row kept so far.
+        heap.clear();
+        if (heap.getCapacity() < limit) {
+            heap.setCapacity(limit);
+        }
+        for (long p = 0; p < rowCount; p++) {
+            final long row = rows.get(p);
+            if (heap.size() < limit) {
+                heap.add(row);
+                siftUp(comparator, heap, left, right, heap.size() - 1);
+            } else if (compare(comparator, left, row, right, heap.get(0)) < 0) {
+                heap.set(0, row);
+                siftDown(comparator, heap, left, right);
+            }
+        }
+
+        // Keep rows that are not worse than the N-th one, preserving their order.
+        left.setRowIndex(heap.get(0));
+        comparator.setLeft(left);
+        long n = 0;
+        for (long p = 0; p < rowCount; p++) {
+            final long row = rows.get(p);
+            right.setRowIndex(row);
+            if (order * comparator.compare(right) >= 0) {
+                rows.set(n++, row);
+            }
+        }
+        rows.setPos(n);
+    }
+
+    private void siftDown(RecordComparator comparator, DirectLongList heap, PageAddressCacheRecord left, PageAddressCacheRecord right) {
+        final long size = heap.size();
+        long p = 0;
+        while (true) {
+            long worst = p;
+            final long l = 2 * p + 1;
+            final long r = l + 1;
+            if (l < size && compare(comparator, left, heap.get(l), right, heap.get(worst)) > 0) {
+                worst = l;
+            }
+            if (r < size && compare(comparator, left, heap.get(r), right, heap.get(worst)) > 0) {
+                worst = r;
+            }
+            if (worst == p) {
+                return;
+            }
+            swap(heap, p, worst);
+            p = worst;
+        }
+    }
+
+    private void siftUp(RecordComparator comparator, DirectLongList heap, PageAddressCacheRecord left, PageAddressCacheRecord right, long p) {
+        while (p > 0) {
+            final long parent = (p - 1) / 2;
+            if (compare(comparator, left, heap.get(p), right, heap.get(parent)) <= 0) {
+                return;
+            }
+            swap(heap, p, parent);
+            p = parent;
+        }
+    }
+}
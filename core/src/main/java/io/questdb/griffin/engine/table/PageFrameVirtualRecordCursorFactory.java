@@ -0,0 +1,284 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.PlanSink;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.SymbolFunction;
+import io.questdb.griffin.engine.groupby.GroupByUtils;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.Rows;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+/**
+ * Same as {@link VirtualRecordCursorFactory}, but reads the base table as page frames, so that
+ * arithmetic projections compiled into {@link DoubleProjectionKernel}s are evaluated column-at-a-time,
+ * block by block, rather than row by row. The remaining projections are evaluated by their functions
+ * on top of the page frame record.
+ * <p>
+ * Record B uses the original function trees. When record A is moved to a row outside the block held by
+ * the kernels, the kernels are evaluated for that single row.
+ */
+public class PageFrameVirtualRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final PageFrameVirtualRecordCursor cursor;
+    private final ObjList<Function> functions;
+    private final ObjList<DoubleProjectionKernel> kernels;
+    private final boolean supportsRandomAccess;
+
+    public PageFrameVirtualRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            ObjList<Function> functions,
+            ObjList<DoubleProjectionKernel> kernels,
+            RecordCursorFactory base
+    ) {
+        super(metadata);
+        assert base.supportPageFrameCursor() && !base.hasDescendingOrder();
+        this.base = base;
+        this.functions = functions;
+        this.kernels = kernels;
+
+        boolean supportsRandomAccess = base.recordCursorSupportsRandomAccess();
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            if (!functions.getQuick(i).supportsRandomAccess()) {
+                supportsRandomAccess = false;
+                break;
+            }
+        }
+        this.supportsRandomAccess = supportsRandomAccess;
+
+        // sequential scan reads kernel results in place of the respective functions
+        final ObjList<Function> kernelFunctions = new ObjList<>(functions.size());
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            final DoubleProjectionKernel kernel = kernels.getQuiet(i);
+            kernelFunctions.add(kernel != null ? kernel : functions.getQuick(i));
+        }
+        this.cursor = new PageFrameVirtualRecordCursor(configuration, functions, kernelFunctions, kernels, supportsRandomAccess);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) throws SqlException {
+        final PageFrameCursor frameCursor = base.getPageFrameCursor(executionContext, ORDER_ASC);
+        try {
+            // functions are bound to the base columns, hence they take symbol tables from the frame cursor
+            Function.init(functions, frameCursor, executionContext);
+            cursor.of(frameCursor, base.getMetadata());
+            return cursor;
+        } catch (Throwable th) {
+            frameCursor.close();
+            throw th;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return supportsRandomAccess;
+    }
+
+    @Override
+    public void toPlan(PlanSink sink) {
+        sink.type("VirtualRecordCursorFactory");
+        sink.meta("vectorized").val(true);
+        sink.attr("supportsRandomAccess");
+        sink.val(supportsRandomAccess);
+        sink.attr("functions");
+        sink.val(functions);
+        sink.child(base);
+    }
+
+    @Override
+    public boolean usesCompiledFilter() {
+        return base.usesCompiledFilter();
+    }
+
+    @Override
+    protected void _close() {
+        Misc.freeObjList(kernels);
+        Misc.freeObjList(functions);
+        Misc.free(base);
+        Misc.free(cursor);
+    }
+
+    private static class PageFrameVirtualRecordCursor implements RecordCursor {
+        private final PageAddressCacheRecord baseRecordA = new PageAddressCacheRecord();
+        private final PageAddressCacheRecord baseRecordB;
+        private final ObjList<Function> functions;
+        private final ObjList<DoubleProjectionKernel> kernels;
+        private final PageAddressCache pageAddressCache;
+        private final VirtualRecord recordA;
+        private final VirtualRecord recordB;
+        private int frameIndex;
+        private PageFrameCursor frameCursor;
+        private long frameRowCount;
+        // block of rows the kernels hold results for
+        private long kernelBlockHi;
+        private long kernelBlockLo;
+        private int kernelFrameIndex;
+        private long rowIndex;
+
+        public PageFrameVirtualRecordCursor(
+                CairoConfiguration configuration,
+                ObjList<Function> functions,
+                ObjList<Function> kernelFunctions,
+                ObjList<DoubleProjectionKernel> kernels,
+                boolean supportsRandomAccess
+        ) {
+            this.functions = functions;
+            this.kernels = kernels;
+            this.pageAddressCache = new PageAddressCache(configuration);
+            this.recordA = new VirtualRecord(kernelFunctions);
+            this.recordA.of(baseRecordA);
+            if (supportsRandomAccess) {
+                this.baseRecordB = new PageAddressCacheRecord();
+                this.recordB = new VirtualRecord(functions);
+                this.recordB.of(baseRecordB);
+            } else {
+                this.baseRecordB = null;
+                this.recordB = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            frameCursor = Misc.free(frameCursor);
+            Misc.free(baseRecordA);
+            Misc.free(baseRecordB);
+        }
+
+        @Override
+        public Record getRecord() {
+            return recordA;
+        }
+
+        @Override
+        public Record getRecordB() {
+            if (recordB != null) {
+                return recordB;
+            }
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            return (SymbolTable) functions.getQuick(columnIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            ++rowIndex;
+            while (rowIndex >= frameRowCount) {
+                final PageFrame frame = frameCursor.next();
+                if (frame == null) {
+                    return false;
+                }
+                pageAddressCache.add(++frameIndex, frame);
+                frameRowCount = frame.getPartitionHi() - frame.getPartitionLo();
+                rowIndex = 0;
+            }
+
+            // random access may have moved the kernels to another block
+            if (!isKernelBlock(frameIndex, rowIndex)) {
+                evaluateKernels(frameIndex, rowIndex, Math.min(rowIndex + DoubleProjectionKernel.BLOCK_SIZE, frameRowCount));
+            }
+            baseRecordA.setFrameIndex(frameIndex);
+            baseRecordA.setRowIndex(rowIndex);
+            return true;
+        }
+
+        @Override
+        public SymbolTable newSymbolTable(int columnIndex) {
+            return ((SymbolFunction) functions.getQuick(columnIndex)).newSymbolTable();
+        }
+
+        public void of(PageFrameCursor frameCursor, RecordMetadata baseMetadata) {
+            this.frameCursor = frameCursor;
+            pageAddressCache.clear();
+            pageAddressCache.of(baseMetadata);
+            baseRecordA.of(frameCursor, pageAddressCache);
+            if (baseRecordB != null) {
+                baseRecordB.of(frameCursor, pageAddressCache);
+            }
+            resetPosition();
+        }
+
+        @Override
+        public void recordAt(Record record, long atRowId) {
+            final int frameIndex = Rows.toPartitionIndex(atRowId);
+            final long rowIndex = Rows.toLocalRowID(atRowId);
+            if (record == recordA && !isKernelBlock(frameIndex, rowIndex)) {
+                // rows are typically visited out of order, evaluating a whole block for each would not pay off
+                evaluateKernels(frameIndex, rowIndex, rowIndex + 1);
+            }
+            final PageAddressCacheRecord baseRecord = (PageAddressCacheRecord) ((VirtualRecord) record).getBaseRecord();
+            baseRecord.setFrameIndex(frameIndex);
+            baseRecord.setRowIndex(rowIndex);
+        }
+
+        @Override
+        public long size() {
+            return frameCursor.rowCount();
+        }
+
+        @Override
+        public void toTop() {
+            frameCursor.toTop();
+            resetPosition();
+            GroupByUtils.toTop(functions);
+        }
+
+        private void evaluateKernels(int frameIndex, long lo, long hi) {
+            for (int i = 0, n = kernels.size(); i < n; i++) {
+                final DoubleProjectionKernel kernel = kernels.getQuick(i);
+                if (kernel != null) {
+                    kernel.evaluate(pageAddressCache, frameIndex, lo, hi);
+                }
+            }
+            kernelFrameIndex = frameIndex;
+            kernelBlockLo = lo;
+            kernelBlockHi = hi;
+        }
+
+        private boolean isKernelBlock(int frameIndex, long rowIndex) {
+            return frameIndex == kernelFrameIndex && rowIndex >= kernelBlockLo && rowIndex < kernelBlockHi;
+        }
+
+        private void resetPosition() {
+            frameIndex = -1;
+            frameRowCount = 0;
+            rowIndex = -1;
+            kernelFrameIndex = -1;
+            kernelBlockLo = 0;
+            kernelBlockHi = 0;
+        }
+    }
+}
@@ -162,6 +162,22 @@ public class UnionCastRecord extends AbstractUnionRecord {
         return castFunctionsB.getQuick(col).getLong(recordB);
     }
 
+    @Override
+    public long getLong128Hi(int col) {
+        if (useA) {
+            return castFunctionsA.getQuick(col).getLong128Hi(recordA);
+        }
+        return castFunctionsB.getQuick(col).getLong128Hi(recordB);
+    }
+
+    @Override
+    public long getLong128Lo(int col) {
+        if (useA) {
+            return castFunctionsA.getQuick(col).getLong128Lo(recordA);
+        }
+        return castFunctionsB.getQuick(col).getLong128Lo(recordB);
+    }
+
     @Override
     public void getLong256(int col, CharSink sink) {
         if (useA) {
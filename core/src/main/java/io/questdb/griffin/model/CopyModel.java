@@ -25,18 +25,28 @@
 package io.questdb.griffin.model;
 
 import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
 import io.questdb.std.ObjectFactory;
 import io.questdb.std.Sinkable;
 import io.questdb.std.str.CharSink;
 
 public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<CopyModel> FACTORY = CopyModel::new;
+    public static final int FORMAT_BINARY = 2;
+    public static final int FORMAT_CSV = 1;
+    public static final int FORMAT_TEXT = 0;
+    // column list of COPY FROM STDIN, empty when data has all table columns
+    private final ObjList<CharSequence> columnNames = new ObjList<>();
     private int atomicity;
     private boolean cancel;
     private byte delimiter;
     private ExpressionNode fileName;
+    private int format;
     private boolean header;
+    private CharSequence nullString;
     private int partitionBy;
+    // query of COPY TO STDOUT
+    private QueryModel queryModel;
     private ExpressionNode target; // holds table name (new import) or import id (cancel model)
     private CharSequence timestampColumnName;
     private CharSequence timestampFormat;
@@ -55,12 +65,24 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         partitionBy = -1;
         delimiter = -1;
         atomicity = -1;
+        columnNames.clear();
+        format = FORMAT_TEXT;
+        nullString = null;
+        queryModel = null;
+    }
+
+    public void addColumnName(CharSequence columnName) {
+        columnNames.add(columnName);
     }
 
     public int getAtomicity() {
         return atomicity;
     }
 
+    public ObjList<CharSequence> getColumnNames() {
+        return columnNames;
+    }
+
     public byte getDelimiter() {
         return delimiter;
     }
@@ -69,15 +91,27 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return fileName;
     }
 
+    public int getFormat() {
+        return format;
+    }
+
     @Override
     public int getModelType() {
         return ExecutionModel.COPY;
     }
 
+    public CharSequence getNullString() {
+        return nullString;
+    }
+
     public int getPartitionBy() {
         return partitionBy;
     }
 
+    public QueryModel getQueryModel() {
+        return queryModel;
+    }
+
     public ExpressionNode getTarget() {
         return target;
     }
@@ -114,14 +148,26 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         this.fileName = fileName;
     }
 
+    public void setFormat(int format) {
+        this.format = format;
+    }
+
     public void setHeader(boolean header) {
         this.header = header;
     }
 
+    public void setNullString(CharSequence nullString) {
+        this.nullString = nullString;
+    }
+
     public void setPartitionBy(int partitionBy) {
         this.partitionBy = partitionBy;
     }
 
+    public void setQueryModel(QueryModel queryModel) {
+        this.queryModel = queryModel;
+    }
+
     public void setTarget(ExpressionNode tableName) {
         this.target = tableName;
     }
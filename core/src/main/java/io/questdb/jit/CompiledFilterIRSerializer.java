@@ -68,6 +68,8 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     static final int IMM = 1;
     static final int LE = 11;  // a <= b
     static final int LT = 10;  // a <  b
+    // longer IN-lists are left to the Java filter, which does hash or binary search lookups
+    static final int MAX_IN_LIST_SIZE = 64;
     // Columns
     static final int MEM = 2;
     static final int MUL = 16;  // a * b
@@ -86,6 +88,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
     static final int VAR = 3;
     // contains <memory_offset, constant_node> pairs for backfilling purposes
     private final LongObjHashMap<ExpressionNode> backfillNodes = new LongObjHashMap<>();
+    private final ObjectPool<ExpressionNode> expandedNodePool = new ObjectPool<>(ExpressionNode.FACTORY, 16);
     private final PredicateContext predicateContext = new PredicateContext();
     private final PostOrderTreeTraversalAlgo traverseAlgo = new PostOrderTreeTraversalAlgo();
     private ObjList<Function> bindVarFunctions;
@@ -105,6 +108,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         forceScalarMode = false;
         predicateContext.clear();
         backfillNodes.clear();
+        expandedNodePool.clear();
     }
 
     @Override
@@ -119,13 +123,10 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         predicateContext.onNodeDescended(node);
 
         // Look ahead for negative const
-        if (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, "-")) {
-            ExpressionNode nextNode = node.lhs != null ? node.lhs : node.rhs;
-            if (nextNode != null && nextNode.paramCount == 0 && nextNode.type == ExpressionNode.CONSTANT) {
-                // Store negation node for later backfilling
-                serializeConstantStub(node);
-                return false;
-            }
+        if (isNegatedConstant(node)) {
+            // Store negation node for later backfilling
+            serializeConstantStub(node);
+            return false;
         }
 
         return true;
@@ -169,7 +170,7 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
      * @throws SqlException thrown when IR serialization failed.
      */
     public int serialize(ExpressionNode node, boolean scalar, boolean debug, boolean nullChecks) throws SqlException {
-        traverseAlgo.traverse(node, this);
+        traverseAlgo.traverse(expand(node), this);
         putOperator(RET);
 
         TypesObserver typesObserver = predicateContext.globalTypesObserver;
@@ -235,6 +236,16 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         }
     }
 
+    private static CharSequence betweenBoundToken(ExpressionNode node) throws SqlException {
+        if (node.type == ExpressionNode.CONSTANT) {
+            return node.token;
+        }
+        if (isNegatedConstant(node)) {
+            return node.lhs != null ? node.lhs.token : node.rhs.token;
+        }
+        throw SqlException.position(node.position).put("unsupported BETWEEN bound: ").put(node.token);
+    }
+
     private static byte bindVariableTypeCode(int columnTypeTag) {
         switch (columnTypeTag) {
             case ColumnType.BOOLEAN:
@@ -308,6 +319,37 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         return Chars.equals(token, "/");
     }
 
+    /**
+     * Returns true when constant BETWEEN bounds are given in descending order. Bounds have to be
+     * numbers; quoted timestamp literals are not supported, same as in comparisons, so such filters
+     * fall back to the Java implementation.
+     */
+    private static boolean isDescendingBetween(ExpressionNode lo, ExpressionNode hi) throws SqlException {
+        final CharSequence loToken = betweenBoundToken(lo);
+        final CharSequence hiToken = betweenBoundToken(hi);
+        final int loSign = lo.type == ExpressionNode.CONSTANT ? 1 : -1;
+        final int hiSign = hi.type == ExpressionNode.CONSTANT ? 1 : -1;
+        try {
+            return loSign * Numbers.parseLong(loToken) > hiSign * Numbers.parseLong(hiToken);
+        } catch (NumericException ignore) {
+        }
+        try {
+            return loSign * Numbers.parseDouble(loToken) > hiSign * Numbers.parseDouble(hiToken);
+        } catch (NumericException e) {
+            throw SqlException.position(lo.position)
+                    .put("unsupported BETWEEN bounds: ").put(loToken)
+                    .put(", ").put(hiToken);
+        }
+    }
+
+    private static boolean isNegatedConstant(ExpressionNode node) {
+        if (node.type == ExpressionNode.OPERATION && node.paramCount == 1 && Chars.equals(node.token, "-")) {
+            ExpressionNode nextNode = node.lhs != null ? node.lhs : node.rhs;
+            return nextNode != null && nextNode.paramCount == 0 && nextNode.type == ExpressionNode.CONSTANT;
+        }
+        return false;
+    }
+
     private static boolean isTopLevelOperation(ExpressionNode node) {
         final CharSequence token = node.token;
         if (SqlKeywords.isNotKeyword(token)) {
@@ -401,6 +443,96 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         putOperand(offset, VAR, typeCode, index);
     }
 
+    /**
+     * Rewrites IN-lists and BETWEEN into comparisons supported by the JIT backend, e.g. "x in (1, 2)"
+     * becomes "x = 1 or x = 2" and "x between 1 and 2" becomes "x >= 1 and x <= 2". The original
+     * tree is still used by the Java filter, so it is left intact: nodes on the path to a rewritten
+     * node are copied.
+     */
+    private ExpressionNode expand(ExpressionNode node) throws SqlException {
+        if (node == null || node.paramCount == 0) {
+            return node;
+        }
+        if (SqlKeywords.isInKeyword(node.token)) {
+            return expandIn(node);
+        }
+        if (SqlKeywords.isBetweenKeyword(node.token)) {
+            return expandBetween(node);
+        }
+        if (node.paramCount > 2) {
+            return node;
+        }
+
+        final ExpressionNode lhs = expand(node.lhs);
+        final ExpressionNode rhs = expand(node.rhs);
+        if (lhs == node.lhs && rhs == node.rhs) {
+            return node;
+        }
+        final ExpressionNode copy = newExpandedNode(node.token, node.position, lhs, rhs);
+        copy.type = node.type;
+        copy.paramCount = node.paramCount;
+        return copy;
+    }
+
+    private ExpressionNode expandBetween(ExpressionNode node) throws SqlException {
+        if (node.paramCount != 3) {
+            throw SqlException.position(node.position).put("unexpected BETWEEN argument count: ").put(node.paramCount);
+        }
+        final ExpressionNode column = node.args.getQuick(2);
+        ExpressionNode lo = node.args.getQuick(1);
+        ExpressionNode hi = node.args.getQuick(0);
+        // BETWEEN accepts bounds in any order
+        if (lo.type == ExpressionNode.BIND_VARIABLE || hi.type == ExpressionNode.BIND_VARIABLE) {
+            if (lo.type != ExpressionNode.BIND_VARIABLE) {
+                betweenBoundToken(lo);
+            }
+            if (hi.type != ExpressionNode.BIND_VARIABLE) {
+                betweenBoundToken(hi);
+            }
+            // order of bind variable values is not known until execution, hence we check both
+            return newExpandedNode(
+                    "or",
+                    node.position,
+                    expandBetween(node.position, column, lo, hi),
+                    expandBetween(node.position, column, hi, lo)
+            );
+        }
+        // constant bounds are put in order here
+        if (isDescendingBetween(lo, hi)) {
+            return expandBetween(node.position, column, hi, lo);
+        }
+        return expandBetween(node.position, column, lo, hi);
+    }
+
+    private ExpressionNode expandBetween(int position, ExpressionNode column, ExpressionNode lo, ExpressionNode hi) {
+        return newExpandedNode(
+                "and",
+                position,
+                newExpandedNode(">=", lo.position, column, lo),
+                newExpandedNode("<=", hi.position, column, hi)
+        );
+    }
+
+    private ExpressionNode expandIn(ExpressionNode node) throws SqlException {
+        final int valueCount = node.paramCount - 1;
+        if (valueCount < 1 || valueCount > MAX_IN_LIST_SIZE) {
+            throw SqlException.position(node.position).put("unsupported IN list size: ").put(valueCount);
+        }
+
+        final ExpressionNode column = node.paramCount < 3 ? node.lhs : node.args.getLast();
+        ExpressionNode result = null;
+        // arguments are stored in reverse order
+        for (int i = valueCount - 1; i > -1; i--) {
+            final ExpressionNode value = node.paramCount < 3 ? node.rhs : node.args.getQuick(i);
+            if (value.type != ExpressionNode.CONSTANT && value.type != ExpressionNode.BIND_VARIABLE && !isNegatedConstant(value)) {
+                throw SqlException.position(value.position).put("unsupported IN list value: ").put(value.token);
+            }
+            final ExpressionNode eq = newExpandedNode("=", value.position, column, value);
+            result = result == null ? eq : newExpandedNode("or", node.position, result, eq);
+        }
+        return result;
+    }
+
     private Function getBindVariableFunction(int position, CharSequence token) throws SqlException {
         Function varFunction;
 
@@ -469,6 +601,14 @@ public class CompiledFilterIRSerializer implements PostOrderTreeTraversalAlgo.Vi
         return false;
     }
 
+    private ExpressionNode newExpandedNode(CharSequence token, int position, ExpressionNode lhs, ExpressionNode rhs) {
+        final ExpressionNode node = expandedNodePool.next().of(ExpressionNode.OPERATION, token, 0, position);
+        node.paramCount = 2;
+        node.lhs = lhs;
+        node.rhs = rhs;
+        return node;
+    }
+
     private void putDoubleOperand(long offset, int type, double payload) {
         memory.putInt(offset, CompiledFilterIRSerializer.IMM);
         memory.putInt(offset + Integer.BYTES, type);
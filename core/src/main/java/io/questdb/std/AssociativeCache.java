@@ -24,7 +24,9 @@
 
 package io.questdb.std;
 
+import io.questdb.metrics.Counter;
 import io.questdb.metrics.Gauge;
+import io.questdb.metrics.NullCounter;
 import io.questdb.metrics.NullGauge;
 
 import java.io.Closeable;
@@ -38,6 +40,7 @@ public class AssociativeCache<V> implements Closeable, Mutable {
     private final int bmask;
     private final int bshift;
     private final Gauge cachedGauge;
+    private final Counter evictionCounter;
     private final CharSequence[] keys;
     private final int rmask;
     private final V[] values;
@@ -46,8 +49,16 @@ public class AssociativeCache<V> implements Closeable, Mutable {
         this(blocks, rows, NullGauge.INSTANCE);
     }
 
-    @SuppressWarnings("unchecked")
     public AssociativeCache(int blocks, int rows, Gauge cachedGauge) {
+        this(blocks, rows, cachedGauge, NullCounter.INSTANCE);
+    }
+
+    /**
+     * @param evictionCounter counts values freed by put(), i.e. the ones pushed out of a full block
+     *                        and the ones replaced by another value for the same key
+     */
+    @SuppressWarnings("unchecked")
+    public AssociativeCache(int blocks, int rows, Gauge cachedGauge, Counter evictionCounter) {
         this.blocks = Math.max(MIN_BLOCKS, Numbers.ceilPow2(blocks));
         rows = Math.max(MIN_ROWS, Numbers.ceilPow2(rows));
 
@@ -61,6 +72,7 @@ public class AssociativeCache<V> implements Closeable, Mutable {
         this.bmask = this.blocks - 1;
         this.bshift = Numbers.msb(this.blocks);
         this.cachedGauge = cachedGauge;
+        this.evictionCounter = evictionCounter;
     }
 
     @Override
@@ -118,6 +130,7 @@ public class AssociativeCache<V> implements Closeable, Mutable {
                 } else {
                     // We're replacing the value with another one, no need to change the gauge.
                     Misc.freeIfCloseable(values[lo]);
+                    evictionCounter.inc();
                 }
                 values[lo] = value;
             }
@@ -135,6 +148,7 @@ public class AssociativeCache<V> implements Closeable, Mutable {
             } else {
                 // We're replacing the value with another one, no need to change the gauge.
                 values[idx] = Misc.freeIfCloseable(values[idx]);
+                evictionCounter.inc();
             }
         } else {
             // The block has empty entries, so we're inserting.
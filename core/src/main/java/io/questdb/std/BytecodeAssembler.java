@@ -92,6 +92,19 @@ public class BytecodeAssembler {
         this.poolCount = 1;
     }
 
+    /**
+     * Creates another instance of a class loaded by {@link #loadClass(Class)}, the class
+     * has to have a default constructor.
+     */
+    public static <T> T newInstance(Class<T> clazz) {
+        try {
+            return clazz.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            LOG.critical().$("could not create an instance of ").$(clazz.getName()).$(", cause: ").$(e).$();
+            throw BytecodeException.INSTANCE;
+        }
+    }
+
     public void aload(int value) {
         optimisedIO(aload_0, aload_1, aload_2, aload_3, aload, value);
     }
@@ -291,15 +304,42 @@ public class BytecodeAssembler {
         }
     }
 
+    public int if_icmpeq() {
+        return genericGoto(0x9f);
+    }
+
     public int if_icmpge() {
         return genericGoto(0xa2);
     }
 
+    public int if_icmpgt() {
+        return genericGoto(0xa3);
+    }
+
+    public int if_icmple() {
+        return genericGoto(0xa4);
+    }
+
+    public int if_icmplt() {
+        return genericGoto(0xa1);
+    }
+
     public int if_icmpne() {
         return genericGoto(0xa0);
     }
 
-    @SuppressWarnings("unused")
+    public int ifeq() {
+        return genericGoto(0x99);
+    }
+
+    public int ifge() {
+        return genericGoto(0x9c);
+    }
+
+    public int ifgt() {
+        return genericGoto(0x9d);
+    }
+
     public int ifle() {
         return genericGoto(0x9e);
     }
@@ -450,12 +490,7 @@ public class BytecodeAssembler {
     public <T> T newInstance() {
         Class<T> x = loadClass(host);
         assert x != null;
-        try {
-            return x.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
-            LOG.critical().$("could not create an instance of ").$(host.getName()).$(", cause: ").$(e).$();
-            throw BytecodeException.INSTANCE;
-        }
+        return newInstance(x);
     }
 
     public int poolClass(int classIndex) {
@@ -36,6 +36,10 @@ public class DirectLongList implements Mutable, Closeable, Reopenable {
     private static final Log LOG = LogFactory.getLog(DirectLongList.class);
     private final long initialCapacity;
     private final int memoryTag;
+    // set when the list may move to a spill file once the query runs out of memory budget
+    private final SpillableRegion region;
+    // charged for heap memory of the list
+    private MemoryAccount account;
     private long address;
     private long capacity;
     private long limit;
@@ -43,9 +47,19 @@ public class DirectLongList implements Mutable, Closeable, Reopenable {
     private long start;
 
     public DirectLongList(long capacity, int memoryTag) {
+        this(capacity, memoryTag, false);
+    }
+
+    public DirectLongList(long capacity, int memoryTag, boolean spillable) {
         this.memoryTag = memoryTag;
+        this.region = spillable ? new SpillableRegion(memoryTag) : null;
         this.capacity = (capacity * Long.BYTES);
-        this.address = Unsafe.malloc(this.capacity, memoryTag);
+        if (region != null) {
+            this.address = region.resize(this.capacity);
+        } else {
+            this.account = Unsafe.getMemoryAccount(memoryTag);
+            this.address = Unsafe.malloc(this.capacity, memoryTag, account);
+        }
         this.start = this.pos = address;
         this.limit = pos + this.capacity;
         this.initialCapacity = this.capacity;
@@ -88,7 +102,12 @@ public class DirectLongList implements Mutable, Closeable, Reopenable {
     @Override
     public void close() {
         if (address != 0) {
-            Unsafe.free(address, capacity, memoryTag);
+            if (region != null) {
+                region.close();
+            } else {
+                Unsafe.free(address, capacity, memoryTag, account);
+                account = null;
+            }
             address = 0;
             start = 0;
             limit = 0;
@@ -191,8 +210,15 @@ public class DirectLongList implements Mutable, Closeable, Reopenable {
     private void setCapacityBytes(long capacity) {
         if (this.capacity != capacity) {
             final long oldCapacity = this.capacity;
+            final long address;
+            if (region != null) {
+                address = region.resize(capacity);
+            } else {
+                account = Unsafe.transferMemoryAccount(account, oldCapacity, memoryTag);
+                address = Unsafe.realloc(this.address, oldCapacity, capacity, memoryTag, account);
+            }
+            // the account may refuse the allocation, capacity is updated once memory is in place
             this.capacity = capacity;
-            long address = Unsafe.realloc(this.address, oldCapacity, capacity, memoryTag);
             this.pos = address + (this.pos - this.start);
             this.address = address;
             this.start = address;
@@ -26,6 +26,8 @@ package io.questdb.std;
 
 public final class Hash {
 
+    private static final long FNV_OFFSET_BASIS_64 = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME_64 = 0x100000001b3L;
     private static final int SPREAD_HASH_BITS = 0x7fffffff;
     private static final long XXH_PRIME64_1 = -7046029288634856825L; /* 0b1001111000110111011110011011000110000101111010111100101010000111 */
     private static final long XXH_PRIME64_2 = -4417276706812531889L; /* 0b1100001010110010101011100011110100100111110101001110101101001111 */
@@ -63,6 +65,37 @@ public final class Hash {
         return s == null ? -1 : (Chars.hashCode(s) & 0xFFFFFFF) & max;
     }
 
+    /**
+     * Mixes bits of long value using the 64-bit finalizer of MurmurHash3 (fmix64), so that every
+     * bit of the input affects every bit of the output. This is not a full MurmurHash3 of the value.
+     *
+     * @param k value
+     * @return hash code
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    /**
+     * Calculates 64-bit hash of char sequence. Characters are combined using FNV-1a
+     * and the result is mixed with {@link #fmix64(long)}.
+     *
+     * @param s char sequence
+     * @return hash code
+     */
+    public static long fnv1aMix64(CharSequence s) {
+        long h = FNV_OFFSET_BASIS_64;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME_64;
+        }
+        return fmix64(h);
+    }
+
     /**
      * Calculates positive integer hash of memory pointer using 32-bit variant of xxHash hash algorithm.
      *
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog sketch for approximate count of distinct values.
+ * <p>
+ * Values are added as 64-bit hashes, see {@link Hash#fmix64(long)}. Small sketches keep
+ * the hashes themselves and are therefore exact, barring hash collisions. Once the number of
+ * hashes reaches 1/16 of the register count the sketch switches to 2^precision single-byte
+ * registers, which bounds its memory regardless of the number of distinct values.
+ * <p>
+ * Cardinality of the registers is estimated with the improved raw estimator by O. Ertl,
+ * "New cardinality estimation algorithms for HyperLogLog sketches" (2017), which needs neither
+ * bias correction tables nor a switch to linear counting. Standard error is about 1.04 / sqrt(2^precision).
+ * <p>
+ * Sketches of the same precision can be merged, the result is the sketch of the union of values.
+ */
+public class HyperLogLog implements Mutable {
+    public static final int DEFAULT_PRECISION = 14;
+    public static final int MAX_PRECISION = 18;
+    public static final int MIN_PRECISION = 4;
+    private static final double ALPHA_INF = 0.5 / Math.log(2);
+    // hash value reserved for empty slots of the sparse set
+    private static final long NO_HASH = 0;
+    private final int[] histogram;
+    private final int precision;
+    private final int registerCount;
+    private final LongHashSet sparse = new LongHashSet(16, 0.5, NO_HASH);
+    private final int sparseThreshold;
+    private boolean dense;
+    private byte[] registers;
+
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    public HyperLogLog(int precision) {
+        assert precision >= MIN_PRECISION && precision <= MAX_PRECISION;
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.sparseThreshold = registerCount / 16;
+        this.histogram = new int[64 - precision + 2];
+    }
+
+    public void add(long hash) {
+        if (dense) {
+            addToRegisters(hash);
+        } else {
+            sparse.add(hash != NO_HASH ? hash : NO_HASH + 1);
+            if (sparse.size() > sparseThreshold) {
+                toDense();
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        sparse.clear();
+        dense = false;
+    }
+
+    public long computeCardinality() {
+        if (!dense) {
+            return sparse.size();
+        }
+
+        // Ertl's improved raw estimator
+        final int q = 64 - precision;
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < registerCount; i++) {
+            histogram[registers[i]]++;
+        }
+        double z = registerCount * tau((registerCount - histogram[q + 1]) / (double) registerCount);
+        for (int k = q; k > 0; k--) {
+            z += histogram[k];
+            z *= 0.5;
+        }
+        z += registerCount * sigma(histogram[0] / (double) registerCount);
+        return Math.round(ALPHA_INF * registerCount * registerCount / z);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public boolean isDense() {
+        return dense;
+    }
+
+    /**
+     * Adds values of the other sketch to this one.
+     *
+     * @param that sketch of the same precision
+     */
+    public void merge(HyperLogLog that) {
+        assert that.precision == precision;
+        if (that.dense) {
+            if (!dense) {
+                toDense();
+            }
+            final byte[] thatRegisters = that.registers;
+            for (int i = 0; i < registerCount; i++) {
+                if (thatRegisters[i] > registers[i]) {
+                    registers[i] = thatRegisters[i];
+                }
+            }
+        } else {
+            for (int i = 0, n = that.sparse.size(); i < n; i++) {
+                add(that.sparse.get(i));
+            }
+        }
+    }
+
+    private static double sigma(double x) {
+        if (x == 1.0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double y = 1.0;
+        double z = x;
+        double zPrev;
+        do {
+            x *= x;
+            zPrev = z;
+            z += x * y;
+            y += y;
+        } while (z != zPrev);
+        return z;
+    }
+
+    private static double tau(double x) {
+        if (x == 0.0 || x == 1.0) {
+            return 0.0;
+        }
+        double y = 1.0;
+        double z = 1 - x;
+        double zPrev;
+        do {
+            x = Math.sqrt(x);
+            zPrev = z;
+            y *= 0.5;
+            z -= Math.pow(1 - x, 2) * y;
+        } while (z != zPrev);
+        return z / 3;
+    }
+
+    private void addToRegisters(long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        // the guard bit caps the rank at 64 - precision + 1
+        final byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    private void toDense() {
+        if (registers == null) {
+            registers = new byte[registerCount];
+        } else {
+            Arrays.fill(registers, (byte) 0);
+        }
+        for (int i = 0, n = sparse.size(); i < n; i++) {
+            addToRegisters(sparse.get(i));
+        }
+        sparse.clear();
+        dense = true;
+    }
+}
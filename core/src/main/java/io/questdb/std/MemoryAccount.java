@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Receives native memory usage of query working memory tags, see {@link MemoryTag#isQueryMemory(int)}.
+ * Structures allocating on the thread the account is bound to with {@link Unsafe#bindMemoryAccount(MemoryAccount)}
+ * keep its {@link #getOwner() owner} and credit their memory back to it when they free it.
+ */
+@FunctionalInterface
+public interface MemoryAccount {
+
+    /**
+     * Called before memory is allocated, with a positive size, and after memory is released, with
+     * a negative size. Throwing from this method prevents the allocation.
+     *
+     * @param size      number of bytes allocated or released
+     * @param memoryTag memory tag of the allocation
+     */
+    void charge(long size, int memoryTag);
+
+    /**
+     * Returns the account structures keep to charge the memory they allocate while this account is bound
+     * and to credit it back once they free it, possibly after this account has moved on to another query.
+     *
+     * @return account to charge or null when nothing is to be charged
+     */
+    @Nullable
+    default MemoryAccount getOwner() {
+        return this;
+    }
+
+    /**
+     * Called before spillable memory, see {@link SpillableRegion}, grows on the heap.
+     *
+     * @param size number of bytes about to be allocated
+     * @return spill space when the allocation would exceed the budget and memory should be moved to disk,
+     * null to allocate on the heap
+     */
+    @Nullable
+    default SpillSpace getSpillSpace(long size) {
+        return null;
+    }
+
+    /**
+     * Called when memory held by a structure moves to this account from another one, with a positive size,
+     * or away from this account, with a negative size. The memory is already allocated, so unlike
+     * {@link #charge(long, int)} this method must not refuse it.
+     *
+     * @param size      number of bytes moved
+     * @param memoryTag memory tag of the structure
+     */
+    default void transfer(long size, int memoryTag) {
+        charge(size, memoryTag);
+    }
+}
@@ -24,13 +24,20 @@
 
 package io.questdb.std;
 
+import io.questdb.cairo.CairoException;
 import io.questdb.cairo.Reopenable;
 import io.questdb.griffin.engine.LimitOverflowException;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
+import io.questdb.std.str.Path;
 
 import java.io.Closeable;
 
+/**
+ * Paged memory with stable page addresses. Once the query runs out of memory budget,
+ * see {@link MemoryAccount#getSpillSpace(long)}, new pages are mapped from a spill file
+ * rather than allocated on the heap.
+ */
 public class MemoryPages implements Closeable, Mutable, Reopenable {
 
     private static final Log LOG = LogFactory.getLog(MemoryPages.class);
@@ -39,8 +46,15 @@ public class MemoryPages implements Closeable, Mutable, Reopenable {
     private final int maxPages;
     private final long pageSize;
     private final LongList pages = new LongList();
+    // charged for heap pages
+    private MemoryAccount account;
     private long cachePageHi;
     private long cachePageLo;
+    private long spillFd = -1;
+    // index of the first page mapped from the spill file, all pages after it are mapped too
+    private int spillPageLo;
+    private Path spillPath;
+    private SpillSpace spillSpace;
 
     public MemoryPages(long pageSize, int maxPages) {
         this.pageSize = Numbers.ceilPow2(pageSize);
@@ -76,10 +90,21 @@ public class MemoryPages implements Closeable, Mutable, Reopenable {
         for (int i = 0; i < pages.size(); i++) {
             long address = pages.getQuick(i);
             if (address != 0) {
-                Unsafe.free(address, pageSize, MemoryTag.NATIVE_TREE_CHAIN);
+                if (spillFd != -1 && i >= spillPageLo) {
+                    spillSpace.getFilesFacade().munmap(address, pageSize, MemoryTag.MMAP_QUERY_SPILL);
+                } else {
+                    Unsafe.free(address, pageSize, MemoryTag.NATIVE_TREE_CHAIN, account);
+                }
             }
         }
         pages.clear();
+        account = null;
+        if (spillFd != -1) {
+            spillSpace.close(spillFd, spillPath);
+            spillPath = Misc.free(spillPath);
+            spillFd = -1;
+            spillSpace = null;
+        }
         cachePageLo = 0;
         cachePageHi = 0;
     }
@@ -109,11 +134,42 @@ public class MemoryPages implements Closeable, Mutable, Reopenable {
         }
 
         if (index >= pages.size()) {
-            pages.extendAndSet((int) index, Unsafe.malloc(pageSize, MemoryTag.NATIVE_TREE_CHAIN));
+            pages.extendAndSet((int) index, allocatePage((int) index));
             LOG.debug().$("new page [size=").$(pageSize).$(']').$();
         }
 
         cachePageLo = index << bits;
         cachePageHi = cachePageLo + pageSize;
     }
+
+    private long allocatePage(int index) {
+        if (spillFd == -1) {
+            account = Unsafe.transferMemoryAccount(account, index * pageSize, MemoryTag.NATIVE_TREE_CHAIN);
+            final SpillSpace spillSpace = Unsafe.getSpillSpace(pageSize, account);
+            if (spillSpace == null || pageSize % spillSpace.getFilesFacade().getPageSize() != 0) {
+                return Unsafe.malloc(pageSize, MemoryTag.NATIVE_TREE_CHAIN, account);
+            }
+            final Path path = new Path();
+            try {
+                spillFd = spillSpace.open(path);
+            } catch (Throwable th) {
+                path.close();
+                throw th;
+            }
+            this.spillPath = path;
+            this.spillSpace = spillSpace;
+            this.spillPageLo = index;
+        }
+
+        final FilesFacade ff = spillSpace.getFilesFacade();
+        final long offset = (index - spillPageLo) * pageSize;
+        if (!ff.allocate(spillFd, offset + pageSize)) {
+            throw CairoException.critical(ff.errno()).put("No space left [size=").put(offset + pageSize).put(", fd=").put(spillFd).put(']');
+        }
+        final long address = ff.mmap(spillFd, pageSize, offset, Files.MAP_RW, MemoryTag.MMAP_QUERY_SPILL);
+        if (address == FilesFacade.MAP_FAILED) {
+            throw CairoException.critical(ff.errno()).put("could not mmap spill file [size=").put(pageSize).put(", offset=").put(offset).put(", fd=").put(spillFd).put(']');
+        }
+        return address;
+    }
 }
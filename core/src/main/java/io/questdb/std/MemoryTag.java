@@ -32,6 +32,7 @@ public final class MemoryTag {
     public static final int MMAP_INDEX_SLIDER = 15;
     public static final int MMAP_INDEX_WRITER = 14;
     public static final int MMAP_O3 = 2;
+    public static final int MMAP_QUERY_SPILL = 55;
     public static final int MMAP_PARALLEL_IMPORT = 39;
     public static final int MMAP_SEQUENCER_METADATA = 38;
     public static final int MMAP_TABLE_READER = 7;
@@ -72,6 +73,7 @@ public final class MemoryTag {
     public static final int NATIVE_PGW_CONN = 12;
     public static final int NATIVE_RECORD_CHAIN = 4;
     public static final int NATIVE_REPL = 17;
+    public static final int NATIVE_RESULT_CACHE = 54;
     public static final int NATIVE_ROSTI = 35;
     public static final int NATIVE_SAMPLE_BY_LONG_LIST = 18;
     public static final int NATIVE_TABLE_READER = 25;
@@ -79,9 +81,18 @@ public final class MemoryTag {
     public static final int NATIVE_TEXT_PARSER_RSS = 48;
     public static final int NATIVE_TLS_RSS = 47;
     public static final int NATIVE_TREE_CHAIN = 6;
-    public static final int SIZE = MMAP_TX_LOG + 1;
+    public static final int SIZE = MMAP_QUERY_SPILL + 1;
+    private static final boolean[] queryMemoryTags = new boolean[SIZE];
     private static final ObjList<String> tagNameMap = new ObjList<>(SIZE);
 
+    /**
+     * Query working memory is native memory that grows with the data a query processes, such as
+     * maps, record chains and sort trees. It is charged to the per-query {@link MemoryAccount}.
+     */
+    public static boolean isQueryMemory(int tag) {
+        return queryMemoryTags[tag];
+    }
+
     public static String nameOf(int tag) {
         return tagNameMap.getQuick(tag);
     }
@@ -141,5 +152,18 @@ public final class MemoryTag {
         tagNameMap.extendAndSet(NATIVE_DIRECT_CHAR_SINK, "NATIVE_DIRECT_CHAR_SINK");
         tagNameMap.extendAndSet(MMAP_TX_LOG_CURSOR, "MMAP_TX_LOG_CURSOR");
         tagNameMap.extendAndSet(MMAP_TX_LOG, "MMAP_TX_LOG");
+        tagNameMap.extendAndSet(NATIVE_RESULT_CACHE, "NATIVE_RESULT_CACHE");
+        tagNameMap.extendAndSet(MMAP_QUERY_SPILL, "MMAP_QUERY_SPILL");
+
+        queryMemoryTags[NATIVE_COMPACT_MAP] = true;
+        queryMemoryTags[NATIVE_FAST_MAP] = true;
+        queryMemoryTags[NATIVE_FAST_MAP_LONG_LIST] = true;
+        queryMemoryTags[NATIVE_JIT_LONG_LIST] = true;
+        queryMemoryTags[NATIVE_JOIN_MAP] = true;
+        queryMemoryTags[NATIVE_LATEST_BY_LONG_LIST] = true;
+        queryMemoryTags[NATIVE_LONG_LIST] = true;
+        queryMemoryTags[NATIVE_RECORD_CHAIN] = true;
+        queryMemoryTags[NATIVE_SAMPLE_BY_LONG_LIST] = true;
+        queryMemoryTags[NATIVE_TREE_CHAIN] = true;
     }
 }
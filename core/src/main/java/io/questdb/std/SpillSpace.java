@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Directory that holds spill files of query working memory, see {@link SpillableRegion}.
+ * <p>
+ * Spill files are unlinked as soon as they are created on operating systems that allow it,
+ * so they never outlive the process. Elsewhere, the file is removed when it is closed.
+ */
+public class SpillSpace {
+    private static final AtomicLong FILE_ID = new AtomicLong();
+    private static final Log LOG = LogFactory.getLog(SpillSpace.class);
+    private final FilesFacade ff;
+    private final int mkDirMode;
+    private final String root;
+
+    public SpillSpace(FilesFacade ff, CharSequence root, int mkDirMode) {
+        this.ff = ff;
+        this.root = Chars.toString(root);
+        this.mkDirMode = mkDirMode;
+    }
+
+    public void close(long fd, Path path) {
+        ff.close(fd);
+        if (path.length() > 0 && !ff.remove(path)) {
+            LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+
+    public FilesFacade getFilesFacade() {
+        return ff;
+    }
+
+    /**
+     * Creates new empty spill file.
+     *
+     * @param path receives file name when the file has to be removed on close, it is left empty otherwise
+     * @return file descriptor
+     */
+    public long open(Path path) {
+        final int rootLen = path.of(root).length();
+        if (ff.mkdirs(path.slash$(), mkDirMode) != 0) {
+            throw CairoException.critical(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+        }
+        path.trimTo(rootLen).concat("query-").put(Os.getPid()).put('-').put(FILE_ID.incrementAndGet()).put(".spill").$();
+        final long fd = ff.openCleanRW(path, 0);
+        if (fd < 0) {
+            throw CairoException.critical(ff.errno()).put("could not create spill file [path=").put(path).put(']');
+        }
+        LOG.info().$("spilling query memory [path=").$(path).$(", fd=").$(fd).$(']').$();
+        if (ff.remove(path)) {
+            path.trimTo(0);
+        }
+        return fd;
+    }
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.cairo.CairoException;
+import io.questdb.std.str.Path;
+
+/**
+ * Contiguous block of query working memory. The block lives on the native heap until growing it
+ * would take the query over its memory budget, see {@link MemoryAccount#getSpillSpace(long)}. At
+ * that point the content moves to a memory-mapped spill file and further growth extends the file.
+ * Shrinking a spilled block back within the budget moves it back onto the heap.
+ * <p>
+ * Address of the block changes on every resize, same as with {@link Unsafe#realloc(long, long, long, int)}.
+ * Heap memory of the block is charged to the account bound when the block was last resized, see
+ * {@link Unsafe#transferMemoryAccount(MemoryAccount, long, int)}.
+ */
+public class SpillableRegion implements QuietCloseable {
+    private final int memoryTag;
+    private MemoryAccount account;
+    private long address;
+    private long fd = -1;
+    private Path path;
+    private long size;
+    private SpillSpace spillSpace;
+
+    public SpillableRegion(int memoryTag) {
+        this.memoryTag = memoryTag;
+    }
+
+    @Override
+    public void close() {
+        if (address != 0) {
+            if (fd == -1) {
+                Unsafe.free(address, size, memoryTag, account);
+            } else {
+                spillSpace.getFilesFacade().munmap(address, size, MemoryTag.MMAP_QUERY_SPILL);
+                closeFile();
+            }
+            account = null;
+            address = 0;
+            size = 0;
+        }
+    }
+
+    public long getAddress() {
+        return address;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return fd != -1;
+    }
+
+    /**
+     * Resizes the block preserving its content up to the smaller of the old and the new size.
+     *
+     * @param newSize new size in bytes
+     * @return address of the block
+     */
+    public long resize(long newSize) {
+        assert newSize > 0;
+        if (newSize == size) {
+            return address;
+        }
+        if (fd == -1) {
+            account = Unsafe.transferMemoryAccount(account, size, memoryTag);
+            final SpillSpace spillSpace = Unsafe.getSpillSpace(newSize - size, account);
+            if (spillSpace == null) {
+                address = address == 0 ? Unsafe.malloc(newSize, memoryTag, account) : Unsafe.realloc(address, size, newSize, memoryTag, account);
+            } else {
+                spill(spillSpace, newSize);
+            }
+        } else {
+            account = Unsafe.transferMemoryAccount(account, 0, memoryTag);
+            if (newSize < size && Unsafe.getSpillSpace(newSize, account) == null) {
+                unspill(newSize);
+            } else {
+                remap(newSize);
+            }
+        }
+        size = newSize;
+        return address;
+    }
+
+    private void closeFile() {
+        spillSpace.close(fd, path);
+        path = Misc.free(path);
+        fd = -1;
+        spillSpace = null;
+    }
+
+    private void remap(long newSize) {
+        final FilesFacade ff = spillSpace.getFilesFacade();
+        if (newSize > size && !ff.allocate(fd, newSize)) {
+            throw CairoException.critical(ff.errno()).put("No space left [size=").put(newSize).put(", fd=").put(fd).put(']');
+        }
+        final long newAddress = ff.mremap(fd, address, size, newSize, 0, Files.MAP_RW, MemoryTag.MMAP_QUERY_SPILL);
+        if (newAddress == FilesFacade.MAP_FAILED) {
+            throw CairoException.critical(ff.errno()).put("could not remap spill file [previousSize=").put(size).put(", newSize=").put(newSize).put(", fd=").put(fd).put(']');
+        }
+        address = newAddress;
+    }
+
+    private void spill(SpillSpace spillSpace, long newSize) {
+        final FilesFacade ff = spillSpace.getFilesFacade();
+        final Path path = new Path();
+        long fd = -1;
+        try {
+            fd = spillSpace.open(path);
+            if (!ff.allocate(fd, newSize)) {
+                throw CairoException.critical(ff.errno()).put("No space left [size=").put(newSize).put(", fd=").put(fd).put(']');
+            }
+            final long newAddress = ff.mmap(fd, newSize, 0, Files.MAP_RW, MemoryTag.MMAP_QUERY_SPILL);
+            if (newAddress == FilesFacade.MAP_FAILED) {
+                throw CairoException.critical(ff.errno()).put("could not mmap spill file [size=").put(newSize).put(", fd=").put(fd).put(']');
+            }
+            if (address != 0) {
+                Vect.memcpy(newAddress, address, Math.min(size, newSize));
+                Unsafe.free(address, size, memoryTag, account);
+            }
+            this.address = newAddress;
+            this.fd = fd;
+            this.path = path;
+            this.spillSpace = spillSpace;
+        } catch (Throwable th) {
+            if (fd != -1) {
+                spillSpace.close(fd, path);
+            }
+            path.close();
+            throw th;
+        }
+    }
+
+    private void unspill(long newSize) {
+        final long newAddress = Unsafe.malloc(newSize, memoryTag, account);
+        Vect.memcpy(newAddress, address, newSize);
+        spillSpace.getFilesFacade().munmap(address, size, MemoryTag.MMAP_QUERY_SPILL);
+        closeFile();
+        address = newAddress;
+    }
+}
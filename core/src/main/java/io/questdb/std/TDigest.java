@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+/**
+ * Merging t-digest for approximate quantiles, after T. Dunning and O. Ertl, "Computing extremely
+ * accurate quantiles using t-digests" (2019).
+ * <p>
+ * Values are collected in a buffer, which is sorted and merged into the centroids when full. Centroid
+ * sizes are bounded by the arcsine scale function, so that centroids near the tails hold few values and
+ * extreme quantiles stay accurate. The number of centroids is about the compression factor regardless
+ * of the number of values. Arrays grow on demand, hence digests of small groups stay small.
+ * <p>
+ * Digests can be merged, the result is the digest of the union of values.
+ */
+public class TDigest implements Mutable {
+    public static final double DEFAULT_COMPRESSION = 100;
+    private static final int INITIAL_CAPACITY = 16;
+    private final int bufferLimit;
+    private final double compression;
+    private double[] bufferMeans = new double[INITIAL_CAPACITY];
+    private int bufferSize;
+    private double bufferWeight;
+    private double[] bufferWeights = new double[INITIAL_CAPACITY];
+    private int centroidCount;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double[] means = new double[INITIAL_CAPACITY];
+    private double min = Double.POSITIVE_INFINITY;
+    private double totalWeight;
+    private double[] weights = new double[INITIAL_CAPACITY];
+
+    public TDigest() {
+        this(DEFAULT_COMPRESSION);
+    }
+
+    public TDigest(double compression) {
+        assert compression >= 10;
+        this.compression = compression;
+        this.bufferLimit = (int) (5 * compression);
+    }
+
+    /**
+     * Adds value to the digest. NaN and infinite values are ignored.
+     */
+    public void add(double value) {
+        if (!Numbers.isFinite(value)) {
+            return;
+        }
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        add(value, 1);
+    }
+
+    @Override
+    public void clear() {
+        bufferSize = 0;
+        bufferWeight = 0;
+        centroidCount = 0;
+        totalWeight = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    public int getCentroidCount() {
+        compress();
+        return centroidCount;
+    }
+
+    public double getCount() {
+        return totalWeight + bufferWeight;
+    }
+
+    public void merge(TDigest that) {
+        if (that.getCount() == 0) {
+            return;
+        }
+        min = Math.min(min, that.min);
+        max = Math.max(max, that.max);
+        for (int i = 0, n = that.centroidCount; i < n; i++) {
+            add(that.means[i], that.weights[i]);
+        }
+        for (int i = 0, n = that.bufferSize; i < n; i++) {
+            add(that.bufferMeans[i], that.bufferWeights[i]);
+        }
+    }
+
+    /**
+     * Estimates the value at the given quantile. Values between centroids are interpolated
+     * linearly, assuming each centroid is centered at its mean.
+     *
+     * @param q quantile in [0..1] range
+     * @return estimated value or NaN when the digest is empty
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+
+        final double index = q * totalWeight;
+        // cumulative weight at the center of the current centroid
+        double center = weights[0] / 2;
+        if (index < center) {
+            return min + (means[0] - min) * index / center;
+        }
+        for (int i = 0, n = centroidCount - 1; i < n; i++) {
+            final double next = center + (weights[i] + weights[i + 1]) / 2;
+            if (index < next) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (next - center);
+            }
+            center = next;
+        }
+        final double last = means[centroidCount - 1];
+        return last + (max - last) * (index - center) / (totalWeight - center);
+    }
+
+    private static double[] grow(double[] array, int capacity) {
+        if (array.length < capacity) {
+            final double[] grown = new double[Math.max(capacity, array.length * 2)];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+        return array;
+    }
+
+    // sorts parallel arrays by mean
+    private static void sort(double[] means, double[] weights, int lo, int hi) {
+        while (hi - lo > 16) {
+            final double pivot = means[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (means[i] < pivot) {
+                    i++;
+                }
+                while (means[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(means, weights, i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound the stack depth
+            if (j - lo < hi - i) {
+                sort(means, weights, lo, j);
+                lo = i;
+            } else {
+                sort(means, weights, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && means[j - 1] > means[j]; j--) {
+                swap(means, weights, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(double[] means, double[] weights, int i, int j) {
+        final double mean = means[i];
+        means[i] = means[j];
+        means[j] = mean;
+        final double weight = weights[i];
+        weights[i] = weights[j];
+        weights[j] = weight;
+    }
+
+    private void add(double mean, double weight) {
+        if (bufferSize == bufferMeans.length) {
+            if (bufferSize >= bufferLimit) {
+                compress();
+            } else {
+                bufferMeans = grow(bufferMeans, bufferSize + 1);
+                bufferWeights = grow(bufferWeights, bufferSize + 1);
+            }
+        }
+        bufferMeans[bufferSize] = mean;
+        bufferWeights[bufferSize++] = weight;
+        bufferWeight += weight;
+    }
+
+    private void compress() {
+        if (bufferSize == 0) {
+            return;
+        }
+
+        // centroids join the buffered values, all of which are sorted and merged back into centroids
+        final int n = bufferSize + centroidCount;
+        bufferMeans = grow(bufferMeans, n);
+        bufferWeights = grow(bufferWeights, n);
+        System.arraycopy(means, 0, bufferMeans, bufferSize, centroidCount);
+        System.arraycopy(weights, 0, bufferWeights, bufferSize, centroidCount);
+        sort(bufferMeans, bufferWeights, 0, n - 1);
+
+        final double total = totalWeight + bufferWeight;
+        double mean = bufferMeans[0];
+        double weight = bufferWeights[0];
+        double weightSoFar = 0;
+        double limit = quantileLimit(0);
+        int count = 0;
+        for (int i = 1; i < n; i++) {
+            final double w = bufferWeights[i];
+            if ((weightSoFar + weight + w) / total <= limit) {
+                weight += w;
+                mean += (bufferMeans[i] - mean) * w / weight;
+            } else {
+                count = putCentroid(count, mean, weight);
+                weightSoFar += weight;
+                limit = quantileLimit(weightSoFar / total);
+                mean = bufferMeans[i];
+                weight = w;
+            }
+        }
+        centroidCount = putCentroid(count, mean, weight);
+        totalWeight = total;
+        bufferSize = 0;
+        bufferWeight = 0;
+    }
+
+    private int putCentroid(int index, double mean, double weight) {
+        if (index == means.length) {
+            means = grow(means, index + 1);
+            weights = grow(weights, index + 1);
+        }
+        means[index] = mean;
+        weights[index] = weight;
+        return index + 1;
+    }
+
+    // largest quantile a centroid starting at q can reach, i.e. k(limit) = k(q) + 1 for the
+    // scale function k(q) = compression / (2 * PI) * asin(2q - 1)
+    private double quantileLimit(double q) {
+        final double angle = Math.asin(2 * q - 1) + 2 * Math.PI / compression;
+        return angle >= Math.PI / 2 ? 1 : (Math.sin(angle) + 1) / 2;
+    }
+}
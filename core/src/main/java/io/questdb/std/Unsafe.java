@@ -48,6 +48,7 @@ public final class Unsafe {
     private static final LongAdder[] COUNTERS = new LongAdder[MemoryTag.SIZE];
     private static final AtomicLong FREE_COUNT = new AtomicLong(0);
     private static final AtomicLong MALLOC_COUNT = new AtomicLong(0);
+    private static final java.lang.ThreadLocal<MemoryAccount> MEMORY_ACCOUNT = new java.lang.ThreadLocal<>();
     //#if jdk.version!=8
     private static final long OVERRIDE;
     //#endif
@@ -97,6 +98,21 @@ public final class Unsafe {
         Unsafe.getUnsafe().putOrderedInt(array, INT_OFFSET + ((long) index << INT_SCALE), value);
     }
 
+    /**
+     * Binds memory account to the current thread. Structures holding query working memory that allocate
+     * on this thread charge the account, see {@link #getMemoryAccount(int)}, until another account, or null,
+     * is bound.
+     *
+     * @param account account to bind or null to stop charging
+     * @return previously bound account, it is meant to be restored once the caller is done
+     */
+    @Nullable
+    public static MemoryAccount bindMemoryAccount(@Nullable MemoryAccount account) {
+        final MemoryAccount prev = MEMORY_ACCOUNT.get();
+        MEMORY_ACCOUNT.set(account);
+        return prev;
+    }
+
     public static long calloc(long size, int memoryTag) {
         long ptr = malloc(size, memoryTag);
         Vect.memset(ptr, size, 0);
@@ -140,6 +156,20 @@ public final class Unsafe {
         return 0;
     }
 
+    /**
+     * Frees memory allocated with {@link #malloc(long, int, MemoryAccount)} and credits it back to the account
+     * it was charged to, whichever account is bound to the current thread.
+     */
+    public static long free(long ptr, long size, int memoryTag, @Nullable MemoryAccount account) {
+        if (ptr != 0) {
+            free(ptr, size, memoryTag);
+            if (account != null) {
+                account.charge(-size, memoryTag);
+            }
+        }
+        return 0;
+    }
+
     public static boolean getBool(long address) {
         return UNSAFE.getByte(address) == 1;
     }
@@ -160,6 +190,26 @@ public final class Unsafe {
         return MALLOC_COUNT.get();
     }
 
+    /**
+     * Returns the account a structure holding query working memory charges. The structure obtains the account
+     * when it allocates memory and passes it to every subsequent reallocation and to the final free, so that its
+     * memory is credited back to the same account regardless of the thread that releases it.
+     *
+     * @param memoryTag memory tag of the structure
+     * @return owner of the account bound to the current thread, see {@link MemoryAccount#getOwner()}, or
+     * null when the tag is not query memory or there is no account to charge
+     */
+    @Nullable
+    public static MemoryAccount getMemoryAccount(int memoryTag) {
+        if (MemoryTag.isQueryMemory(memoryTag)) {
+            final MemoryAccount account = MEMORY_ACCOUNT.get();
+            if (account != null) {
+                return account.getOwner();
+            }
+        }
+        return null;
+    }
+
     public static long getMemUsed() {
         return MEM_USED.get();
     }
@@ -173,6 +223,19 @@ public final class Unsafe {
         return REALLOC_COUNT.get();
     }
 
+    /**
+     * Tells spillable structures, see {@link SpillableRegion}, where to move their memory when growing it by
+     * the given size would take the query over its memory budget.
+     *
+     * @param size    number of bytes the structure is about to allocate
+     * @param account account the structure's memory is charged to
+     * @return spill space or null when memory should be allocated on the heap as usual
+     */
+    @Nullable
+    public static SpillSpace getSpillSpace(long size, @Nullable MemoryAccount account) {
+        return size > 0 && account != null ? account.getSpillSpace(size) : null;
+    }
+
     public static sun.misc.Unsafe getUnsafe() {
         return UNSAFE;
     }
@@ -204,6 +267,23 @@ public final class Unsafe {
         }
     }
 
+    /**
+     * Allocates memory charged to the given account, which is obtained with {@link #getMemoryAccount(int)}.
+     * The account may refuse the allocation by throwing.
+     */
+    public static long malloc(long size, int memoryTag, @Nullable MemoryAccount account) {
+        if (account == null) {
+            return malloc(size, memoryTag);
+        }
+        account.charge(size, memoryTag);
+        try {
+            return malloc(size, memoryTag);
+        } catch (OutOfMemoryError oom) {
+            account.charge(-size, memoryTag);
+            throw oom;
+        }
+    }
+
     public static long realloc(long address, long oldSize, long newSize, int memoryTag) {
         try {
             long ptr = getUnsafe().reallocateMemory(address, newSize);
@@ -218,6 +298,23 @@ public final class Unsafe {
         }
     }
 
+    /**
+     * Reallocates memory allocated with {@link #malloc(long, int, MemoryAccount)}, charging the difference
+     * to the same account.
+     */
+    public static long realloc(long address, long oldSize, long newSize, int memoryTag, @Nullable MemoryAccount account) {
+        if (account == null) {
+            return realloc(address, oldSize, newSize, memoryTag);
+        }
+        account.charge(newSize - oldSize, memoryTag);
+        try {
+            return realloc(address, oldSize, newSize, memoryTag);
+        } catch (OutOfMemoryError oom) {
+            account.charge(oldSize - newSize, memoryTag);
+            throw oom;
+        }
+    }
+
     public static void recordMemAlloc(long size, int memoryTag) {
         long mem = MEM_USED.addAndGet(size);
         assert mem >= 0;
@@ -237,6 +334,31 @@ public final class Unsafe {
         return (b0 << 56) | (b1 << 48) | (b2 << 40) | (b3 << 32) | (b4 << 24) | (b5 << 16) | (b6 << 8) | b7;
     }
 
+    /**
+     * Returns the account to charge when a structure holding query working memory grows. Memory the structure
+     * already holds moves from its account to the account bound to the current thread, if any, so that a query
+     * growing a structure left over by an earlier query, such as one of a cached factory, pays for all of it.
+     *
+     * @param account   account the memory of the structure is charged to, null when there is none
+     * @param size      number of bytes the structure holds
+     * @param memoryTag memory tag of the structure
+     * @return account the structure charges from now on
+     */
+    @Nullable
+    public static MemoryAccount transferMemoryAccount(@Nullable MemoryAccount account, long size, int memoryTag) {
+        final MemoryAccount owner = getMemoryAccount(memoryTag);
+        if (owner == null || owner == account) {
+            return account;
+        }
+        if (size > 0) {
+            owner.transfer(size, memoryTag);
+            if (account != null) {
+                account.transfer(-size, memoryTag);
+            }
+        }
+        return owner;
+    }
+
     //#if jdk.version!=8
     private static long AccessibleObject_override_fieldOffset() {
         if (isJava8Or11()) {
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.std.str.CharSink;
+
+/**
+ * Text conversions for UUID values. UUIDs are stored as 128-bit integers, the first 8 bytes
+ * of the canonical text form, such as {@code 11111111-2222-3333-4444-555555555555}, make the high
+ * long and the last 8 bytes make the low long. Null UUID has both longs set to {@link Numbers#LONG_NaN}.
+ */
+public final class Uuid {
+    public static final int BYTES = 2 * Long.BYTES;
+    public static final long NULL_HI_AND_LO = Numbers.LONG_NaN;
+    private static final int TEXT_LENGTH = 36;
+
+    private Uuid() {
+    }
+
+    public static void checkDashesAndLength(CharSequence uuid) throws NumericException {
+        if (uuid.length() != TEXT_LENGTH
+                || uuid.charAt(8) != '-'
+                || uuid.charAt(13) != '-'
+                || uuid.charAt(18) != '-'
+                || uuid.charAt(23) != '-') {
+            throw NumericException.INSTANCE;
+        }
+    }
+
+    public static boolean isNull(long lo, long hi) {
+        return lo == NULL_HI_AND_LO && hi == NULL_HI_AND_LO;
+    }
+
+    /**
+     * Parses high long of the UUID. Call {@link #checkDashesAndLength(CharSequence)} first.
+     */
+    public static long parseHi(CharSequence uuid) throws NumericException {
+        return (parseHex(uuid, 0, 8) << 32) | (parseHex(uuid, 9, 13) << 16) | parseHex(uuid, 14, 18);
+    }
+
+    /**
+     * Parses low long of the UUID. Call {@link #checkDashesAndLength(CharSequence)} first.
+     */
+    public static long parseLo(CharSequence uuid) throws NumericException {
+        return (parseHex(uuid, 19, 23) << 48) | parseHex(uuid, 24, TEXT_LENGTH);
+    }
+
+    public static void toSink(CharSink sink, long lo, long hi) {
+        appendHex(sink, hi >>> 32, 8);
+        sink.put('-');
+        appendHex(sink, hi >>> 16, 4);
+        sink.put('-');
+        appendHex(sink, hi, 4);
+        sink.put('-');
+        appendHex(sink, lo >>> 48, 4);
+        sink.put('-');
+        appendHex(sink, lo, 12);
+    }
+
+    private static void appendHex(CharSink sink, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            sink.put(Numbers.hexDigits[(int) ((value >>> shift) & 0xf)]);
+        }
+    }
+
+    private static long parseHex(CharSequence uuid, int lo, int hi) throws NumericException {
+        long value = 0;
+        for (int i = lo; i < hi; i++) {
+            final char c = uuid.charAt(i);
+            if (c > 127) {
+                throw NumericException.INSTANCE;
+            }
+            value = (value << 4) | Numbers.hexToDecimal(c);
+        }
+        return value;
+    }
+}
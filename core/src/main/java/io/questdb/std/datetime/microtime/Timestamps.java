@@ -170,6 +170,10 @@ final public class Timestamps {
                 + (getDayOfMonth(micros, y, m, l)) * DAY_MICROS;
     }
 
+    public static long ceilDOW(long micros) {
+        return floorDOW(micros) + WEEK_MICROS;
+    }
+
     public static long ceilHH(long micros) {
         return floorHH(micros) + HOUR_MICROS;
     }
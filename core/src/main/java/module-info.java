@@ -122,6 +122,8 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.eq.EqIntFunctionFactory,
             io.questdb.griffin.engine.functions.eq.EqLongFunctionFactory,
             io.questdb.griffin.engine.functions.eq.EqLong128FunctionFactory,
+            io.questdb.griffin.engine.functions.eq.EqUuidFunctionFactory,
+            io.questdb.griffin.engine.functions.eq.EqUuidStrFunctionFactory,
             io.questdb.griffin.engine.functions.eq.EqDoubleFunctionFactory,
             io.questdb.griffin.engine.functions.eq.EqLong256StrFunctionFactory,
             io.questdb.griffin.engine.functions.eq.EqLong256FunctionFactory,
@@ -356,6 +358,9 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.cast.CastLong256ToTimestampFunctionFactory,
             io.questdb.griffin.engine.functions.cast.CastLong256ToSymbolFunctionFactory,
             io.questdb.griffin.engine.functions.cast.CastLong256ToLong256FunctionFactory,
+            io.questdb.griffin.engine.functions.cast.CastStrToUuidFunctionFactory,
+            io.questdb.griffin.engine.functions.cast.CastUuidToStrFunctionFactory,
+            io.questdb.griffin.engine.functions.cast.CastUuidToUuidFunctionFactory,
             io.questdb.griffin.engine.functions.cast.CastLong256ToBooleanFunctionFactory,
 //                  cast date to ...,
             io.questdb.griffin.engine.functions.cast.CastDateToShortFunctionFactory,
@@ -533,6 +538,10 @@ open module io.questdb {
             io.questdb.griffin.engine.functions.groupby.CountLong256GroupByFunctionFactory,
             io.questdb.griffin.engine.functions.groupby.CountDistinctLongGroupByFunctionFactory,
             io.questdb.griffin.engine.functions.groupby.CountDistinctIntGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxCountDistinctLongGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxCountDistinctStrGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxMedianDoubleGroupByFunctionFactory,
+            io.questdb.griffin.engine.functions.groupby.ApproxPercentileDoubleGroupByFunctionFactory,
             //      'haversine_dist_degree' group by function
             io.questdb.griffin.engine.functions.groupby.HaversineDistDegreeGroupByFunctionFactory,
 //                  'isOrdered'
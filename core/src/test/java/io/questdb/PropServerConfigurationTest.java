@@ -142,6 +142,12 @@ public class PropServerConfigurationTest {
 
         Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().readOnlySecurityContext());
         Assert.assertEquals(Long.MAX_VALUE, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxQueryResponseRowLimit());
+        Assert.assertEquals(65536, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getArrowBatchSize());
+        Assert.assertEquals(10_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getQueryPageRowCount());
+        Assert.assertEquals(1_000_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getColumnarMaxRowCount());
+        Assert.assertEquals(64, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getQueryQueueCapacity());
+        Assert.assertEquals(0, configuration.getHttpServerConfiguration().getQueryWorkerPoolConfiguration().getWorkerCount());
+        Assert.assertEquals("http-query", configuration.getHttpServerConfiguration().getQueryWorkerPoolConfiguration().getPoolName());
         Assert.assertTrue(configuration.getCairoConfiguration().getCircuitBreakerConfiguration().isEnabled());
         Assert.assertEquals(2_000_000, configuration.getCairoConfiguration().getCircuitBreakerConfiguration().getCircuitBreakerThrottle());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getCircuitBreakerConfiguration().getBufferSize());
@@ -184,6 +190,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
         Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortLightValueMaxPages());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlResultCacheEnabled());
+        Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheCapacity());
+        Assert.assertEquals(64 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
         Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
@@ -225,6 +234,7 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getLineUdpReceiverConfiguration().ownThread());
 
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlColumnarProjectionEnabled());
         Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterPreTouchEnabled());
         Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
         Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
@@ -262,6 +272,7 @@ public class PropServerConfigurationTest {
         TestUtils.assertEquals(new File(root, "db").getAbsolutePath(), configuration.getCairoConfiguration().getRoot());
         TestUtils.assertEquals(new File(root, "conf").getAbsolutePath(), configuration.getCairoConfiguration().getConfRoot());
         TestUtils.assertEquals(new File(root, "snapshot").getAbsolutePath(), configuration.getCairoConfiguration().getSnapshotRoot());
+        TestUtils.assertEquals(new File(root, "tmp").getAbsolutePath(), configuration.getCairoConfiguration().getQuerySpillRoot());
 
         Assert.assertEquals("", configuration.getCairoConfiguration().getSnapshotInstanceId());
         Assert.assertTrue(configuration.getCairoConfiguration().isSnapshotRecoveryEnabled());
@@ -321,6 +332,13 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getMetricsConfiguration().isEnabled());
 
         Assert.assertEquals(4, configuration.getCairoConfiguration().getQueryCacheEventQueueCapacity());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getQueryAdmissionMaxConcurrent());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getQueryAdmissionMaxQueued());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getQueryAdmissionTimeout());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getQueryAdmissionMemoryLimit());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getQueryAdmissionPrincipalMemoryLimit());
+        Assert.assertEquals(0, configuration.getCairoConfiguration().getQueryMemoryLimit());
+        Assert.assertTrue(configuration.getCairoConfiguration().isQuerySpillEnabled());
         Assert.assertEquals(16777216, configuration.getCairoConfiguration().getDataAppendPageSize());
         Assert.assertEquals(524288, configuration.getCairoConfiguration().getDataIndexKeyAppendPageSize());
         Assert.assertEquals(16777216, configuration.getCairoConfiguration().getDataIndexValueAppendPageSize());
@@ -360,6 +378,8 @@ public class PropServerConfigurationTest {
         Assert.assertFalse(configuration.getCairoConfiguration().attachPartitionCopy());
 
         Assert.assertEquals(30_000, configuration.getCairoConfiguration().getWalPurgeInterval());
+        Assert.assertEquals(60_000, configuration.getCairoConfiguration().getTtlCheckInterval());
+        Assert.assertEquals(3_600_000, configuration.getCairoConfiguration().getTtlMaxDeferral());
         Assert.assertEquals(3, configuration.getCairoConfiguration().getWalRecreateDistressedSequencerAttempts());
         Assert.assertEquals(60_000, configuration.getCairoConfiguration().getInactiveWalWriterTTL());
         Assert.assertEquals(4096, configuration.getCairoConfiguration().getWalTxnNotificationQueueCapacity());
@@ -794,6 +814,13 @@ public class PropServerConfigurationTest {
 
             Assert.assertTrue(configuration.getHttpServerConfiguration().getHttpContextConfiguration().readOnlySecurityContext());
             Assert.assertEquals(50000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getMaxQueryResponseRowLimit());
+            Assert.assertEquals(1024, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getArrowBatchSize());
+            Assert.assertEquals(5000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getQueryPageRowCount());
+            Assert.assertEquals(200_000, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getColumnarMaxRowCount());
+            Assert.assertEquals(256, configuration.getHttpServerConfiguration().getJsonQueryProcessorConfiguration().getQueryQueueCapacity());
+            Assert.assertEquals(2, configuration.getHttpServerConfiguration().getQueryWorkerPoolConfiguration().getWorkerCount());
+            Assert.assertArrayEquals(new int[]{1, 2}, configuration.getHttpServerConfiguration().getQueryWorkerPoolConfiguration().getWorkerAffinity());
+            Assert.assertTrue(configuration.getHttpServerConfiguration().getQueryWorkerPoolConfiguration().haltOnError());
             Assert.assertFalse(configuration.getCairoConfiguration().getCircuitBreakerConfiguration().isEnabled());
             Assert.assertEquals(500, configuration.getCairoConfiguration().getCircuitBreakerConfiguration().getCircuitBreakerThrottle());
             Assert.assertEquals(32, configuration.getCairoConfiguration().getCircuitBreakerConfiguration().getBufferSize());
@@ -885,6 +912,9 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlSortKeyMaxPages());
             Assert.assertEquals(3 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortLightValuePageSize());
             Assert.assertEquals(1027, configuration.getCairoConfiguration().getSqlSortLightValueMaxPages());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlResultCacheEnabled());
+            Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getSqlResultCacheCapacity());
+            Assert.assertEquals(128 * 1024, configuration.getCairoConfiguration().getSqlResultCachePageSize());
             Assert.assertEquals(8 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinValuePageSize());
             Assert.assertEquals(1024, configuration.getCairoConfiguration().getSqlHashJoinValueMaxPages());
             Assert.assertEquals(10000, configuration.getCairoConfiguration().getSqlLatestByRowCount());
@@ -938,6 +968,7 @@ public class PropServerConfigurationTest {
             Assert.assertTrue(configuration.getLineUdpReceiverConfiguration().ownThread());
 
             Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlColumnarProjectionEnabled());
             Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterPreTouchEnabled());
             Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlPageFrameMaxRows());
             Assert.assertEquals(100, configuration.getCairoConfiguration().getSqlPageFrameMinRows());
@@ -1000,6 +1031,13 @@ public class PropServerConfigurationTest {
             Assert.assertFalse(configuration.getHttpServerConfiguration().getHttpContextConfiguration().getServerKeepAlive());
             Assert.assertEquals("HTTP/1.0 ", configuration.getHttpServerConfiguration().getHttpContextConfiguration().getHttpVersion());
             Assert.assertEquals(32, configuration.getCairoConfiguration().getQueryCacheEventQueueCapacity());
+            Assert.assertEquals(4, configuration.getCairoConfiguration().getQueryAdmissionMaxConcurrent());
+            Assert.assertEquals(16, configuration.getCairoConfiguration().getQueryAdmissionMaxQueued());
+            Assert.assertEquals(5000, configuration.getCairoConfiguration().getQueryAdmissionTimeout());
+            Assert.assertEquals(1024 * 1024 * 1024, configuration.getCairoConfiguration().getQueryAdmissionMemoryLimit());
+            Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getQueryAdmissionPrincipalMemoryLimit());
+            Assert.assertEquals(128 * 1024 * 1024, configuration.getCairoConfiguration().getQueryMemoryLimit());
+            Assert.assertFalse(configuration.getCairoConfiguration().isQuerySpillEnabled());
             Assert.assertEquals(1048576, configuration.getCairoConfiguration().getDataAppendPageSize());
             Assert.assertEquals(Files.PAGE_SIZE, configuration.getCairoConfiguration().getDataIndexKeyAppendPageSize());
             Assert.assertEquals(262144, configuration.getCairoConfiguration().getDataIndexValueAppendPageSize());
@@ -1039,6 +1077,8 @@ public class PropServerConfigurationTest {
             Assert.assertTrue(configuration.getCairoConfiguration().attachPartitionCopy());
 
             Assert.assertEquals(333, configuration.getCairoConfiguration().getWalPurgeInterval());
+            Assert.assertEquals(15_000, configuration.getCairoConfiguration().getTtlCheckInterval());
+            Assert.assertEquals(600_000, configuration.getCairoConfiguration().getTtlMaxDeferral());
             Assert.assertEquals(13, configuration.getCairoConfiguration().getWalRecreateDistressedSequencerAttempts());
             Assert.assertEquals(333303, configuration.getCairoConfiguration().getInactiveWalWriterTTL());
             Assert.assertEquals(128, configuration.getCairoConfiguration().getWalTxnNotificationQueueCapacity());
@@ -95,7 +95,9 @@ public abstract class AbstractCairoTest {
     protected static CharSequence defaultMapType;
     protected static int defaultTableWriteMode = -1;
     protected static Boolean enableColumnPreTouch = null;
+    protected static Boolean enableColumnarProjection = null;
     protected static Boolean enableParallelFilter = null;
+    protected static Boolean enableResultCache = null;
     protected static CairoEngine engine;
     protected static FilesFacade ff;
     protected static boolean hideTelemetryTable = false;
@@ -481,6 +483,11 @@ public abstract class AbstractCairoTest {
                 return snapshotRecoveryEnabled == null ? super.isSnapshotRecoveryEnabled() : snapshotRecoveryEnabled;
             }
 
+            @Override
+            public boolean isSqlColumnarProjectionEnabled() {
+                return enableColumnarProjection != null ? enableColumnarProjection : super.isSqlColumnarProjectionEnabled();
+            }
+
             @Override
             public boolean isSqlParallelFilterEnabled() {
                 return enableParallelFilter != null ? enableParallelFilter : super.isSqlParallelFilterEnabled();
@@ -491,6 +498,11 @@ public abstract class AbstractCairoTest {
                 return enableColumnPreTouch != null ? enableColumnPreTouch : super.isSqlParallelFilterPreTouchEnabled();
             }
 
+            @Override
+            public boolean isSqlResultCacheEnabled() {
+                return enableResultCache != null ? enableResultCache : super.isSqlResultCacheEnabled();
+            }
+
             @Override
             public boolean isWalSupported() {
                 return true;
@@ -562,6 +574,8 @@ public abstract class AbstractCairoTest {
         snapshotRecoveryEnabled = null;
         enableParallelFilter = null;
         enableColumnPreTouch = null;
+        enableColumnarProjection = null;
+        enableResultCache = null;
         hideTelemetryTable = false;
         writerCommandQueueCapacity = 4;
         queryCacheEventQueueCapacity = -1;
@@ -725,5 +739,6 @@ public abstract class AbstractCairoTest {
         FACTORY_TAGS[MemoryTag.NATIVE_IMPORT] = false;
         FACTORY_TAGS[MemoryTag.NATIVE_PARALLEL_IMPORT] = false;
         FACTORY_TAGS[MemoryTag.NATIVE_REPL] = false;
+        FACTORY_TAGS[MemoryTag.NATIVE_RESULT_CACHE] = false;
     }
 }
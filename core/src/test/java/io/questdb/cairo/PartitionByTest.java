@@ -82,6 +82,46 @@ public class PartitionByTest {
         );
     }
 
+    @Test
+    public void testAddCeilFloorHourStride() throws NumericException {
+        testAddCeilFloor(
+                "2021-02-12T18:00:00.000000Z",
+                PartitionBy.of(PartitionBy.HOUR, 6),
+                "2021-02-12T12:00:00.000000Z",
+                "2021-02-12T16:38:00.000000Z"
+        );
+    }
+
+    @Test
+    public void testAddCeilFloorMinute() throws NumericException {
+        testAddCeilFloor(
+                "2021-02-12T16:39:00.000000Z",
+                PartitionBy.MINUTE,
+                "2021-02-12T16:38:00.000000Z",
+                "2021-02-12T16:38:12.000001Z"
+        );
+    }
+
+    @Test
+    public void testAddCeilFloorMinuteStride() throws NumericException {
+        testAddCeilFloor(
+                "2021-02-12T16:45:00.000000Z",
+                PartitionBy.of(PartitionBy.MINUTE, 15),
+                "2021-02-12T16:30:00.000000Z",
+                "2021-02-12T16:38:12.000001Z"
+        );
+    }
+
+    @Test
+    public void testAddCeilFloorMinuteStrideBeforeEpoch() throws NumericException {
+        testAddCeilFloor(
+                "1969-12-31T23:45:00.000000Z",
+                PartitionBy.of(PartitionBy.MINUTE, 15),
+                "1969-12-31T23:30:00.000000Z",
+                "1969-12-31T23:38:12.000001Z"
+        );
+    }
+
     @Test
     public void testAddCeilFloorMonth() throws NumericException {
         testAddCeilFloor(
@@ -132,6 +172,16 @@ public class PartitionByTest {
         );
     }
 
+    @Test
+    public void testAddCeilFloorWeek() throws NumericException {
+        testAddCeilFloor(
+                "2023-03-06T00:00:00.000000Z",
+                PartitionBy.WEEK,
+                "2023-02-27T00:00:00.000000Z",
+                "2023-03-01T11:22:00.000000Z"
+        );
+    }
+
     @Test
     public void testDirectoryFormattingDay() throws NumericException {
         assertFormatAndParse("2013-03-31", "2013-03-31T00:00:00.000000Z", PartitionBy.DAY);
@@ -142,6 +192,11 @@ public class PartitionByTest {
         assertFormatAndParse("2014-09-03T21", "2014-09-03T21:00:00.000000Z", PartitionBy.HOUR);
     }
 
+    @Test
+    public void testDirectoryFormattingMinute() throws NumericException {
+        assertFormatAndParse("2014-09-03T2145", "2014-09-03T21:45:00.000000Z", PartitionBy.of(PartitionBy.MINUTE, 15));
+    }
+
     @Test
     public void testDirectoryFormattingMonth() throws NumericException {
         assertFormatAndParse("2013-03", "2013-03-01T00:00:00.000000Z", PartitionBy.MONTH);
@@ -157,6 +212,11 @@ public class PartitionByTest {
         assertFormatAndParse("2014", "2014-01-01T00:00:00.000000Z", PartitionBy.YEAR);
     }
 
+    @Test
+    public void testDirectoryFormattingWeek() throws NumericException {
+        assertFormatAndParse("2023-02-27", "2023-02-27T00:00:00.000000Z", PartitionBy.WEEK);
+    }
+
     @Test
     public void testDirectoryParseFailureByDay() {
         assertParseFailure("'YYYY-MM-DD' expected", "2013-03", PartitionBy.DAY);
@@ -167,6 +227,11 @@ public class PartitionByTest {
         assertParseFailure("'YYYY-MM-DDTHH' expected", "2013-03-12", PartitionBy.HOUR);
     }
 
+    @Test
+    public void testDirectoryParseFailureByMinute() {
+        assertParseFailure("'YYYY-MM-DDTHHmm' expected", "2013-03-12T12", PartitionBy.MINUTE);
+    }
+
     @Test
     public void testDirectoryParseFailureByMonth() {
         assertParseFailure("'YYYY-MM' expected", "2013-03-02", PartitionBy.MONTH);
@@ -177,12 +242,30 @@ public class PartitionByTest {
         assertParseFailure("'YYYY' expected", "2013-03-12", PartitionBy.YEAR);
     }
 
+    @Test
+    public void testInvalidStrides() {
+        Assert.assertEquals(-1, PartitionBy.of(PartitionBy.MINUTE, 7));
+        Assert.assertEquals(-1, PartitionBy.of(PartitionBy.MINUTE, 60));
+        Assert.assertEquals(-1, PartitionBy.of(PartitionBy.HOUR, 5));
+        Assert.assertEquals(-1, PartitionBy.of(PartitionBy.HOUR, 0));
+        Assert.assertEquals(-1, PartitionBy.of(PartitionBy.DAY, 2));
+        Assert.assertEquals(-1, PartitionBy.of(PartitionBy.NONE, 2));
+        Assert.assertEquals(-1, PartitionBy.fromString("7 MINUTE"));
+        Assert.assertEquals(-1, PartitionBy.fromString("-15 MINUTE"));
+        Assert.assertEquals(-1, PartitionBy.fromString("15 jiffy"));
+        Assert.assertEquals(-1, PartitionBy.fromString("15"));
+        Assert.assertEquals(PartitionBy.DAY, PartitionBy.fromString("1 DAY"));
+    }
+
     @Test
     public void testIsPartitioned() {
         Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.DAY));
         Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.MONTH));
         Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.YEAR));
         Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.HOUR));
+        Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.WEEK));
+        Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.MINUTE));
+        Assert.assertTrue(PartitionBy.isPartitioned(PartitionBy.of(PartitionBy.MINUTE, 15)));
         Assert.assertFalse(PartitionBy.isPartitioned(PartitionBy.NONE));
     }
 
@@ -196,6 +279,21 @@ public class PartitionByTest {
         testPartitionByName("HOUR", PartitionBy.HOUR);
     }
 
+    @Test
+    public void testPartitionByNameHourStride() {
+        testPartitionByName("6 HOUR", PartitionBy.of(PartitionBy.HOUR, 6));
+    }
+
+    @Test
+    public void testPartitionByNameMinute() {
+        testPartitionByName("MINUTE", PartitionBy.MINUTE);
+    }
+
+    @Test
+    public void testPartitionByNameMinuteStride() {
+        testPartitionByName("15 MINUTE", PartitionBy.of(PartitionBy.MINUTE, 15));
+    }
+
     @Test
     public void testPartitionByNameMonth() {
         testPartitionByName("MONTH", PartitionBy.MONTH);
@@ -206,6 +304,11 @@ public class PartitionByTest {
         testPartitionByName("NONE", PartitionBy.NONE);
     }
 
+    @Test
+    public void testPartitionByNameWeek() {
+        testPartitionByName("WEEK", PartitionBy.WEEK);
+    }
+
     @Test
     public void testPartitionByNameYear() {
         testPartitionByName("YEAR", PartitionBy.YEAR);
@@ -231,6 +334,26 @@ public class PartitionByTest {
         );
     }
 
+    @Test
+    public void testSetPathByHourStride() throws NumericException {
+        setSetPath(
+                "2021-04-01T23:59:59.999999Z",
+                "a/b/2021-04-01T18",
+                "2021-04-01T18:00:00.000000Z",
+                PartitionBy.of(PartitionBy.HOUR, 6)
+        );
+    }
+
+    @Test
+    public void testSetPathByMinuteStride() throws NumericException {
+        setSetPath(
+                "2021-04-01T18:29:59.999999Z",
+                "a/b/2021-04-01T1815",
+                "2021-04-01T18:15:00.000000Z",
+                PartitionBy.of(PartitionBy.MINUTE, 15)
+        );
+    }
+
     @Test
     public void testSetPathByMonth() throws NumericException {
         setSetPath(
@@ -257,6 +380,16 @@ public class PartitionByTest {
         TestUtils.assertEquals("a/b/default", sink);
     }
 
+    @Test
+    public void testSetPathByWeek() throws NumericException {
+        setSetPath(
+                "2023-03-05T23:59:59.999999Z",
+                "a/b/2023-02-27",
+                "2023-02-27T00:00:00.000000Z",
+                PartitionBy.WEEK
+        );
+    }
+
     @Test
     public void testSetPathByYear() throws NumericException {
         setSetPath(
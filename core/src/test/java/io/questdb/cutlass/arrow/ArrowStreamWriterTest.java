@@ -0,0 +1,513 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cutlass.arrow;
+
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ASC;
+
+public class ArrowStreamWriterTest extends AbstractGriffinTest {
+    private static final String ROWS = "false\t1\t1\t1\t10\t0.25\t0.25\t1000\t0\tb\ts1\tc\tsp\t[4]\t00112233445566778899aabbccddeeff\t0100000000000000000000000000000000000000000000000000000000000000\n" +
+            "true\t2\t2\tnull\tnull\tnull\tnull\tnull\t43200000000\tnull\tnull\tc\tsp\t[4]\tnull\t0100000000000000000000000000000000000000000000000000000000000000\n" +
+            "false\t3\t3\t3\t30\t0.75\t0.75\t3000\t86400000000\tb\ts3\tc\tsp\t[4]\t00112233445566778899aabbccddeeff\t0100000000000000000000000000000000000000000000000000000000000000\n" +
+            "true\t4\t4\t4\t40\t1.0\t1.0\t4000\t129600000000\ta\ts4\tc\tsp\t[4]\t00112233445566778899aabbccddeeff\t0100000000000000000000000000000000000000000000000000000000000000\n";
+    private static final String SCHEMA = "schema: bool:Bool,byte:Int8,short:Int16,int:Int32,long:Int64,float:Float32,double:Float64," +
+            "date:Timestamp(ms,UTC),ts:Timestamp(us,UTC),sym:Utf8[dictionary 9],str:Utf8,ch:Utf8,geo:Utf8,bin:Binary," +
+            "uuid:FixedSizeBinary(16),l256:FixedSizeBinary(32)\n" +
+            "dictionary 9: b,a\n";
+
+    @Test
+    public void testColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select cast(x as int) i, timestamp_sequence(0, 43200000000) ts from long_sequence(2)) timestamp(ts) partition by DAY");
+            compile("alter table x add column l long");
+            compile("alter table x add column b byte");
+            compile("insert into x values (3, 86400000000, 30, 3)");
+            assertPageFrames(
+                    "x",
+                    "schema: i:Int32,ts:Timestamp(us,UTC),l:Int64,b:Int8\n" +
+                            "batch: 2\n" +
+                            "1\t0\tnull\t0\n" +
+                            "2\t43200000000\tnull\t0\n" +
+                            "batch: 1\n" +
+                            "3\t86400000000\t30\t3\n",
+                    1000,
+                    0,
+                    Long.MAX_VALUE
+            );
+        });
+    }
+
+    @Test
+    public void testEmptyResult() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertRecords(
+                    "x where int = 42",
+                    "schema: bool:Bool,byte:Int8,short:Int16,int:Int32,long:Int64,float:Float32,double:Float64," +
+                            "date:Timestamp(ms,UTC),ts:Timestamp(us,UTC),sym:Utf8[dictionary 9],str:Utf8,ch:Utf8,geo:Utf8,bin:Binary," +
+                            "uuid:FixedSizeBinary(16),l256:FixedSizeBinary(32)\n" +
+                            "dictionary 9: b,a\n",
+                    1000,
+                    0,
+                    Long.MAX_VALUE
+            );
+        });
+    }
+
+    @Test
+    public void testPageFrames() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            // two partitions, batches do not span page frames
+            assertPageFrames(
+                    "x",
+                    SCHEMA + "batch: 2\n" + rows(0, 2) + "batch: 2\n" + rows(2, 4),
+                    1000,
+                    0,
+                    Long.MAX_VALUE
+            );
+        });
+    }
+
+    @Test
+    public void testPageFramesBatchSizeAndLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertPageFrames(
+                    "x",
+                    SCHEMA + "batch: 1\n" + rows(1, 2) + "batch: 1\n" + rows(2, 3),
+                    1,
+                    1,
+                    3
+            );
+        });
+    }
+
+    @Test
+    public void testRecords() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertRecords(
+                    "x where int = null or int > 0",
+                    SCHEMA + "batch: 4\n" + ROWS,
+                    1000,
+                    0,
+                    Long.MAX_VALUE
+            );
+        });
+    }
+
+    @Test
+    public void testRecordsBatchSizeAndLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertRecords(
+                    "x where int = null or int > 0",
+                    SCHEMA + "batch: 2\n" + rows(1, 3) + "batch: 1\n" + rows(3, 4),
+                    2,
+                    1,
+                    10
+            );
+        });
+    }
+
+    @Test
+    public void testRecordsDynamicSymbolsAndNulls() throws Exception {
+        assertMemoryLeak(() -> assertRecords(
+                "select cast(concat('s', x % 2) as symbol) sym, null n, cast(null as int) i from long_sequence(3)",
+                "schema: sym:Utf8,n:Null,i:Int32\n" +
+                        "batch: 3\n" +
+                        "s1\tnull\tnull\n" +
+                        "s0\tnull\tnull\n" +
+                        "s1\tnull\tnull\n",
+                1000,
+                0,
+                Long.MAX_VALUE
+        ));
+    }
+
+    @Test
+    public void testUnsupportedColumnType() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    RecordCursorFactory factory = compiler.compile("select pg_catalog.pg_class() rec from long_sequence(1)", sqlExecutionContext).getRecordCursorFactory();
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext);
+                    ArrowStreamWriter writer = new ArrowStreamWriter(configuration, 1000)
+            ) {
+                writer.of(factory.getMetadata(), cursor, 0, Long.MAX_VALUE);
+                Assert.fail();
+            } catch (Exception e) {
+                TestUtils.assertContains(e.getMessage(), "unsupported column type [column=rec, type=RECORD]");
+            }
+        });
+    }
+
+    private static void assertStream(ArrowStreamWriter writer, String expected) {
+        final int chunkSize = 7;
+        long capacity = 1024;
+        long address = Unsafe.malloc(capacity, MemoryTag.NATIVE_DEFAULT);
+        long size = 0;
+        try {
+            // drain in small, odd-sized pieces to exercise partial copies
+            while (!writer.isDrained() || writer.nextMessage()) {
+                if (size + chunkSize > capacity) {
+                    address = Unsafe.realloc(address, capacity, capacity * 2, MemoryTag.NATIVE_DEFAULT);
+                    capacity *= 2;
+                }
+                size += writer.drain(address + size, chunkSize);
+            }
+            Assert.assertFalse(writer.nextMessage());
+            final StringSink sink = new StringSink();
+            new ArrowStreamReader().read(address, size, sink);
+            TestUtils.assertEquals(expected, sink);
+        } finally {
+            Unsafe.free(address, capacity, MemoryTag.NATIVE_DEFAULT);
+        }
+    }
+
+    private static String rows(int lo, int hi) {
+        final String[] rows = ROWS.split("\n");
+        final StringBuilder sb = new StringBuilder();
+        for (int i = lo; i < hi; i++) {
+            sb.append(rows[i]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void assertPageFrames(String query, String expected, int batchSize, long skip, long stop) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory.supportPageFrameCursor());
+            try (
+                    PageFrameCursor cursor = factory.getPageFrameCursor(sqlExecutionContext, ORDER_ASC);
+                    ArrowStreamWriter writer = new ArrowStreamWriter(configuration, batchSize)
+            ) {
+                assertStream(writer.of(factory.getMetadata(), cursor, skip, stop), expected);
+            }
+        }
+    }
+
+    private void assertRecords(String query, String expected, int batchSize, long skip, long stop) throws Exception {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(factory.supportPageFrameCursor());
+            try (
+                    RecordCursor cursor = factory.getCursor(sqlExecutionContext);
+                    ArrowStreamWriter writer = new ArrowStreamWriter(configuration, batchSize)
+            ) {
+                assertStream(writer.of(factory.getMetadata(), cursor, skip, stop), expected);
+            }
+        }
+    }
+
+    private void createTable() throws Exception {
+        compile("create table x (" +
+                "bool boolean, byte byte, short short, int int, long long, float float, double double, date date, ts timestamp," +
+                " sym symbol, str string, ch char, geo geohash(2c), bin binary, uuid uuid, l256 long256" +
+                ") timestamp(ts) partition by DAY");
+        executeInsert("insert into x values (false, 1, 1, 1, 10, 0.25, 0.25, 1000, 0, 'b', 's1', 'c', #sp, rnd_bin(4, 4, 0), '00112233-4455-6677-8899-aabbccddeeff', 0x01)");
+        executeInsert("insert into x values (true, 2, 2, null, null, null, null, null, 43200000000, null, null, 'c', #sp, rnd_bin(4, 4, 0), null, 0x01)");
+        executeInsert("insert into x values (false, 3, 3, 3, 30, 0.75, 0.75, 3000, 86400000000, 'b', 's3', 'c', #sp, rnd_bin(4, 4, 0), '00112233-4455-6677-8899-aabbccddeeff', 0x01)");
+        executeInsert("insert into x values (true, 4, 4, 4, 40, 1.0, 1.0, 4000, 129600000000, 'a', 's4', 'c', #sp, rnd_bin(4, 4, 0), '00112233-4455-6677-8899-aabbccddeeff', 0x01)");
+    }
+
+    /**
+     * Decodes Arrow IPC stream independently of the writer, FlatBuffers tables
+     * are navigated via their vtables.
+     */
+    private static class ArrowStreamReader {
+        private final IntList fieldDictionaries = new IntList();
+        private final IntList fieldParams = new IntList();
+        private final IntList fieldTypes = new IntList();
+        private final LongIntHashMap dictionaryIds = new LongIntHashMap();
+        private final ObjList<ObjList<String>> dictionaries = new ObjList<>();
+
+        private static long field(long table, int slot) {
+            final long vtable = table - Unsafe.getUnsafe().getInt(table);
+            final int vtableSize = Unsafe.getUnsafe().getShort(vtable);
+            if (4 + slot * 2 >= vtableSize) {
+                return 0;
+            }
+            final int offset = Unsafe.getUnsafe().getShort(vtable + 4 + slot * 2);
+            return offset == 0 ? 0 : table + offset;
+        }
+
+        private static long offset(long table, int slot) {
+            final long field = field(table, slot);
+            Assert.assertNotEquals(0, field);
+            return field + Unsafe.getUnsafe().getInt(field);
+        }
+
+        private static String string(long p) {
+            final byte[] bytes = new byte[Unsafe.getUnsafe().getInt(p)];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = Unsafe.getUnsafe().getByte(p + 4 + i);
+            }
+            Assert.assertEquals(0, Unsafe.getUnsafe().getByte(p + 4 + bytes.length));
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static String utf8(long offsets, long data, long row) {
+            final int lo = Unsafe.getUnsafe().getInt(offsets + row * 4);
+            final int hi = Unsafe.getUnsafe().getInt(offsets + row * 4 + 4);
+            final byte[] bytes = new byte[hi - lo];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = Unsafe.getUnsafe().getByte(data + lo + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        void read(long address, long size, StringSink sink) {
+            long p = address;
+            while (true) {
+                Assert.assertEquals(-1, Unsafe.getUnsafe().getInt(p));
+                final int metadataSize = Unsafe.getUnsafe().getInt(p + 4);
+                if (metadataSize == 0) {
+                    Assert.assertEquals(address + size, p + 8);
+                    return;
+                }
+                Assert.assertEquals(0, metadataSize % 8);
+                final long message = p + 8 + Unsafe.getUnsafe().getInt(p + 8);
+                Assert.assertEquals(4, Unsafe.getUnsafe().getShort(field(message, 0)));
+                final byte headerType = Unsafe.getUnsafe().getByte(field(message, 1));
+                final long header = offset(message, 2);
+                final long bodyLength = Unsafe.getUnsafe().getLong(field(message, 3));
+                final long body = p + 8 + metadataSize;
+                switch (headerType) {
+                    case 1:
+                        readSchema(header, sink);
+                        break;
+                    case 2:
+                        final long id = Unsafe.getUnsafe().getLong(field(header, 0));
+                        final ObjList<String> dictionary = new ObjList<>();
+                        readDictionary(offset(header, 1), body, bodyLength, dictionary);
+                        dictionaryIds.put(id, dictionaries.size());
+                        dictionaries.add(dictionary);
+                        sink.put("dictionary ").put(id).put(": ");
+                        for (int i = 0, n = dictionary.size(); i < n; i++) {
+                            if (i > 0) {
+                                sink.put(',');
+                            }
+                            sink.put(dictionary.getQuick(i));
+                        }
+                        sink.put('\n');
+                        break;
+                    case 3:
+                        readRecordBatch(header, body, bodyLength, sink);
+                        break;
+                    default:
+                        Assert.fail("unexpected header type " + headerType);
+                }
+                p = body + bodyLength;
+            }
+        }
+
+        private long buffer(long batch, int index, long body, long bodyLength, boolean address) {
+            final long buffers = offset(batch, 2);
+            Assert.assertTrue(index < Unsafe.getUnsafe().getInt(buffers));
+            final long offset = Unsafe.getUnsafe().getLong(buffers + 4 + index * 16L);
+            final long length = Unsafe.getUnsafe().getLong(buffers + 4 + index * 16L + 8);
+            Assert.assertEquals(0, offset % 8);
+            Assert.assertTrue(offset + length <= bodyLength);
+            return address ? body + offset : length;
+        }
+
+        private void readDictionary(long batch, long body, long bodyLength, ObjList<String> dictionary) {
+            final long length = Unsafe.getUnsafe().getLong(field(batch, 0));
+            final long offsets = buffer(batch, 1, body, bodyLength, true);
+            final long data = buffer(batch, 2, body, bodyLength, true);
+            for (long r = 0; r < length; r++) {
+                dictionary.add(utf8(offsets, data, r));
+            }
+        }
+
+        private void readRecordBatch(long batch, long body, long bodyLength, StringSink sink) {
+            final long length = Unsafe.getUnsafe().getLong(field(batch, 0));
+            final long nodes = offset(batch, 1);
+            final int fieldCount = fieldTypes.size();
+            Assert.assertEquals(fieldCount, Unsafe.getUnsafe().getInt(nodes));
+            sink.put("batch: ").put(length).put('\n');
+
+            final LongList nullCounts = new LongList();
+            for (long r = 0; r < length; r++) {
+                int bufferIndex = 0;
+                for (int f = 0; f < fieldCount; f++) {
+                    Assert.assertEquals(length, Unsafe.getUnsafe().getLong(nodes + 4 + f * 16L));
+                    if (r == 0) {
+                        nullCounts.add(0);
+                    }
+                    if (f > 0) {
+                        sink.put('\t');
+                    }
+                    final int type = fieldTypes.getQuick(f);
+                    if (type == 1) {
+                        sink.put("null");
+                        nullCounts.increment(f);
+                        continue;
+                    }
+                    final int dictionaryId = fieldDictionaries.getQuick(f);
+                    final long validity = buffer(batch, bufferIndex, body, bodyLength, true);
+                    final long validityLength = buffer(batch, bufferIndex++, body, bodyLength, false);
+                    final long values = buffer(batch, bufferIndex++, body, bodyLength, true);
+                    // dictionary encoded fields carry keys only
+                    final long data = (type == 4 || type == 5) && dictionaryId < 0 ? buffer(batch, bufferIndex++, body, bodyLength, true) : 0;
+                    if (validityLength > 0 && (Unsafe.getUnsafe().getByte(validity + (r >>> 3)) & (1 << (r & 7))) == 0) {
+                        sink.put("null");
+                        nullCounts.increment(f);
+                        continue;
+                    }
+                    final int param = fieldParams.getQuick(f);
+                    if (dictionaryId > -1) {
+                        sink.put(dictionaries.getQuick(dictionaryIds.get(dictionaryId)).getQuick(Unsafe.getUnsafe().getInt(values + r * 4)));
+                        continue;
+                    }
+                    switch (type) {
+                        case 2:
+                            switch (param) {
+                                case 8:
+                                    sink.put(Unsafe.getUnsafe().getByte(values + r));
+                                    break;
+                                case 16:
+                                    sink.put(Unsafe.getUnsafe().getShort(values + r * 2));
+                                    break;
+                                case 32:
+                                    sink.put(Unsafe.getUnsafe().getInt(values + r * 4));
+                                    break;
+                                default:
+                                    sink.put(Unsafe.getUnsafe().getLong(values + r * 8));
+                                    break;
+                            }
+                            break;
+                        case 3:
+                            if (param == 1) {
+                                sink.put(String.valueOf(Unsafe.getUnsafe().getFloat(values + r * 4)));
+                            } else {
+                                sink.put(String.valueOf(Unsafe.getUnsafe().getDouble(values + r * 8)));
+                            }
+                            break;
+                        case 4:
+                            final int lo = Unsafe.getUnsafe().getInt(values + r * 4);
+                            final int hi = Unsafe.getUnsafe().getInt(values + r * 4 + 4);
+                            sink.put('[').put(hi - lo).put(']');
+                            break;
+                        case 5:
+                            sink.put(utf8(values, data, r));
+                            break;
+                        case 6:
+                            sink.put((Unsafe.getUnsafe().getByte(values + (r >>> 3)) & (1 << (r & 7))) != 0);
+                            break;
+                        case 10:
+                            sink.put(Unsafe.getUnsafe().getLong(values + r * 8));
+                            break;
+                        case 15:
+                            for (int i = 0; i < param; i++) {
+                                final int b = Unsafe.getUnsafe().getByte(values + r * param + i) & 0xff;
+                                sink.put(Character.forDigit(b >> 4, 16)).put(Character.forDigit(b & 15, 16));
+                            }
+                            break;
+                        default:
+                            Assert.fail("unexpected type " + type);
+                    }
+                }
+                sink.put('\n');
+            }
+            for (int f = 0; f < nullCounts.size(); f++) {
+                Assert.assertEquals(nullCounts.getQuick(f), Unsafe.getUnsafe().getLong(nodes + 4 + f * 16L + 8));
+            }
+        }
+
+        private void readSchema(long schema, StringSink sink) {
+            final long fields = offset(schema, 1);
+            sink.put("schema: ");
+            for (int i = 0, n = Unsafe.getUnsafe().getInt(fields); i < n; i++) {
+                final long fieldOffset = fields + 4 + i * 4L;
+                final long field = fieldOffset + Unsafe.getUnsafe().getInt(fieldOffset);
+                if (i > 0) {
+                    sink.put(',');
+                }
+                sink.put(string(offset(field, 0))).put(':');
+                Assert.assertEquals(1, Unsafe.getUnsafe().getByte(field(field, 1)));
+                Assert.assertEquals(0, Unsafe.getUnsafe().getInt(offset(field, 5)));
+                final byte type = Unsafe.getUnsafe().getByte(field(field, 2));
+                final long typeTable = offset(field, 3);
+                int param = 0;
+                switch (type) {
+                    case 1:
+                        sink.put("Null");
+                        break;
+                    case 2:
+                        param = Unsafe.getUnsafe().getInt(field(typeTable, 0));
+                        Assert.assertEquals(1, Unsafe.getUnsafe().getByte(field(typeTable, 1)));
+                        sink.put("Int").put(param);
+                        break;
+                    case 3:
+                        param = Unsafe.getUnsafe().getShort(field(typeTable, 0));
+                        sink.put(param == 1 ? "Float32" : "Float64");
+                        break;
+                    case 4:
+                        sink.put("Binary");
+                        break;
+                    case 5:
+                        sink.put("Utf8");
+                        break;
+                    case 6:
+                        sink.put("Bool");
+                        break;
+                    case 10:
+                        param = Unsafe.getUnsafe().getShort(field(typeTable, 0));
+                        sink.put("Timestamp(").put(param == 1 ? "ms" : "us").put(',').put(string(offset(typeTable, 1))).put(')');
+                        break;
+                    case 15:
+                        param = Unsafe.getUnsafe().getInt(field(typeTable, 0));
+                        sink.put("FixedSizeBinary(").put(param).put(')');
+                        break;
+                    default:
+                        Assert.fail("unexpected type " + type);
+                }
+                int dictionaryId = -1;
+                if (field(field, 4) != 0) {
+                    final long dictionary = offset(field, 4);
+                    dictionaryId = (int) Unsafe.getUnsafe().getLong(field(dictionary, 0));
+                    Assert.assertEquals(32, Unsafe.getUnsafe().getInt(field(offset(dictionary, 1), 0)));
+                    sink.put("[dictionary ").put(dictionaryId).put(']');
+                }
+                fieldTypes.add(type);
+                fieldParams.add(param);
+                fieldDictionaries.add(dictionaryId);
+            }
+            sink.put('\n');
+        }
+    }
+}
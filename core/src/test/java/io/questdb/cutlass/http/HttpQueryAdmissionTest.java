@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.QueryAdmission;
+import io.questdb.cairo.QueryAdmissionController;
+import io.questdb.cairo.security.CairoSecurityContextImpl;
+import io.questdb.network.NetworkFacadeImpl;
+import io.questdb.std.Os;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+public class HttpQueryAdmissionTest {
+    private static final String QUERY = "select 42 x";
+    private static final String QUERY_RESPONSE = "58\r\n" +
+            "{\"query\":\"select 42 x\",\"columns\":[{\"name\":\"x\",\"type\":\"INT\"}],\"dataset\":[[42]],\"count\":1}\r\n" +
+            "00\r\n" +
+            "\r\n";
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+    @Rule
+    public Timeout timeout = Timeout.builder()
+            .withTimeout(10 * 60 * 1000, TimeUnit.MILLISECONDS)
+            .withLookingForStuckThread(true)
+            .build();
+
+    @Test
+    public void testQueueFull() throws Exception {
+        testAdmission(60_000, controller -> {
+            try (QueryAdmission running = new QueryAdmission(controller)) {
+                Assert.assertTrue(running.tryAdmit(new CairoSecurityContextImpl(true)));
+                final FutureTask<Void> queued = startQuery();
+                awaitQueued(controller);
+
+                sendAndReceive(
+                        "HTTP/1.1 400 Bad request\r\n" +
+                                "Server: questDB/1.0\r\n" +
+                                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                "Transfer-Encoding: chunked\r\n" +
+                                "Content-Type: application/json; charset=utf-8\r\n" +
+                                "Keep-Alive: timeout=5, max=10000\r\n" +
+                                "\r\n" +
+                                "6f\r\n" +
+                                "{\"query\":\"select 42 x\",\"error\":\"too many queries waiting for admission [principal=, maxQueued=1]\",\"position\":0}\r\n" +
+                                "00\r\n" +
+                                "\r\n"
+                );
+
+                running.release();
+                queued.get(30, TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    @Test
+    public void testQueuedQueryRunsAfterRelease() throws Exception {
+        testAdmission(60_000, controller -> {
+            try (QueryAdmission running = new QueryAdmission(controller)) {
+                Assert.assertTrue(running.tryAdmit(new CairoSecurityContextImpl(true)));
+                final FutureTask<Void> queued = startQuery();
+                awaitQueued(controller);
+                Assert.assertFalse(queued.isDone());
+
+                running.release();
+                queued.get(30, TimeUnit.SECONDS);
+                Assert.assertEquals(0, controller.getQueuedCount(null));
+            }
+        });
+    }
+
+    @Test
+    public void testQueuedTimeout() throws Exception {
+        testAdmission(100, controller -> {
+            try (QueryAdmission running = new QueryAdmission(controller)) {
+                Assert.assertTrue(running.tryAdmit(new CairoSecurityContextImpl(true)));
+                sendAndReceive(
+                        "HTTP/1.1 400 Bad request\r\n" +
+                                "Server: questDB/1.0\r\n" +
+                                "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                                "Transfer-Encoding: chunked\r\n" +
+                                "Content-Type: application/json; charset=utf-8\r\n" +
+                                "Keep-Alive: timeout=5, max=10000\r\n" +
+                                "\r\n" +
+                                "70\r\n" +
+                                "{\"query\":\"select 42 x\",\"error\":\"timed out waiting for query admission [principal=, timeout=100ms]\",\"position\":0}\r\n" +
+                                "00\r\n" +
+                                "\r\n"
+                );
+                Assert.assertEquals(0, controller.getQueuedCount(null));
+            }
+        });
+    }
+
+    private static void awaitQueued(QueryAdmissionController controller) {
+        final long deadline = System.currentTimeMillis() + 30_000;
+        while (controller.getQueuedCount(null) == 0) {
+            Assert.assertTrue("query was not queued", System.currentTimeMillis() < deadline);
+            Os.pause();
+        }
+    }
+
+    private static void sendAndReceive(String response) throws InterruptedException {
+        new SendAndReceiveRequestBuilder()
+                .withNetworkFacade(NetworkFacadeImpl.INSTANCE)
+                .withExpectDisconnect(false)
+                .withRequestCount(1)
+                .execute(
+                        "GET /query?query=" + HttpUtils.urlEncodeQuery(QUERY) + "&count=true HTTP/1.1\r\n" + SendAndReceiveRequestBuilder.RequestHeaders,
+                        response
+                );
+    }
+
+    private static FutureTask<Void> startQuery() {
+        final FutureTask<Void> task = new FutureTask<>(() -> {
+            sendAndReceive(SendAndReceiveRequestBuilder.ResponseHeaders + QUERY_RESPONSE);
+            return null;
+        });
+        new Thread(task).start();
+        return task;
+    }
+
+    private void testAdmission(long timeout, AdmissionCode code) throws Exception {
+        final String baseDir = temp.getRoot().getAbsolutePath();
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(baseDir) {
+            @Override
+            public int getQueryAdmissionMaxConcurrent() {
+                return 1;
+            }
+
+            @Override
+            public int getQueryAdmissionMaxQueued() {
+                return 1;
+            }
+
+            @Override
+            public long getQueryAdmissionTimeout() {
+                return timeout;
+            }
+        };
+        new HttpQueryTestBuilder()
+                .withWorkerCount(2)
+                .withTempFolder(temp)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .run(configuration, engine -> {
+                    try {
+                        code.run(engine.getQueryAdmissionController());
+                    } catch (Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface AdmissionCode {
+        void run(QueryAdmissionController controller) throws Exception;
+    }
+}
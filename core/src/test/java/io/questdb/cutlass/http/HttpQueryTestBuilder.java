@@ -59,6 +59,7 @@ public class HttpQueryTestBuilder {
     private Metrics metrics;
     private MicrosecondClock microsecondClock;
     private QueryFutureUpdateListener queryFutureUpdateListener;
+    private int queryWorkerCount;
     private HttpServerConfigurationBuilder serverConfigBuilder;
     private SqlExecutionContextImpl sqlExecutionContext;
     private long startWriterWaitTimeout = 500;
@@ -90,6 +91,16 @@ public class HttpQueryTestBuilder {
             }
 
             final WorkerPool workerPool = new TestWorkerPool(workerCount, metrics);
+            final WorkerPool queryWorkerPool;
+            final JsonQueryOffloadJob offloadJob;
+            if (queryWorkerCount > 0) {
+                queryWorkerPool = new TestWorkerPool("http-query", queryWorkerCount, metrics);
+                offloadJob = new JsonQueryOffloadJob(httpConfiguration.getJsonQueryProcessorConfiguration().getQueryQueueCapacity());
+                queryWorkerPool.assign(offloadJob);
+            } else {
+                queryWorkerPool = null;
+                offloadJob = null;
+            }
 
             CairoConfiguration cairoConfiguration = configuration;
             if (cairoConfiguration == null) {
@@ -220,18 +231,30 @@ public class HttpQueryTestBuilder {
 
                     @Override
                     public HttpRequestProcessor newInstance() {
-                        return new JsonQueryProcessor(httpConfiguration.getJsonQueryProcessorConfiguration(), engine, 1);
+                        return new JsonQueryProcessor(
+                                httpConfiguration.getJsonQueryProcessorConfiguration(),
+                                engine,
+                                1,
+                                1,
+                                null,
+                                null,
+                                offloadJob
+                        );
                     }
                 });
 
-                QueryCache.configure(httpConfiguration, metrics);
-
                 workerPool.start(LOG);
+                if (queryWorkerPool != null) {
+                    queryWorkerPool.start(LOG);
+                }
 
                 try {
                     code.run(engine);
                 } finally {
                     workerPool.halt();
+                    if (queryWorkerPool != null) {
+                        queryWorkerPool.halt();
+                    }
 
                     if (telemetryJob != null) {
                         Misc.free(telemetryJob);
@@ -291,6 +314,11 @@ public class HttpQueryTestBuilder {
         return this;
     }
 
+    public HttpQueryTestBuilder withQueryWorkerCount(int queryWorkerCount) {
+        this.queryWorkerCount = queryWorkerCount;
+        return this;
+    }
+
     public HttpQueryTestBuilder withTelemetry(boolean telemetry) {
         this.telemetry = telemetry;
         return this;
@@ -40,12 +40,15 @@ import io.questdb.std.datetime.millitime.MillisecondClockImpl;
 public class HttpServerConfigurationBuilder {
     private boolean allowDeflateBeforeSend;
     private String baseDir;
+    private long columnarMaxRowCount = 1_000_000;
     private long configuredMaxQueryResponseRowLimit = Long.MAX_VALUE;
     private boolean dumpTraffic;
     private String httpProtocolVersion = "HTTP/1.1 ";
     private long multipartIdleSpinCount = -1;
     private NetworkFacade nf = NetworkFacadeImpl.INSTANCE;
     private Runnable onPeerDisconnect = HttpContextConfiguration.NONE;
+    private int queryPageRowCount = 10_000;
+    private int queryQueueCapacity = 64;
     private int receiveBufferSize = 1024 * 1024;
     private int rerunProcessingQueueSize = 4096;
     private int sendBufferSize = 1024 * 1024;
@@ -63,11 +66,21 @@ public class HttpServerConfigurationBuilder {
             private final JsonQueryProcessorConfiguration jsonQueryProcessorConfiguration = new JsonQueryProcessorConfiguration() {
                 private final DefaultSqlExecutionCircuitBreakerConfiguration circuitBreakerConfiguration = new DefaultSqlExecutionCircuitBreakerConfiguration();
 
+                @Override
+                public int getArrowBatchSize() {
+                    return 65536;
+                }
+
                 @Override
                 public MillisecondClock getClock() {
                     return () -> 0;
                 }
 
+                @Override
+                public long getColumnarMaxRowCount() {
+                    return columnarMaxRowCount;
+                }
+
                 @Override
                 public int getConnectionCheckFrequency() {
                     return 1_000_000;
@@ -97,6 +110,16 @@ public class HttpServerConfigurationBuilder {
                 public long getMaxQueryResponseRowLimit() {
                     return configuredMaxQueryResponseRowLimit;
                 }
+
+                @Override
+                public int getQueryPageRowCount() {
+                    return queryPageRowCount;
+                }
+
+                @Override
+                public int getQueryQueueCapacity() {
+                    return queryQueueCapacity;
+                }
             };
             private final StaticContentProcessorConfiguration staticContentProcessorConfiguration = new StaticContentProcessorConfiguration() {
                 @Override
@@ -238,6 +261,11 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withColumnarMaxRowCount(long columnarMaxRowCount) {
+        this.columnarMaxRowCount = columnarMaxRowCount;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withConfiguredMaxQueryResponseRowLimit(long configuredMaxQueryResponseRowLimit) {
         this.configuredMaxQueryResponseRowLimit = configuredMaxQueryResponseRowLimit;
         return this;
@@ -268,6 +296,16 @@ public class HttpServerConfigurationBuilder {
         return this;
     }
 
+    public HttpServerConfigurationBuilder withQueryPageRowCount(int queryPageRowCount) {
+        this.queryPageRowCount = queryPageRowCount;
+        return this;
+    }
+
+    public HttpServerConfigurationBuilder withQueryQueueCapacity(int queryQueueCapacity) {
+        this.queryQueueCapacity = queryQueueCapacity;
+        return this;
+    }
+
     public HttpServerConfigurationBuilder withReceiveBufferSize(int receiveBufferSize) {
         this.receiveBufferSize = receiveBufferSize;
         return this;
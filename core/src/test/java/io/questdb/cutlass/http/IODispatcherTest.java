@@ -29,8 +29,12 @@ import io.questdb.MessageBusImpl;
 import io.questdb.Metrics;
 import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.DataFrameCursorFactory;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cutlass.NetUtils;
 import io.questdb.cutlass.Services;
+import io.questdb.cutlass.arrow.ArrowStreamWriter;
 import io.questdb.cutlass.http.processors.*;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlException;
@@ -57,7 +61,12 @@ import org.junit.*;
 import org.junit.rules.TemporaryFolder;
 import org.junit.rules.Timeout;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
@@ -65,6 +74,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
 
 import static io.questdb.test.tools.TestUtils.assertMemoryLeak;
 
@@ -636,6 +646,82 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testExpArrow() throws Exception {
+        testJsonQuery0(1, engine -> {
+            final SqlExecutionContextImpl executionContext = new SqlExecutionContextImpl(engine, 1);
+            try (SqlCompiler compiler = new SqlCompiler(engine)) {
+                compiler.compile("create table x as (select cast(x as int) i, rnd_symbol('a','b') s, rnd_str(3,3,0) str, timestamp_sequence(0, 3600000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", executionContext);
+
+                // stream produced by the writer directly is the expected response body
+                final byte[] body;
+                try (
+                        RecordCursorFactory factory = compiler.compile("x", executionContext).getRecordCursorFactory();
+                        PageFrameCursor cursor = factory.getPageFrameCursor(executionContext, DataFrameCursorFactory.ORDER_ASC);
+                        ArrowStreamWriter writer = new ArrowStreamWriter(engine.getConfiguration(), 65536)
+                ) {
+                    writer.of(factory.getMetadata(), cursor, 0, Long.MAX_VALUE);
+                    final long address = Unsafe.malloc(16 * 1024, MemoryTag.NATIVE_DEFAULT);
+                    try {
+                        long size = 0;
+                        while (writer.nextMessage()) {
+                            size += writer.drain(address + size, 16 * 1024 - size);
+                            Assert.assertTrue(writer.isDrained());
+                        }
+                        body = new byte[(int) size];
+                        for (int i = 0; i < size; i++) {
+                            body[i] = Unsafe.getUnsafe().getByte(address + i);
+                        }
+                    } finally {
+                        Unsafe.free(address, 16 * 1024, MemoryTag.NATIVE_DEFAULT);
+                    }
+                }
+
+                final StringSink sink = new StringSink();
+                sink.put("HTTP/1.1 200 OK\r\n" +
+                        "Server: questDB/1.0\r\n" +
+                        "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "Content-Type: application/vnd.apache.arrow.stream\r\n" +
+                        "Content-Disposition: attachment; filename=\"questdb-query-0.arrow\"\r\n" +
+                        "Keep-Alive: timeout=5, max=10000\r\n" +
+                        "\r\n");
+                Numbers.appendHex(sink, body.length);
+                sink.put("\r\n");
+                final byte[] prefix = sink.toString().getBytes(Files.UTF_8);
+                final byte[] suffix = "\r\n00\r\n\r\n".getBytes(Files.UTF_8);
+                final byte[] response = new byte[prefix.length + body.length + suffix.length];
+                System.arraycopy(prefix, 0, response, 0, prefix.length);
+                System.arraycopy(body, 0, response, prefix.length, body.length);
+                System.arraycopy(suffix, 0, response, prefix.length + body.length, suffix.length);
+
+                new SendAndReceiveRequestBuilder().executeWithStandardRequestHeaders(
+                        "GET /exp?query=x&fmt=arrow HTTP/1.1\r\n",
+                        new ByteArrayResponse(response, response.length)
+                );
+            }
+        }, false);
+    }
+
+    @Test
+    public void testExpArrowUnsupportedFormat() throws Exception {
+        testJsonQuery0(1, engine -> new SendAndReceiveRequestBuilder().executeWithStandardRequestHeaders(
+                "GET /exp?query=select+1&fmt=parquet HTTP/1.1\r\n",
+                "HTTP/1.1 400 Bad request\r\n" +
+                        "Server: questDB/1.0\r\n" +
+                        "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "Content-Type: text/csv; charset=utf-8\r\n" +
+                        "Content-Disposition: attachment; filename=\"questdb-query-0.csv\"\r\n" +
+                        "Keep-Alive: timeout=5, max=10000\r\n" +
+                        "\r\n" +
+                        "5c\r\n" +
+                        "{\"query\":\"select 1\",\"error\":\"Unsupported export format, expected csv or arrow\",\"position\":0}\r\n" +
+                        "00\r\n" +
+                        "\r\n"
+        ), false);
+    }
+
     @Test
     public void testExpCustomDelimiter() throws Exception {
         testJsonQuery(
@@ -2575,6 +2661,126 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testJsonQueryColumnar() throws Exception {
+        testJsonQuery(
+                20,
+                "GET /query?query=x&limit=10,14&fmt=columnar HTTP/1.1\r\n" +
+                        "Host: localhost:9001\r\n" +
+                        "Connection: keep-alive\r\n" +
+                        "Cache-Control: max-age=0\r\n" +
+                        "Upgrade-Insecure-Requests: 1\r\n" +
+                        "User-Agent: Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/74.0.3729.169 Safari/537.36\r\n" +
+                        "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3\r\n" +
+                        "Accept-Encoding: gzip, deflate, br\r\n" +
+                        "Accept-Language: en-GB,en-US;q=0.9,en;q=0.8\r\n" +
+                        "\r\n",
+                "HTTP/1.1 200 OK\r\n" +
+                        "Server: questDB/1.0\r\n" +
+                        "Date: Thu, 1 Jan 1970 00:00:00 GMT\r\n" +
+                        "Transfer-Encoding: chunked\r\n" +
+                        "Content-Type: application/json; charset=utf-8\r\n" +
+                        "Keep-Alive: timeout=5, max=10000\r\n" +
+                        "\r\n" +
+                        "045a\r\n" +
+                        "{\"query\":\"x\",\"columns\":[{\"name\":\"a\",\"type\":\"BYTE\"},{\"name\":\"b\",\"type\":\"SHORT\"},{\"name\":\"c\",\"type\":\"INT\"},{\"name\":\"d\",\"type\":\"LONG\"},{\"name\":\"e\",\"type\":\"DATE\"},{\"name\":\"f\",\"type\":\"TIMESTAMP\"},{\"name\":\"g\",\"type\":\"FLOAT\"},{\"name\":\"h\",\"type\":\"DOUBLE\"},{\"name\":\"i\",\"type\":\"STRING\"},{\"name\":\"j\",\"type\":\"SYMBOL\"},{\"name\":\"k\",\"type\":\"BOOLEAN\"},{\"name\":\"l\",\"type\":\"BINARY\"}],\"dataset\":[[37,109,-44,17,-104],[7618,-8207,21057,23522,12160],[null,-485549586,-1604266757,-861621212,1772084256],[-9219078548506735248,null,4598876523645326656,-6446120489339099836,-5828188148408093893],[\"286623354-12-11T19:15:45.735Z\",\"278802275-11-05T23:22:18.593Z\",null,null,\"-270365729-01-24T04:33:47.165Z\"],[\"197633-02-20T09:12:49.579955Z\",\"122137-10-05T20:22:21.831563Z\",\"204480-04-27T20:21:01.380246Z\",\"79287-08-03T02:05:46.962686Z\",\"-252298-10-09T07:11:36.011048Z\"],[null,0.5780819,0.19736767,0.4349324,null],[0.8001632261203552,0.18586435581637295,0.11591855759299885,0.11296257318851766,0.5764439692141042],[null,\"DYOPH\",\"DMIGQ\",\"CGFNW\",\"BQQEM\"],[\"KFM\",\"IMY\",\"VKH\",null,null],[false,false,false,true,false],[[],[],[],[],[]]],\"count\":14}\r\n" +
+                        "00\r\n" +
+                        "\r\n"
+        );
+    }
+
+    @Test
+    public void testJsonQueryColumnarReusesChain() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder())
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        compiler.compile("create table t as (select x, cast(x % 3 as symbol) sym, rnd_bin(4, 4, 0) bin from long_sequence(5))", executionContext);
+                    }
+
+                    // requests on one connection share the chain, it must be cleared or rebuilt between them
+                    try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                        assertColumnarResponse(
+                                socket,
+                                "select+x%2C+sym%2C+bin+from+t",
+                                "{\"query\":\"select x, sym, bin from t\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"},{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"bin\",\"type\":\"BINARY\"}],\"dataset\":[[1,2,3,4,5],[\"1\",\"2\",\"0\",\"1\",\"2\"],[[],[],[],[],[]]],\"count\":5}"
+                        );
+                        assertColumnarResponse(
+                                socket,
+                                "select+sym%2C+x+from+t+where+x+%3E+3",
+                                "{\"query\":\"select sym, x from t where x > 3\",\"columns\":[{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[\"1\",\"2\"],[4,5]],\"count\":2}"
+                        );
+                        assertColumnarResponse(
+                                socket,
+                                "select+x%2C+sym%2C+bin+from+t+where+x+%3C+3",
+                                "{\"query\":\"select x, sym, bin from t where x < 3\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"},{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"bin\",\"type\":\"BINARY\"}],\"dataset\":[[1,2],[\"1\",\"2\"],[[],[]]],\"count\":2}"
+                        );
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    @Test
+    public void testJsonQueryColumnarRowLimit() throws Exception {
+        assertColumnarRowLimit(0);
+    }
+
+    @Test
+    public void testJsonQueryColumnarRowLimitOffload() throws Exception {
+        assertColumnarRowLimit(1);
+    }
+
+    @Test
+    public void testJsonQueryColumnarSmallSendBuffer() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder().withSendBufferSize(256))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        compiler.compile("create table t as (select x, cast(x as string) s, cast(x % 3 as symbol) sym from long_sequence(300))", executionContext);
+                    }
+
+                    // values are sent column after column, each column spans multiple chunks
+                    final StringSink expected = new StringSink();
+                    expected.put("{\"query\":\"select sym, x, s from t\",\"columns\":[{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"x\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"STRING\"}],\"dataset\":[[");
+                    for (int i = 1; i <= 300; i++) {
+                        expected.put(i > 1 ? ",\"" : "\"").put(i % 3).put('"');
+                    }
+                    expected.put("],[");
+                    for (int i = 1; i <= 300; i++) {
+                        expected.put(i > 1 ? "," : "").put(i);
+                    }
+                    expected.put("],[");
+                    for (int i = 1; i <= 300; i++) {
+                        expected.put(i > 1 ? ",\"" : "\"").put(i).put('"');
+                    }
+                    expected.put("]],\"count\":300}");
+
+                    try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                        final StringSink headers = new StringSink();
+                        final byte[] body = receiveChunkedResponse(
+                                socket,
+                                "GET /exec?query=select+sym%2C+x%2C+s+from+t&fmt=columnar HTTP/1.1\r\n\r\n",
+                                headers
+                        );
+                        TestUtils.assertContains(headers, "200 OK");
+                        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
     @Test
     public void testJsonQueryCompilationStatsForJitCompiledFilter() throws Exception {
         // Disable the test on ARM64.
@@ -3219,6 +3425,71 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testJsonQueryGzipAcceptEncoding() {
+        Assert.assertTrue(HttpConnectionContext.isGzipAccepted("gzip"));
+        Assert.assertTrue(HttpConnectionContext.isGzipAccepted("gzip, deflate, br"));
+        Assert.assertTrue(HttpConnectionContext.isGzipAccepted("deflate, GZIP;q=0.5"));
+        Assert.assertTrue(HttpConnectionContext.isGzipAccepted("x-gzip"));
+        Assert.assertTrue(HttpConnectionContext.isGzipAccepted("br, *"));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted(null));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted(""));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted("identity"));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted("gzip;q=0"));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted("gzip; q=0.000, deflate"));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted("*, gzip;q=0"));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted("*;q=0"));
+        Assert.assertFalse(HttpConnectionContext.isGzipAccepted("xgzip, gzipped"));
+    }
+
+    @Test
+    public void testJsonQueryGzipNegotiatedPerRequest() throws Exception {
+        Zip.init();
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withAllowDeflateBeforeSend(true)
+                        .withSendBufferSize(256)
+                )
+                .run(engine -> {
+                    final String expected = "{\"query\":\"select x from long_sequence(100)\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[1]" +
+                            ",[2],[3],[4],[5],[6],[7],[8],[9],[10],[11],[12],[13],[14],[15],[16],[17],[18],[19],[20],[21],[22],[23],[24],[25]" +
+                            ",[26],[27],[28],[29],[30],[31],[32],[33],[34],[35],[36],[37],[38],[39],[40],[41],[42],[43],[44],[45],[46],[47]" +
+                            ",[48],[49],[50],[51],[52],[53],[54],[55],[56],[57],[58],[59],[60],[61],[62],[63],[64],[65],[66],[67],[68],[69]" +
+                            ",[70],[71],[72],[73],[74],[75],[76],[77],[78],[79],[80],[81],[82],[83],[84],[85],[86],[87],[88],[89],[90],[91]" +
+                            ",[92],[93],[94],[95],[96],[97],[98],[99],[100]],\"count\":100}";
+                    final String request = "GET /exec?query=select+x+from+long_sequence(100) HTTP/1.1\r\n";
+                    final StringSink headers = new StringSink();
+                    // all requests share keep-alive connection
+                    try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                        byte[] body = receiveChunkedResponse(socket, request + "Accept-Encoding: gzip, deflate, br\r\n\r\n", headers);
+                        TestUtils.assertContains(headers, "Content-Encoding: gzip");
+                        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                            final byte[] buf = new byte[1024];
+                            int n;
+                            while ((n = in.read(buf)) > 0) {
+                                out.write(buf, 0, n);
+                            }
+                            TestUtils.assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+                        }
+
+                        headers.clear();
+                        body = receiveChunkedResponse(socket, request + "\r\n", headers);
+                        Assert.assertFalse(Chars.contains(headers, "Content-Encoding"));
+                        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+
+                        headers.clear();
+                        body = receiveChunkedResponse(socket, request + "Accept-Encoding: gzip;q=0, identity\r\n\r\n", headers);
+                        Assert.assertFalse(Chars.contains(headers, "Content-Encoding"));
+                        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
     @Test
     public void testJsonQueryInfinity() throws Exception {
         testJsonQuery(
@@ -3668,6 +3939,176 @@ public class IODispatcherTest {
         );
     }
 
+    @Test
+    public void testJsonQueryOffloadColumnar() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withQueryWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withSendBufferSize(256)
+                        .withQueryPageRowCount(7))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        compiler.compile("create table t as (select x, cast(x % 3 as symbol) sym from long_sequence(100))", executionContext);
+                    }
+
+                    // columnar output is not paged, query worker fetches the entire result set
+                    final StringSink expected = new StringSink();
+                    expected.put("{\"query\":\"select sym, x from t\",\"columns\":[{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[");
+                    for (int i = 1; i <= 100; i++) {
+                        expected.put(i > 1 ? ",\"" : "\"").put(i % 3).put('"');
+                    }
+                    expected.put("],[");
+                    for (int i = 1; i <= 100; i++) {
+                        expected.put(i > 1 ? "," : "").put(i);
+                    }
+                    expected.put("]],\"count\":100}");
+
+                    try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                        final StringSink headers = new StringSink();
+                        final byte[] body = receiveChunkedResponse(
+                                socket,
+                                "GET /exec?query=select+sym%2C+x+from+t&fmt=columnar HTTP/1.1\r\n\r\n",
+                                headers
+                        );
+                        TestUtils.assertContains(headers, "200 OK");
+                        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    @Test
+    public void testJsonQueryOffloadPaged() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withQueryWorkerCount(2)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withSendBufferSize(256)
+                        .withQueryPageRowCount(7))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        compiler.compile("create table t as (select x, cast(x as string) s, cast(x % 3 as symbol) sym from long_sequence(300))", executionContext);
+                    }
+
+                    try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                        // pages end in the middle of response chunks and the other way around
+                        final StringSink expected = new StringSink();
+                        expected.put("{\"query\":\"select sym, x, s from t\",\"columns\":[{\"name\":\"sym\",\"type\":\"SYMBOL\"},{\"name\":\"x\",\"type\":\"LONG\"},{\"name\":\"s\",\"type\":\"STRING\"}],\"dataset\":[");
+                        for (int i = 1; i <= 300; i++) {
+                            expected.put(i > 1 ? ",[\"" : "[\"").put(i % 3).put("\",").put(i).put(",\"").put(i).put("\"]");
+                        }
+                        expected.put("],\"count\":300}");
+
+                        StringSink headers = new StringSink();
+                        byte[] body = receiveChunkedResponse(
+                                socket,
+                                "GET /exec?query=select+sym%2C+x%2C+s+from+t HTTP/1.1\r\n\r\n",
+                                headers
+                        );
+                        TestUtils.assertContains(headers, "200 OK");
+                        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+
+                        // same connection, limit, column list and row count are applied by query worker
+                        expected.clear();
+                        expected.put("{\"query\":\"select sym, x, s from t\",\"columns\":[{\"name\":\"s\",\"type\":\"STRING\"},{\"name\":\"sym\",\"type\":\"SYMBOL\"}],\"dataset\":[");
+                        for (int i = 10; i <= 35; i++) {
+                            expected.put(i > 10 ? ",[\"" : "[\"").put(i).put("\",\"").put(i % 3).put("\"]");
+                        }
+                        expected.put("],\"count\":300}");
+
+                        headers = new StringSink();
+                        body = receiveChunkedResponse(
+                                socket,
+                                "GET /exec?query=select+sym%2C+x%2C+s+from+t&limit=10,35&count=true&cols=s,sym HTTP/1.1\r\n\r\n",
+                                headers
+                        );
+                        TestUtils.assertContains(headers, "200 OK");
+                        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+
+                        // limit beyond the end of result set
+                        headers = new StringSink();
+                        body = receiveChunkedResponse(
+                                socket,
+                                "GET /exec?query=select+x+from+t&limit=301,310 HTTP/1.1\r\n\r\n",
+                                headers
+                        );
+                        TestUtils.assertContains(headers, "200 OK");
+                        TestUtils.assertEquals(
+                                "{\"query\":\"select x from t\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[],\"count\":0}",
+                                new String(body, StandardCharsets.UTF_8)
+                        );
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    @Test
+    public void testJsonQueryOffloadQueueFull() throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(2)
+                .withQueryWorkerCount(1)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withQueryQueueCapacity(1)
+                        .withQueryPageRowCount(5))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        compiler.compile("create table t as (select x from long_sequence(50))", executionContext);
+                    }
+
+                    // connections compete for the single queue slot, pages that did not fit are resubmitted
+                    final StringSink expected = new StringSink();
+                    expected.put("{\"query\":\"select x from t\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[");
+                    for (int i = 1; i <= 50; i++) {
+                        expected.put(i > 1 ? ",[" : "[").put(i).put(']');
+                    }
+                    expected.put("],\"count\":50}");
+
+                    final int threadCount = 4;
+                    final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+                    final SOCountDownLatch doneLatch = new SOCountDownLatch(threadCount);
+                    final AtomicInteger errors = new AtomicInteger();
+                    for (int t = 0; t < threadCount; t++) {
+                        new Thread(() -> {
+                            try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                                barrier.await();
+                                for (int i = 0; i < 10; i++) {
+                                    final StringSink headers = new StringSink();
+                                    final byte[] body = receiveChunkedResponse(
+                                            socket,
+                                            "GET /exec?query=select+x+from+t HTTP/1.1\r\n\r\n",
+                                            headers
+                                    );
+                                    TestUtils.assertContains(headers, "200 OK");
+                                    TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+                                }
+                            } catch (Throwable e) {
+                                LOG.error().$(e).$();
+                                errors.incrementAndGet();
+                            } finally {
+                                doneLatch.countDown();
+                            }
+                        }).start();
+                    }
+                    doneLatch.await();
+                    Assert.assertEquals(0, errors.get());
+                });
+    }
+
     @Test
     public void testJsonQueryOutsideLimit() throws Exception {
         testJsonQuery(
@@ -4676,8 +5117,6 @@ public class IODispatcherTest {
                     .withHttpProtocolVersion("HTTP/1.1 ")
                     .withOnPeerDisconnect(peerDisconnectLatch::countDown)
                     .build();
-            QueryCache.configure(httpConfiguration, metrics);
-
             WorkerPool workerPool = new TestWorkerPool(1);
 
             try (CairoEngine engine = new CairoEngine(new DefaultCairoConfiguration(baseDir) {
@@ -6978,6 +7417,50 @@ public class IODispatcherTest {
         }
     }
 
+    private static String readLine(InputStream in) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            Assert.assertNotEquals("unexpected end of stream", -1, c);
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static void assertColumnarResponse(Socket socket, String query, String expected) throws IOException {
+        final StringSink headers = new StringSink();
+        final byte[] body = receiveChunkedResponse(
+                socket,
+                "GET /exec?query=" + query + "&fmt=columnar HTTP/1.1\r\n\r\n",
+                headers
+        );
+        TestUtils.assertContains(headers, "200 OK");
+        TestUtils.assertEquals(expected, new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] receiveChunkedResponse(Socket socket, String request, StringSink headers) throws IOException {
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.UTF_8));
+        final InputStream in = socket.getInputStream();
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            headers.put(line).put(Misc.EOL);
+        }
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true) {
+            final int len = Integer.parseInt(readLine(in), 16);
+            if (len == 0) {
+                Assert.assertEquals("", readLine(in));
+                return body.toByteArray();
+            }
+            for (int i = 0; i < len; i++) {
+                body.write(in.read());
+            }
+            Assert.assertEquals("", readLine(in));
+        }
+    }
+
     private static void sendAndReceive(
             NetworkFacade nf,
             String request,
@@ -7037,6 +7520,51 @@ public class IODispatcherTest {
         }
     }
 
+    private void assertColumnarRowLimit(int queryWorkerCount) throws Exception {
+        new HttpQueryTestBuilder()
+                .withTempFolder(temp)
+                .withWorkerCount(1)
+                .withQueryWorkerCount(queryWorkerCount)
+                .withHttpServerConfigBuilder(new HttpServerConfigurationBuilder()
+                        .withColumnarMaxRowCount(10)
+                        .withQueryPageRowCount(4))
+                .run(engine -> {
+                    try (
+                            SqlCompiler compiler = new SqlCompiler(engine);
+                            SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                    ) {
+                        compiler.compile("create table t as (select x from long_sequence(100))", executionContext);
+                    }
+
+                    try (Socket socket = new Socket("127.0.0.1", 9001)) {
+                        final StringSink headers = new StringSink();
+                        final byte[] body = receiveChunkedResponse(
+                                socket,
+                                "GET /exec?query=select+x+from+t&fmt=columnar HTTP/1.1\r\n\r\n",
+                                headers
+                        );
+                        TestUtils.assertContains(headers, "400 Bad request");
+                        TestUtils.assertEquals(
+                                "{\"query\":\"select x from t\",\"error\":\"columnar result exceeds row limit, narrow the query or use row format [limit=10]\",\"position\":0}",
+                                new String(body, StandardCharsets.UTF_8)
+                        );
+
+                        // row format is paged and is not subject to the limit
+                        headers.clear();
+                        receiveChunkedResponse(socket, "GET /exec?query=select+x+from+t HTTP/1.1\r\n\r\n", headers);
+                        TestUtils.assertContains(headers, "200 OK");
+
+                        assertColumnarResponse(
+                                socket,
+                                "select+x+from+t+where+x+%3C%3D+10",
+                                "{\"query\":\"select x from t where x <= 10\",\"columns\":[{\"name\":\"x\",\"type\":\"LONG\"}],\"dataset\":[[1,2,3,4,5,6,7,8,9,10]],\"count\":10}"
+                        );
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
     private void assertMetadataAndData(
             String tableName,
             long expectedO3MaxLag,
@@ -7108,7 +7636,6 @@ public class IODispatcherTest {
                 .withServerKeepAlive(serverKeepAlive)
                 .withHttpProtocolVersion(httpProtocolVersion)
                 .build();
-        QueryCache.configure(httpConfiguration, metrics);
         return httpConfiguration;
     }
 
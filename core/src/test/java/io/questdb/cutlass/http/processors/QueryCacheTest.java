@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.http.processors;
+
+import io.questdb.Metrics;
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class QueryCacheTest {
+
+    @Test
+    public void testCheckoutAcrossThreads() throws Exception {
+        final JsonQueryMetrics metrics = Metrics.enabled().jsonQuery();
+        try (QueryCache cache = new QueryCache(4, 4, 4, metrics)) {
+            final TestFactory factory = new TestFactory();
+            final Thread thread = new Thread(() -> cache.push("select * from x", factory));
+            thread.start();
+            thread.join();
+            Assert.assertEquals(1, metrics.cachedQueriesGauge().getValue());
+
+            // factory is checked out, the concurrent request for the same query misses
+            final AtomicReference<Object> other = new AtomicReference<>();
+            Assert.assertSame(factory, cache.poll("select  *\tfrom x"));
+            final Thread otherThread = new Thread(() -> other.set(cache.poll("select * from x")));
+            otherThread.start();
+            otherThread.join();
+            Assert.assertNull(other.get());
+            Assert.assertEquals(0, metrics.cachedQueriesGauge().getValue());
+
+            cache.push("select * from x", factory);
+            Assert.assertEquals(1, metrics.cacheHitCount());
+            Assert.assertEquals(1, metrics.cacheMissCount());
+            Assert.assertEquals(0, metrics.cacheEvictionCount());
+            Assert.assertFalse(factory.closed);
+        }
+        Assert.assertEquals(0, metrics.cachedQueriesGauge().getValue());
+    }
+
+    @Test
+    public void testEviction() {
+        final JsonQueryMetrics metrics = Metrics.enabled().jsonQuery();
+        try (QueryCache cache = new QueryCache(1, 1, 1, metrics)) {
+            final TestFactory factoryA = new TestFactory();
+            final TestFactory factoryB = new TestFactory();
+            final TestFactory factoryC = new TestFactory();
+            cache.push("select a from x", factoryA);
+            // pushes out the only entry
+            cache.push("select b from x", factoryB);
+            Assert.assertTrue(factoryA.closed);
+            // replaces the entry for the same query
+            cache.push("select b from x", factoryC);
+            Assert.assertTrue(factoryB.closed);
+            Assert.assertEquals(2, metrics.cacheEvictionCount());
+
+            Assert.assertSame(factoryC, cache.poll("select b from x"));
+            cache.invalidate("select b from x", factoryC);
+            Assert.assertTrue(factoryC.closed);
+            Assert.assertEquals(3, metrics.cacheEvictionCount());
+            Assert.assertNull(cache.poll("select b from x"));
+        }
+    }
+
+    @Test
+    public void testNormalize() {
+        assertNormalized("select * from x", "  select *\n\tfrom   x  ");
+        assertNormalized("select * from x where s = 'a  b'", "select * from x where s = 'a  b'");
+        assertNormalized("select \"a  b\" from x", "select   \"a  b\"  from x");
+        assertNormalized("select 'it''s  a' from x", "select 'it''s  a'   from x");
+        // line break terminates comment
+        assertNormalized("select 1 -- don't\nfrom x", "select 1   -- don't  \n  from x");
+        assertNormalized("select 1 /* a  'b */ from x", "select 1 /* a  'b */   from x");
+    }
+
+    private static void assertNormalized(String expected, String sql) {
+        TestUtils.assertEquals(expected, QueryCache.normalize(sql));
+    }
+
+    private static class TestFactory extends AbstractRecordCursorFactory {
+        private boolean closed;
+
+        public TestFactory() {
+            super(null);
+        }
+
+        @Override
+        public boolean recordCursorSupportsRandomAccess() {
+            return false;
+        }
+
+        @Override
+        protected void _close() {
+            closed = true;
+        }
+    }
+}
@@ -880,6 +880,24 @@ public class LineTcpInsertOtherTypesTest extends BaseLineTcpContextTest {
                 false);
     }
 
+    @Test
+    public void testInsertUuidTableExists() throws Exception {
+        assertType(ColumnType.UUID,
+                "value\ttimestamp\n" +
+                        "\t1970-01-01T00:00:01.000000Z\n" +
+                        "a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11\t1970-01-01T00:00:02.000000Z\n" +
+                        "\t1970-01-01T00:00:06.000000Z\n",
+                new CharSequence[]{
+                        "", // valid null
+                        "\"A0EEBC99-9C0B-4EF8-BB6D-6BB9BD380A11\"", // actual uuid
+                        "\"a0eebc99-9c0b-4ef8-bb6d\"", // discarded bad uuid string
+                        "\"a0eebc99x9c0b-4ef8-bb6d-6bb9bd380a11\"", // discarded bad uuid string
+                        "1i", // discarded bad type long
+                        "", // valid null
+                },
+                false);
+    }
+
     private void assertType(int columnType, String expected, CharSequence[] values, boolean isTag) throws Exception {
         runInContext(() -> {
             if (columnType != ColumnType.UNDEFINED) {
@@ -58,14 +58,18 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 import org.postgresql.PGResultSetMetaData;
-import org.postgresql.copy.CopyIn;
 import org.postgresql.copy.CopyManager;
 import org.postgresql.core.BaseConnection;
 import org.postgresql.util.PGTimestamp;
 import org.postgresql.util.PSQLException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
 import java.sql.*;
 import java.text.SimpleDateFormat;
@@ -1289,6 +1293,98 @@ if __name__ == "__main__":
         });
     }
 
+    @Test
+    public void testBatchInsertCommitsOnSync() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("create table test (id long, val int)");
+                    }
+
+                    final long txn;
+                    try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "test")) {
+                        txn = reader.getTxn();
+                    }
+
+                    try (PreparedStatement batchInsert = connection.prepareStatement("insert into test(id,val) values(?,?)")) {
+                        for (int i = 0; i < 100; i++) {
+                            batchInsert.setLong(1, i);
+                            batchInsert.setInt(2, i * 2);
+                            batchInsert.addBatch();
+                        }
+                        final int[] counts = batchInsert.executeBatch();
+                        Assert.assertEquals(100, counts.length);
+                    }
+
+                    // pipelined rows are committed once
+                    try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "test")) {
+                        Assert.assertEquals(txn + 1, reader.getTxn());
+                        Assert.assertEquals(100, reader.size());
+                    }
+
+                    // rows are visible to the next query on the same connection
+                    try (ResultSet rs = connection.prepareStatement("select count(), sum(val) from test").executeQuery()) {
+                        Assert.assertTrue(rs.next());
+                        Assert.assertEquals(100, rs.getLong(1));
+                        Assert.assertEquals(9900, rs.getLong(2));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testBatchInsertRollsBackOnError() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.executeUpdate("create table test (id long, val int)");
+                    }
+
+                    try (PreparedStatement batchInsert = connection.prepareStatement("insert into test(id,val) values(?,?)")) {
+                        for (int i = 0; i < 3; i++) {
+                            batchInsert.setLong(1, i);
+                            batchInsert.setInt(2, i);
+                            batchInsert.addBatch();
+                        }
+                        batchInsert.setLong(1, 3);
+                        batchInsert.setString(2, "not a number");
+                        batchInsert.addBatch();
+                        batchInsert.executeBatch();
+                        Assert.fail();
+                    } catch (BatchUpdateException e) {
+                        TestUtils.assertContains(e.getMessage(), "not a number");
+                    }
+
+                    // error discards the whole batch
+                    try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "test")) {
+                        Assert.assertEquals(0, reader.size());
+                    }
+
+                    // connection is usable after the error
+                    try (PreparedStatement insert = connection.prepareStatement("insert into test(id,val) values(?,?)")) {
+                        insert.setLong(1, 10);
+                        insert.setInt(2, 10);
+                        Assert.assertEquals(1, insert.executeUpdate());
+                    }
+                    try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "test")) {
+                        Assert.assertEquals(1, reader.size());
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testBatchInsertWithTransaction() throws Exception {
         assertWithPgServer(CONN_AWARE_ALL, (connection, binary) -> {
@@ -1888,29 +1984,442 @@ if __name__ == "__main__":
     }
 
     @Test
-    @Ignore
-    public void testCopyIn() throws SQLException {
-        try (
-                final PGWireServer server = createPGServer(2);
-                final WorkerPool workerPool = server.getWorkerPool()
-        ) {
-            workerPool.start(LOG);
-            try (final Connection connection = getConnection(server.getPort(), false, true)) {
-                PreparedStatement stmt = connection.prepareStatement("create table tab (a int, b int)");
-                stmt.execute();
+    public void testCopyIn() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (a int, b int)").execute();
+
+                    final String text = "a,b\r\n" +
+                            "10,20\r\n" +
+                            "30,\r\n" +
+                            "\"50\",\"60\"";
+                    // small buffer splits rows between CopyData messages
+                    Assert.assertEquals(3, copyIn(connection, "copy tab from STDIN with (format csv, header true)", text.getBytes(), 3));
+                }
+                TestUtils.assertSql(
+                        compiler,
+                        sqlExecutionContext,
+                        "tab",
+                        sink,
+                        "a\tb\n" +
+                                "10\t20\n" +
+                                "30\tNaN\n" +
+                                "50\t60\n"
+                );
+            }
+        });
+    }
 
-                CopyManager copyManager = new CopyManager((BaseConnection) connection);
+    @Test
+    public void testCopyInBinary() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (i int, l long, d double, s string, b boolean, ts timestamp) timestamp(ts)").execute();
+
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    final DataOutputStream out = new DataOutputStream(bytes);
+                    out.write(new byte[]{'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0});
+                    out.writeInt(0); // flags
+                    out.writeInt(0); // header extension length
+                    for (int k = 0; k < 2; k++) {
+                        out.writeShort(6);
+                        out.writeInt(4);
+                        out.writeInt(k + 1);
+                        out.writeInt(8);
+                        out.writeLong(100L * (k + 1));
+                        out.writeInt(8);
+                        out.writeDouble(1.5 * (k + 1));
+                        if (k == 0) {
+                            out.writeInt(3);
+                            out.write("abc".getBytes(StandardCharsets.UTF_8));
+                        } else {
+                            out.writeInt(-1);
+                        }
+                        out.writeInt(1);
+                        out.writeByte(k);
+                        out.writeInt(8);
+                        // micros since 2000-01-01
+                        out.writeLong(k * 1_000_000L);
+                    }
+                    out.writeShort(-1);
 
-                CopyIn copyIn = copyManager.copyIn("copy tab from STDIN");
+                    Assert.assertEquals(2, copyIn(connection, "copy tab from stdin (format binary)", bytes.toByteArray(), 7));
+                }
+                TestUtils.assertSql(
+                        compiler,
+                        sqlExecutionContext,
+                        "tab",
+                        sink,
+                        "i\tl\td\ts\tb\tts\n" +
+                                "1\t100\t1.5\tabc\tfalse\t2000-01-01T00:00:00.000000Z\n" +
+                                "2\t200\t3.0\t\ttrue\t2000-01-01T00:00:01.000000Z\n"
+                );
+            }
+        });
+    }
 
-                String text = "a,b\r\n" +
-                        "10,20";
+    @Test
+    public void testCopyInCommitsByMaxUncommittedRows() throws Exception {
+        // WAL writer does not expose table's max uncommitted rows
+        maySkipOnWalRun();
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (a int, ts timestamp) timestamp(ts) partition by DAY with maxUncommittedRows=2").execute();
 
-                byte[] bytes = text.getBytes();
-                copyIn.writeToCopy(bytes, 0, bytes.length);
-                copyIn.endCopy();
+                    final String text = "1\t1970-01-01T00:00:00.000000Z\n" +
+                            "2\t1970-01-01T00:00:01.000000Z\n" +
+                            "3\t1970-01-01T00:00:02.000000Z\n" +
+                            "x\t1970-01-01T00:00:03.000000Z\n";
+                    try {
+                        copyIn(connection, "copy tab from stdin", text.getBytes(), 1024);
+                        Assert.fail();
+                    } catch (SQLException e) {
+                        TestUtils.assertContains(e.getMessage(), "inconvertible value: `x` [STRING -> INT] [line=4, column=a]");
+                    }
+                }
+                // rows committed before the error are kept
+                TestUtils.assertSql(
+                        compiler,
+                        sqlExecutionContext,
+                        "select a from tab",
+                        sink,
+                        "a\n" +
+                                "1\n" +
+                                "2\n"
+                );
             }
-        }
+        });
+    }
+
+    @Test
+    public void testCopyInError() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (a int, b int)").execute();
+
+                    try {
+                        copyIn(connection, "copy tab from stdin with csv", "1,2\n3\n".getBytes(), 1024);
+                        Assert.fail();
+                    } catch (SQLException e) {
+                        TestUtils.assertContains(e.getMessage(), "missing data for column [line=2]");
+                    }
+
+                    try {
+                        copyIn(connection, "copy tab (a, c) from stdin", "1\t2\n".getBytes(), 1024);
+                        Assert.fail();
+                    } catch (SQLException e) {
+                        TestUtils.assertContains(e.getMessage(), "invalid column [name=c]");
+                    }
+
+                    try {
+                        copyIn(connection, "copy tab from stdin; select 1", "1\t2\n".getBytes(), 1024);
+                        Assert.fail();
+                    } catch (SQLException e) {
+                        TestUtils.assertContains(e.getMessage(), "COPY FROM STDIN must be the last statement of the query");
+                    }
+
+                    // connection remains usable
+                    Assert.assertEquals(1, copyIn(connection, "copy tab from stdin", "5\t6\n".getBytes(), 1024));
+                }
+                TestUtils.assertSql(
+                        compiler,
+                        sqlExecutionContext,
+                        "tab",
+                        sink,
+                        "a\tb\n" +
+                                "5\t6\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testCopyInText() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (a int, s string, sym symbol, ts timestamp) timestamp(ts)").execute();
+
+                    final String text = "x\\ty\t1\tA\t2022-01-01T00:00:00.000000Z\n" +
+                            "\\N\t\\N\t\\N\t2022-01-01T00:00:01.000000Z\n" +
+                            "caf\u00e9\\101\t3\t\\x42\t2022-01-01T00:00:02.000000Z\n" +
+                            "\\.\n" +
+                            "ignored after end marker\n";
+                    Assert.assertEquals(3, copyIn(connection, "copy tab (s, a, sym, ts) from stdin", text.getBytes(StandardCharsets.UTF_8), 5));
+                }
+                TestUtils.assertSql(
+                        compiler,
+                        sqlExecutionContext,
+                        "tab",
+                        sink,
+                        "a\ts\tsym\tts\n" +
+                                "1\tx\ty\tA\t2022-01-01T00:00:00.000000Z\n" +
+                                "NaN\t\t\t2022-01-01T00:00:01.000000Z\n" +
+                                "3\tcaf\u00e9A\tB\t2022-01-01T00:00:02.000000Z\n"
+                );
+            }
+        });
+    }
+
+    @Test
+    public void testCopyOutBinary() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (i int, l long, d double, s string, sym symbol, ts timestamp, b boolean)").execute();
+                    connection.prepareStatement("insert into tab values (1, 2, 1.5, 'caf\u00e9', 'x', '2022-01-01T00:00:00.000000Z', true)").execute();
+                    connection.prepareStatement("insert into tab values (null, null, null, null, null, null, false)").execute();
+
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Assert.assertEquals(2, copyOut(connection, "copy tab to stdout with (format binary)", out));
+
+                    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+                    final byte[] signature = new byte[11];
+                    in.readFully(signature);
+                    Assert.assertArrayEquals("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1), signature);
+                    Assert.assertEquals(0, in.readInt()); // flags
+                    Assert.assertEquals(0, in.readInt()); // header extension length
+
+                    Assert.assertEquals(7, in.readShort());
+                    Assert.assertEquals(4, in.readInt());
+                    Assert.assertEquals(1, in.readInt());
+                    Assert.assertEquals(8, in.readInt());
+                    Assert.assertEquals(2, in.readLong());
+                    Assert.assertEquals(8, in.readInt());
+                    Assert.assertEquals(1.5, in.readDouble(), 0.0000001);
+                    final byte[] str = new byte[in.readInt()];
+                    in.readFully(str);
+                    Assert.assertEquals("caf\u00e9", new String(str, StandardCharsets.UTF_8));
+                    Assert.assertEquals(1, in.readInt());
+                    Assert.assertEquals('x', in.readByte());
+                    Assert.assertEquals(8, in.readInt());
+                    // PG epoch starts at 2000
+                    Assert.assertEquals(694310400000000L, in.readLong());
+                    Assert.assertEquals(1, in.readInt());
+                    Assert.assertEquals(1, in.readByte());
+
+                    Assert.assertEquals(7, in.readShort());
+                    for (int i = 0; i < 6; i++) {
+                        Assert.assertEquals(-1, in.readInt());
+                    }
+                    Assert.assertEquals(1, in.readInt());
+                    Assert.assertEquals(0, in.readByte());
+
+                    // file trailer
+                    Assert.assertEquals(-1, in.readShort());
+                    Assert.assertEquals(-1, in.read());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyOutBinaryAllTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (sh short, b byte, f float, dt date, c char, l long256, g1 geohash(1c), g8 geohash(8c), u uuid)").execute();
+                    connection.prepareStatement("insert into tab values (-3, 7, 1.25, '2022-01-01T00:00:00.000Z', 'z', 0x56, #s, #sp052w92, '11111111-2222-3333-4444-555555555555')").execute();
+
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Assert.assertEquals(1, copyOut(connection, "copy (select *, null n from tab) to stdout with (format binary)", out));
+
+                    final DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+                    Assert.assertEquals(19, in.skipBytes(19)); // signature, flags and header extension length
+                    Assert.assertEquals(10, in.readShort());
+                    Assert.assertEquals(2, in.readInt());
+                    Assert.assertEquals(-3, in.readShort());
+                    // byte is sent as int2
+                    Assert.assertEquals(2, in.readInt());
+                    Assert.assertEquals(7, in.readShort());
+                    Assert.assertEquals(4, in.readInt());
+                    Assert.assertEquals(1.25f, in.readFloat(), 0.0000001);
+                    Assert.assertEquals(8, in.readInt());
+                    Assert.assertEquals(694310400000000L, in.readLong());
+                    Assert.assertEquals("z", readCopyOutText(in));
+                    // long256 and geohashes are varchar, binary representation of which is the text
+                    Assert.assertEquals("0x56", readCopyOutText(in));
+                    Assert.assertEquals("s", readCopyOutText(in));
+                    Assert.assertEquals("sp052w92", readCopyOutText(in));
+                    Assert.assertEquals(16, in.readInt());
+                    Assert.assertEquals(0x1111111122223333L, in.readLong());
+                    Assert.assertEquals(0x4444555555555555L, in.readLong());
+                    Assert.assertEquals(-1, in.readInt());
+
+                    Assert.assertEquals(-1, in.readShort());
+                    Assert.assertEquals(-1, in.read());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyOutCsv() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (i int, s string)").execute();
+                    connection.prepareStatement("insert into tab values (1, 'plain')").execute();
+                    connection.prepareStatement("insert into tab values (2, 'with,comma')").execute();
+                    connection.prepareStatement("insert into tab values (3, 'with \"quote\"')").execute();
+                    connection.prepareStatement("insert into tab values (4, '')").execute();
+                    connection.prepareStatement("insert into tab values (5, null)").execute();
+                    connection.prepareStatement("insert into tab values (6, 'multi\nline')").execute();
+
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Assert.assertEquals(6, copyOut(connection, "copy tab to stdout with (format csv, header)", out));
+                    TestUtils.assertEquals(
+                            "i,s\n" +
+                                    "1,plain\n" +
+                                    "2,\"with,comma\"\n" +
+                                    "3,\"with \"\"quote\"\"\"\n" +
+                                    "4,\"\"\n" +
+                                    "5,\n" +
+                                    "6,\"multi\nline\"\n",
+                            out.toString(StandardCharsets.UTF_8.name())
+                    );
+
+                    out = new ByteArrayOutputStream();
+                    Assert.assertEquals(3, copyOut(connection, "copy (select i, s from tab where i > 3) to stdout (format csv, delimiter '|', null 'NULL')", out));
+                    TestUtils.assertEquals(
+                            "4|\n" +
+                                    "5|NULL\n" +
+                                    "6|\"multi\nline\"\n",
+                            out.toString(StandardCharsets.UTF_8.name())
+                    );
+
+                    // header is sent for empty result too
+                    out = new ByteArrayOutputStream();
+                    Assert.assertEquals(0, copyOut(connection, "copy (select * from tab where i > 10) to stdout csv header", out));
+                    TestUtils.assertEquals("i,s\n", out.toString(StandardCharsets.UTF_8.name()));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyOutSlowClient() throws Exception {
+        assertMemoryLeak(() -> {
+            final AtomicInteger sendCount = new AtomicInteger();
+            final NetworkFacade nf = new NetworkFacadeImpl() {
+                @Override
+                public int send(long fd, long buffer, int bufferLen) {
+                    // every third send finds socket not ready for write
+                    if (sendCount.incrementAndGet() % 3 == 0) {
+                        return 0;
+                    }
+                    return super.send(fd, buffer, bufferLen);
+                }
+            };
+            final PGWireConfiguration configuration = new Port0PGWireConfiguration() {
+                @Override
+                public NetworkFacade getNetworkFacade() {
+                    return nf;
+                }
+
+                @Override
+                public int getSendBufferSize() {
+                    return 512;
+                }
+            };
+
+            try (
+                    final PGWireServer server = createPGServer(configuration);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    final int rowCount = 5000;
+                    final StringBuilder expected = new StringBuilder();
+                    for (int i = 1; i <= rowCount; i++) {
+                        expected.append(i).append('\t').append("s").append(i).append('\n');
+                    }
+
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Assert.assertEquals(rowCount, copyOut(connection, "copy (select x, concat('s', x) s from long_sequence(" + rowCount + ")) to stdout", out));
+                    TestUtils.assertEquals(expected, out.toString(StandardCharsets.UTF_8.name()));
+
+                    // connection is ready for the next query
+                    try (ResultSet rs = connection.prepareStatement("select count() from long_sequence(3)").executeQuery()) {
+                        Assert.assertTrue(rs.next());
+                        Assert.assertEquals(3, rs.getLong(1));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCopyOutText() throws Exception {
+        assertMemoryLeak(() -> {
+            try (
+                    final PGWireServer server = createPGServer(2);
+                    final WorkerPool workerPool = server.getWorkerPool()
+            ) {
+                workerPool.start(LOG);
+                try (final Connection connection = getConnection(server.getPort(), false, true)) {
+                    connection.prepareStatement("create table tab (i int, s string, sym symbol, d double, ts timestamp, b boolean)").execute();
+                    connection.prepareStatement("insert into tab values (1, 'a\tb', 'x', 1.5, '2022-01-01T00:00:00.000000Z', true)").execute();
+                    connection.prepareStatement("insert into tab values (null, 'back\\slash\n', null, null, null, false)").execute();
+
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    Assert.assertEquals(2, copyOut(connection, "copy tab to stdout", out));
+                    TestUtils.assertEquals(
+                            "1\ta\\tb\tx\t1.5\t2022-01-01 00:00:00.000000\tt\n" +
+                                    "\\N\tback\\\\slash\\n\t\\N\t\\N\t\\N\tf\n",
+                            out.toString(StandardCharsets.UTF_8.name())
+                    );
+
+                    // delimiter is escaped in values
+                    out = new ByteArrayOutputStream();
+                    Assert.assertEquals(1, copyOut(connection, "copy (select 'x,y' a, 'z' b from long_sequence(1)) to stdout delimiter ','", out));
+                    TestUtils.assertEquals("x\\,y,z\n", out.toString(StandardCharsets.UTF_8.name()));
+
+                    try {
+                        connection.prepareStatement("copy tab to stdout").execute();
+                        Assert.fail();
+                    } catch (PSQLException e) {
+                        TestUtils.assertContains(e.getMessage(), "supported by simple query protocol only");
+                    }
+                }
+            }
+        });
     }
 
     @Test
@@ -7290,6 +7799,14 @@ create table tab as (
         };
     }
 
+    private long copyIn(Connection connection, String sql, byte[] data, int bufferSize) throws SQLException, IOException {
+        return new CopyManager((BaseConnection) connection).copyIn(sql, new ByteArrayInputStream(data), bufferSize);
+    }
+
+    private long copyOut(Connection connection, String sql, ByteArrayOutputStream out) throws SQLException, IOException {
+        return new CopyManager((BaseConnection) connection).copyOut(sql, out);
+    }
+
     private PGWireServer createPGServer(SOCountDownLatch queryScheduledCount) {
         int workerCount = 2;
 
@@ -7430,6 +7947,12 @@ create table tab as (
         }
     }
 
+    private String readCopyOutText(DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
     private void testAddColumnBusyWriter(boolean alterRequestReturnSuccess, SOCountDownLatch queryStartedCountDownLatch) throws SQLException, InterruptedException, BrokenBarrierException, SqlException {
         AtomicLong errors = new AtomicLong();
         int workerCount = 2;
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.pgwire;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.CairoSecurityContextImpl;
+import io.questdb.cutlass.text.CairoConfigurationWrapper;
+import io.questdb.mp.TestWorkerPool;
+import io.questdb.mp.WorkerPool;
+import io.questdb.std.Os;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+public class PGQueryAdmissionTest extends BasePGTest {
+    private static final CairoSecurityContext ADMIN = new CairoSecurityContextImpl(true, "admin");
+
+    @Test
+    public void testQueueFull() throws Exception {
+        assertAdmission(60_000, (port, controller) -> {
+            try (
+                    Connection queuedConnection = getConnection(port, false, true);
+                    Connection rejectedConnection = getConnection(port, true, true);
+                    QueryAdmission running = new QueryAdmission(controller)
+            ) {
+                Assert.assertTrue(running.tryAdmit(ADMIN));
+                final FutureTask<String> queued = startQuery(queuedConnection);
+                awaitQueued(controller);
+
+                try {
+                    query(rejectedConnection);
+                    Assert.fail();
+                } catch (SQLException e) {
+                    TestUtils.assertContains(e.getMessage(), "too many queries waiting for admission [principal=admin, maxQueued=1]");
+                }
+
+                running.release();
+                Assert.assertEquals("42", queued.get(30, TimeUnit.SECONDS));
+            }
+        });
+    }
+
+    @Test
+    public void testQueuedExtendedQueryRunsAfterRelease() throws Exception {
+        testQueuedQueryRunsAfterRelease(false);
+    }
+
+    @Test
+    public void testQueuedSimpleQueryRunsAfterRelease() throws Exception {
+        testQueuedQueryRunsAfterRelease(true);
+    }
+
+    @Test
+    public void testQueuedTimeout() throws Exception {
+        assertAdmission(100, (port, controller) -> {
+            try (
+                    Connection connection = getConnection(port, false, true);
+                    QueryAdmission running = new QueryAdmission(controller)
+            ) {
+                Assert.assertTrue(running.tryAdmit(ADMIN));
+                try {
+                    query(connection);
+                    Assert.fail();
+                } catch (SQLException e) {
+                    TestUtils.assertContains(e.getMessage(), "timed out waiting for query admission [principal=admin, timeout=100ms]");
+                }
+                Assert.assertEquals(0, controller.getQueuedCount("admin"));
+
+                // the connection is usable once the running query is released
+                running.release();
+                Assert.assertEquals("42", query(connection));
+            }
+        });
+    }
+
+    private static void awaitQueued(QueryAdmissionController controller) {
+        final long deadline = System.currentTimeMillis() + 30_000;
+        while (controller.getQueuedCount("admin") == 0) {
+            Assert.assertTrue("query was not queued", System.currentTimeMillis() < deadline);
+            Os.pause();
+        }
+    }
+
+    private static String query(Connection connection) throws SQLException {
+        try (
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("select 42 x")
+        ) {
+            Assert.assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+
+    private static FutureTask<String> startQuery(Connection connection) {
+        final FutureTask<String> task = new FutureTask<>(() -> query(connection));
+        new Thread(task).start();
+        return task;
+    }
+
+    private void assertAdmission(long timeout, AdmissionCode code) throws Exception {
+        assertMemoryLeak(() -> {
+            final CairoConfiguration admissionConfiguration = new CairoConfigurationWrapper(configuration) {
+                @Override
+                public int getQueryAdmissionMaxConcurrent() {
+                    return 1;
+                }
+
+                @Override
+                public int getQueryAdmissionMaxQueued() {
+                    return 1;
+                }
+
+                @Override
+                public long getQueryAdmissionTimeout() {
+                    return timeout;
+                }
+            };
+            try (CairoEngine admissionEngine = new CairoEngine(admissionConfiguration, metrics, 2)) {
+                final PGWireConfiguration conf = new Port0PGWireConfiguration();
+                try (
+                        PGWireServer server = createPGWireServer(
+                                conf,
+                                admissionEngine,
+                                new TestWorkerPool(conf.getWorkerCount(), metrics),
+                                compiler.getFunctionFactoryCache(),
+                                snapshotAgent
+                        );
+                        WorkerPool workerPool = server.getWorkerPool()
+                ) {
+                    workerPool.start(LOG);
+                    code.run(server.getPort(), admissionEngine.getQueryAdmissionController());
+                }
+            }
+        });
+    }
+
+    private void testQueuedQueryRunsAfterRelease(boolean simple) throws Exception {
+        assertAdmission(60_000, (port, controller) -> {
+            try (
+                    Connection connection = getConnection(port, simple, true);
+                    QueryAdmission running = new QueryAdmission(controller)
+            ) {
+                Assert.assertTrue(running.tryAdmit(ADMIN));
+                final FutureTask<String> queued = startQuery(connection);
+                awaitQueued(controller);
+
+                // the parked connection stays queued until the running query is released
+                Os.sleep(2 * PGAdmissionWaitQueue.POLL_INTERVAL_MS);
+                Assert.assertFalse(queued.isDone());
+                Assert.assertEquals(1, controller.getQueuedCount("admin"));
+
+                running.release();
+                Assert.assertEquals("42", queued.get(30, TimeUnit.SECONDS));
+                Assert.assertEquals(0, controller.getQueuedCount("admin"));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface AdmissionCode {
+        void run(int port, QueryAdmissionController controller) throws Exception;
+    }
+}
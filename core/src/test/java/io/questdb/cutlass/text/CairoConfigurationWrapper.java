@@ -402,11 +402,46 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getPartitionPurgeListCapacity();
     }
 
+    @Override
+    public int getQueryAdmissionMaxConcurrent() {
+        return conf.getQueryAdmissionMaxConcurrent();
+    }
+
+    @Override
+    public int getQueryAdmissionMaxQueued() {
+        return conf.getQueryAdmissionMaxQueued();
+    }
+
+    @Override
+    public long getQueryAdmissionMemoryLimit() {
+        return conf.getQueryAdmissionMemoryLimit();
+    }
+
+    @Override
+    public long getQueryAdmissionPrincipalMemoryLimit() {
+        return conf.getQueryAdmissionPrincipalMemoryLimit();
+    }
+
+    @Override
+    public long getQueryAdmissionTimeout() {
+        return conf.getQueryAdmissionTimeout();
+    }
+
     @Override
     public int getQueryCacheEventQueueCapacity() {
         return conf.getQueryCacheEventQueueCapacity();
     }
 
+    @Override
+    public long getQueryMemoryLimit() {
+        return conf.getQueryMemoryLimit();
+    }
+
+    @Override
+    public CharSequence getQuerySpillRoot() {
+        return conf.getQuerySpillRoot();
+    }
+
     @Override
     public int getReaderPoolMaxSegments() {
         return conf.getReaderPoolMaxSegments();
@@ -677,6 +712,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getSqlPageFrameMinRows();
     }
 
+    @Override
+    public long getSqlResultCacheCapacity() {
+        return conf.getSqlResultCacheCapacity();
+    }
+
+    @Override
+    public long getSqlResultCachePageSize() {
+        return conf.getSqlResultCachePageSize();
+    }
+
     @Override
     public int getSqlSmallMapKeyCapacity() {
         return conf.getSqlSmallMapKeyCapacity();
@@ -747,6 +792,16 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.getWalEnabledDefault();
     }
 
+    @Override
+    public long getTtlCheckInterval() {
+        return conf.getTtlCheckInterval();
+    }
+
+    @Override
+    public long getTtlMaxDeferral() {
+        return conf.getTtlMaxDeferral();
+    }
+
     @Override
     public long getWalPurgeInterval() {
         return conf.getWalPurgeInterval();
@@ -822,11 +877,21 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isParallelIndexingEnabled();
     }
 
+    @Override
+    public boolean isQuerySpillEnabled() {
+        return conf.isQuerySpillEnabled();
+    }
+
     @Override
     public boolean isSnapshotRecoveryEnabled() {
         return conf.isSnapshotRecoveryEnabled();
     }
 
+    @Override
+    public boolean isSqlColumnarProjectionEnabled() {
+        return conf.isSqlColumnarProjectionEnabled();
+    }
+
     @Override
     public boolean isSqlJitDebugEnabled() {
         return conf.isSqlJitDebugEnabled();
@@ -842,6 +907,11 @@ public class CairoConfigurationWrapper implements CairoConfiguration {
         return conf.isSqlParallelFilterPreTouchEnabled();
     }
 
+    @Override
+    public boolean isSqlResultCacheEnabled() {
+        return conf.isSqlResultCacheEnabled();
+    }
+
     @Override
     public boolean isWalSupported() {
         return conf.isWalSupported();
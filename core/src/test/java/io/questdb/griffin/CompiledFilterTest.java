@@ -117,6 +117,58 @@ public class CompiledFilterTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testBetweenBindVariables() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " x l," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(20))", sqlExecutionContext);
+
+            final String query = "select l, ts from x where ts between :lo and :hi";
+            final String expected = "l\tts\n" +
+                    "11\t1970-01-01T00:00:10.000000Z\n" +
+                    "12\t1970-01-01T00:00:11.000000Z\n";
+
+            bindVariableService.clear();
+            bindVariableService.setTimestamp("lo", 10000000);
+            bindVariableService.setTimestamp("hi", 11000000);
+            assertSql(query, expected);
+            assertSqlRunWithJit(query);
+
+            // bounds in descending order
+            bindVariableService.setTimestamp("lo", 11000000);
+            bindVariableService.setTimestamp("hi", 10000000);
+            assertSql(query, expected);
+
+            // null bound matches nothing
+            bindVariableService.setTimestamp("hi", Numbers.LONG_NaN);
+            assertSql(query, "l\tts\n");
+        });
+    }
+
+    @Test
+    public void testBetweenTimestampLiteralFallback() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " x l," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(20))", sqlExecutionContext);
+
+            // timestamp literals are not supported by JIT, the filter runs in Java
+            final String query = "select l, ts from x where ts between '1970-01-01T00:00:11' and '1970-01-01T00:00:10'";
+            assertSql(
+                    query,
+                    "l\tts\n" +
+                            "11\t1970-01-01T00:00:10.000000Z\n" +
+                            "12\t1970-01-01T00:00:11.000000Z\n"
+            );
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertFalse(factory.usesCompiledFilter());
+            }
+        });
+    }
+
     @Test
     public void testBindVariableNullCheckScalar() throws Exception {
         testBindVariableNullCheck(SqlJitMode.JIT_MODE_FORCE_SCALAR);
@@ -177,6 +229,60 @@ public class CompiledFilterTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testDeferredSymbolInList() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " timestamp_sequence(400000000000, 500000000) ts," +
+                    " x l," +
+                    " rnd_symbol('A','B','C') sym" +
+                    " from long_sequence(5)) timestamp(ts)", sqlExecutionContext);
+
+            final String query = "select sym, l, ts from x where sym in ('B', 'D', 'F')";
+            final String expected = "sym\tl\tts\n" +
+                    "B\t3\t1970-01-05T15:23:20.000000Z\n";
+
+            assertSql(query, expected);
+            assertSqlRunWithJit(query);
+
+            compiler.compile("insert into x select " +
+                    " timestamp_sequence(500000000000, 500000000) ts," +
+                    " (x+5) l," +
+                    " rnd_symbol('D','E','F') sym " +
+                    "from long_sequence(5)", sqlExecutionContext);
+
+            final String expected2 = "sym\tl\tts\n" +
+                    "B\t3\t1970-01-05T15:23:20.000000Z\n" +
+                    "F\t6\t1970-01-06T18:53:20.000000Z\n" +
+                    "F\t7\t1970-01-06T19:01:40.000000Z\n" +
+                    "D\t9\t1970-01-06T19:18:20.000000Z\n";
+
+            assertSql(query, expected2);
+            assertSqlRunWithJit(query);
+        });
+    }
+
+    @Test
+    public void testInListAndBetween() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " timestamp_sequence(0, 1000000) ts," +
+                    " x l" +
+                    " from long_sequence(20)) timestamp(ts)", sqlExecutionContext);
+
+            final String query = "select l, ts from x where l in (2, 4, 17, 42) or ts between 11000000 and 10000000";
+            final String expected = "l\tts\n" +
+                    "2\t1970-01-01T00:00:01.000000Z\n" +
+                    "4\t1970-01-01T00:00:03.000000Z\n" +
+                    "11\t1970-01-01T00:00:10.000000Z\n" +
+                    "12\t1970-01-01T00:00:11.000000Z\n" +
+                    "17\t1970-01-01T00:00:16.000000Z\n";
+
+            assertSql(query, expected);
+            assertSqlRunWithJit(query);
+        });
+    }
+
     @Test
     public void testIndexBindVariableReplacedContext() throws Exception {
         assertMemoryLeak(() -> {
@@ -475,6 +581,45 @@ public class CompiledFilterTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testVectorAggregateFilterWithColTopsScalar() throws Exception {
+        testVectorAggregateFilterWithColTops(SqlJitMode.JIT_MODE_FORCE_SCALAR);
+    }
+
+    @Test
+    public void testVectorAggregateFilterWithColTopsVectorized() throws Exception {
+        testVectorAggregateFilterWithColTops(SqlJitMode.JIT_MODE_ENABLED);
+    }
+
+    @Test
+    public void testVectorAggregateMultipleFrames() throws Exception {
+        pageFrameMaxRows = 5000;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table t1 as (select " +
+                    " x," +
+                    " cast(x as int) i," +
+                    " x * 0.5 d," +
+                    " timestamp_sequence(to_timestamp('1970-01-01', 'yyyy-MM-dd'), 10000000L) ts " +
+                    "from long_sequence(20000)) timestamp(ts) partition by day", sqlExecutionContext);
+
+            final String query = "select count(), sum(x), min(i), max(i), sum(d), avg(d) from t1 where x > 100";
+            final String expected = "count\tsum\tmin\tmax\tsum1\tavg\n" +
+                    "19900\t200004950\t101\t20000\t1.00002475E8\t5025.25\n";
+
+            assertPlan(
+                    query,
+                    "GroupByNotKeyed vectorized=true\n" +
+                            "  groupByFunctions=[CountVectorAgg(0),SumLongVector(0),MinIntVector(1),MaxIntVector(1),SumDoubleVector(2),AvgDoubleVector(2)]\n" +
+                            "    io.questdb.griffin.engine.table.AsyncJitFilteredRecordCursorFactory"
+            );
+            assertSql(query, expected);
+            assertSqlRunWithJit(query);
+
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            assertSql(query, expected);
+        });
+    }
+
     private void indexBindVariableReplacedContext(boolean jit) throws SqlException {
 
         bindVariableService.clear();
@@ -692,4 +837,12 @@ public class CompiledFilterTest extends AbstractGriffinTest {
             assertSqlRunWithJit(query);
         });
     }
+
+    private void testVectorAggregateFilterWithColTops(int jitMode) throws Exception {
+        final String query = "select count(), sum(j), min(j), max(j), sum(x), avg(x) from t1 where x >= 3 and x <= 4";
+        final String expected = "count\tsum\tmin\tmax\tsum1\tavg\n" +
+                "4\t800614559431827550\t-6945921502384501475\t7746536061816329025\t14\t3.5\n";
+
+        testFilterWithColTops(query, expected, jitMode, false);
+    }
 }
@@ -109,6 +109,52 @@ public class CopyTest extends AbstractGriffinTest {
         ));
     }
 
+    @Test
+    public void testCopyFromStdinColumnList() throws SqlException {
+        CopyModel model = (CopyModel) compiler.testCompileModel("copy y (a, \"b\", c) from stdin;", sqlExecutionContext);
+
+        assertEquals("y", model.getTarget().token.toString());
+        assertEquals("stdin", model.getFileName().token.toString());
+        assertEquals("[a,b,c]", model.getColumnNames().toString());
+        assertEquals(CopyModel.FORMAT_TEXT, model.getFormat());
+        assertEquals(-1, model.getDelimiter());
+        assertNull(model.getNullString());
+        assertFalse(model.isHeader());
+    }
+
+    @Test
+    public void testCopyFromStdinLegacyOptions() throws SqlException {
+        CopyModel model = (CopyModel) compiler.testCompileModel("copy y from STDIN with csv header delimiter as ';' null as 'NULL'", sqlExecutionContext);
+
+        assertEquals(0, model.getColumnNames().size());
+        assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+        assertEquals(';', model.getDelimiter());
+        assertEquals("NULL", model.getNullString().toString());
+        assertTrue(model.isHeader());
+    }
+
+    @Test
+    public void testCopyFromStdinOptions() throws SqlException {
+        CopyModel model = (CopyModel) compiler.testCompileModel("copy y (a) from stdin (format binary)", sqlExecutionContext);
+        assertEquals("[a]", model.getColumnNames().toString());
+        assertEquals(CopyModel.FORMAT_BINARY, model.getFormat());
+
+        model = (CopyModel) compiler.testCompileModel("copy y from stdin with (format csv, delimiter '|', null '', header false)", sqlExecutionContext);
+        assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+        assertEquals('|', model.getDelimiter());
+        assertEquals("", model.getNullString().toString());
+        assertFalse(model.isHeader());
+    }
+
+    @Test
+    public void testCopyFromStdinUnexpectedOption() throws Exception {
+        assertMemoryLeak(() -> {
+            assertFailure("copy x from stdin with (format json)", null, 31, "'text', 'csv' or 'binary' expected");
+            assertFailure("copy x from stdin with (format csv header)", null, 35, "',' or ')' expected");
+            assertFailure("copy x from stdin with compression", null, 23, "unexpected option");
+        });
+    }
+
     @Test
     public void testCopyFullHack() throws Exception {
         assertMemoryLeak(() -> assertFailure(
@@ -188,6 +234,52 @@ public class CopyTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testCopyToStdoutQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x a, cast(x as symbol) b from long_sequence(5))", sqlExecutionContext);
+
+            CopyModel model = (CopyModel) compiler.testCompileModel("copy (select a, b from x where a > 2) to stdout with (format csv, header true)", sqlExecutionContext);
+            assertEquals("stdout", model.getFileName().token.toString());
+            assertNotNull(model.getQueryModel());
+            assertEquals(CopyModel.FORMAT_CSV, model.getFormat());
+            assertTrue(model.isHeader());
+
+            CompiledQuery cq = compiler.compile("copy (select a, b from x where a > 2) to stdout", sqlExecutionContext);
+            assertEquals(CompiledQuery.COPY_REMOTE, cq.getType());
+            assertCopyToStdout(
+                    cq,
+                    "a\tb\n" +
+                            "3\t3\n" +
+                            "4\t4\n" +
+                            "5\t5\n"
+            );
+        });
+    }
+
+    @Test
+    public void testCopyToStdoutTable() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x a from long_sequence(3))", sqlExecutionContext);
+
+            CopyModel model = (CopyModel) compiler.testCompileModel("copy x to STDOUT binary", sqlExecutionContext);
+            assertEquals(CopyModel.FORMAT_BINARY, model.getFormat());
+
+            CompiledQuery cq = compiler.compile("copy x to stdout", sqlExecutionContext);
+            assertEquals(CompiledQuery.COPY_REMOTE, cq.getType());
+            assertCopyToStdout(cq, "a\n1\n2\n3\n");
+        });
+    }
+
+    @Test
+    public void testCopyToStdoutUnexpectedToken() throws Exception {
+        assertMemoryLeak(() -> {
+            assertFailure("copy x to 'x.csv'", null, 10, "'stdout' expected");
+            assertFailure("copy (select * from x) from stdin", null, 23, "'to' expected");
+            assertFailure("copy x to stdout with (format xml)", null, 30, "'text', 'csv' or 'binary' expected");
+        });
+    }
+
     @Test
     public void testDefaultCopyOptions() throws SqlException {
         CopyModel model = (CopyModel) compiler.testCompileModel("copy y from 'somefile.csv';", sqlExecutionContext);
@@ -470,7 +562,7 @@ public class CopyTest extends AbstractGriffinTest {
                 runAndFetchImportId("copy dbRoot from 'test-quotes-big.csv' with partition by jiffy;", sqlExecutionContext);
                 Assert.fail();
             } catch (Exception e) {
-                MatcherAssert.assertThat(e.getMessage(), CoreMatchers.containsString("'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected"));
+                MatcherAssert.assertThat(e.getMessage(), CoreMatchers.containsString("'NONE', 'MINUTE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"));
             }
         });
     }
@@ -1052,6 +1144,17 @@ public class CopyTest extends AbstractGriffinTest {
         inputWorkRoot = inputWorkRootTmp;
     }
 
+    private void assertCopyToStdout(CompiledQuery cq, String expected) throws SqlException {
+        try (
+                RecordCursorFactory factory = cq.getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            sink.clear();
+            printer.print(cursor, factory.getMetadata(), true, sink);
+            TestUtils.assertEquals(expected, sink);
+        }
+    }
+
     private void assertQuotesTableContent() throws SqlException {
         assertQuotesTableContent0(false);
     }
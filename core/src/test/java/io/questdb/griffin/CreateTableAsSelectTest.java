@@ -24,6 +24,10 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.NumericException;
+import io.questdb.std.datetime.microtime.TimestampFormatUtils;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
 import org.junit.Test;
@@ -43,6 +47,55 @@ public class CreateTableAsSelectTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testCreatePartitionedTableAsSelectMinuteStride() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(
+                    "create table dest as (" +
+                            "select x, timestamp_sequence('2022-02-24', 10 * 60 * 1000000L) ts from long_sequence(10)" +
+                            ") timestamp(ts) partition by 15 MINUTE",
+                    sqlExecutionContext
+            );
+            executeInsert("insert into dest values (11, '2022-02-24T00:05:00.000000Z')");
+
+            assertPartitions(
+                    "dest",
+                    "2022-02-24T00:00:00.000000Z",
+                    "2022-02-24T00:15:00.000000Z",
+                    "2022-02-24T00:30:00.000000Z",
+                    "2022-02-24T00:45:00.000000Z",
+                    "2022-02-24T01:00:00.000000Z",
+                    "2022-02-24T01:15:00.000000Z",
+                    "2022-02-24T01:30:00.000000Z"
+            );
+            assertSql("select x, ts from dest where ts < '2022-02-24T00:20'", "x\tts\n" +
+                    "1\t2022-02-24T00:00:00.000000Z\n" +
+                    "11\t2022-02-24T00:05:00.000000Z\n" +
+                    "2\t2022-02-24T00:10:00.000000Z\n");
+            assertSql("select partitionBy from tables() where name = 'dest'", "partitionBy\n15 MINUTE\n");
+        });
+    }
+
+    @Test
+    public void testCreatePartitionedTableAsSelectPartitionByWeek() throws Exception {
+        assertMemoryLeak(() -> {
+            // 2022-02-24 is Thursday, weekly partitions start on Monday
+            compiler.compile(
+                    "create table dest as (" +
+                            "select x, timestamp_sequence('2022-02-24', 2 * 24 * 3600 * 1000000L) ts from long_sequence(7)" +
+                            ") timestamp(ts) partition by WEEK",
+                    sqlExecutionContext
+            );
+
+            assertPartitions(
+                    "dest",
+                    "2022-02-21T00:00:00.000000Z",
+                    "2022-02-28T00:00:00.000000Z",
+                    "2022-03-07T00:00:00.000000Z"
+            );
+        });
+    }
+
     @Test
     public void testCreatePartitionedTableAsSelectTimestampAscOrder() throws Exception {
         testCreatePartitionedTableAsSelectWithOrderBy("order by ts asc");
@@ -68,6 +121,18 @@ public class CreateTableAsSelectTest extends AbstractGriffinTest {
         }
     }
 
+    private void assertPartitions(String tableName, String... expectedPartitionTimestamps) throws NumericException {
+        try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, tableName)) {
+            Assert.assertEquals(expectedPartitionTimestamps.length, reader.getPartitionCount());
+            for (int i = 0; i < expectedPartitionTimestamps.length; i++) {
+                Assert.assertEquals(
+                        TimestampFormatUtils.parseTimestamp(expectedPartitionTimestamps[i]),
+                        reader.getPartitionTimestampByIndex(i)
+                );
+            }
+        }
+    }
+
     private void createSrcTable() throws SqlException {
         compiler.compile("create table src (ts timestamp, v long) timestamp(ts) partition by day;", sqlExecutionContext);
         executeInsert("insert into src values (0, 0);");
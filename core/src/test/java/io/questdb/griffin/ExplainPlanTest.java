@@ -0,0 +1,160 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ExplainPlanTest extends AbstractGriffinTest {
+
+    @Test
+    public void testExplain() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertSql(
+                    "explain select b, count() from x",
+                    "QUERY PLAN\n" +
+                            "GroupByRecord vectorized=true\n" +
+                            "  groupByFunctions=[CountVectorAgg(1)]\n" +
+                            "  keyColumnIndex=0\n" +
+                            "    DataFrameRecordCursorFactory\n" +
+                            "        FullFwdDataFrame\n" +
+                            "          tableName=x\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeGroupBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertExplainAnalyze(
+                    "explain analyze select b, count() from x",
+                    "QUERY PLAN\n" +
+                            "GroupByRecord vectorized=true (actual rows=3 loops=1 time=?)\n" +
+                            "  groupByFunctions=[CountVectorAgg(1)]\n" +
+                            "  keyColumnIndex=0\n" +
+                            "    DataFrameRecordCursorFactory (actual rows=1000 loops=1 time=? frames=1)\n" +
+                            "        FullFwdDataFrame\n" +
+                            "          tableName=x\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeHashJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertExplainAnalyze(
+                    "EXPLAIN ANALYZE select * from x x1 join x x2 on (b) where x1.a < 3",
+                    "QUERY PLAN\n" +
+                            "SelectedRecord (actual rows=666 loops=1 time=?)\n" +
+                            "    Hash Join Light (actual rows=666 loops=1 time=?)\n" +
+                            "        io.questdb.griffin.engine.table.AsyncJitFilteredRecordCursorFactory (actual rows=2 loops=1 time=?)\n" +
+                            "        DataFrameRecordCursorFactory (actual rows=1000 loops=1 time=?)\n" +
+                            "            FullFwdDataFrame\n" +
+                            "              tableName=x\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeNonSelect() throws Exception {
+        assertFailure(
+                "explain analyze insert into x values (1)",
+                "create table x (a int)",
+                16,
+                "EXPLAIN supports SELECT queries only"
+        );
+    }
+
+    @Test
+    public void testExplainAnalyzeOrderBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            assertExplainAnalyze(
+                    "explain analyze select b, sum(a) from (select * from x where a % 2 = 0) order by 1",
+                    "QUERY PLAN\n" +
+                            "Sort light (actual rows=3 loops=1 time=? memory=?)\n" +
+                            "    GroupByRecord vectorized=false (actual rows=3 loops=1 time=?)\n" +
+                            "      groupByFunctions=[SumLong(LongColumn(1))]\n" +
+                            "      recordFunctions=[io.questdb.griffin.engine.groupby.MapSymbolColumn,SumLong(LongColumn(1))]\n" +
+                            "        io.questdb.griffin.engine.table.AsyncFilteredRecordCursorFactory (actual rows=500 loops=1 time=?)\n"
+            );
+        });
+    }
+
+    @Test
+    public void testExplainAnalyzeRerun() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            // statistics are collected anew for every execution
+            final String expected = "QUERY PLAN\n" +
+                    "DataFrameRecordCursorFactory (actual rows=1000 loops=1 time=?)\n" +
+                    "    FullFwdDataFrame\n" +
+                    "      tableName=x\n";
+            assertExplainAnalyze("explain analyze x", expected);
+            assertExplainAnalyze("explain analyze x", expected);
+        });
+    }
+
+    @Test
+    public void testExplainNonSelect() throws Exception {
+        assertFailure(
+                "explain create table y (a int)",
+                null,
+                8,
+                "EXPLAIN supports SELECT queries only"
+        );
+    }
+
+    @Test
+    public void testExplainWithoutQuery() throws Exception {
+        assertFailure(
+                "explain analyze",
+                null,
+                15,
+                "query expected"
+        );
+    }
+
+    private void assertExplainAnalyze(String query, String expected) throws SqlException {
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(
+                expected,
+                sink.toString()
+                        .replaceAll("time=[0-9.]+ms", "time=?")
+                        .replaceAll("memory=[0-9]+", "memory=?")
+        );
+    }
+
+    private void createX() throws SqlException {
+        compile(
+                "create table x as (" +
+                        "select x a, rnd_symbol('a','b','c') b, timestamp_sequence(0, 1000000) ts from long_sequence(1000)" +
+                        ") timestamp(ts) partition by hour"
+        );
+    }
+}
@@ -63,6 +63,36 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
                 true);
     }
 
+    @Test
+    public void testApproxPercentileWithManyWorkers() throws Exception {
+        executeWithPool(4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+            compiler.compile(
+                    "create table tab as (" +
+                            "select cast(x as int) i, x l, x / 1000.0 d, timestamp_sequence(0, 100000) ts " +
+                            "from long_sequence(1000000)" +
+                            ") timestamp(ts) partition by HOUR",
+                    sqlExecutionContext
+            );
+
+            final String query = "select approx_median(i), approx_percentile(l, 0.99), approx_percentile(d, 0.999) from tab";
+            final double[] expected = {500_000, 990_000, 999};
+            final double[] tolerance = {5_000, 1_000, 0.5};
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals("GroupByNotKeyedVectorRecordCursorFactory", factory.getClass().getSimpleName());
+                // run twice to make sure per-worker digests are reset between executions
+                for (int n = 0; n < 2; n++) {
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        Assert.assertTrue(cursor.hasNext());
+                        final Record record = cursor.getRecord();
+                        for (int i = 0; i < expected.length; i++) {
+                            Assert.assertEquals(expected[i], record.getDouble(i), tolerance[i]);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testCountAggregationWithConst() throws Exception {
         try (TableModel tt1 = new TableModel(configuration, "tt1", PartitionBy.DAY)) {
@@ -129,6 +159,38 @@ public class KeyedAggregationTest extends AbstractGriffinTest {
         assertSqlWithTypes(sql, expected);
     }
 
+    @Test
+    public void testCountDistinctWithManyWorkers() throws Exception {
+        executeWithPool(4, 16, (CairoEngine engine, SqlCompiler compiler, SqlExecutionContext sqlExecutionContext) -> {
+            compiler.compile(
+                    "create table tab as (" +
+                            "select cast(x % 50000 as int) i, x % 70000 l, cast(x % 300 as symbol) s, timestamp_sequence(0, 100000) ts " +
+                            "from long_sequence(1000000)" +
+                            ") timestamp(ts) partition by HOUR",
+                    sqlExecutionContext
+            );
+
+            final String query = "select count_distinct(i), count_distinct(l), count_distinct(s), " +
+                    "approx_count_distinct(i), approx_count_distinct(l), approx_count_distinct(s) from tab";
+            final long[] expected = {50000, 70000, 300};
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals("GroupByNotKeyedVectorRecordCursorFactory", factory.getClass().getSimpleName());
+                // run twice to make sure per-worker state is reset between executions
+                for (int n = 0; n < 2; n++) {
+                    try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                        Assert.assertTrue(cursor.hasNext());
+                        final Record record = cursor.getRecord();
+                        for (int i = 0; i < expected.length; i++) {
+                            Assert.assertEquals(expected[i], record.getLong(i));
+                            final long estimate = record.getLong(i + expected.length);
+                            Assert.assertTrue("estimate: " + estimate, Math.abs(estimate - expected[i]) <= expected[i] * 0.03);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Test
     public void testFirstLastAggregations() throws Exception {
         String[] aggregateFunctions = {"first", "last"};
@@ -178,7 +178,7 @@ public class OrderByAdviceTest extends AbstractGriffinTest {
                         "        timestamp_sequence(172800000000, 360000000) ts \n" +
                         "    from long_sequence(1000)) timestamp (ts)",
                 "column\n" +
-                        "0.48510032025339733\n",
+                        "0.4851003202533976\n",
                 false,
                 true,
                 true
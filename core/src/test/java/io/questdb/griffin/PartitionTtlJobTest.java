@@ -0,0 +1,188 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.PartitionTtlJob;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PartitionTtlJobTest extends AbstractGriffinTest {
+
+    @Test
+    public void testBusyWriterPostponesDrop() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            compile("alter table x set param ttl = 1d", sqlExecutionContext);
+
+            try (PartitionTtlJob job = new PartitionTtlJob(engine, null)) {
+                try (TableWriter ignore = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x", "testing")) {
+                    Assert.assertEquals(0, job.enforceTtl());
+                }
+                assertSql("select count() from x", "count\n10\n");
+
+                Assert.assertEquals(1, job.enforceTtl());
+                assertSql("select min(ts), max(ts) from x", "min\tmax\n" +
+                        "2022-02-26T00:00:00.000000Z\t2022-02-27T12:00:00.000000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testDropDeferredForTooLong() throws Exception {
+        assertMemoryLeak(() -> {
+            currentMicros = 0;
+            createTable("x", "");
+            compile("alter table x set param ttl = 1d", sqlExecutionContext);
+
+            try (PartitionTtlJob job = new PartitionTtlJob(engine, null)) {
+                Assert.assertEquals(0, job.enforceTtlOnIdleTables());
+
+                // the table never goes quiet, the drop happens once max deferral elapses
+                currentMicros = configuration.getTtlMaxDeferral() * 1000 - 1;
+                compile("insert into x values (11, '2022-02-27T13:00:00.000000Z')", sqlExecutionContext);
+                Assert.assertEquals(0, job.enforceTtlOnIdleTables());
+
+                currentMicros++;
+                compile("insert into x values (12, '2022-02-27T14:00:00.000000Z')", sqlExecutionContext);
+                Assert.assertEquals(1, job.enforceTtlOnIdleTables());
+                assertSql("select min(ts), count() from x", "min\tcount\n" +
+                        "2022-02-26T00:00:00.000000Z\t6\n");
+            }
+        });
+    }
+
+    @Test
+    public void testDropDeferredWhileTableIsWritten() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            compile("alter table x set param ttl = 1d", sqlExecutionContext);
+
+            try (PartitionTtlJob job = new PartitionTtlJob(engine, null)) {
+                // activity of the table is not known yet
+                Assert.assertEquals(0, job.enforceTtlOnIdleTables());
+
+                compile("insert into x values (11, '2022-02-27T13:00:00.000000Z')", sqlExecutionContext);
+                Assert.assertEquals(0, job.enforceTtlOnIdleTables());
+                assertSql("select count() from x", "count\n11\n");
+
+                // no writes since the previous check
+                Assert.assertEquals(1, job.enforceTtlOnIdleTables());
+                assertSql("select min(ts), count() from x", "min\tcount\n" +
+                        "2022-02-26T00:00:00.000000Z\t5\n");
+            }
+        });
+    }
+
+    @Test
+    public void testDropsExpiredPartitions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            try (PartitionTtlJob job = new PartitionTtlJob(engine, null)) {
+                // ttl is not set, nothing to do
+                Assert.assertEquals(0, job.enforceTtl());
+
+                compile("alter table x set param ttl = 30h", sqlExecutionContext);
+                Assert.assertEquals(1, job.enforceTtl());
+                assertSql("x", "x\tts\n" +
+                        "7\t2022-02-26T00:00:00.000000Z\n" +
+                        "8\t2022-02-26T12:00:00.000000Z\n" +
+                        "9\t2022-02-27T00:00:00.000000Z\n" +
+                        "10\t2022-02-27T12:00:00.000000Z\n");
+
+                // retained window is intact, subsequent runs are no-op
+                Assert.assertEquals(0, job.enforceTtl());
+            }
+        });
+    }
+
+    @Test
+    public void testDropsExpiredPartitionsWal() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", " WAL");
+            compile("alter table x set param ttl = 1d", sqlExecutionContext);
+            drainWalQueue();
+
+            try (PartitionTtlJob job = new PartitionTtlJob(engine, null)) {
+                Assert.assertEquals(1, job.enforceTtl());
+                drainWalQueue();
+                assertSql("x", "x\tts\n" +
+                        "7\t2022-02-26T00:00:00.000000Z\n" +
+                        "8\t2022-02-26T12:00:00.000000Z\n" +
+                        "9\t2022-02-27T00:00:00.000000Z\n" +
+                        "10\t2022-02-27T12:00:00.000000Z\n");
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidTtl() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            try {
+                compile("alter table x set param ttl = 10", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "expected interval qualifier");
+            }
+        });
+    }
+
+    @Test
+    public void testTtlSurvivesMetadataChange() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable("x", "");
+            compile("alter table x set param ttl = 2d", sqlExecutionContext);
+            compile("alter table x add column y int", sqlExecutionContext);
+            compile("alter table x set param maxUncommittedRows = 100", sqlExecutionContext);
+
+            engine.releaseAllReaders();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(2 * 24 * 3600 * 1_000_000L, reader.getMetadata().getTtl());
+            }
+
+            compile("alter table x set param ttl = 0s", sqlExecutionContext);
+            try (
+                    TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x");
+                    PartitionTtlJob job = new PartitionTtlJob(engine, null)
+            ) {
+                Assert.assertEquals(0, reader.getMetadata().getTtl());
+                Assert.assertEquals(0, job.enforceTtl());
+            }
+        });
+    }
+
+    private void createTable(String tableName, String suffix) throws SqlException {
+        compile("create table " + tableName + " as (" +
+                "select x, timestamp_sequence('2022-02-23', 12 * 3600 * 1000000L) ts from long_sequence(10)" +
+                ") timestamp(ts) partition by DAY" + suffix, sqlExecutionContext);
+        if (suffix.length() > 0) {
+            drainWalQueue();
+        }
+    }
+}
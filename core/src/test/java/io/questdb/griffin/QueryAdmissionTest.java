@@ -0,0 +1,391 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.security.CairoSecurityContextImpl;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.metrics.MetricsRegistryImpl;
+import io.questdb.std.DirectLongList;
+import io.questdb.std.MemoryAccount;
+import io.questdb.std.MemoryTag;
+import io.questdb.std.Unsafe;
+import io.questdb.std.datetime.millitime.MillisecondClock;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryAdmissionTest extends AbstractGriffinTest {
+    private static final CairoSecurityContext ALICE = new CairoSecurityContextImpl(true, "alice");
+    private static final CairoSecurityContext BOB = new CairoSecurityContextImpl(true, "bob");
+    private final QueryAdmissionMetrics metrics = new QueryAdmissionMetrics(new MetricsRegistryImpl());
+    private long millis;
+    private boolean spillEnabled;
+
+    @Test
+    public void testConcurrencyLimit() {
+        final QueryAdmissionController controller = newController(2, 1, 0, 0, 0);
+        final QueryAdmission a1 = new QueryAdmission(controller);
+        final QueryAdmission a2 = new QueryAdmission(controller);
+        final QueryAdmission a3 = new QueryAdmission(controller);
+        final QueryAdmission a4 = new QueryAdmission(controller);
+        final QueryAdmission b1 = new QueryAdmission(controller);
+
+        Assert.assertTrue(a1.tryAdmit(ALICE));
+        Assert.assertTrue(a2.tryAdmit(ALICE));
+        Assert.assertFalse(a3.tryAdmit(ALICE));
+        Assert.assertEquals(2, controller.getRunningCount("alice"));
+        Assert.assertEquals(1, controller.getQueuedCount("alice"));
+
+        // limits are per principal
+        Assert.assertTrue(b1.tryAdmit(BOB));
+
+        // queue is full
+        try {
+            a4.tryAdmit(ALICE);
+            Assert.fail();
+        } catch (CairoException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), "too many queries waiting for admission [principal=alice, maxQueued=1]");
+        }
+        Assert.assertEquals(1, metrics.getRejectedCount());
+
+        // queued query is admitted once a running one completes
+        Assert.assertFalse(a3.tryAdmit(ALICE));
+        a1.release();
+        Assert.assertTrue(a3.tryAdmit(ALICE));
+        Assert.assertEquals(2, controller.getRunningCount("alice"));
+        Assert.assertEquals(0, controller.getQueuedCount("alice"));
+        Assert.assertEquals(3, metrics.getRunningCount());
+        Assert.assertEquals(0, metrics.getQueuedCount());
+
+        a2.release();
+        a3.close();
+        b1.release();
+        Assert.assertEquals(0, controller.getRunningCount("alice"));
+        Assert.assertEquals(0, controller.getRunningCount("bob"));
+        Assert.assertEquals(0, metrics.getRunningCount());
+    }
+
+    @Test
+    public void testDisabled() {
+        final QueryAdmissionController controller = newController(0, 1, 0, 0, 0);
+        Assert.assertFalse(controller.isEnabled());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(new QueryAdmission(controller).tryAdmit(ALICE));
+        }
+        Assert.assertEquals(0, controller.getRunningCount("alice"));
+    }
+
+    @Test
+    public void testMemoryCreditedToOwner() throws Exception {
+        assertMemoryLeak(() -> {
+            final QueryAdmissionController controller = newController(0, 4, 0, 0, 0);
+            final QueryAdmission a1 = new QueryAdmission(controller);
+            final QueryAdmission b1 = new QueryAdmission(controller);
+            Assert.assertTrue(a1.tryAdmit(ALICE));
+            Assert.assertTrue(b1.tryAdmit(BOB));
+
+            final DirectLongList list;
+            MemoryAccount prev = Unsafe.bindMemoryAccount(a1);
+            try {
+                list = new DirectLongList(16, MemoryTag.NATIVE_LONG_LIST);
+            } finally {
+                Unsafe.bindMemoryAccount(prev);
+            }
+            Assert.assertEquals(128, a1.getMemoryUsed());
+
+            // the list outlives the query, the next query of the connection is not credited for it
+            a1.release();
+            Assert.assertEquals(0, a1.getMemoryUsed());
+            Assert.assertTrue(a1.tryAdmit(ALICE));
+
+            prev = Unsafe.bindMemoryAccount(b1);
+            try {
+                list.close();
+            } finally {
+                Unsafe.bindMemoryAccount(prev);
+            }
+            Assert.assertEquals(0, a1.getMemoryUsed());
+            Assert.assertEquals(0, b1.getMemoryUsed());
+
+            a1.release();
+            b1.release();
+        });
+    }
+
+    @Test
+    public void testMemoryLimit() {
+        final QueryAdmissionController controller = newController(0, 4, 4096, 0, 0);
+        final QueryAdmission a1 = new QueryAdmission(controller);
+        final QueryAdmission b1 = new QueryAdmission(controller);
+
+        Assert.assertTrue(a1.tryAdmit(ALICE));
+        a1.charge(8192, MemoryTag.NATIVE_FAST_MAP);
+
+        // global budget is exceeded, other principals wait too
+        Assert.assertFalse(b1.tryAdmit(BOB));
+        a1.charge(-8192, MemoryTag.NATIVE_FAST_MAP);
+        Assert.assertTrue(b1.tryAdmit(BOB));
+
+        a1.release();
+        b1.release();
+    }
+
+    @Test
+    public void testMemoryMovesToGrowingQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            final QueryAdmissionController controller = newController(0, 4, 0, 0, 0);
+            final QueryAdmission a1 = new QueryAdmission(controller);
+            final QueryAdmission a2 = new QueryAdmission(controller);
+            Assert.assertTrue(a1.tryAdmit(ALICE));
+            Assert.assertTrue(a2.tryAdmit(ALICE));
+
+            MemoryAccount prev = Unsafe.bindMemoryAccount(a1);
+            try (DirectLongList list = new DirectLongList(16, MemoryTag.NATIVE_LONG_LIST)) {
+                Assert.assertEquals(128, a1.getMemoryUsed());
+
+                Unsafe.bindMemoryAccount(a2);
+                list.setCapacity(32);
+                Assert.assertEquals(0, a1.getMemoryUsed());
+                Assert.assertEquals(256, a2.getMemoryUsed());
+
+                Unsafe.bindMemoryAccount(null);
+            } finally {
+                Unsafe.bindMemoryAccount(prev);
+            }
+            Assert.assertEquals(0, a1.getMemoryUsed());
+            Assert.assertEquals(0, a2.getMemoryUsed());
+
+            a1.release();
+            a2.release();
+        });
+    }
+
+    @Test
+    public void testPrincipalMemoryLimit() {
+        final QueryAdmissionController controller = newController(0, 4, 0, 1024, 0);
+        final QueryAdmission a1 = new QueryAdmission(controller);
+        final QueryAdmission a2 = new QueryAdmission(controller);
+        final QueryAdmission b1 = new QueryAdmission(controller);
+
+        Assert.assertTrue(a1.tryAdmit(ALICE));
+        a1.charge(2048, MemoryTag.NATIVE_RECORD_CHAIN);
+        Assert.assertEquals(2048, a1.getMemoryUsed());
+
+        Assert.assertFalse(a2.tryAdmit(ALICE));
+        Assert.assertTrue(b1.tryAdmit(BOB));
+
+        a1.release();
+        Assert.assertEquals(0, a1.getMemoryUsed());
+        Assert.assertTrue(a2.tryAdmit(ALICE));
+
+        a2.release();
+        b1.release();
+    }
+
+    @Test
+    public void testQueryMemoryLimit() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_long() k from long_sequence(100000))");
+            final QueryAdmissionController controller = newController(1, 1, 0, 0, 1024 * 1024);
+            try (
+                    QueryAdmission admission = new QueryAdmission(controller);
+                    RecordCursorFactory factory = compiler.compile("select k, count() from x", sqlExecutionContext).getRecordCursorFactory()
+            ) {
+                Assert.assertTrue(admission.tryAdmit(ALICE));
+                final MemoryAccount prev = Unsafe.bindMemoryAccount(admission);
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    //noinspection StatementWithEmptyBody
+                    while (cursor.hasNext()) {
+                    }
+                    Assert.fail();
+                } catch (CairoException e) {
+                    Assert.assertTrue(e.isInterruption());
+                    TestUtils.assertContains(e.getFlyweightMessage(), "query memory limit exceeded [limit=1048576");
+                } finally {
+                    Unsafe.bindMemoryAccount(prev);
+                }
+                Assert.assertEquals(1, metrics.getMemoryLimitExceededCount());
+
+                // the same factory runs fine once the account is unbound
+                admission.release();
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    long count = 0;
+                    while (cursor.hasNext()) {
+                        count++;
+                    }
+                    Assert.assertEquals(100000, count);
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testQueryMemorySpillGroupBy() throws Exception {
+        assertSpilled("select k, count() from x");
+    }
+
+    @Test
+    public void testQueryMemorySpillHashJoin() throws Exception {
+        assertSpilled("select a.k, a.v, b.v from x a join x b on (k)");
+    }
+
+    @Test
+    public void testQueryMemorySpillOrderBy() throws Exception {
+        assertSpilled("select * from x order by k");
+    }
+
+    @Test
+    public void testQueryMemorySpillOrderByLimit() throws Exception {
+        assertSpilled("select * from x order by k desc limit 100000");
+    }
+
+    @Test
+    public void testQueuedQueryIsNotCharged() {
+        final QueryAdmissionController controller = newController(1, 1, 0, 0, 1024);
+        final QueryAdmission a1 = new QueryAdmission(controller);
+        final QueryAdmission a2 = new QueryAdmission(controller);
+        Assert.assertTrue(a1.tryAdmit(ALICE));
+        Assert.assertFalse(a2.tryAdmit(ALICE));
+        a2.charge(4096, MemoryTag.NATIVE_TREE_CHAIN);
+        Assert.assertEquals(0, a2.getMemoryUsed());
+        a1.release();
+        a2.release();
+        Assert.assertEquals(0, controller.getQueuedCount("alice"));
+    }
+
+    @Test
+    public void testQueueTimeout() {
+        final QueryAdmissionController controller = newController(1, 4, 0, 0, 0);
+        final QueryAdmission a1 = new QueryAdmission(controller);
+        final QueryAdmission a2 = new QueryAdmission(controller);
+
+        Assert.assertTrue(a1.tryAdmit(ALICE));
+        Assert.assertFalse(a2.tryAdmit(ALICE));
+        millis += 1000;
+        Assert.assertFalse(a2.tryAdmit(ALICE));
+        millis += 1;
+        try {
+            a2.tryAdmit(ALICE);
+            Assert.fail();
+        } catch (CairoException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), "timed out waiting for query admission [principal=alice, timeout=1000ms]");
+        }
+        Assert.assertFalse(a2.isAdmitted());
+        Assert.assertEquals(0, controller.getQueuedCount("alice"));
+
+        // rejected admission can be reused for the next query
+        a1.release();
+        Assert.assertTrue(a2.tryAdmit(ALICE));
+        a2.release();
+    }
+
+    private void assertSpilled(String query) throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_long() k, x v from long_sequence(300000))");
+            spillEnabled = true;
+            final QueryAdmissionController controller = newController(1, 1, 0, 0, 64 * 1024);
+            try (
+                    QueryAdmission admission = new QueryAdmission(controller);
+                    RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()
+            ) {
+                // the first run spills, cursors of the following runs may reuse memory allocated by it
+                Assert.assertTrue(admission.tryAdmit(ALICE));
+                final MemoryAccount prev = Unsafe.bindMemoryAccount(admission);
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true, sink);
+                    Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_QUERY_SPILL) > 0);
+                } finally {
+                    Unsafe.bindMemoryAccount(prev);
+                    admission.release();
+                }
+                Assert.assertEquals(0, metrics.getMemoryLimitExceededCount());
+
+                final StringSink expected = new StringSink();
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    printer.print(cursor, factory.getMetadata(), true, expected);
+                }
+                TestUtils.assertEquals(expected, sink);
+            }
+        });
+    }
+
+    private QueryAdmissionController newController(
+            int maxConcurrent,
+            int maxQueued,
+            long memoryLimit,
+            long principalMemoryLimit,
+            long queryMemoryLimit
+    ) {
+        final MillisecondClock clock = () -> millis;
+        return new QueryAdmissionController(
+                new DefaultCairoConfiguration(root) {
+                    @Override
+                    public MillisecondClock getMillisecondClock() {
+                        return clock;
+                    }
+
+                    @Override
+                    public int getQueryAdmissionMaxConcurrent() {
+                        return maxConcurrent;
+                    }
+
+                    @Override
+                    public int getQueryAdmissionMaxQueued() {
+                        return maxQueued;
+                    }
+
+                    @Override
+                    public long getQueryAdmissionMemoryLimit() {
+                        return memoryLimit;
+                    }
+
+                    @Override
+                    public long getQueryAdmissionPrincipalMemoryLimit() {
+                        return principalMemoryLimit;
+                    }
+
+                    @Override
+                    public long getQueryAdmissionTimeout() {
+                        return 1000;
+                    }
+
+                    @Override
+                    public long getQueryMemoryLimit() {
+                        return queryMemoryLimit;
+                    }
+
+                    @Override
+                    public boolean isQuerySpillEnabled() {
+                        return spillEnabled;
+                    }
+                },
+                metrics
+        );
+    }
+}
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.engine.CachedResultRecordCursorFactory;
+import io.questdb.std.LongList;
+import io.questdb.std.MemoryTag;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResultCacheTest extends AbstractGriffinTest {
+    private long evictionCount;
+    private long hitCount;
+    private long missCount;
+
+    @Before
+    public void setUp() {
+        enableResultCache = true;
+        super.setUp();
+    }
+
+    @Test
+    public void testBindVariables() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select count() from x where v > $1";
+
+            bindVariableService.clear();
+            bindVariableService.setLong(0, 20);
+            assertSql(query, "count\n10\n");
+            bindVariableService.setLong(0, 25);
+            assertSql(query, "count\n5\n");
+            bindVariableService.setLong(0, 20);
+            assertSql(query, "count\n10\n");
+
+            assertCounts(1, 2);
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        enableResultCache = false;
+        assertMemoryLeak(() -> {
+            createTable();
+            assertCached("select * from x", false);
+        });
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final long pageSize = 1024;
+        final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+            @Override
+            public long getSqlResultCacheCapacity() {
+                return 2 * pageSize;
+            }
+        };
+
+        assertMemoryLeak(() -> {
+            final ArrayColumnTypes types = new ArrayColumnTypes();
+            types.add(ColumnType.LONG);
+            final RecordSink sink = (r, w) -> w.putLong(42);
+            final LongList versions = new LongList();
+
+            try (ResultCache cache = new ResultCache(configuration)) {
+                for (int i = 0; i < 3; i++) {
+                    final RecordChain chain = new RecordChain(types, sink, pageSize, 1, MemoryTag.NATIVE_RESULT_CACHE);
+                    chain.put(null, -1);
+                    final ResultCache.Entry entry = cache.put("q" + i, versions, chain, 1);
+                    Assert.assertNotNull(entry);
+                    cache.release(entry);
+                }
+                Assert.assertEquals(1, cache.getEvictionCount());
+                Assert.assertEquals(2 * pageSize, cache.getMemoryUsed());
+
+                // least recently used entry was evicted
+                Assert.assertNull(cache.poll("q0", versions));
+                ResultCache.Entry entry = cache.poll("q1", versions);
+                Assert.assertNotNull(entry);
+
+                // entry checked out by one cursor is not available to another
+                Assert.assertNull(cache.poll("q1", versions));
+
+                // eviction of a checked out entry is deferred until the entry is released
+                cache.clear();
+                Assert.assertEquals(0, cache.getMemoryUsed());
+                Assert.assertEquals(42, entry.getChain().getRecordAt(0).getLong(0));
+                cache.release(entry);
+            }
+        });
+    }
+
+    @Test
+    public void testNonDeterministicQueriesAreNotCached() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertCached("select * from x where ts < now()", false);
+            assertCached("select v, rnd_int() from x", false);
+            assertCached("select * from long_sequence(10)", false);
+            assertCached("select * from x where ts < '1970-01-02'", true);
+        });
+    }
+
+    @Test
+    public void testPartitionVersions() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select sum(v) from x where ts < '1970-01-03'";
+
+            assertSql(query, "sum\n210\n");
+            assertSql(query, "sum\n210\n");
+            assertCounts(1, 1);
+
+            // rows in the live partition are outside the queried time range
+            executeInsert("insert into x values (100, '1970-01-03T12:00:00.000000Z', 'c')");
+            assertSql(query, "sum\n210\n");
+            assertCounts(2, 1);
+
+            // out-of-order rows land in the queried time range
+            executeInsert("insert into x values (100, '1970-01-01T12:00:00.000000Z', 'c')");
+            assertSql(query, "sum\n310\n");
+            assertCounts(2, 2);
+            Assert.assertEquals(1, engine.getResultCache().getEvictionCount() - evictionCount);
+
+            // query over the whole table sees every commit
+            final String all = "select count() from x";
+            assertSql(all, "count\n32\n");
+            executeInsert("insert into x values (100, '1970-01-03T13:00:00.000000Z', 'c')");
+            assertSql(all, "count\n33\n");
+            assertCounts(2, 4);
+        });
+    }
+
+    @Test
+    public void testSymbolsAsStrings() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select s, count() from x order by s";
+            final String expected = "s\tcount\n" +
+                    "0\t15\n" +
+                    "1\t15\n";
+
+            assertSql(query, expected);
+            assertSql(query, expected);
+            assertCounts(1, 1);
+        });
+    }
+
+    @Test
+    public void testTruncate() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            final String query = "select count() from x where ts < '1970-01-02'";
+
+            assertSql(query, "count\n10\n");
+            compile("truncate table x");
+            assertSql(query, "count\n0\n");
+            assertCounts(0, 2);
+        });
+    }
+
+    private void assertCounts(long expectedHits, long expectedMisses) {
+        final ResultCache cache = engine.getResultCache();
+        Assert.assertEquals("hits", expectedHits, cache.getHitCount() - hitCount);
+        Assert.assertEquals("misses", expectedMisses, cache.getMissCount() - missCount);
+    }
+
+    private void assertCached(String query, boolean expected) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(query, expected, factory instanceof CachedResultRecordCursorFactory);
+        }
+    }
+
+    private void createTable() throws SqlException {
+        // 10 rows per day over 3 days
+        compile(
+                "create table x as (" +
+                        "select x v, timestamp_sequence(0, 8640000000) ts, cast(x % 2 as symbol) s from long_sequence(30)" +
+                        ") timestamp(ts) partition by DAY"
+        );
+        // result cache is engine-wide, counts start with the table
+        final ResultCache cache = engine.getResultCache();
+        hitCount = cache.getHitCount();
+        missCount = cache.getMissCount();
+        evictionCount = cache.getEvictionCount();
+    }
+}
@@ -253,7 +253,7 @@ public class SecurityTest extends AbstractGriffinTest {
             assertQuery(
                     memoryRestrictedCompiler,
                     "sum\n" +
-                            "165.6121723103405\n",
+                            "165.6121723103406\n",
                     "select sum(d1) from tb1 where d1 < 0.2",
                     null,
                     false,
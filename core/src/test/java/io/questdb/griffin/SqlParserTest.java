@@ -1522,7 +1522,16 @@ public class SqlParserTest extends AbstractSqlParserTest {
                         "timestamp(t) " +
                         "partition by EPOCH",
                 128,
-                "'NONE', 'HOUR', 'DAY', 'MONTH' or 'YEAR' expected"
+                "'NONE', 'MINUTE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
+        );
+    }
+
+    @Test
+    public void testCreateTableInvalidPartitionByStride() throws Exception {
+        assertSyntaxError(
+                "create table x (a INT, t TIMESTAMP) timestamp(t) partition by 7 MINUTE",
+                62,
+                "'NONE', 'MINUTE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
         );
     }
 
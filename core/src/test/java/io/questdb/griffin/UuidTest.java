@@ -0,0 +1,137 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.ImplicitCastException;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UuidTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCastToAndFromString() throws Exception {
+        assertMemoryLeak(() -> {
+            assertSql(
+                    "select cast('0A0B0C0D-1111-2222-3333-444455556666' as uuid) u, cast(cast('0a0b0c0d-1111-2222-3333-444455556666' as uuid) as string) s",
+                    "u\ts\n" +
+                            "0a0b0c0d-1111-2222-3333-444455556666\t0a0b0c0d-1111-2222-3333-444455556666\n"
+            );
+            // invalid values parsed at runtime become null
+            assertSql(
+                    "select cast(s as uuid) u from (select 'not-a-uuid' s from long_sequence(1))",
+                    "u\n\n"
+            );
+        });
+    }
+
+    @Test
+    public void testEqualityFilterAndJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            compile("create table y (u uuid, name string)", sqlExecutionContext);
+            executeInsert("insert into y values ('22222222-0000-0000-0000-000000000002', 'two')");
+            executeInsert("insert into y values ('33333333-0000-0000-0000-000000000003', 'three')");
+
+            assertSql(
+                    "x where u = '22222222-0000-0000-0000-000000000002'",
+                    "u\tv\tts\n" +
+                            "22222222-0000-0000-0000-000000000002\t2\t2022-01-01T00:00:01.000000Z\n" +
+                            "22222222-0000-0000-0000-000000000002\t4\t2022-01-01T00:00:03.000000Z\n"
+            );
+            assertSql(
+                    "select count() from x where u != '22222222-0000-0000-0000-000000000002'",
+                    "count\n2\n"
+            );
+            assertSql(
+                    "select x.v, y.name from x join y on x.u = y.u order by x.v",
+                    "v\tname\n" +
+                            "2\ttwo\n" +
+                            "4\ttwo\n"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupByAndOrderBy() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertSql(
+                    "select u, sum(v) from x order by u",
+                    "u\tsum\n" +
+                            "\t3\n" +
+                            "11111111-0000-0000-0000-000000000001\t1\n" +
+                            "22222222-0000-0000-0000-000000000002\t6\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInsertInvalidValue() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            try {
+                executeInsert("insert into x values ('11111111-0000-0000-0000', 5, '2022-01-01T00:00:04')");
+                Assert.fail();
+            } catch (ImplicitCastException e) {
+                TestUtils.assertContains(e.getFlyweightMessage(), "inconvertible value: `11111111-0000-0000-0000` [STRING -> UUID]");
+            }
+        });
+    }
+
+    @Test
+    public void testInvalidConstantInFilter() throws Exception {
+        assertFailure(
+                "x where u = 'abc'",
+                "create table x (u uuid)",
+                12,
+                "invalid UUID constant"
+        );
+    }
+
+    @Test
+    public void testWal() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x (u uuid, ts timestamp) timestamp(ts) partition by DAY WAL", sqlExecutionContext);
+            executeInsert("insert into x values ('a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11', '2022-01-02')");
+            executeInsert("insert into x values (null, '2022-01-01')");
+            drainWalQueue();
+            assertSql(
+                    "x",
+                    "u\tts\n" +
+                            "\t2022-01-01T00:00:00.000000Z\n" +
+                            "a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11\t2022-01-02T00:00:00.000000Z\n"
+            );
+        });
+    }
+
+    private void createTable() throws SqlException {
+        compile("create table x (u uuid, v int, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+        executeInsert("insert into x values ('11111111-0000-0000-0000-000000000001', 1, '2022-01-01T00:00:00')");
+        executeInsert("insert into x values ('22222222-0000-0000-0000-000000000002', 2, '2022-01-01T00:00:01')");
+        executeInsert("insert into x values (null, 3, '2022-01-01T00:00:02')");
+        executeInsert("insert into x values ('22222222-0000-0000-0000-000000000002', 4, '2022-01-01T00:00:03')");
+    }
+}
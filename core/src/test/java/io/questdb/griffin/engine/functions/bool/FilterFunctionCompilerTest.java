@@ -0,0 +1,198 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.bool;
+
+import io.questdb.cairo.SqlJitMode;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.BaseFunctionFactoryTest;
+import io.questdb.griffin.FunctionParser;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FilterFunctionCompilerTest extends BaseFunctionFactoryTest {
+
+    @Test
+    public void testComparisons() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertCompiled("i > 0");
+            assertCompiled("i = j");
+            assertCompiled("i != 5");
+            assertCompiled("i <> j");
+            assertCompiled("i < j");
+            assertCompiled("i <= 0");
+            assertCompiled("-5 > i");
+            assertCompiled("i >= -2147483647");
+            assertCompiled("l = 3");
+            assertCompiled("l != l2");
+            assertCompiled("4 <> l");
+            assertCompiled("l <> -5000000000 and 4 = l");
+            assertCompiled("ts < ts2");
+            assertCompiled("ts >= ts2");
+            assertCompiled("ts2 = ts3");
+            assertCompiled("ts > '1970-01-01T00:00:10'");
+            assertCompiled("ts2 <= 30000000");
+            assertCompiled("ts2 != '1970-01-01T00:00:02.000000Z'");
+        });
+    }
+
+    @Test
+    public void testLogicalOperators() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertCompiled("i > 0 and j < 0");
+            assertCompiled("i > 0 or j < 0");
+            assertCompiled("not i > 0");
+            assertCompiled("not (i > 0 and j < 0)");
+            assertCompiled("not (i > 0 or j < 0)");
+            assertCompiled("(i > 0 or j < 0) and (l = 3 or not ts > ts2)");
+            assertCompiled("i > 0 and j < 0 or l = 3 and ts < ts2 or i = j");
+            assertCompiled("not (not (i > 0 and not j < 0) or not (l != 3 or ts < ts2))");
+        });
+    }
+
+    @Test
+    public void testFunctionFallback() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertCompiled("s = 'A' and i > 0");
+            assertCompiled("str ~ 'b' or s in ('B', 'C')");
+            assertCompiled("not (str like 'a%' and ts > '1970-01-01T00:00:10')");
+            assertCompiled("(i + j > 10 or d < 0.5) and not (s = 'C' or str is null)");
+            assertCompiled("ts between '1970-01-01T00:00:05' and '1970-01-01T00:00:30' or l > 1");
+        });
+    }
+
+    @Test
+    public void testNotCompiled() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            assertNotCompiled("s = 'A'");
+            assertNotCompiled("str ~ 'b'");
+            // mixed integer types resolve to other comparison functions
+            assertNotCompiled("i < l");
+            assertNotCompiled("ts > l");
+            // long ordering is done via doubles
+            assertNotCompiled("l < 3");
+            // constant folding leaves fewer logical functions than there are operators
+            assertNotCompiled("(i > 0 and j < 0) and 1 = 1");
+            assertNotCompiled("i > 0 or (1 = 2 or j < 0)");
+        });
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        assertMemoryLeak(() -> {
+            createTable();
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            assertQuery(
+                    "i\tj\ts\n" +
+                            "2\t-1\tB\n" +
+                            "4\t-4\tC\n" +
+                            "4\t-5\tB\n" +
+                            "3\t-6\tB\n" +
+                            "5\t-5\tC\n" +
+                            "4\t-5\tB\n" +
+                            "8\t-7\tC\n" +
+                            "5\t-5\tC\n" +
+                            "7\t-3\tC\n",
+                    "select i, j, s from x where (i > 0 and j < 0 and s != 'A') or (i > 9 and not s = 'A')",
+                    null,
+                    true,
+                    false
+            );
+        });
+    }
+
+    private void assertCompiled(String expression) throws SqlException {
+        final FunctionParser functionParser = new FunctionParser(configuration, compiler.getFunctionFactoryCache());
+        final FilterFunctionCompiler filterCompiler = new FilterFunctionCompiler(new BytecodeAssembler());
+        try (
+                RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            Function expected = null;
+            Function actual = null;
+            try {
+                expected = functionParser.parseFunction(expr(expression), factory.getMetadata(), sqlExecutionContext);
+                actual = functionParser.parseFunction(expr(expression), factory.getMetadata(), sqlExecutionContext);
+                final Function compiled = filterCompiler.compile(actual, expr(expression), factory.getMetadata());
+                Assert.assertTrue(expression, compiled instanceof CompiledFilterFunction);
+                actual = compiled;
+                expected.init(cursor, sqlExecutionContext);
+                actual.init(cursor, sqlExecutionContext);
+
+                final Record record = cursor.getRecord();
+                int rowCount = 0;
+                int matchCount = 0;
+                while (cursor.hasNext()) {
+                    final boolean match = expected.getBool(record);
+                    Assert.assertEquals(expression + ", row " + rowCount, match, actual.getBool(record));
+                    rowCount++;
+                    if (match) {
+                        matchCount++;
+                    }
+                }
+                // make sure that the data exercises both outcomes
+                Assert.assertTrue(expression, matchCount > 0 && matchCount < rowCount);
+            } finally {
+                Misc.free(expected);
+                Misc.free(actual);
+            }
+        }
+    }
+
+    private void assertNotCompiled(String expression) throws SqlException {
+        final FunctionParser functionParser = new FunctionParser(configuration, compiler.getFunctionFactoryCache());
+        final FilterFunctionCompiler filterCompiler = new FilterFunctionCompiler(new BytecodeAssembler());
+        try (
+                RecordCursorFactory factory = compiler.compile("x", sqlExecutionContext).getRecordCursorFactory();
+                Function filter = functionParser.parseFunction(expr(expression), factory.getMetadata(), sqlExecutionContext)
+        ) {
+            Assert.assertNull(expression, filterCompiler.compile(filter, expr(expression), factory.getMetadata()));
+        }
+    }
+
+    private void createTable() throws SqlException {
+        compiler.compile("create table x as (select" +
+                " rnd_int(-10, 10, 4) i," +
+                " rnd_int(-10, 10, 4) j," +
+                " rnd_long(0, 5, 3) l," +
+                " rnd_long(0, 5, 3) l2," +
+                " rnd_double() d," +
+                " rnd_symbol('A','B','C') s," +
+                " rnd_str('abc', 'bcd', 'cde', null) str," +
+                " timestamp_sequence(0, 1000000) ts," +
+                " cast(rnd_int(0, 3, 3) * 1000000L as timestamp) ts2," +
+                " cast(rnd_int(0, 3, 3) * 1000000L as timestamp) ts3" +
+                " from long_sequence(100))", sqlExecutionContext);
+    }
+}
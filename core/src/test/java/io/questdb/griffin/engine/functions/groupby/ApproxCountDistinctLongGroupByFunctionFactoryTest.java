@@ -0,0 +1,143 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class ApproxCountDistinctLongGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "a\tapprox_count_distinct\n" +
+                        "a\t2\n" +
+                        "f\t3\n" +
+                        "c\t1\n" +
+                        "e\t4\n" +
+                        "d\t4\n" +
+                        "b\t1\n",
+                "select a, approx_count_distinct(s) from x",
+                "create table x as (select * from (select rnd_symbol('a','b','c','d','e','f') a, rnd_long(0, 16, 0) s, timestamp_sequence(0, 100000) ts from long_sequence(20)) timestamp(ts))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupKeyedLargeCardinality() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x % 3 k, x l from long_sequence(300000))");
+            // sketches switch to dense registers and stay within the standard error
+            assertSql(
+                    "select k, abs(approx_count_distinct(l) - 100000) < 3000 ok from x order by k",
+                    "k\tok\n" +
+                            "0\ttrue\n" +
+                            "1\ttrue\n" +
+                            "2\ttrue\n"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupNotKeyed() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "6\n",
+                "select approx_count_distinct(s) from x",
+                "create table x as (select * from (select rnd_long(1, 6, 0) s, timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedInt() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "6\n",
+                "select approx_count_distinct(s) from x",
+                "create table x as (select * from (select rnd_int(1, 6, 0) s, timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedWithNulls() throws Exception {
+        String expected = "approx_count_distinct\n" +
+                "6\n";
+        assertQuery(
+                expected,
+                "select approx_count_distinct(s) from x",
+                "create table x as (select * from (select rnd_long(1, 6, 0) s, timestamp_sequence(10, 100000) ts from long_sequence(100)) timestamp(ts)) timestamp(ts) PARTITION BY YEAR",
+                null,
+                false,
+                true,
+                true
+        );
+
+        executeInsert("insert into x values(cast(null as LONG), '2021-05-21')");
+        executeInsert("insert into x values(cast(null as LONG), '1970-01-01')");
+        assertSql("select approx_count_distinct(s) from x", expected);
+    }
+
+    @Test
+    public void testMatchesCountDistinct() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select rnd_symbol('a','b','c') a, rnd_long(0, 100, 0) s from long_sequence(1000))");
+            // cardinalities this small are counted exactly
+            TestUtils.assertSqlCursors(
+                    compiler,
+                    sqlExecutionContext,
+                    "select a, count_distinct(s) c from x order by a",
+                    "select a, approx_count_distinct(s) c from x order by a",
+                    LOG
+            );
+        });
+    }
+
+    @Test
+    public void testSampleFill() throws Exception {
+        assertQuery(
+                "ts\tapprox_count_distinct\n" +
+                        "1970-01-01T00:00:00.000000Z\t3\n" +
+                        "1970-01-01T00:00:01.000000Z\t0\n" +
+                        "1970-01-01T00:00:02.000000Z\t2\n",
+                "select ts, approx_count_distinct(s) from x sample by 1s fill(0)",
+                "create table x as (select * from (select x % 3 s, timestamp_sequence(0, 300000) ts from long_sequence(3) union all select x % 2 s, timestamp_sequence(2000000, 300000) ts from long_sequence(2)) timestamp(ts))",
+                "ts",
+                false
+        );
+    }
+}
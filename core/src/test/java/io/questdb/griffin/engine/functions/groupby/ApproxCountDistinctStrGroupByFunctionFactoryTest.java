@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class ApproxCountDistinctStrGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "a\tapprox_count_distinct\n" +
+                        "a\t2\n" +
+                        "b\t1\n" +
+                        "c\t3\n",
+                "select a, approx_count_distinct(s) from x order by a",
+                "create table x as (select * from (" +
+                        "select 'a' a, 'x' s from long_sequence(1) union all " +
+                        "select 'a' a, 'y' s from long_sequence(1) union all " +
+                        "select 'b' a, 'x' s from long_sequence(2) union all " +
+                        "select 'c' a, cast(x as string) s from long_sequence(3) union all " +
+                        "select 'c' a, cast(null as string) s from long_sequence(1)" +
+                        "))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupKeyedLargeCardinality() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x % 2 k, rnd_str(12, 12, 0) s from long_sequence(200000))");
+            assertSql(
+                    "select k, abs(approx_count_distinct(s) - 100000) < 3000 ok from x order by k",
+                    "k\tok\n" +
+                            "0\ttrue\n" +
+                            "1\ttrue\n"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupKeyedSymbol() throws Exception {
+        assertQuery(
+                "k\tapprox_count_distinct\n" +
+                        "0\t3\n" +
+                        "1\t3\n",
+                "select k, approx_count_distinct(s) from x order by k",
+                "create table x as (select * from (select x % 2 k, rnd_symbol('a','b','c') s from long_sequence(100)))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedSymbol() throws Exception {
+        assertQuery(
+                "approx_count_distinct\n" +
+                        "3\n",
+                "select approx_count_distinct(s) from x",
+                "create table x as (select * from (select rnd_symbol('a','b','c', null) s, timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts))",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
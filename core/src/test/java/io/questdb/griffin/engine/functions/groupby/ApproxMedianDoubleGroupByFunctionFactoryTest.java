@@ -0,0 +1,75 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class ApproxMedianDoubleGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "k\tapprox_median\n" +
+                        "0\t51.0\n" +
+                        "1\t50.0\n",
+                "select k, approx_median(x) from x order by k",
+                "create table x as (select x % 2 k, x from long_sequence(100))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyed() throws Exception {
+        assertQuery(
+                "approx_median\n" +
+                        "2.5\n",
+                "select approx_median(d) from x",
+                "create table x as (select cast(x as double) d, timestamp_sequence(0, 100000) ts from long_sequence(4)) timestamp(ts)",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedEmpty() throws Exception {
+        assertQuery(
+                "approx_median\n" +
+                        "NaN\n",
+                "select approx_median(d) from x",
+                "create table x (d double, ts timestamp) timestamp(ts)",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+}
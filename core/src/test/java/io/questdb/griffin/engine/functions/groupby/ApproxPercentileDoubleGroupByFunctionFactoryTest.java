@@ -0,0 +1,144 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.functions.groupby;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class ApproxPercentileDoubleGroupByFunctionFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testGroupKeyed() throws Exception {
+        assertQuery(
+                "k\tapprox_percentile\n" +
+                        "0\t96.0\n" +
+                        "1\t95.0\n",
+                "select k, approx_percentile(x, 0.95) from x order by k",
+                "create table x as (select x % 2 k, x from long_sequence(100))",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupKeyedLargeDataSet() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select x % 3 k, rnd_double() * 1000 d from long_sequence(300000))");
+            assertSql(
+                    "select k, abs(approx_percentile(d, 0.99) - 990) < 2 ok from x order by k",
+                    "k\tok\n" +
+                            "0\ttrue\n" +
+                            "1\ttrue\n" +
+                            "2\ttrue\n"
+            );
+        });
+    }
+
+    @Test
+    public void testGroupNotKeyed() throws Exception {
+        assertQuery(
+                "approx_percentile\n" +
+                        "90.5\n",
+                "select approx_percentile(d, 0.9) from x",
+                "create table x as (select cast(x as double) d, timestamp_sequence(0, 100000) ts from long_sequence(100)) timestamp(ts)",
+                null,
+                false,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testGroupNotKeyedVectorTypes() throws Exception {
+        assertMemoryLeak(() -> {
+            compile("create table x as (select cast(x as int) i, x l, cast(x as double) d from long_sequence(100))");
+            executeInsert("insert into x values (null, null, null)");
+            assertSql(
+                    "select approx_percentile(i, 0), approx_percentile(l, 0.5), approx_percentile(d, 1) from x",
+                    "approx_percentile\tapprox_percentile1\tapprox_percentile2\n" +
+                            "1.0\t50.5\t100.0\n"
+            );
+        });
+    }
+
+    @Test
+    public void testInvalidPercentile() throws Exception {
+        assertFailure(
+                "select approx_percentile(x, 1.5) from long_sequence(10)",
+                null,
+                28,
+                "percentile must be in [0.0..1.0] range"
+        );
+    }
+
+    @Test
+    public void testNonConstantPercentile() throws Exception {
+        assertFailure(
+                "select approx_percentile(x, x / 10.0) from long_sequence(10)",
+                null,
+                7,
+                "unexpected argument"
+        );
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        assertQuery(
+                "k\tapprox_percentile\n" +
+                        "0\tNaN\n" +
+                        "1\t2.0\n",
+                "select k, approx_percentile(d, 0.5) from x order by k",
+                "create table x as (" +
+                        "select 0 k, cast(null as double) d from long_sequence(2) union all " +
+                        "select 1 k, cast(x as double) d from long_sequence(3) union all " +
+                        "select 1 k, cast(null as double) d from long_sequence(1)" +
+                        ")",
+                null,
+                true,
+                true,
+                true
+        );
+    }
+
+    @Test
+    public void testSampleFill() throws Exception {
+        assertQuery(
+                "ts\tapprox_percentile\n" +
+                        "1970-01-01T00:00:00.000000Z\t2.0\n" +
+                        "1970-01-01T00:00:01.000000Z\t100.0\n" +
+                        "1970-01-01T00:00:02.000000Z\t1.5\n",
+                "select ts, approx_percentile(d, 0.5) from x sample by 1s fill(100)",
+                "create table x as (select * from (" +
+                        "select cast(x as double) d, timestamp_sequence(0, 300000) ts from long_sequence(3) union all " +
+                        "select cast(x as double) d, timestamp_sequence(2000000, 300000) ts from long_sequence(2)" +
+                        ") timestamp(ts))",
+                "ts",
+                false
+        );
+    }
+}
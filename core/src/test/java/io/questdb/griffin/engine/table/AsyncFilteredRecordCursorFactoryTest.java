@@ -31,6 +31,7 @@ import io.questdb.cairo.sql.async.PageFrameReduceTask;
 import io.questdb.cairo.sql.async.PageFrameSequence;
 import io.questdb.griffin.*;
 import io.questdb.griffin.engine.analytic.AnalyticContext;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.jit.JitUtil;
 import io.questdb.mp.*;
 import io.questdb.std.Misc;
@@ -47,6 +48,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static io.questdb.cairo.sql.DataFrameCursorFactory.ORDER_ANY;
 
@@ -183,7 +186,7 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
                 // !!! test depends on thread scheduling
                 // should return the expected result or fail with a CairoException
                 assertQuery(compiler,
-                        "sum\n3354.3807411307785\n",
+                        "sum\n3354.380741130786\n",
                         sql,
                         null,
                         false,
@@ -370,6 +373,18 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
         testNoLimit(true, SqlJitMode.JIT_MODE_ENABLED, AsyncJitFilteredRecordCursorFactory.class);
     }
 
+    @Test
+    public void testOrderByLimit() throws Exception {
+        testOrderByLimit(SqlJitMode.JIT_MODE_DISABLED);
+    }
+
+    @Test
+    public void testOrderByLimitJit() throws Exception {
+        // Disable the test on ARM64.
+        Assume.assumeTrue(JitUtil.isJitSupported());
+        testOrderByLimit(SqlJitMode.JIT_MODE_ENABLED);
+    }
+
     @Test
     public void testPageFrameSequenceJit() throws Exception {
         // Disable the test on ARM64.
@@ -455,6 +470,31 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testPreTouchVarSizeColumnsAndColumnTops() throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            enableColumnPreTouch = true;
+
+            compiler.compile("create table x as (select x, cast(x as string) s, cast(x % 3 as symbol) sym, timestamp_sequence(0, 1000000) t from long_sequence(10000)) timestamp(t) partition by hour", sqlExecutionContext);
+            compile("alter table x add column b binary", sqlExecutionContext);
+            compile("alter table x add column i int", sqlExecutionContext);
+            executeInsert("insert into x values (12500, '12500', '2', 10000000000, null, 42)");
+            final String sql = "select x, s, sym, t, i from x where x % 2500 = 0";
+            final String expected = "x\ts\tsym\tt\ti\n" +
+                    "2500\t2500\t1\t1970-01-01T00:41:39.000000Z\tNaN\n" +
+                    "5000\t5000\t2\t1970-01-01T01:23:19.000000Z\tNaN\n" +
+                    "7500\t7500\t0\t1970-01-01T02:04:59.000000Z\tNaN\n" +
+                    "10000\t10000\t1\t1970-01-01T02:46:39.000000Z\tNaN\n" +
+                    "12500\t12500\t2\t1970-01-01T02:46:40.000000Z\t42\n";
+
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_DISABLED);
+            assertQuery(compiler, expected, sql, "t", true, sqlExecutionContext, false);
+
+            sqlExecutionContext.setJitMode(SqlJitMode.JIT_MODE_ENABLED);
+            assertQuery(compiler, expected, sql, "t", true, sqlExecutionContext, false);
+        });
+    }
+
     @Test
     public void testSymbolEqualsBindVariableFilter() throws Exception {
         testSymbolEqualsBindVariableFilter(SqlJitMode.JIT_MODE_DISABLED, AsyncFilteredRecordCursorFactory.class);
@@ -506,6 +546,22 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    private static void assertTopKFilterRows(
+            SqlCompiler compiler,
+            SqlExecutionContext sqlExecutionContext,
+            String sql,
+            int limit
+    ) throws SqlException {
+        final StringSink plan = new StringSink();
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain analyze " + sql, plan);
+        final Matcher matcher = Pattern.compile("Async(Jit)?FilteredRecordCursorFactory \\(actual rows=(\\d+)").matcher(plan);
+        Assert.assertTrue(plan.toString(), matcher.find());
+        final long rows = Long.parseLong(matcher.group(2));
+        // without top N candidates workers would pass on all 33333 matching rows
+        Assert.assertTrue(plan.toString(), rows >= limit);
+        Assert.assertTrue(plan.toString(), rows < 1000);
+    }
+
     private void resetTaskCapacities() {
         // Tests that involve LIMIT clause may lead to only a fraction of the page frames being
         // reduced and/or collected before the factory gets closed. When that happens, row id and
@@ -640,6 +696,70 @@ public class AsyncFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
         });
     }
 
+    private void testOrderByLimit(int jitMode) throws Exception {
+        withPool((engine, compiler, sqlExecutionContext) -> {
+            sqlExecutionContext.setJitMode(jitMode);
+            compiler.compile("create table x as (select x, (x * 7919) % 100003 a, x % 10 b, timestamp_sequence(0, 100000) t from long_sequence(100000)) timestamp(t) partition by hour", sqlExecutionContext);
+
+            final String sql = "x where x % 3 = 0 order by a desc limit 5";
+            try (RecordCursorFactory f = compiler.compile(sql, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(LimitedSizeSortedLightRecordCursorFactory.class, f.getClass());
+            }
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    sql,
+                    sink,
+                    "x\ta\tb\tt\n" +
+                            "5367\t100001\t7\t1970-01-01T00:08:56.600000Z\n" +
+                            "10734\t99999\t4\t1970-01-01T00:17:53.300000Z\n" +
+                            "16101\t99997\t1\t1970-01-01T00:26:50.000000Z\n" +
+                            "21468\t99995\t8\t1970-01-01T00:35:46.700000Z\n" +
+                            "26835\t99993\t5\t1970-01-01T00:44:43.400000Z\n"
+            );
+            // the filter matches 33333 rows, workers pass at most 5 rows per frame on to the top N tree
+            assertTopKFilterRows(compiler, sqlExecutionContext, sql, 5);
+
+            // last N rows; the variants select all columns, a projection would hide the filter from top N
+            final String lastNSql = "x where x % 3 = 0 order by a limit -3";
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    lastNSql,
+                    sink,
+                    "x\ta\tb\tt\n" +
+                            "16101\t99997\t1\t1970-01-01T00:26:50.000000Z\n" +
+                            "10734\t99999\t4\t1970-01-01T00:17:53.300000Z\n" +
+                            "5367\t100001\t7\t1970-01-01T00:08:56.600000Z\n"
+            );
+            assertTopKFilterRows(compiler, sqlExecutionContext, lastNSql, 3);
+
+            // first N rows with an offset
+            final String offsetSql = "x where x % 3 = 0 order by b desc, x limit 2, 5";
+            TestUtils.assertSql(
+                    compiler,
+                    sqlExecutionContext,
+                    offsetSql,
+                    sink,
+                    "x\ta\tb\tt\n" +
+                            "69\t46396\t9\t1970-01-01T00:00:06.800000Z\n" +
+                            "99\t83960\t9\t1970-01-01T00:00:09.800000Z\n" +
+                            "129\t21521\t9\t1970-01-01T00:00:12.800000Z\n"
+            );
+            assertTopKFilterRows(compiler, sqlExecutionContext, offsetSql, 5);
+
+            // rows tied with the N-th row of a frame are kept, so ties resolve as in serial execution
+            final String tiesSql = "x where x % 3 = 0 order by b desc limit 3";
+            final String tiesExpected = "x\ta\tb\tt\n" +
+                    "69\t46396\t9\t1970-01-01T00:00:06.800000Z\n" +
+                    "39\t8832\t9\t1970-01-01T00:00:03.800000Z\n" +
+                    "9\t71271\t9\t1970-01-01T00:00:00.800000Z\n";
+            TestUtils.assertSql(compiler, sqlExecutionContext, tiesSql, sink, tiesExpected);
+            AbstractCairoTest.enableParallelFilter = false;
+            TestUtils.assertSql(compiler, sqlExecutionContext, tiesSql, sink, tiesExpected);
+        });
+    }
+
     private void testPageFrameSequence(int jitMode, Class<?> expectedFactoryClass) throws Exception {
         withPool((engine, compiler, sqlExecutionContext) -> {
             sqlExecutionContext.setJitMode(jitMode);
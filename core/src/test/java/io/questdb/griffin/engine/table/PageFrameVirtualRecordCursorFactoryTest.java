@@ -0,0 +1,195 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PageFrameVirtualRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testArithmeticOverAllNumericTypes() throws Exception {
+        pageFrameMaxRows = 1500;
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " rnd_double(2) d," +
+                    " rnd_float(2) f," +
+                    " rnd_int(-1000, 1000, 2) i," +
+                    " rnd_long(-1000, 1000, 2) l," +
+                    " rnd_short() s," +
+                    " rnd_byte() b," +
+                    " timestamp_sequence(0, 60000000) ts" +
+                    " from long_sequence(5000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            assertVectorized(
+                    "select ts, d * i a, (d + l) / 2 b, -(d - f) c, s + b * 1.5 e, cast(i as double) / -2 g," +
+                            " d * 0 h, d / 0 j, 3 - d k from x"
+            );
+        });
+    }
+
+    @Test
+    public void testColumnTops() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " rnd_double() d," +
+                    " timestamp_sequence(0, 60000000) ts" +
+                    " from long_sequence(1500)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compile("alter table x add column l long", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_double(), timestamp_sequence(90000000000, 60000000), x from long_sequence(1500)", sqlExecutionContext);
+
+            assertVectorized("select d, l, l * 2.0 + d a from x");
+        });
+    }
+
+    @Test
+    public void testMixedProjections() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " rnd_symbol('A','B','C') sym," +
+                    " rnd_str('foo','bar') str," +
+                    " rnd_double() bid," +
+                    " rnd_double() ask," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(5)) timestamp(ts)", sqlExecutionContext);
+
+            final String query = "select sym, concat(str, '_') str, (bid + ask) / 2 mid, ts from x";
+            assertVectorized(query);
+            assertQuery(
+                    "sym\tstr\tmid\tts\n" +
+                            "A\tfoo_\t0.15474988828766628\t1970-01-01T00:00:00.000000Z\n" +
+                            "C\tbar_\t0.42766691048215383\t1970-01-01T00:00:01.000000Z\n" +
+                            "B\tbar_\t0.6050762465741543\t1970-01-01T00:00:02.000000Z\n" +
+                            "A\tfoo_\t0.6932525528703881\t1970-01-01T00:00:03.000000Z\n" +
+                            "A\tfoo_\t0.29833715061359745\t1970-01-01T00:00:04.000000Z\n",
+                    query,
+                    "ts",
+                    true,
+                    true
+            );
+        });
+    }
+
+    @Test
+    public void testNotVectorized() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select" +
+                    " rnd_double() d," +
+                    " rnd_int() i," +
+                    " rnd_float() f," +
+                    " timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(5)) timestamp(ts)", sqlExecutionContext);
+
+            // integer and float arithmetic, bare columns and non-arithmetic functions
+            assertNotVectorized("select i + i, f * f, d, abs(d) from x");
+            // descending scan
+            assertNotVectorized("select d * 2 from x order by ts desc");
+            // filtered scan
+            assertNotVectorized("select d * 2 from x where i > 0");
+        });
+    }
+
+    @Test
+    public void testOrderBy() throws Exception {
+        pageFrameMaxRows = 1500;
+        assertMemoryLeak(() -> {
+            createRandomAccessTable();
+            assertSortedVectorized("select l, l + d * 10 a from x order by a");
+            assertSortedVectorized("select l, ts, l + d * 10 a, d / 2 b from x order by b desc, ts");
+        });
+    }
+
+    @Test
+    public void testOrderByLimit() throws Exception {
+        pageFrameMaxRows = 1500;
+        assertMemoryLeak(() -> {
+            createRandomAccessTable();
+            assertSortedVectorized("select l, l + d * 10 a from x order by a limit 2000");
+            assertSortedVectorized("select l, l + d * 10 a from x order by a desc limit 10");
+        });
+    }
+
+    private void assertNotVectorized(String query) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertFalse(query, factory instanceof PageFrameVirtualRecordCursorFactory);
+        }
+    }
+
+    private void assertSortedVectorized(String query) throws SqlException {
+        final StringSink expected = new StringSink();
+        enableColumnarProjection = false;
+        try {
+            TestUtils.printSql(compiler, sqlExecutionContext, query, expected);
+        } finally {
+            enableColumnarProjection = null;
+        }
+
+        TestUtils.printSql(compiler, sqlExecutionContext, "explain " + query, sink);
+        TestUtils.assertContains(sink, "VirtualRecordCursorFactory vectorized=true");
+        TestUtils.printSql(compiler, sqlExecutionContext, query, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+
+    private void assertVectorized(String query) throws SqlException {
+        final StringSink expected = new StringSink();
+        enableColumnarProjection = false;
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof VirtualRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                TestUtils.printCursor(cursor, factory.getMetadata(), true, expected, printer);
+            }
+        } finally {
+            enableColumnarProjection = null;
+        }
+
+        try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+            Assert.assertTrue(factory instanceof PageFrameVirtualRecordCursorFactory);
+            try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+                TestUtils.assertEquals(expected, sink);
+
+                // second pass goes through page frames that are already cached
+                cursor.toTop();
+                TestUtils.printCursor(cursor, factory.getMetadata(), true, sink, printer);
+                TestUtils.assertEquals(expected, sink);
+            }
+        }
+    }
+
+    private void createRandomAccessTable() throws SqlException {
+        // several partitions, each of which spans more than one kernel block
+        compiler.compile("create table x as (select" +
+                " rnd_double(2) d," +
+                " x l," +
+                " timestamp_sequence(0, 60000000) ts" +
+                " from long_sequence(5000)) timestamp(ts) partition by DAY", sqlExecutionContext);
+    }
+}
@@ -122,6 +122,36 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         }
     }
 
+    @Test
+    public void testBetweenOperator() throws Exception {
+        // bounds are put in order
+        serialize("atimestamp between 10 and 1");
+        assertIR("(i64 10L)(i64 atimestamp)(<=)(i64 1L)(i64 atimestamp)(>=)(&&)(ret)");
+    }
+
+    @Test
+    public void testBetweenOperatorBindVariables() throws Exception {
+        bindVariableService.clear();
+        bindVariableService.setTimestamp("lo", 42);
+        bindVariableService.setTimestamp("hi", 10);
+        // bind variable values may come in any order, so both orders are checked
+        serialize("atimestamp between :lo and 100");
+        assertIR("(i64 :0)(i64 atimestamp)(<=)(i64 100L)(i64 atimestamp)(>=)(&&)" +
+                "(i64 100L)(i64 atimestamp)(<=)(i64 :1)(i64 atimestamp)(>=)(&&)(||)(ret)");
+    }
+
+    @Test
+    public void testBetweenOperatorDoubleBounds() throws Exception {
+        serialize("adouble between 1.5 and 0.5");
+        assertIR("(f64 1.5D)(f64 adouble)(<=)(f64 0.5D)(f64 adouble)(>=)(&&)(ret)");
+    }
+
+    @Test
+    public void testBetweenOperatorNegativeBound() throws Exception {
+        serialize("along between -10 and 42");
+        assertIR("(i64 42L)(i64 along)(<=)(i64 -10L)(i64 along)(>=)(&&)(ret)");
+    }
+
     @Test
     public void testBindVariables() throws Exception {
         bindVariableService.clear();
@@ -273,6 +303,18 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         }
     }
 
+    @Test
+    public void testInListOperator() throws Exception {
+        serialize("along in (1, 2, -3)");
+        assertIR("(i64 -3L)(i64 along)(=)(i64 2L)(i64 along)(=)(i64 1L)(i64 along)(=)(||)(||)(ret)");
+    }
+
+    @Test
+    public void testInListOperatorSingleValue() throws Exception {
+        serialize("achar in ('a') and anint > 0");
+        assertIR("(i32 0L)(i32 anint)(>)(i16 97L)(i16 achar)(=)(&&)(ret)");
+    }
+
     @Test
     public void testKnownSymbolConstant() throws Exception {
         serialize("asymbol = '" + KNOWN_SYMBOL_1 + "' or anothersymbol = '" + KNOWN_SYMBOL_2 + "'");
@@ -309,6 +351,12 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         assertIR("(i16 0L)(i16 ashort)(neg)(>)(ret)");
     }
 
+    @Test
+    public void testNotInListOperator() throws Exception {
+        serialize("along not in (1, null)");
+        assertIR("(i64 -9223372036854775808L)(i64 along)(=)(i64 1L)(i64 along)(=)(||)(!)(ret)");
+    }
+
     @Test
     public void testNullConstantMixedFloatColumns() throws Exception {
         serialize("afloat + adouble <> null");
@@ -466,6 +514,15 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         assertIR("(i8 1L)(i8 aboolean)(=)(!)(i8 1L)(i8 aboolean)(=)(||)(ret)");
     }
 
+    @Test
+    public void testSymbolInListOperator() throws Exception {
+        serialize("asymbol in ('" + KNOWN_SYMBOL_1 + "', '" + UNKNOWN_SYMBOL + "')");
+        assertIR("(i32 :0)(i32 asymbol)(=)(i32 0L)(i32 asymbol)(=)(||)(ret)");
+
+        Assert.assertEquals(1, bindVarFunctions.size());
+        Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
+    }
+
     @Test
     public void testUnknownSymbolConstant() throws Exception {
         serialize("asymbol = '" + UNKNOWN_SYMBOL + "'");
@@ -476,6 +533,17 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         Assert.assertEquals(UNKNOWN_SYMBOL, bindVarFunctions.get(0).getStr(null));
     }
 
+    @Test(expected = SqlException.class)
+    public void testUnsupportedBetweenNonConstantBound() throws Exception {
+        serialize("atimestamp between along and 10");
+    }
+
+    @Test(expected = SqlException.class)
+    public void testUnsupportedBetweenTimestampLiteralBound() throws Exception {
+        // the filter falls back to Java, see CompiledFilterTest#testBetweenTimestampLiteralFallback
+        serialize("atimestamp between '1970-01-01T00:00:10' and 1");
+    }
+
     @Test(expected = SqlException.class)
     public void testUnsupportedBindVariableType() throws Exception {
         bindVariableService.clear();
@@ -558,6 +626,25 @@ public class CompiledFilterIRSerializerTest extends BaseFunctionFactoryTest {
         serialize("ageolong = #sp052w92p1p8889");
     }
 
+    @Test(expected = SqlException.class)
+    public void testUnsupportedInListNonConstantValue() throws Exception {
+        serialize("along in (1, along)");
+    }
+
+    @Test
+    public void testUnsupportedInListTooLong() throws Exception {
+        StringBuilder sb = new StringBuilder("along in (0");
+        for (int i = 1; i <= MAX_IN_LIST_SIZE; i++) {
+            sb.append(',').append(i);
+        }
+        try {
+            serialize(sb.append(')'));
+            Assert.fail();
+        } catch (SqlException e) {
+            Assert.assertTrue(e.getMessage().contains("unsupported IN list size"));
+        }
+    }
+
     @Test(expected = SqlException.class)
     public void testUnsupportedInvalidGeoHashConstant() throws Exception {
         serialize("ageolong = ##11211");
@@ -0,0 +1,121 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+    @Test
+    public void testClear() {
+        final HyperLogLog hll = new HyperLogLog();
+        for (long i = 0; i < 100_000; i++) {
+            hll.add(Hash.fmix64(i));
+        }
+        Assert.assertTrue(hll.isDense());
+
+        hll.clear();
+        Assert.assertFalse(hll.isDense());
+        Assert.assertEquals(0, hll.computeCardinality());
+        for (long i = 0; i < 10; i++) {
+            hll.add(Hash.fmix64(i));
+        }
+        Assert.assertEquals(10, hll.computeCardinality());
+    }
+
+    @Test
+    public void testDuplicates() {
+        final HyperLogLog hll = new HyperLogLog();
+        for (int r = 0; r < 10; r++) {
+            for (long i = 0; i < 50_000; i++) {
+                hll.add(Hash.fmix64(i));
+            }
+        }
+        assertEstimate(50_000, hll.computeCardinality(), 0.03);
+    }
+
+    @Test
+    public void testEstimateAccuracy() {
+        for (int precision = HyperLogLog.MIN_PRECISION; precision <= HyperLogLog.MAX_PRECISION; precision++) {
+            final HyperLogLog hll = new HyperLogLog(precision);
+            // allow for 4 standard errors
+            final double error = 4 * 1.04 / Math.sqrt(1 << precision);
+            long expected = 0;
+            for (long n : new long[]{100, 1_000, 10_000, 100_000, 1_000_000}) {
+                for (; expected < n; expected++) {
+                    hll.add(Hash.fmix64(expected));
+                }
+                assertEstimate(expected, hll.computeCardinality(), error);
+            }
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        final HyperLogLog a = new HyperLogLog();
+        final HyperLogLog b = new HyperLogLog();
+        final HyperLogLog c = new HyperLogLog();
+
+        // overlapping ranges, one sketch sparse, the other dense
+        for (long i = 0; i < 500; i++) {
+            a.add(Hash.fmix64(i));
+        }
+        for (long i = 250; i < 200_000; i++) {
+            b.add(Hash.fmix64(i));
+        }
+        Assert.assertFalse(a.isDense());
+        Assert.assertTrue(b.isDense());
+
+        c.merge(a);
+        Assert.assertEquals(500, c.computeCardinality());
+        c.merge(b);
+        assertEstimate(200_000, c.computeCardinality(), 0.03);
+
+        // merge is commutative
+        b.merge(a);
+        Assert.assertEquals(c.computeCardinality(), b.computeCardinality());
+    }
+
+    @Test
+    public void testSparseIsExact() {
+        final HyperLogLog hll = new HyperLogLog();
+        Assert.assertEquals(0, hll.computeCardinality());
+        for (int i = 0; i < 1024; i++) {
+            hll.add(Hash.fnv1aMix64("sym" + i));
+            hll.add(Hash.fnv1aMix64("sym" + i));
+            Assert.assertEquals(i + 1, hll.computeCardinality());
+        }
+        Assert.assertFalse(hll.isDense());
+    }
+
+    private static void assertEstimate(long expected, long actual, double error) {
+        Assert.assertTrue(
+                "expected " + expected + ", got " + actual,
+                Math.abs(actual - expected) <= expected * error
+        );
+    }
+}
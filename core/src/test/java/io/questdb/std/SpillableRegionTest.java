@@ -0,0 +1,153 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+import io.questdb.test.tools.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpillableRegionTest {
+    @ClassRule
+    public static final TemporaryFolder temp = new TemporaryFolder();
+    private MemoryAccount prevAccount;
+    private boolean spill;
+    private SpillSpace spillSpace;
+
+    @Before
+    public void setUp() {
+        spillSpace = new SpillSpace(FilesFacadeImpl.INSTANCE, temp.getRoot().getAbsolutePath() + Files.SEPARATOR + "spill", 509);
+        prevAccount = Unsafe.bindMemoryAccount(new MemoryAccount() {
+            @Override
+            public void charge(long size, int memoryTag) {
+            }
+
+            @Override
+            public SpillSpace getSpillSpace(long size) {
+                return spill ? spillSpace : null;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        Unsafe.bindMemoryAccount(prevAccount);
+    }
+
+    @Test
+    public void testMemoryPagesSpill() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final int pageSize = 64 * 1024;
+            try (MemoryPages pages = new MemoryPages(pageSize, Integer.MAX_VALUE)) {
+                final long heapPage = pages.allocateOffset(pageSize);
+                spill = true;
+                final long spilledPage1 = pages.allocateOffset(pageSize);
+                final long spilledPage2 = pages.allocateOffset(pageSize);
+                Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_QUERY_SPILL) >= 2 * pageSize);
+
+                for (long offset : new long[]{heapPage, spilledPage1, spilledPage2}) {
+                    for (long i = 0; i < pageSize; i += Long.BYTES) {
+                        Unsafe.getUnsafe().putLong(pages.addressOf(offset + i), offset + i);
+                    }
+                }
+                for (long offset : new long[]{heapPage, spilledPage1, spilledPage2}) {
+                    for (long i = 0; i < pageSize; i += Long.BYTES) {
+                        Assert.assertEquals(offset + i, Unsafe.getUnsafe().getLong(pages.addressOf(offset + i)));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testNonQueryMemoryDoesNotSpill() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            spill = true;
+            try (SpillableRegion region = new SpillableRegion(MemoryTag.NATIVE_DEFAULT)) {
+                region.resize(1024 * 1024);
+                Assert.assertFalse(region.isSpilled());
+            }
+        });
+    }
+
+    @Test
+    public void testSpillAndUnspill() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (SpillableRegion region = new SpillableRegion(MemoryTag.NATIVE_FAST_MAP)) {
+                fill(region.resize(4096), 0, 4096);
+                Assert.assertFalse(region.isSpilled());
+
+                spill = true;
+                fill(region.resize(1024 * 1024), 4096, 1024 * 1024);
+                Assert.assertTrue(region.isSpilled());
+                Assert.assertEquals(1024 * 1024, Unsafe.getMemUsedByTag(MemoryTag.MMAP_QUERY_SPILL));
+                Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.NATIVE_FAST_MAP));
+
+                // spilled region grows within the file
+                region.resize(2 * 1024 * 1024);
+                Assert.assertTrue(region.isSpilled());
+                assertContent(region.getAddress(), 1024 * 1024);
+
+                // shrinking within the budget moves region back to the heap
+                spill = false;
+                region.resize(8192);
+                Assert.assertFalse(region.isSpilled());
+                Assert.assertEquals(0, Unsafe.getMemUsedByTag(MemoryTag.MMAP_QUERY_SPILL));
+                assertContent(region.getAddress(), 8192);
+            }
+        });
+    }
+
+    @Test
+    public void testSpilledDirectLongList() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (DirectLongList list = new DirectLongList(16, MemoryTag.NATIVE_LONG_LIST, true)) {
+                spill = true;
+                for (int i = 0; i < 100_000; i++) {
+                    list.add(i);
+                }
+                Assert.assertTrue(Unsafe.getMemUsedByTag(MemoryTag.MMAP_QUERY_SPILL) > 0);
+                for (int i = 0; i < 100_000; i++) {
+                    Assert.assertEquals(i, list.get(i));
+                }
+            }
+        });
+    }
+
+    private static void assertContent(long address, long size) {
+        for (long i = 0; i < size; i += Long.BYTES) {
+            Assert.assertEquals(i, Unsafe.getUnsafe().getLong(address + i));
+        }
+    }
+
+    private static void fill(long address, long lo, long hi) {
+        for (long i = lo; i < hi; i += Long.BYTES) {
+            Unsafe.getUnsafe().putLong(address + i, i);
+        }
+    }
+}
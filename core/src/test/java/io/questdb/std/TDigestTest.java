@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2022 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.std;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TDigestTest {
+
+    @Test
+    public void testClear() {
+        final TDigest digest = new TDigest();
+        for (int i = 0; i < 10_000; i++) {
+            digest.add(i);
+        }
+        digest.clear();
+        Assert.assertEquals(0, digest.getCount(), 0);
+        Assert.assertTrue(Double.isNaN(digest.quantile(0.5)));
+
+        digest.add(42);
+        Assert.assertEquals(42, digest.quantile(0.5), 0);
+        Assert.assertEquals(42, digest.quantile(0), 0);
+        Assert.assertEquals(42, digest.quantile(1), 0);
+    }
+
+    @Test
+    public void testEmpty() {
+        final TDigest digest = new TDigest();
+        Assert.assertTrue(Double.isNaN(digest.quantile(0.5)));
+        digest.add(Double.NaN);
+        digest.add(Double.POSITIVE_INFINITY);
+        Assert.assertTrue(Double.isNaN(digest.quantile(0.5)));
+    }
+
+    @Test
+    public void testMerge() {
+        final Rnd rnd = new Rnd();
+        final int n = 100_000;
+        final double[] values = new double[n];
+        final TDigest all = new TDigest();
+        final TDigest[] parts = new TDigest[4];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new TDigest();
+        }
+        for (int i = 0; i < n; i++) {
+            values[i] = rnd.nextDouble() * 1000;
+            all.add(values[i]);
+            parts[i % parts.length].add(values[i]);
+        }
+        final TDigest merged = new TDigest();
+        for (TDigest part : parts) {
+            merged.merge(part);
+        }
+        Assert.assertEquals(n, merged.getCount(), 0);
+
+        Arrays.sort(values);
+        for (double q : new double[]{0.001, 0.01, 0.25, 0.5, 0.75, 0.99, 0.999}) {
+            assertQuantile(values, q, merged.quantile(q));
+            assertQuantile(values, q, all.quantile(q));
+        }
+    }
+
+    @Test
+    public void testSkewedDistribution() {
+        // latency-like distribution with a long tail
+        final Rnd rnd = new Rnd();
+        final int n = 1_000_000;
+        final double[] values = new double[n];
+        final TDigest digest = new TDigest();
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.exp(rnd.nextDouble() * 10);
+            digest.add(values[i]);
+        }
+        // digest size does not depend on the number of values
+        Assert.assertTrue(digest.getCentroidCount() <= 2 * TDigest.DEFAULT_COMPRESSION);
+
+        Arrays.sort(values);
+        for (double q : new double[]{0.5, 0.9, 0.95, 0.99, 0.999}) {
+            assertQuantile(values, q, digest.quantile(q));
+        }
+        Assert.assertEquals(values[0], digest.quantile(0), 0);
+        Assert.assertEquals(values[n - 1], digest.quantile(1), 0);
+    }
+
+    @Test
+    public void testSmallDataSetIsExact() {
+        final TDigest digest = new TDigest();
+        for (int i = 10; i > 0; i--) {
+            digest.add(i);
+        }
+        // linear interpolation between values
+        Assert.assertEquals(5.5, digest.quantile(0.5), 1e-9);
+        Assert.assertEquals(1, digest.quantile(0.05), 1e-9);
+        Assert.assertEquals(9.5, digest.quantile(0.9), 1e-9);
+        Assert.assertEquals(10, digest.quantile(0.95), 1e-9);
+
+        digest.add(11);
+        Assert.assertEquals(6, digest.quantile(0.5), 1e-9);
+    }
+
+    private static void assertQuantile(double[] sorted, double q, double actual) {
+        // compare ranks rather than values, rank error is what the digest bounds
+        int rank = Arrays.binarySearch(sorted, actual);
+        if (rank < 0) {
+            rank = -rank - 1;
+        }
+        final double actualQ = (double) rank / sorted.length;
+        final double tolerance = Math.max(0.0005, q * (1 - q) * 0.02);
+        Assert.assertEquals("q=" + q, q, actualQ, tolerance);
+    }
+}
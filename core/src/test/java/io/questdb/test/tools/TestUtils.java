@@ -1088,6 +1088,13 @@ public final class TestUtils {
                     sink.put(guid.toString());
                 }
                 break;
+            case ColumnType.UUID:
+                long uuidLo = r.getLong128Lo(i);
+                long uuidHi = r.getLong128Hi(i);
+                if (!Uuid.isNull(uuidLo, uuidHi)) {
+                    Uuid.toSink(sink, uuidLo, uuidHi);
+                }
+                break;
             default:
                 break;
         }